@@ -0,0 +1,174 @@
+package biweekly.benchmark;
+
+import java.io.Writer;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * Generates the iCalendar data that the benchmarks operate on. The data is
+ * generated in code so that the size of the input can be scaled without
+ * checking large files into the repository.
+ * @author Michael Angstadt
+ */
+public final class Inputs {
+	/**
+	 * The sizes of the inputs that the parsing and writing benchmarks are run
+	 * against.
+	 */
+	public enum Size {
+		SMALL(10), MEDIUM(1000), LARGE(100000);
+
+		final int events;
+
+		private Size(int events) {
+			this.events = events;
+		}
+	}
+
+	/**
+	 * The timezone definition that the generated events are assigned to (only
+	 * the rules in effect since 2007 are included).
+	 */
+	static final String VTIMEZONE_NEW_YORK =
+	//@formatter:off
+	"BEGIN:VTIMEZONE\r\n" +
+	"TZID:America/New_York\r\n" +
+	"BEGIN:DAYLIGHT\r\n" +
+	"TZOFFSETFROM:-0500\r\n" +
+	"TZOFFSETTO:-0400\r\n" +
+	"TZNAME:EDT\r\n" +
+	"DTSTART:20070311T020000\r\n" +
+	"RRULE:FREQ=YEARLY;BYMONTH=3;BYDAY=2SU\r\n" +
+	"END:DAYLIGHT\r\n" +
+	"BEGIN:STANDARD\r\n" +
+	"TZOFFSETFROM:-0400\r\n" +
+	"TZOFFSETTO:-0500\r\n" +
+	"TZNAME:EST\r\n" +
+	"DTSTART:20071104T020000\r\n" +
+	"RRULE:FREQ=YEARLY;BYMONTH=11;BYDAY=1SU\r\n" +
+	"END:STANDARD\r\n" +
+	"END:VTIMEZONE\r\n";
+	//@formatter:on
+
+	/**
+	 * The recurrence rules that are assigned to every fourth generated event.
+	 */
+	private static final String[] RRULES = {
+	//@formatter:off
+		"FREQ=DAILY;INTERVAL=2;COUNT=30",
+		"FREQ=WEEKLY;BYDAY=MO,WE,FR;UNTIL=20181231T235959Z",
+		"FREQ=MONTHLY;BYMONTHDAY=15",
+		"FREQ=YEARLY;BYMONTH=6;BYDAY=-1FR"
+	//@formatter:on
+	};
+
+	/**
+	 * Generates a plain-text iCalendar object.
+	 * @param events the number of VEVENT components to include
+	 * @return the iCalendar object
+	 */
+	static String ical(int events) {
+		StringBuilder sb = new StringBuilder(events * 600);
+		sb.append("BEGIN:VCALENDAR\r\n");
+		sb.append("VERSION:2.0\r\n");
+		sb.append("PRODID:-//biweekly//Benchmarks//EN\r\n");
+		sb.append(VTIMEZONE_NEW_YORK);
+
+		for (int i = 0; i < events; i++) {
+			int month = i % 12 + 1;
+			int day = i % 28 + 1;
+			int hour = 8 + i % 10;
+			String date = "2017" + pad(month) + pad(day) + "T";
+
+			sb.append("BEGIN:VEVENT\r\n");
+			sb.append("UID:event-").append(i).append("@example.com\r\n");
+			sb.append("DTSTAMP:20170101T000000Z\r\n");
+			sb.append("DTSTART;TZID=America/New_York:").append(date).append(pad(hour)).append("0000\r\n");
+			sb.append("DTEND;TZID=America/New_York:").append(date).append(pad(hour + 1)).append("3000\r\n");
+			sb.append("SUMMARY:Meeting number ").append(i).append("\r\n");
+			sb.append("DESCRIPTION:Agenda: review the numbers\\, discuss next steps\\; assign owners.\\nBring a laptop.\r\n");
+			sb.append("LOCATION:Conference room ").append(i % 20).append("\r\n");
+			sb.append("CATEGORIES:WORK,MEETING\r\n");
+			sb.append("STATUS:CONFIRMED\r\n");
+			sb.append("SEQUENCE:").append(i % 3).append("\r\n");
+			sb.append("ORGANIZER;CN=Jane Doe:mailto:jane.doe@example.com\r\n");
+			sb.append("ATTENDEE;ROLE=REQ-PARTICIPANT;PARTSTAT=ACCEPTED;CN=John Smith:mailto:john.smith@example.com\r\n");
+			sb.append("ATTENDEE;ROLE=OPT-PARTICIPANT;PARTSTAT=NEEDS-ACTION;RSVP=TRUE:mailto:team@example.com\r\n");
+			if (i % 4 == 0) {
+				sb.append("RRULE:").append(RRULES[(i / 4) % RRULES.length]).append("\r\n");
+				sb.append("EXDATE;TZID=America/New_York:").append("2018").append(pad(month)).append(pad(day)).append('T').append(pad(hour)).append("0000\r\n");
+			}
+			sb.append("BEGIN:VALARM\r\n");
+			sb.append("ACTION:DISPLAY\r\n");
+			sb.append("DESCRIPTION:Reminder\r\n");
+			sb.append("TRIGGER:-PT15M\r\n");
+			sb.append("END:VALARM\r\n");
+			sb.append("END:VEVENT\r\n");
+		}
+
+		sb.append("END:VCALENDAR\r\n");
+		return sb.toString();
+	}
+
+	private static String pad(int n) {
+		return (n < 10) ? "0" + n : Integer.toString(n);
+	}
+
+	/**
+	 * A {@link Writer} that discards everything written to it, so that the
+	 * writing benchmarks do not measure the cost of buffering the output.
+	 */
+	static class NullWriter extends Writer {
+		@Override
+		public void write(char[] cbuf, int off, int len) {
+			//empty
+		}
+
+		@Override
+		public void write(String str, int off, int len) {
+			//empty
+		}
+
+		@Override
+		public void write(int c) {
+			//empty
+		}
+
+		@Override
+		public void flush() {
+			//empty
+		}
+
+		@Override
+		public void close() {
+			//empty
+		}
+	}
+
+	private Inputs() {
+		//hide
+	}
+}
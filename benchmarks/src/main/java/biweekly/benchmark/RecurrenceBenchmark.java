@@ -0,0 +1,128 @@
+package biweekly.benchmark;
+
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import biweekly.Biweekly;
+import biweekly.ICalendar;
+import biweekly.component.VEvent;
+import biweekly.io.TimezoneInfo;
+import biweekly.util.Google2445Utils;
+import biweekly.util.com.google.ical.compat.javautil.DateIterator;
+import biweekly.util.com.google.ical.iter.LongRecurrenceIterator;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * Measures how quickly recurring events are expanded by
+ * {@link Google2445Utils#getDateIterator} and
+ * {@link Google2445Utils#getLongRecurrenceIterator}.
+ * @author Michael Angstadt
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RecurrenceBenchmark {
+	/**
+	 * The recurrence rule of the event that is expanded.
+	 */
+	@Param({ "FREQ=DAILY", "FREQ=WEEKLY;BYDAY=MO,WE,FR", "FREQ=MONTHLY;BYMONTHDAY=15", "FREQ=MONTHLY;BYDAY=-1FR;BYSETPOS=-1", "FREQ=YEARLY;BYMONTH=3;BYDAY=2SU" })
+	public String rrule;
+
+	/**
+	 * The maximum number of occurrences to retrieve from the iterator.
+	 */
+	@Param({ "1000" })
+	public int limit;
+
+	private VEvent event;
+	private TimeZone timezone;
+
+	@Setup
+	public void setup() {
+		//@formatter:off
+		String text =
+		"BEGIN:VCALENDAR\r\n" +
+		"VERSION:2.0\r\n" +
+		Inputs.VTIMEZONE_NEW_YORK +
+		"BEGIN:VEVENT\r\n" +
+		"UID:recurring@example.com\r\n" +
+		"DTSTART;TZID=America/New_York:20170102T090000\r\n" +
+		"RRULE:" + rrule + "\r\n" +
+		"EXDATE;TZID=America/New_York:20170104T090000,20170106T090000,20170315T090000\r\n" +
+		"END:VEVENT\r\n" +
+		"END:VCALENDAR\r\n";
+		//@formatter:on
+
+		ICalendar ical = Biweekly.parse(text).first();
+		event = ical.getEvents().get(0);
+
+		TimezoneInfo tzinfo = ical.getTimezoneInfo();
+		timezone = tzinfo.getTimezone(event.getDateStart()).getTimeZone();
+	}
+
+	@Benchmark
+	public void expand(Blackhole bh) {
+		DateIterator it = Google2445Utils.getDateIterator(event, timezone);
+		for (int i = 0; i < limit && it.hasNext(); i++) {
+			bh.consume(it.next());
+		}
+	}
+
+	@Benchmark
+	public void expandMillis(Blackhole bh) {
+		LongRecurrenceIterator it = Google2445Utils.getLongRecurrenceIterator(event, timezone);
+		for (int i = 0; i < limit && it.hasNext(); i++) {
+			bh.consume(it.nextMillis());
+		}
+	}
+
+	@Benchmark
+	public void expandFromOneYearOut(Blackhole bh) {
+		DateIterator it = Google2445Utils.getDateIterator(event, timezone);
+		it.advanceTo(new Date(event.getDateStart().getValue().getTime() + TimeUnit.DAYS.toMillis(365)));
+		for (int i = 0; i < limit && it.hasNext(); i++) {
+			bh.consume(it.next());
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package biweekly.benchmark;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import biweekly.Biweekly;
+import biweekly.ICalendar;
+import biweekly.component.VTimezone;
+import biweekly.io.ICalTimeZone;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * Measures how quickly {@link ICalTimeZone} calculates UTC offsets.
+ * @author Michael Angstadt
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TimezoneBenchmark {
+	private static final int INSTANTS = 1024;
+
+	private ICalTimeZone timezone;
+	private final long[] instants = new long[INSTANTS];
+	private final int[][] fields = new int[INSTANTS][];
+
+	@Setup
+	public void setup() {
+		String text = "BEGIN:VCALENDAR\r\nVERSION:2.0\r\n" + Inputs.VTIMEZONE_NEW_YORK + "END:VCALENDAR\r\n";
+		ICalendar ical = Biweekly.parse(text).first();
+		VTimezone component = ical.getTimezoneInfo().getComponents().iterator().next();
+		timezone = new ICalTimeZone(component);
+
+		/*
+		 * Spread the instants across 30 years so that both observances and
+		 * many different years are hit.
+		 */
+		Calendar c = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+		c.clear();
+		c.set(2007, Calendar.JANUARY, 1);
+		long start = c.getTimeInMillis();
+		long span = TimeUnit.DAYS.toMillis(365L * 30);
+		Random random = new Random(42);
+		for (int i = 0; i < INSTANTS; i++) {
+			long instant = start + (long) (random.nextDouble() * span);
+			instants[i] = instant;
+
+			c.setTimeInMillis(instant);
+			//@formatter:off
+			fields[i] = new int[] {
+				c.get(Calendar.ERA),
+				c.get(Calendar.YEAR),
+				c.get(Calendar.MONTH),
+				c.get(Calendar.DATE),
+				c.get(Calendar.DAY_OF_WEEK),
+				c.get(Calendar.MILLISECOND) + 1000 * (c.get(Calendar.SECOND) + 60 * (c.get(Calendar.MINUTE) + 60 * c.get(Calendar.HOUR_OF_DAY)))
+			};
+			//@formatter:on
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(INSTANTS)
+	public long getOffsetFromInstant() {
+		long sum = 0;
+		for (long instant : instants) {
+			sum += timezone.getOffset(instant);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(INSTANTS)
+	public long getOffsetFromFields() {
+		long sum = 0;
+		for (int[] f : fields) {
+			sum += timezone.getOffset(f[0], f[1], f[2], f[3], f[4], f[5]);
+		}
+		return sum;
+	}
+}
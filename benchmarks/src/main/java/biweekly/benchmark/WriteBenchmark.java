@@ -0,0 +1,104 @@
+package biweekly.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import biweekly.Biweekly;
+import biweekly.ICalVersion;
+import biweekly.ICalendar;
+import biweekly.benchmark.Inputs.NullWriter;
+import biweekly.benchmark.Inputs.Size;
+import biweekly.io.json.JCalWriter;
+import biweekly.io.text.ICalWriter;
+import biweekly.io.xml.XCalWriter;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * Measures how quickly iCalendar objects are serialized to plain-text, JSON,
+ * and XML. The output is discarded so that only the cost of serialization is
+ * measured.
+ * @author Michael Angstadt
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class WriteBenchmark {
+	@Param({ "SMALL", "MEDIUM", "LARGE" })
+	public Size size;
+
+	private ICalendar ical;
+
+	@Setup
+	public void setup() {
+		ical = Biweekly.parse(Inputs.ical(size.events)).first();
+	}
+
+	@Benchmark
+	public void iCal() throws IOException {
+		ICalWriter writer = new ICalWriter(new NullWriter(), ICalVersion.V2_0);
+		try {
+			writer.write(ical);
+		} finally {
+			writer.close();
+		}
+	}
+
+	@Benchmark
+	public void jCal() throws IOException {
+		JCalWriter writer = new JCalWriter(new NullWriter());
+		try {
+			writer.write(ical);
+		} finally {
+			writer.close();
+		}
+	}
+
+	@Benchmark
+	public void xCal() throws IOException {
+		XCalWriter writer = new XCalWriter(new NullWriter());
+		try {
+			writer.write(ical);
+		} finally {
+			writer.close();
+		}
+	}
+}
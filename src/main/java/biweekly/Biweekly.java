@@ -25,6 +25,7 @@ import biweekly.io.text.ICalReader;
 import biweekly.io.text.ICalWriter;
 import biweekly.io.xml.XCalDocument;
 import biweekly.util.IOUtils;
+import biweekly.util.MappedUtf8Reader;
 
 /*
  Copyright (c) 2013-2017, Michael Angstadt
@@ -265,7 +266,8 @@ public final class Biweekly {
 	}
 
 	/**
-	 * Parses an iCalendar file.
+	 * Parses an iCalendar file. The file is memory-mapped and decoded as UTF-8
+	 * (see {@link MappedUtf8Reader}).
 	 * @param file the iCalendar file
 	 * @return chainer object for completing the parse operation
 	 */
@@ -41,6 +41,8 @@ import biweekly.property.Source;
 import biweekly.property.Uid;
 import biweekly.property.Url;
 import biweekly.util.Duration;
+import biweekly.util.Occurrence;
+import biweekly.util.RecurrenceExpander;
 
 /*
  Copyright (c) 2013-2017, Michael Angstadt
@@ -945,6 +947,25 @@ public class ICalendar extends ICalComponent {
 		addComponent(freeBusy);
 	}
 
+	/**
+	 * <p>
+	 * Gets the occurrences of the events, to-dos, and journal entries in this
+	 * iCalendar object that overlap the given window of time.
+	 * </p>
+	 * <p>
+	 * Components that share the same UID are treated as a single series, so
+	 * occurrences that are overridden by a component with a RECURRENCE-ID
+	 * property are replaced by that component.
+	 * </p>
+	 * @param windowStart the start of the window (inclusive)
+	 * @param windowEnd the end of the window (exclusive)
+	 * @return the occurrences, in ascending order of start date
+	 * @see RecurrenceExpander
+	 */
+	public List<Occurrence> getOccurrences(Date windowStart, Date windowEnd) {
+		return new RecurrenceExpander(this).getOccurrences(windowStart, windowEnd);
+	}
+
 	/**
 	 * <p>
 	 * Checks this iCalendar object for data consistency problems or deviations
@@ -4,8 +4,10 @@ import java.lang.reflect.Constructor;
 import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import biweekly.ICalDataType;
 import biweekly.ICalVersion;
@@ -52,6 +54,11 @@ public abstract class ICalComponent {
 	protected final ListMultimap<Class<? extends ICalComponent>, ICalComponent> components;
 	protected final ListMultimap<Class<? extends ICalProperty>, ICalProperty> properties;
 
+	/**
+	 * The properties that have not been parsed yet or null if there are none.
+	 */
+	private List<DeferredProperty> deferredProperties;
+
 	public ICalComponent() {
 		components = new ListMultimap<Class<? extends ICalComponent>, ICalComponent>();
 		properties = new ListMultimap<Class<? extends ICalProperty>, ICalProperty>();
@@ -64,6 +71,7 @@ public abstract class ICalComponent {
 	 */
 	protected ICalComponent(ICalComponent original) {
 		this();
+		original.parseDeferredProperties();
 		for (ICalProperty property : original.properties.values()) {
 			addProperty(property.copy());
 		}
@@ -79,6 +87,7 @@ public abstract class ICalComponent {
 	 * @return the property or null if not found
 	 */
 	public <T extends ICalProperty> T getProperty(Class<T> clazz) {
+		parseDeferredProperties(clazz);
 		return clazz.cast(properties.first(clazz));
 	}
 
@@ -98,6 +107,7 @@ public abstract class ICalComponent {
 	 * @return the properties
 	 */
 	public ListMultimap<Class<? extends ICalProperty>, ICalProperty> getProperties() {
+		parseDeferredProperties();
 		return properties;
 	}
 
@@ -106,6 +116,7 @@ public abstract class ICalComponent {
 	 * @param property the property to add
 	 */
 	public void addProperty(ICalProperty property) {
+		parseDeferredProperties(property.getClass());
 		properties.put(property.getClass(), property);
 	}
 
@@ -116,6 +127,7 @@ public abstract class ICalComponent {
 	 * @return the replaced properties (this list is immutable)
 	 */
 	public List<ICalProperty> setProperty(ICalProperty property) {
+		parseDeferredProperties(property.getClass());
 		return properties.replace(property.getClass(), property);
 	}
 
@@ -130,6 +142,7 @@ public abstract class ICalComponent {
 	 * @return the replaced properties (this list is immutable)
 	 */
 	public <T extends ICalProperty> List<T> setProperty(Class<T> clazz, T property) {
+		parseDeferredProperties(clazz);
 		List<ICalProperty> replaced = properties.replace(clazz, property);
 		return castList(replaced, clazz);
 	}
@@ -152,10 +165,105 @@ public abstract class ICalComponent {
 	 * @return the removed properties (this list is immutable)
 	 */
 	public <T extends ICalProperty> List<T> removeProperties(Class<T> clazz) {
+		parseDeferredProperties(clazz);
 		List<ICalProperty> removed = properties.removeAll(clazz);
 		return castList(removed, clazz);
 	}
 
+	/**
+	 * <p>
+	 * Adds a property whose value will not be parsed until the property is
+	 * first retrieved from this component (for example, by calling
+	 * {@link #getProperty(Class)} or {@link #getProperties(Class)}).
+	 * </p>
+	 * <p>
+	 * This method is used by the iCalendar reader when lazy parsing is
+	 * enabled. It is not public, so the reader calls it through reflection.
+	 * </p>
+	 * @param propertyClass the class of the property that the value will most
+	 * likely be parsed into
+	 * @param parser parses the property (called at most once). Any components
+	 * that the property is converted into must be added to this component
+	 * by the parser.
+	 * @see biweekly.io.text.ICalReader#setLazyParsing(boolean)
+	 */
+	void addDeferredProperty(Class<? extends ICalProperty> propertyClass, Callable<List<ICalProperty>> parser) {
+		if (deferredProperties == null) {
+			deferredProperties = new ArrayList<DeferredProperty>();
+		}
+		deferredProperties.add(new DeferredProperty(propertyClass, parser));
+	}
+
+	/**
+	 * Parses all the properties whose parsing has been deferred.
+	 */
+	private void parseDeferredProperties() {
+		parseDeferredProperties(null);
+	}
+
+	/**
+	 * Parses the properties of the given class whose parsing has been
+	 * deferred.
+	 * @param clazz the property class or null to parse all deferred properties
+	 */
+	private void parseDeferredProperties(Class<? extends ICalProperty> clazz) {
+		if (deferredProperties == null) {
+			return;
+		}
+
+		/*
+		 * Properties that cannot be parsed become RawProperty objects, so all
+		 * of them must be parsed when RawProperty objects are requested.
+		 */
+		List<DeferredProperty> toParse;
+		if (clazz == null || clazz == RawProperty.class) {
+			toParse = deferredProperties;
+			deferredProperties = null;
+		} else {
+			toParse = new ArrayList<DeferredProperty>();
+			Iterator<DeferredProperty> it = deferredProperties.iterator();
+			while (it.hasNext()) {
+				DeferredProperty deferred = it.next();
+				if (deferred.propertyClass == clazz) {
+					toParse.add(deferred);
+					it.remove();
+				}
+			}
+			if (deferredProperties.isEmpty()) {
+				deferredProperties = null;
+			}
+		}
+
+		for (DeferredProperty deferred : toParse) {
+			for (ICalProperty property : deferred.parse()) {
+				properties.put(property.getClass(), property);
+			}
+		}
+	}
+
+	/**
+	 * A property whose parsing has been deferred.
+	 */
+	private static class DeferredProperty {
+		private final Class<? extends ICalProperty> propertyClass;
+		private final Callable<List<ICalProperty>> parser;
+
+		public DeferredProperty(Class<? extends ICalProperty> propertyClass, Callable<List<ICalProperty>> parser) {
+			this.propertyClass = propertyClass;
+			this.parser = parser;
+		}
+
+		public List<ICalProperty> parse() {
+			try {
+				return parser.call();
+			} catch (RuntimeException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
 	/**
 	 * Removes a specific sub-component instance from this component.
 	 * @param component the component to remove
@@ -456,6 +564,7 @@ public abstract class ICalComponent {
 	 */
 	public final List<WarningsGroup> validate(List<ICalComponent> hierarchy, ICalVersion version) {
 		List<WarningsGroup> warnings = new ArrayList<WarningsGroup>();
+		parseDeferredProperties();
 
 		//validate this component
 		List<ValidationWarning> warningsBuf = new ArrayList<ValidationWarning>(0);
@@ -590,6 +699,7 @@ public abstract class ICalComponent {
 	}
 
 	private void toString(int depth, StringBuilder sb) {
+		parseDeferredProperties();
 		StringUtils.repeat(' ', depth * 2, sb);
 		sb.append(getClass().getName());
 
@@ -668,6 +778,7 @@ public abstract class ICalComponent {
 		final int prime = 31;
 		int result = 1;
 
+		parseDeferredProperties();
 		int propertiesHash = 1;
 		for (ICalProperty property : properties.values()) {
 			propertiesHash += property.hashCode();
@@ -690,6 +801,8 @@ public abstract class ICalComponent {
 		if (getClass() != obj.getClass()) return false;
 		ICalComponent other = (ICalComponent) obj;
 
+		parseDeferredProperties();
+		other.parseDeferredProperties();
 		if (properties.size() != other.properties.size()) return false;
 		if (components.size() != other.components.size()) return false;
 
@@ -795,6 +908,7 @@ public abstract class ICalComponent {
 		 */
 		public ICalPropertyList(Class<T> propertyClass) {
 			this.propertyClass = propertyClass;
+			parseDeferredProperties(propertyClass);
 			properties = ICalComponent.this.properties.get(propertyClass);
 		}
 
@@ -1679,6 +1679,38 @@ public class VTodo extends ICalComponent {
 		return Google2445Utils.getDateIterator(this, timezone);
 	}
 
+	/**
+	 * Gets the occurrences of this to-do task that overlap the given window of time.
+	 * @param timezone the timezone to iterate in. This is needed in order to
+	 * adjust for when the iterator passes over a daylight savings boundary.
+	 * This parameter is ignored if the start date does not have a time
+	 * component.
+	 * @param windowStart the start of the window (inclusive)
+	 * @param windowEnd the end of the window (exclusive)
+	 * @return the occurrences, sorted by start date
+	 * @see Google2445Utils#getOccurrences
+	 */
+	public List<Period> getOccurrences(TimeZone timezone, Date windowStart, Date windowEnd) {
+		return Google2445Utils.getOccurrences(this, timezone, windowStart, windowEnd);
+	}
+
+	/**
+	 * Gets the latest date of this to-do task that comes before the given date
+	 * (for example, the last time it occurred). Only the dates near the given
+	 * date are computed.
+	 * @param timezone the timezone to iterate in. This is needed in order to
+	 * adjust for when the iterator passes over a daylight savings boundary.
+	 * This parameter is ignored if the start date does not have a time
+	 * component.
+	 * @param date the date (exclusive)
+	 * @return the latest date before the given date or null if there isn't
+	 * one
+	 * @see Google2445Utils#getLastOccurrenceBefore
+	 */
+	public Date getLastOccurrenceBefore(TimeZone timezone, Date date) {
+		return Google2445Utils.getLastOccurrenceBefore(this, timezone, date);
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	protected void validate(List<ICalComponent> components, ICalVersion version, List<ValidationWarning> warnings) {
@@ -0,0 +1,71 @@
+package biweekly.io;
+
+import biweekly.ICalendar;
+import biweekly.component.ICalComponent;
+import biweekly.io.text.ICalReader;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * Receives the top-level components of an iCalendar object one at a time, as
+ * soon as each one has been parsed. This allows very large iCalendar objects
+ * to be processed without holding all of their components in memory at once.
+ * </p>
+ * <p>
+ * <b>Example:</b>
+ * </p>
+ * 
+ * <pre class="brush:java">
+ * ICalReader reader = new ICalReader(file);
+ * try {
+ *   reader.readNext(new ComponentListener() {
+ *     public void onComponent(ICalComponent component, TimezoneInfo tzinfo) {
+ *       if (component instanceof VEvent) {
+ *         //...
+ *       }
+ *     }
+ *   });
+ * } finally {
+ *   reader.close();
+ * }
+ * </pre>
+ * @author Michael Angstadt
+ * @see ICalReader#readNext(ComponentListener)
+ */
+public interface ComponentListener {
+	/**
+	 * Called when a top-level component (such as a VEVENT or VTODO) has been
+	 * completely parsed. The component is not added to the {@link ICalendar}
+	 * object that is being read. VTIMEZONE components are never passed to this
+	 * method.
+	 * @param component the component
+	 * @param tzinfo the timezones that the component's date-time properties
+	 * were parsed under. This can be assigned to a new {@link ICalendar} object
+	 * if the component needs to be written back out.
+	 */
+	void onComponent(ICalComponent component, TimezoneInfo tzinfo);
+}
@@ -34,9 +34,11 @@ import biweekly.util.Recurrence;
 import biweekly.util.UtcOffset;
 import biweekly.util.com.google.ical.iter.RecurrenceIterator;
 import biweekly.util.com.google.ical.iter.RecurrenceIteratorFactory;
+import biweekly.util.com.google.ical.util.TimeUtils;
 import biweekly.util.com.google.ical.values.DateTimeValue;
 import biweekly.util.com.google.ical.values.DateTimeValueImpl;
 import biweekly.util.com.google.ical.values.DateValue;
+import biweekly.util.com.google.ical.values.TimeValue;
 
 /*
  Copyright (c) 2013-2017, Michael Angstadt
@@ -64,16 +66,38 @@ import biweekly.util.com.google.ical.values.DateValue;
  */
 
 /**
- * A timezone that is based on an iCalendar {@link VTimezone} component. This
- * class is not thread safe.
+ * <p>
+ * A timezone that is based on an iCalendar {@link VTimezone} component.
+ * </p>
+ * <p>
+ * The first time an offset is requested, the observances of the component are
+ * compiled into a sorted table of transition times, so that subsequent
+ * lookups are a binary search. The table covers a window of years and is
+ * rebuilt with a larger window when a date outside of it is requested.
+ * Instances of this class can be safely shared between threads, provided that
+ * the wrapped {@link VTimezone} component is not modified.
+ * </p>
  * @author Michael Angstadt
  */
 @SuppressWarnings("serial")
 public class ICalTimeZone extends TimeZone {
+	private static final int DEFAULT_WINDOW_START = 1970;
+	private static final int DEFAULT_WINDOW_END = 2100;
+	private static final int MIN_YEAR = 1;
+	private static final int MAX_YEAR = 9999;
+	private static final int WINDOW_GROWTH = 50;
+	private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+	private static final long MILLIS_PER_YEAR = 31556952000L;
+	private static final int EPOCH_DAY = TimeUtils.fixedFromGregorian(1970, 1, 1);
+
 	private final VTimezone component;
 	private final Map<Observance, List<DateValue>> observanceDateCache;
 	final List<Observance> sortedObservances;
 	private final int rawOffset;
+	private final boolean useDaylightTime;
+	private final int dstSavings;
+	private final int windowStart, windowEnd;
+	private transient volatile TransitionTable transitions;
 	private final TimeZone utc = TimeZone.getTimeZone("UTC");
 	private final Calendar utcCalendar = Calendar.getInstance(utc);
 
@@ -82,7 +106,21 @@ public class ICalTimeZone extends TimeZone {
 	 * @param component the VTIMEZONE component to wrap
 	 */
 	public ICalTimeZone(VTimezone component) {
+		this(component, DEFAULT_WINDOW_START, DEFAULT_WINDOW_END);
+	}
+
+	/**
+	 * Creates a new timezone based on an iCalendar VTIMEZONE component.
+	 * @param component the VTIMEZONE component to wrap
+	 * @param windowStart the first year that the compiled transition table
+	 * should cover (the table is extended if an earlier date is requested)
+	 * @param windowEnd the last year that the compiled transition table should
+	 * cover (the table is extended if a later date is requested)
+	 */
+	public ICalTimeZone(VTimezone component, int windowStart, int windowEnd) {
 		this.component = component;
+		this.windowStart = Math.max(MIN_YEAR, Math.min(windowStart, windowEnd));
+		this.windowEnd = Math.min(MAX_YEAR, Math.max(windowStart, windowEnd));
 
 		int numObservances = component.getStandardTimes().size() + component.getDaylightSavingsTime().size();
 		observanceDateCache = new IdentityHashMap<Observance, List<DateValue>>(numObservances);
@@ -90,6 +128,8 @@ public class ICalTimeZone extends TimeZone {
 		sortedObservances = calculateSortedObservances();
 
 		rawOffset = calculateRawOffset();
+		useDaylightTime = calculateUseDaylightTime();
+		dstSavings = calculateDSTSavings();
 
 		String id = getValue(component.getTimezoneId());
 		if (id != null) {
@@ -165,36 +205,30 @@ public class ICalTimeZone extends TimeZone {
 
 	@Override
 	public int getOffset(int era, int year, int month, int day, int dayOfWeek, int millis) {
-		int hour = millis / 1000 / 60 / 60;
-		millis -= hour * 1000 * 60 * 60;
-		int minute = millis / 1000 / 60;
-		millis -= minute * 1000 * 60;
-		int second = millis / 1000;
+		long localTime = (TimeUtils.fixedFromGregorian(year, month + 1, day) - EPOCH_DAY) * MILLIS_PER_DAY + millis;
 
-		Observance observance = getObservance(year, month + 1, day, hour, minute, second);
-		if (observance == null) {
-			/*
-			 * Find the first observance that has a DTSTART property and a
-			 * TZOFFSETFROM property.
-			 */
-			for (Observance obs : sortedObservances) {
-				ICalDate dateStart = getValue(obs.getDateStart());
-				if (dateStart == null) {
-					continue;
-				}
-
-				UtcOffset offsetFrom = getValue(obs.getTimezoneOffsetFrom());
-				if (offsetFrom == null) {
-					continue;
-				}
+		TransitionTable table = getTransitionTable(localTime);
+		int index = table.indexOf(localTime);
+		return (index < 0) ? table.initialOffset : table.offsets[index];
+	}
 
-				return (int) offsetFrom.getMillis();
-			}
-			return 0;
-		}
+	/**
+	 * Gets the UTC offset that is in effect at the given instant. This method
+	 * is used by {@link Calendar} when it converts an instant to local time.
+	 * @param date the instant (in milliseconds since the epoch)
+	 * @return the UTC offset (in milliseconds)
+	 */
+	@Override
+	public int getOffset(long date) {
+		/*
+		 * The table's window is based on local time, so make sure it covers
+		 * the local time of the instant no matter what the offset is.
+		 */
+		getTransitionTable(date - MILLIS_PER_DAY);
+		TransitionTable table = getTransitionTable(date + MILLIS_PER_DAY);
 
-		UtcOffset offsetTo = getValue(observance.getTimezoneOffsetTo());
-		return (offsetTo == null) ? 0 : (int) offsetTo.getMillis();
+		int index = table.indexOfUtc(date);
+		return (index < 0) ? table.initialOffset : table.offsets[index];
 	}
 
 	@Override
@@ -231,8 +265,14 @@ public class ICalTimeZone extends TimeZone {
 			return false;
 		}
 
-		Observance observance = getObservance(date);
-		return (observance == null) ? false : (observance instanceof DaylightSavingsTime);
+		/*
+		 * The date's UTC fields are compared against the observance start
+		 * times, which are in local time.
+		 */
+		long time = date.getTime();
+		TransitionTable table = getTransitionTable(time);
+		int index = table.indexOf(time);
+		return (index < 0) ? false : table.daylight[index];
 	}
 
 	/**
@@ -246,6 +286,10 @@ public class ICalTimeZone extends TimeZone {
 
 	@Override
 	public boolean useDaylightTime() {
+		return useDaylightTime;
+	}
+
+	private boolean calculateUseDaylightTime() {
 		for (Observance observance : sortedObservances) {
 			if (observance instanceof DaylightSavingsTime) {
 				return true;
@@ -254,21 +298,62 @@ public class ICalTimeZone extends TimeZone {
 		return false;
 	}
 
+	@Override
+	public int getDSTSavings() {
+		return dstSavings;
+	}
+
+	/**
+	 * Determines the amount of time that is added to the standard offset
+	 * during daylight savings time. This is the difference between the
+	 * TZOFFSETTO and TZOFFSETFROM values of the most recent daylight savings
+	 * time observance.
+	 * @return the amount of time (in milliseconds)
+	 */
+	private int calculateDSTSavings() {
+		if (!useDaylightTime) {
+			return 0;
+		}
+
+		ListIterator<Observance> it = sortedObservances.listIterator(sortedObservances.size());
+		while (it.hasPrevious()) {
+			Observance observance = it.previous();
+			if (!(observance instanceof DaylightSavingsTime)) {
+				continue;
+			}
+
+			UtcOffset offsetFrom = getValue(observance.getTimezoneOffsetFrom());
+			UtcOffset offsetTo = getValue(observance.getTimezoneOffsetTo());
+			if (offsetFrom == null || offsetTo == null) {
+				continue;
+			}
+
+			int savings = (int) (offsetTo.getMillis() - offsetFrom.getMillis());
+			if (savings > 0) {
+				return savings;
+			}
+		}
+
+		return super.getDSTSavings();
+	}
+
 	/**
 	 * Gets the timezone information of a date.
 	 * @param date the date
 	 * @return the timezone information
 	 */
 	public Boundary getObservanceBoundary(Date date) {
-		utcCalendar.setTime(date);
-		int year = utcCalendar.get(Calendar.YEAR);
-		int month = utcCalendar.get(Calendar.MONTH) + 1;
-		int day = utcCalendar.get(Calendar.DATE);
-		int hour = utcCalendar.get(Calendar.HOUR);
-		int minute = utcCalendar.get(Calendar.MINUTE);
-		int second = utcCalendar.get(Calendar.SECOND);
-
-		return getObservanceBoundary(year, month, day, hour, minute, second);
+		synchronized (observanceDateCache) {
+			utcCalendar.setTime(date);
+			int year = utcCalendar.get(Calendar.YEAR);
+			int month = utcCalendar.get(Calendar.MONTH) + 1;
+			int day = utcCalendar.get(Calendar.DATE);
+			int hour = utcCalendar.get(Calendar.HOUR);
+			int minute = utcCalendar.get(Calendar.MINUTE);
+			int second = utcCalendar.get(Calendar.SECOND);
+
+			return getObservanceBoundary(year, month, day, hour, minute, second);
+		}
 	}
 
 	/**
@@ -296,21 +381,6 @@ public class ICalTimeZone extends TimeZone {
 		return component;
 	}
 
-	/**
-	 * Gets the observance that a date is effected by.
-	 * @param year the year
-	 * @param month the month (1-12)
-	 * @param day the day of the month
-	 * @param hour the hour
-	 * @param minute the minute
-	 * @param second the second
-	 * @return the observance or null if an observance cannot be found
-	 */
-	private Observance getObservance(int year, int month, int day, int hour, int minute, int second) {
-		Boundary boundary = getObservanceBoundary(year, month, day, hour, minute, second);
-		return (boundary == null) ? null : boundary.getObservanceIn();
-	}
-
 	/**
 	 * Gets the observance information of a date.
 	 * @param year the year
@@ -326,7 +396,13 @@ public class ICalTimeZone extends TimeZone {
 			return null;
 		}
 
-		DateValue givenTime = new DateTimeValueImpl(year, month, day, hour, minute, second);
+		synchronized (observanceDateCache) {
+			return getObservanceBoundary(new DateTimeValueImpl(year, month, day, hour, minute, second));
+		}
+	}
+
+	private Boundary getObservanceBoundary(DateValue givenTime) {
+
 		int closestIndex = -1;
 		Observance closest = null;
 		DateValue closestValue = null;
@@ -475,6 +551,185 @@ public class ICalTimeZone extends TimeZone {
 		return dateCache.get(index); //remember: the date must be <=
 	}
 
+	/**
+	 * Gets a compiled transition table that covers the given time, building or
+	 * extending the table if necessary.
+	 * @param localTime the time (in local time)
+	 * @return the transition table
+	 */
+	private TransitionTable getTransitionTable(long localTime) {
+		TransitionTable table = transitions;
+		if (table != null && table.covers(localTime)) {
+			return table;
+		}
+
+		synchronized (observanceDateCache) {
+			table = transitions;
+			if (table != null && table.covers(localTime)) {
+				return table;
+			}
+
+			int start, end;
+			if (table == null) {
+				start = windowStart;
+				end = windowEnd;
+			} else {
+				start = table.startYear;
+				end = table.endYear;
+			}
+
+			int year = (int) Math.max(MIN_YEAR, Math.min(MAX_YEAR, 1970 + Math.floor((double) localTime / MILLIS_PER_YEAR)));
+			if (year <= start) {
+				start = Math.max(MIN_YEAR, Math.min(year - 1, start - WINDOW_GROWTH));
+			}
+			if (year >= end) {
+				end = Math.min(MAX_YEAR, Math.max(year + 1, end + WINDOW_GROWTH));
+			}
+
+			table = compileTransitionTable(start, end);
+			transitions = table;
+			return table;
+		}
+	}
+
+	/**
+	 * Builds a table of all the observance start times that fall within the
+	 * given window of years.
+	 * @param startYear the first year of the window
+	 * @param endYear the last year of the window
+	 * @return the transition table
+	 */
+	private TransitionTable compileTransitionTable(int startYear, int endYear) {
+		List<long[]> onsets = new ArrayList<long[]>();
+		boolean complete = true;
+		for (int i = 0; i < sortedObservances.size(); i++) {
+			Observance observance = sortedObservances.get(i);
+			RecurrenceIterator it = createIterator(observance);
+			while (it.hasNext()) {
+				DateValue date = it.next();
+				if (date.year() > endYear) {
+					complete = false;
+					break;
+				}
+				onsets.add(new long[] { toLocalTime(date), i });
+			}
+		}
+
+		/*
+		 * If two observances start at the same time, the one that comes first
+		 * in the sorted observance list takes precedence.
+		 */
+		Collections.sort(onsets, new Comparator<long[]>() {
+			public int compare(long[] left, long[] right) {
+				if (left[0] != right[0]) {
+					return (left[0] < right[0]) ? -1 : 1;
+				}
+				return (left[1] < right[1]) ? -1 : (left[1] == right[1]) ? 0 : 1;
+			}
+		});
+
+		//discard the transitions that come before the window, except for the one that is in effect at the start of the window
+		long startTime = (TimeUtils.fixedFromGregorian(startYear, 1, 1) - EPOCH_DAY) * MILLIS_PER_DAY;
+		int first = 0;
+		while (first + 1 < onsets.size() && onsets.get(first + 1)[0] <= startTime) {
+			first++;
+		}
+		boolean fromBeginning = (first == 0);
+
+		int initialOffset = calculateInitialOffset();
+		int size = 0;
+		long[] times = new long[onsets.size() - first];
+		long[] utcTimes = new long[times.length];
+		int[] offsets = new int[times.length];
+		boolean[] daylight = new boolean[times.length];
+		for (int i = first; i < onsets.size(); i++) {
+			long[] onset = onsets.get(i);
+			if (size > 0 && times[size - 1] == onset[0]) {
+				continue;
+			}
+
+			Observance observance = sortedObservances.get((int) onset[1]);
+			UtcOffset offsetTo = getValue(observance.getTimezoneOffsetTo());
+
+			/*
+			 * The start time is in the local time of the offset that was in
+			 * effect before the observance started.
+			 */
+			int offsetBefore;
+			if (size > 0) {
+				offsetBefore = offsets[size - 1];
+			} else if (i > 0) {
+				UtcOffset previousOffsetTo = getValue(sortedObservances.get((int) onsets.get(i - 1)[1]).getTimezoneOffsetTo());
+				offsetBefore = (previousOffsetTo == null) ? 0 : (int) previousOffsetTo.getMillis();
+			} else {
+				offsetBefore = initialOffset;
+			}
+
+			times[size] = onset[0];
+			utcTimes[size] = onset[0] - offsetBefore;
+			if (size > 0 && utcTimes[size] < utcTimes[size - 1]) {
+				//keep the array sorted if two start times are very close together
+				utcTimes[size] = utcTimes[size - 1];
+			}
+			offsets[size] = (offsetTo == null) ? 0 : (int) offsetTo.getMillis();
+			daylight[size] = (observance instanceof DaylightSavingsTime);
+			size++;
+		}
+
+		if (size < times.length) {
+			long[] trimmedTimes = new long[size];
+			long[] trimmedUtcTimes = new long[size];
+			int[] trimmedOffsets = new int[size];
+			boolean[] trimmedDaylight = new boolean[size];
+			System.arraycopy(times, 0, trimmedTimes, 0, size);
+			System.arraycopy(utcTimes, 0, trimmedUtcTimes, 0, size);
+			System.arraycopy(offsets, 0, trimmedOffsets, 0, size);
+			System.arraycopy(daylight, 0, trimmedDaylight, 0, size);
+			times = trimmedTimes;
+			utcTimes = trimmedUtcTimes;
+			offsets = trimmedOffsets;
+			daylight = trimmedDaylight;
+		}
+
+		long endTime = (TimeUtils.fixedFromGregorian(endYear + 1, 1, 1) - EPOCH_DAY) * MILLIS_PER_DAY;
+		boolean coversStart = fromBeginning || startYear <= MIN_YEAR;
+		boolean coversEnd = complete || endYear >= MAX_YEAR;
+
+		return new TransitionTable(times, utcTimes, offsets, daylight, initialOffset, startYear, endYear, coversStart ? Long.MIN_VALUE : startTime, coversEnd ? Long.MAX_VALUE : endTime);
+	}
+
+	/**
+	 * Determines the offset that is in effect before the first observance
+	 * starts. This is the TZOFFSETFROM value of the first observance that has
+	 * a DTSTART property and a TZOFFSETFROM property.
+	 * @return the offset
+	 */
+	private int calculateInitialOffset() {
+		for (Observance observance : sortedObservances) {
+			ICalDate dateStart = getValue(observance.getDateStart());
+			if (dateStart == null) {
+				continue;
+			}
+
+			UtcOffset offsetFrom = getValue(observance.getTimezoneOffsetFrom());
+			if (offsetFrom == null) {
+				continue;
+			}
+
+			return (int) offsetFrom.getMillis();
+		}
+		return 0;
+	}
+
+	private static long toLocalTime(DateValue date) {
+		long time = (TimeUtils.fixedFromGregorian(date.year(), date.month(), date.day()) - EPOCH_DAY) * MILLIS_PER_DAY;
+		if (date instanceof TimeValue) {
+			TimeValue timeValue = (TimeValue) date;
+			time += ((timeValue.hour() * 60L + timeValue.minute()) * 60 + timeValue.second()) * 1000;
+		}
+		return time;
+	}
+
 	/**
 	 * Creates an iterator which iterates over each of the dates in an
 	 * observance.
@@ -646,6 +901,91 @@ public class ICalTimeZone extends TimeZone {
 		protected abstract DateValue toDateValue(T next);
 	}
 
+	/**
+	 * The compiled start times of a timezone's observances. Instances of this
+	 * class are immutable.
+	 */
+	private static class TransitionTable {
+		/**
+		 * The start times of each observance (in local time), sorted.
+		 */
+		private final long[] times;
+
+		/**
+		 * The start times of each observance (in UTC), sorted.
+		 */
+		private final long[] utcTimes;
+
+		/**
+		 * The UTC offset that goes into effect at each start time.
+		 */
+		private final int[] offsets;
+
+		/**
+		 * Whether each observance is a daylight savings time observance.
+		 */
+		private final boolean[] daylight;
+
+		/**
+		 * The UTC offset that is in effect before the first start time.
+		 */
+		private final int initialOffset;
+
+		private final int startYear, endYear;
+		private final long startTime, endTime;
+
+		public TransitionTable(long[] times, long[] utcTimes, int[] offsets, boolean[] daylight, int initialOffset, int startYear, int endYear, long startTime, long endTime) {
+			this.times = times;
+			this.utcTimes = utcTimes;
+			this.offsets = offsets;
+			this.daylight = daylight;
+			this.initialOffset = initialOffset;
+			this.startYear = startYear;
+			this.endYear = endYear;
+			this.startTime = startTime;
+			this.endTime = endTime;
+		}
+
+		/**
+		 * Determines if the given time falls within the window of this table.
+		 * @param localTime the time (in local time)
+		 * @return true if the time is covered, false if not
+		 */
+		public boolean covers(long localTime) {
+			return localTime >= startTime && localTime < endTime;
+		}
+
+		/**
+		 * Finds the observance that is in effect at the given time.
+		 * @param localTime the time (in local time)
+		 * @return the index of the observance's start time or -1 if the time
+		 * comes before the first start time
+		 */
+		public int indexOf(long localTime) {
+			int index = Arrays.binarySearch(times, localTime);
+			return (index >= 0) ? index : -index - 2;
+		}
+
+		/**
+		 * Finds the observance that is in effect at the given instant.
+		 * @param utcTime the instant (in milliseconds since the epoch)
+		 * @return the index of the observance's start time or -1 if the
+		 * instant comes before the first start time
+		 */
+		public int indexOfUtc(long utcTime) {
+			int index = Arrays.binarySearch(utcTimes, utcTime);
+			if (index < 0) {
+				return -index - 2;
+			}
+
+			//if several start times are equal, use the last one
+			while (index + 1 < utcTimes.length && utcTimes[index + 1] == utcTime) {
+				index++;
+			}
+			return index;
+		}
+	}
+
 	/**
 	 * Holds the timezone observance information of a particular date.
 	 */
@@ -0,0 +1,355 @@
+package biweekly.io;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+import biweekly.component.DaylightSavingsTime;
+import biweekly.component.Observance;
+import biweekly.component.StandardTime;
+import biweekly.component.VTimezone;
+import biweekly.util.DateTimeComponents;
+import biweekly.util.DayOfWeek;
+import biweekly.util.Frequency;
+import biweekly.util.Recurrence;
+import biweekly.util.UtcOffset;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * Generates {@link VTimezone} components from the timezone rules that are
+ * built into the JVM. Unlike {@link TzUrlDotOrgGenerator}, no network access
+ * is required.
+ * </p>
+ * <p>
+ * The UTC offset transitions of the timezone are found for each year in a
+ * given range. Transitions that happen at the same local time on the same
+ * weekday of the same month in consecutive years are combined into a single
+ * observance with a yearly RRULE. If the timezone still observes daylight
+ * savings time, the rules that are in effect at the end of the range are left
+ * open-ended.
+ * </p>
+ * <p>
+ * Generated components are cached by timezone ID and year range. This class
+ * is thread-safe.
+ * </p>
+ * @author Michael Angstadt
+ */
+public class JavaTimezoneGenerator implements VTimezoneGenerator {
+	private static final int MAX_CACHE_SIZE = 100;
+	private static final long SCAN_INTERVAL = 24L * 60 * 60 * 1000;
+
+	private static final Map<String, VTimezone> cache = new LinkedHashMap<String, VTimezone>(16, 0.75f, true) {
+		private static final long serialVersionUID = -3337040522163553390L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, VTimezone> eldest) {
+			return size() > MAX_CACHE_SIZE;
+		}
+	};
+
+	private final int startYear, endYear;
+
+	/**
+	 * Creates a new generator that covers the years from 1970 to the current
+	 * year.
+	 */
+	public JavaTimezoneGenerator() {
+		this(1970, Calendar.getInstance().get(Calendar.YEAR));
+	}
+
+	/**
+	 * Creates a new generator.
+	 * @param startYear the first year to include in the generated components
+	 * @param endYear the last year to include in the generated components
+	 */
+	public JavaTimezoneGenerator(int startYear, int endYear) {
+		this.startYear = Math.min(startYear, endYear);
+		this.endYear = Math.max(startYear, endYear);
+	}
+
+	public VTimezone generate(TimeZone timezone) {
+		String key = timezone.getID() + "/" + startYear + "/" + endYear;
+
+		VTimezone component;
+		synchronized (cache) {
+			component = cache.get(key);
+		}
+
+		if (component == null) {
+			component = build(timezone);
+			synchronized (cache) {
+				cache.put(key, component);
+			}
+		}
+
+		return component.copy();
+	}
+
+	/**
+	 * Clears the internal cache of generated timezone definitions.
+	 */
+	public static void clearCache() {
+		synchronized (cache) {
+			cache.clear();
+		}
+	}
+
+	private VTimezone build(TimeZone timezone) {
+		VTimezone component = new VTimezone(timezone.getID());
+
+		long start = utcMillis(startYear);
+		long end = utcMillis(endYear + 1);
+		List<Transition> transitions = findTransitions(timezone, start, end);
+
+		if (transitions.isEmpty()) {
+			int offset = timezone.getOffset(start);
+			boolean daylight = timezone.inDaylightTime(new Date(start));
+
+			Observance observance = daylight ? new DaylightSavingsTime() : new StandardTime();
+			observance.setDateStart(new DateTimeComponents(startYear, 1, 1, 0, 0, 0, false));
+			observance.setTimezoneOffsetFrom(new UtcOffset(offset));
+			observance.setTimezoneOffsetTo(new UtcOffset(offset));
+			observance.addTimezoneName(timezone.getDisplayName(daylight, TimeZone.SHORT, Locale.US));
+			add(component, observance);
+			return component;
+		}
+
+		boolean openEnded = timezone.useDaylightTime();
+		for (Run run : groupTransitions(transitions)) {
+			add(component, buildObservance(timezone, run, openEnded));
+		}
+
+		return component;
+	}
+
+	/**
+	 * Finds all of the UTC offset changes that occur within a range of time.
+	 * @param timezone the timezone
+	 * @param start the start of the range
+	 * @param end the end of the range
+	 * @return the transitions, in chronological order
+	 */
+	private static List<Transition> findTransitions(TimeZone timezone, long start, long end) {
+		List<Transition> transitions = new ArrayList<Transition>();
+		Calendar local = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+
+		long time = start;
+		int offset = timezone.getOffset(time);
+		while (time < end) {
+			long next = Math.min(time + SCAN_INTERVAL, end);
+			int nextOffset = timezone.getOffset(next);
+			if (nextOffset != offset) {
+				//narrow down the exact second that the offset changes
+				long low = time, high = next;
+				while (high - low > 1000) {
+					long mid = low + (high - low) / 2000 * 1000;
+					if (timezone.getOffset(mid) == offset) {
+						low = mid;
+					} else {
+						high = mid;
+					}
+				}
+
+				boolean daylight = timezone.inDaylightTime(new Date(high));
+				transitions.add(new Transition(high, offset, nextOffset, daylight, local));
+			}
+
+			time = next;
+			offset = nextOffset;
+		}
+
+		return transitions;
+	}
+
+	/**
+	 * Groups together the transitions that recur yearly.
+	 * @param transitions the transitions, in chronological order
+	 * @return the groups, in chronological order
+	 */
+	private List<Run> groupTransitions(List<Transition> transitions) {
+		List<Run> runs = new ArrayList<Run>();
+		for (Transition transition : transitions) {
+			Run match = null;
+			for (int i = runs.size() - 1; i >= 0; i--) {
+				Run run = runs.get(i);
+				if (run.accepts(transition)) {
+					match = run;
+					break;
+				}
+			}
+
+			if (match == null) {
+				runs.add(new Run(transition));
+			} else {
+				match.add(transition);
+			}
+		}
+		return runs;
+	}
+
+	private Observance buildObservance(TimeZone timezone, Run run, boolean openEnded) {
+		Transition first = run.first;
+		Observance observance = first.daylight ? new DaylightSavingsTime() : new StandardTime();
+		observance.setDateStart(new DateTimeComponents(first.year, first.month, first.day, first.hour, first.minute, first.second, false));
+		observance.setTimezoneOffsetFrom(new UtcOffset(first.offsetFrom));
+		observance.setTimezoneOffsetTo(new UtcOffset(first.offsetTo));
+		observance.addTimezoneName(timezone.getDisplayName(first.daylight, TimeZone.SHORT, Locale.US));
+
+		boolean recurs = openEnded && run.last.year == endYear;
+		if (run.count > 1 || recurs) {
+			boolean useLast = run.allLast && (!run.allSameNth || first.nth >= 4);
+
+			//@formatter:off
+			Recurrence.Builder builder = new Recurrence.Builder(Frequency.YEARLY)
+				.byMonth(first.month)
+				.byDay(useLast ? -1 : first.nth, first.dayOfWeek);
+			//@formatter:on
+
+			if (!recurs) {
+				/*
+				 * Use whichever is later: the UTC time of the last transition
+				 * or its local time. Some consumers (including ICalTimeZone)
+				 * compare the UNTIL value against the local start times.
+				 */
+				long until = run.last.instant + Math.max(0, run.last.offsetFrom);
+				builder.until(new Date(until));
+			}
+			observance.setRecurrenceRule(builder.build());
+		}
+
+		return observance;
+	}
+
+	private static void add(VTimezone component, Observance observance) {
+		if (observance instanceof DaylightSavingsTime) {
+			component.addDaylightSavingsTime((DaylightSavingsTime) observance);
+		} else {
+			component.addStandardTime((StandardTime) observance);
+		}
+	}
+
+	private static long utcMillis(int year) {
+		Calendar c = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+		c.clear();
+		c.set(year, Calendar.JANUARY, 1);
+		return c.getTimeInMillis();
+	}
+
+	/**
+	 * A change in a timezone's UTC offset.
+	 */
+	private static class Transition {
+		private final long instant;
+		private final int offsetFrom, offsetTo;
+		private final boolean daylight;
+
+		/**
+		 * The local time of the transition, according to the offset that is
+		 * in effect before the transition.
+		 */
+		private final int year, month, day, hour, minute, second;
+
+		private final DayOfWeek dayOfWeek;
+
+		/**
+		 * Which occurrence of the weekday within the month the transition
+		 * falls on (e.g. "2" for the second Sunday).
+		 */
+		private final int nth;
+
+		/**
+		 * Whether the transition falls on the last occurrence of its weekday
+		 * within the month.
+		 */
+		private final boolean last;
+
+		public Transition(long instant, int offsetFrom, int offsetTo, boolean daylight, Calendar local) {
+			this.instant = instant;
+			this.offsetFrom = offsetFrom;
+			this.offsetTo = offsetTo;
+			this.daylight = daylight;
+
+			local.setTimeInMillis(instant + offsetFrom);
+			year = local.get(Calendar.YEAR);
+			month = local.get(Calendar.MONTH) + 1;
+			day = local.get(Calendar.DATE);
+			hour = local.get(Calendar.HOUR_OF_DAY);
+			minute = local.get(Calendar.MINUTE);
+			second = local.get(Calendar.SECOND);
+			dayOfWeek = DayOfWeek.values()[local.get(Calendar.DAY_OF_WEEK) - Calendar.SUNDAY];
+			nth = (day - 1) / 7 + 1;
+			last = day + 7 > local.getActualMaximum(Calendar.DATE);
+		}
+	}
+
+	/**
+	 * A group of transitions that occur at the same local time on the same
+	 * weekday of the same month in consecutive years.
+	 */
+	private static class Run {
+		private final Transition first;
+		private Transition last;
+		private int count = 1;
+		private boolean allSameNth = true, allLast;
+
+		public Run(Transition first) {
+			this.first = first;
+			last = first;
+			allLast = first.last;
+		}
+
+		public boolean accepts(Transition transition) {
+			//@formatter:off
+			return
+				transition.year == last.year + 1 &&
+				transition.daylight == first.daylight &&
+				transition.offsetFrom == first.offsetFrom &&
+				transition.offsetTo == first.offsetTo &&
+				transition.month == first.month &&
+				transition.dayOfWeek == first.dayOfWeek &&
+				transition.hour == first.hour &&
+				transition.minute == first.minute &&
+				transition.second == first.second &&
+				((allSameNth && transition.nth == first.nth) || (allLast && transition.last));
+			//@formatter:on
+		}
+
+		public void add(Transition transition) {
+			allSameNth &= (transition.nth == first.nth);
+			allLast &= transition.last;
+			last = transition;
+			count++;
+		}
+	}
+}
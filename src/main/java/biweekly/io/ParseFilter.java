@@ -0,0 +1,181 @@
+package biweekly.io;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+import biweekly.ICalendar;
+import biweekly.component.ICalComponent;
+import biweekly.component.Observance;
+import biweekly.component.VTimezone;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * Defines which components and properties a {@link StreamReader} should read.
+ * Components and properties that are filtered out are skipped over by the
+ * reader without being parsed. Skipping a component also skips all of its
+ * properties and sub-components.
+ * </p>
+ * <p>
+ * If any names are included, only the included components or properties are
+ * read. Excluded names are never read. Names are case-insensitive.
+ * </p>
+ * <p>
+ * VTIMEZONE components, their STANDARD and DAYLIGHT sub-components, and the
+ * properties of all three are needed to parse date-time values, so they are
+ * always read unless the VTIMEZONE component is explicitly excluded. The
+ * VERSION property is always read as well, as are the TZ and DAYLIGHT
+ * properties of the VCALENDAR component, which define the timezone of vCal
+ * 1.0 data.
+ * </p>
+ * <p>
+ * <b>Example:</b>
+ * </p>
+ * 
+ * <pre class="brush:java">
+ * ParseFilter filter = new ParseFilter()
+ *   .includeComponents("VEVENT")
+ *   .includeProperties("UID", "DTSTART", "DTEND", "RRULE", "EXDATE", "RECURRENCE-ID");
+ * 
+ * ICalReader reader = new ICalReader(file);
+ * reader.setParseFilter(filter);
+ * </pre>
+ * @author Michael Angstadt
+ * @see StreamReader#setParseFilter
+ */
+public class ParseFilter {
+	private final Set<String> includedComponents = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
+	private final Set<String> excludedComponents = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
+	private final Set<String> includedProperties = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
+	private final Set<String> excludedProperties = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
+
+	/**
+	 * Only reads components with the given names (in addition to the
+	 * VCALENDAR and timezone components).
+	 * @param names the component names (e.g. "VEVENT")
+	 * @return this
+	 */
+	public ParseFilter includeComponents(String... names) {
+		add(includedComponents, names);
+		return this;
+	}
+
+	/**
+	 * Skips components with the given names.
+	 * @param names the component names (e.g. "VALARM")
+	 * @return this
+	 */
+	public ParseFilter excludeComponents(String... names) {
+		add(excludedComponents, names);
+		return this;
+	}
+
+	/**
+	 * Only reads properties with the given names (in addition to the VERSION
+	 * property and the properties of timezone components).
+	 * @param names the property names (e.g. "DTSTART")
+	 * @return this
+	 */
+	public ParseFilter includeProperties(String... names) {
+		add(includedProperties, names);
+		return this;
+	}
+
+	/**
+	 * Skips properties with the given names.
+	 * @param names the property names (e.g. "ATTACH")
+	 * @return this
+	 */
+	public ParseFilter excludeProperties(String... names) {
+		add(excludedProperties, names);
+		return this;
+	}
+
+	/**
+	 * Determines if a component should be read.
+	 * @param name the component name
+	 * @return true if the component should be read, false if it should be
+	 * skipped
+	 */
+	public boolean isComponentIncluded(String name) {
+		if ("VCALENDAR".equalsIgnoreCase(name)) {
+			return true;
+		}
+
+		if (excludedComponents.contains(name)) {
+			return false;
+		}
+
+		if (isTimezoneComponent(name)) {
+			return true;
+		}
+
+		return includedComponents.isEmpty() || includedComponents.contains(name);
+	}
+
+	/**
+	 * Determines if a property should be read.
+	 * @param name the property name
+	 * @param parent the component the property belongs to
+	 * @return true if the property should be read, false if it should be
+	 * skipped
+	 */
+	public boolean isPropertyIncluded(String name, ICalComponent parent) {
+		if (parent instanceof VTimezone || parent instanceof Observance) {
+			return true;
+		}
+
+		if ("VERSION".equalsIgnoreCase(name)) {
+			return true;
+		}
+
+		/*
+		 * vCal 1.0 defines the timezone with properties, not with VTIMEZONE
+		 * components. Without them, date-time values would be parsed in the
+		 * wrong timezone.
+		 */
+		if (parent instanceof ICalendar && ("TZ".equalsIgnoreCase(name) || "DAYLIGHT".equalsIgnoreCase(name))) {
+			return true;
+		}
+
+		if (excludedProperties.contains(name)) {
+			return false;
+		}
+
+		return includedProperties.isEmpty() || includedProperties.contains(name);
+	}
+
+	private static boolean isTimezoneComponent(String name) {
+		return "VTIMEZONE".equalsIgnoreCase(name) || "STANDARD".equalsIgnoreCase(name) || "DAYLIGHT".equalsIgnoreCase(name);
+	}
+
+	private static void add(Set<String> set, String... names) {
+		for (String name : names) {
+			set.add(name);
+		}
+	}
+}
@@ -57,8 +57,9 @@ import biweekly.util.ICalDateFormat;
  */
 public abstract class StreamReader implements Closeable {
 	protected final List<ParseWarning> warnings = new ArrayList<ParseWarning>();
-	protected ScribeIndex index = new ScribeIndex();
+	protected ScribeIndex index = ScribeIndex.getDefaultIndex();
 	protected ParseContext context;
+	protected ParseFilter filter;
 
 	/**
 	 * <p>
@@ -72,7 +73,7 @@ public abstract class StreamReader implements Closeable {
 	 * @param scribe the scribe to register
 	 */
 	public void registerScribe(ICalPropertyScribe<? extends ICalProperty> scribe) {
-		index.register(scribe);
+		getScribeIndex().register(scribe);
 	}
 
 	/**
@@ -87,14 +88,20 @@ public abstract class StreamReader implements Closeable {
 	 * @param scribe the scribe to register
 	 */
 	public void registerScribe(ICalComponentScribe<? extends ICalComponent> scribe) {
-		index.register(scribe);
+		getScribeIndex().register(scribe);
 	}
 
 	/**
-	 * Gets the object that manages the component/property scribes.
+	 * Gets the object that manages the component/property scribes. If the
+	 * index is frozen (such as the default index, which is shared by all
+	 * readers and writers), it is first replaced with a copy that can be
+	 * modified.
 	 * @return the scribe index
 	 */
 	public ScribeIndex getScribeIndex() {
+		if (index.isFrozen()) {
+			index = new ScribeIndex(index);
+		}
 		return index;
 	}
 
@@ -106,6 +113,47 @@ public abstract class StreamReader implements Closeable {
 		this.index = index;
 	}
 
+	/**
+	 * Gets the filter that determines which components and properties are
+	 * read.
+	 * @return the filter or null if everything is read (default)
+	 */
+	public ParseFilter getParseFilter() {
+		return filter;
+	}
+
+	/**
+	 * Sets the filter that determines which components and properties are
+	 * read. Components and properties that are filtered out are skipped over
+	 * without being parsed.
+	 * @param filter the filter or null to read everything (default)
+	 */
+	public void setParseFilter(ParseFilter filter) {
+		this.filter = filter;
+	}
+
+	/**
+	 * Determines if a component should be read, according to the parse
+	 * filter.
+	 * @param name the component name
+	 * @return true if the component should be read, false if it should be
+	 * skipped
+	 */
+	protected boolean isComponentIncluded(String name) {
+		return filter == null || filter.isComponentIncluded(name);
+	}
+
+	/**
+	 * Determines if a property should be read, according to the parse filter.
+	 * @param name the property name
+	 * @param parent the component the property belongs to
+	 * @return true if the property should be read, false if it should be
+	 * skipped
+	 */
+	protected boolean isPropertyIncluded(String name, ICalComponent parent) {
+		return filter == null || filter.isPropertyIncluded(name, parent);
+	}
+
 	/**
 	 * Gets the warnings from the last iCalendar object that was read.
 	 * @return the warnings or empty list if there were no warnings
@@ -158,27 +206,84 @@ public abstract class StreamReader implements Closeable {
 
 		//convert vCalendar DAYLIGHT and TZ properties to a VTIMEZONE component
 		TimezoneAssignment vcalTimezone = extractVCalTimezone(ical);
+		if (vcalTimezone == null) {
+			//the properties will have already been converted if any components were streamed
+			vcalTimezone = tzinfo.getDefaultTimezone();
+		}
 
 		//assign a TimeZone object to each VTIMEZONE component.
 		Iterator<VTimezone> it = ical.getComponents(VTimezone.class).iterator();
 		while (it.hasNext()) {
 			VTimezone component = it.next();
-
-			//make sure the component has an ID
-			String id = ValuedProperty.getValue(component.getTimezoneId());
-			if (id == null || id.trim().length() == 0) {
-				//note: do not remove invalid VTIMEZONE components from the ICalendar object
-				warnings.add(new ParseWarning.Builder().message(39).build());
-				continue;
+			if (registerTimezone(component, tzinfo)) {
+				//remove the component from the ICalendar object
+				it.remove();
 			}
+		}
+
+		resolveDates(context, tzinfo, tzinfo, vcalTimezone, warnings);
+	}
+
+	/**
+	 * Assigns a {@link TimeZone} object to a VTIMEZONE component and adds it to
+	 * the given {@link TimezoneInfo} object.
+	 * @param component the VTIMEZONE component
+	 * @param tzinfo the timezone info of the iCalendar object
+	 * @return true if the component was registered, false if it does not have
+	 * a timezone ID (a warning is logged)
+	 */
+	protected boolean registerTimezone(VTimezone component, TimezoneInfo tzinfo) {
+		//make sure the component has an ID
+		String id = ValuedProperty.getValue(component.getTimezoneId());
+		if (id == null || id.trim().length() == 0) {
+			//note: do not remove invalid VTIMEZONE components from the ICalendar object
+			warnings.add(new ParseWarning.Builder().message(39).build());
+			return false;
+		}
+
+		TimeZone timezone = new ICalTimeZone(component);
+		tzinfo.getTimezones().add(new TimezoneAssignment(timezone, component));
+		return true;
+	}
 
-			TimeZone timezone = new ICalTimeZone(component);
-			tzinfo.getTimezones().add(new TimezoneAssignment(timezone, component));
+	/**
+	 * Applies timezones to the date-time values of a top-level component that
+	 * was parsed by itself, outside of the iCalendar object it belongs to.
+	 * Timezones are looked up using the VTIMEZONE components that have been
+	 * registered with the iCalendar object so far.
+	 * @param ical the iCalendar object the component belongs to
+	 * @param componentContext the parse context that was used to parse the
+	 * component
+	 * @return the timezones that the component's date-time properties are
+	 * assigned to
+	 */
+	protected TimezoneInfo handleTimezones(ICalendar ical, ParseContext componentContext) {
+		TimezoneInfo tzinfo = ical.getTimezoneInfo();
 
-			//remove the component from the ICalendar object
-			it.remove();
+		TimezoneAssignment vcalTimezone = extractVCalTimezone(ical);
+		if (vcalTimezone == null) {
+			vcalTimezone = tzinfo.getDefaultTimezone();
 		}
 
+		TimezoneInfo componentTzinfo = new TimezoneInfo();
+		componentTzinfo.setDefaultTimezone(vcalTimezone);
+		resolveDates(componentContext, tzinfo, componentTzinfo, vcalTimezone, warnings);
+		return componentTzinfo;
+	}
+
+	/**
+	 * Re-parses the date-time values that were recorded in a parse context
+	 * under their real timezones.
+	 * @param context the parse context
+	 * @param tzinfo the timezone info of the iCalendar object, used to look up
+	 * the timezones by ID
+	 * @param propertyTzinfo the object to assign each property's timezone to
+	 * (may be the same as "tzinfo")
+	 * @param vcalTimezone the timezone defined by the vCal DAYLIGHT and TZ
+	 * properties or null if there is none
+	 * @param warnings the list to add any parse warnings to
+	 */
+	protected static void resolveDates(ParseContext context, TimezoneInfo tzinfo, TimezoneInfo propertyTzinfo, TimezoneAssignment vcalTimezone, List<ParseWarning> warnings) {
 		if (vcalTimezone != null) {
 			//vCal: parse floating dates according to the DAYLIGHT and TZ properties (which were converted to a VTIMEZONE component)
 			for (TimezonedDate timezonedDate : context.getFloatingDates()) {
@@ -193,7 +298,7 @@ public abstract class StreamReader implements Closeable {
 		} else {
 			//iCal: treat floating dates as floating dates
 			for (TimezonedDate timezonedDate : context.getFloatingDates()) {
-				tzinfo.setFloating(timezonedDate.getProperty(), true);
+				propertyTzinfo.setFloating(timezonedDate.getProperty(), true);
 			}
 		}
 
@@ -212,7 +317,7 @@ public abstract class StreamReader implements Closeable {
 					continue;
 				}
 				assignment = new TimezoneAssignment(timezone, globalId);
-				tzinfo.getTimezones().add(assignment);
+				propertyTzinfo.getTimezones().add(assignment);
 			} else {
 				assignment = tzinfo.getTimezoneById(tzid);
 				if (assignment == null) {
@@ -236,7 +341,7 @@ public abstract class StreamReader implements Closeable {
 			for (TimezonedDate timezonedDate : timezonedDates) {
 				//assign the property to the timezone
 				ICalProperty property = timezonedDate.getProperty();
-				tzinfo.setTimezone(property, assignment);
+				propertyTzinfo.setTimezone(property, assignment);
 
 				ICalDate date = timezonedDate.getDate();
 
@@ -54,7 +54,7 @@ import biweekly.property.RawProperty;
  * @author Michael Angstadt
  */
 public abstract class StreamWriter implements Closeable {
-	protected ScribeIndex index = new ScribeIndex();
+	protected ScribeIndex index = ScribeIndex.getDefaultIndex();
 	protected WriteContext context;
 	protected TimezoneAssignment globalTimezone;
 	private TimezoneInfo tzinfo;
@@ -144,7 +144,7 @@ public abstract class StreamWriter implements Closeable {
 	 * @param scribe the scribe to register
 	 */
 	public void registerScribe(ICalPropertyScribe<? extends ICalProperty> scribe) {
-		index.register(scribe);
+		getScribeIndex().register(scribe);
 	}
 
 	/**
@@ -159,14 +159,20 @@ public abstract class StreamWriter implements Closeable {
 	 * @param scribe the scribe to register
 	 */
 	public void registerScribe(ICalComponentScribe<? extends ICalComponent> scribe) {
-		index.register(scribe);
+		getScribeIndex().register(scribe);
 	}
 
 	/**
-	 * Gets the object that manages the component/property scribes.
+	 * Gets the object that manages the component/property scribes. If the
+	 * index is frozen (such as the default index, which is shared by all
+	 * readers and writers), it is first replaced with a copy that can be
+	 * modified.
 	 * @return the scribe index
 	 */
 	public ScribeIndex getScribeIndex() {
+		if (index.isFrozen()) {
+			index = new ScribeIndex(index);
+		}
 		return index;
 	}
 
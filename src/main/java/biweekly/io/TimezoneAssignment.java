@@ -98,7 +98,31 @@ public class TimezoneAssignment {
 	 * cannot be found on the website
 	 */
 	public static TimezoneAssignment download(TimeZone timezone, boolean outlookCompatible) {
-		TzUrlDotOrgGenerator generator = new TzUrlDotOrgGenerator(outlookCompatible);
+		return generate(timezone, new TzUrlDotOrgGenerator(outlookCompatible));
+	}
+
+	/**
+	 * Creates a timezone whose VTIMEZONE component is generated from the
+	 * timezone rules that are built into the JVM. Unlike
+	 * {@link #download(TimeZone, boolean)}, no network access is required.
+	 * @param timezone the Java timezone object
+	 * @return the timezone assignment
+	 * @see JavaTimezoneGenerator
+	 */
+	public static TimezoneAssignment generate(TimeZone timezone) {
+		return generate(timezone, new JavaTimezoneGenerator());
+	}
+
+	/**
+	 * Creates a timezone whose VTIMEZONE component is created by the given
+	 * generator.
+	 * @param timezone the Java timezone object
+	 * @param generator the generator
+	 * @return the timezone assignment
+	 * @throws IllegalArgumentException if the generator cannot create a
+	 * VTIMEZONE component for the timezone
+	 */
+	public static TimezoneAssignment generate(TimeZone timezone, VTimezoneGenerator generator) {
 		VTimezone component = generator.generate(timezone);
 		return new TimezoneAssignment(timezone, component);
 	}
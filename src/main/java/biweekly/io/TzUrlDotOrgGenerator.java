@@ -48,7 +48,7 @@ import biweekly.util.IOUtils;
  * href="http://www.tzurl.org">tzurl.org</a>. This class is thread-safe.
  * @author Michael Angstadt
  */
-public class TzUrlDotOrgGenerator {
+public class TzUrlDotOrgGenerator implements VTimezoneGenerator {
 	private static final Map<URI, VTimezone> cache = Collections.synchronizedMap(new HashMap<URI, VTimezone>());
 	private final String baseUrl;
 
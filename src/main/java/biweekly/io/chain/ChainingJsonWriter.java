@@ -11,6 +11,7 @@ import java.util.TimeZone;
 import biweekly.Biweekly;
 import biweekly.ICalendar;
 import biweekly.component.ICalComponent;
+import biweekly.io.VTimezoneGenerator;
 import biweekly.io.json.JCalWriter;
 import biweekly.io.scribe.component.ICalComponentScribe;
 import biweekly.io.scribe.property.ICalPropertyScribe;
@@ -73,6 +74,11 @@ public class ChainingJsonWriter extends ChainingWriter<ChainingJsonWriter> {
 		return super.tz(defaultTimeZone, outlookCompatible);
 	}
 
+	@Override
+	public ChainingJsonWriter tz(TimeZone defaultTimeZone, VTimezoneGenerator generator) {
+		return super.tz(defaultTimeZone, generator);
+	}
+
 	@Override
 	public ChainingJsonWriter register(ICalPropertyScribe<? extends ICalProperty> scribe) {
 		return super.register(scribe);
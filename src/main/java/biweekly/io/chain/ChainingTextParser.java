@@ -8,6 +8,7 @@ import java.io.Reader;
 import biweekly.Biweekly;
 import biweekly.io.StreamReader;
 import biweekly.io.text.ICalReader;
+import biweekly.util.MappedUtf8Reader;
 
 /*
  Copyright (c) 2013-2017, Michael Angstadt
@@ -92,6 +93,6 @@ public class ChainingTextParser<T extends ChainingTextParser<?>> extends Chainin
 		if (reader != null) {
 			return new ICalReader(reader);
 		}
-		return new ICalReader(file);
+		return new ICalReader(new MappedUtf8Reader(file));
 	}
 }
@@ -12,6 +12,7 @@ import biweekly.Biweekly;
 import biweekly.ICalVersion;
 import biweekly.ICalendar;
 import biweekly.component.ICalComponent;
+import biweekly.io.VTimezoneGenerator;
 import biweekly.io.scribe.component.ICalComponentScribe;
 import biweekly.io.scribe.property.ICalPropertyScribe;
 import biweekly.io.text.ICalWriter;
@@ -118,6 +119,11 @@ public class ChainingTextWriter extends ChainingWriter<ChainingTextWriter> {
 		return super.tz(defaultTimeZone, outlookCompatible);
 	}
 
+	@Override
+	public ChainingTextWriter tz(TimeZone defaultTimeZone, VTimezoneGenerator generator) {
+		return super.tz(defaultTimeZone, generator);
+	}
+
 	@Override
 	public ChainingTextWriter register(ICalPropertyScribe<? extends ICalProperty> scribe) {
 		return super.register(scribe);
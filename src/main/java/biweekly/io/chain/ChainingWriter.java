@@ -6,6 +6,7 @@ import java.util.TimeZone;
 import biweekly.ICalendar;
 import biweekly.component.ICalComponent;
 import biweekly.io.TimezoneAssignment;
+import biweekly.io.VTimezoneGenerator;
 import biweekly.io.scribe.ScribeIndex;
 import biweekly.io.scribe.component.ICalComponentScribe;
 import biweekly.io.scribe.property.ICalPropertyScribe;
@@ -80,6 +81,26 @@ class ChainingWriter<T extends ChainingWriter<?>> {
 		return this_;
 	}
 
+	/**
+	 * <p>
+	 * Sets the timezone to use when outputting date values (defaults to UTC).
+	 * </p>
+	 * <p>
+	 * This method creates the VTIMEZONE component using the given generator.
+	 * Use a {@link biweekly.io.JavaTimezoneGenerator} to create the component from the
+	 * JVM's timezone rules without accessing the network.
+	 * </p>
+	 * @param defaultTimeZone the default timezone or null for UTC
+	 * @param generator the generator that creates the VTIMEZONE component
+	 * @return this
+	 * @throws IllegalArgumentException if the generator cannot create a
+	 * VTIMEZONE component for the timezone
+	 */
+	T tz(TimeZone defaultTimeZone, VTimezoneGenerator generator) {
+		this.defaultTimeZone = (defaultTimeZone == null) ? null : TimezoneAssignment.generate(defaultTimeZone, generator);
+		return this_;
+	}
+
 	/**
 	 * Registers a property scribe.
 	 * @param scribe the scribe to register
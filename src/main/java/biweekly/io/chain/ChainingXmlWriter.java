@@ -18,6 +18,7 @@ import biweekly.Biweekly;
 import biweekly.ICalDataType;
 import biweekly.ICalendar;
 import biweekly.component.ICalComponent;
+import biweekly.io.VTimezoneGenerator;
 import biweekly.io.scribe.component.ICalComponentScribe;
 import biweekly.io.scribe.property.ICalPropertyScribe;
 import biweekly.io.xml.XCalDocument;
@@ -120,6 +121,11 @@ public class ChainingXmlWriter extends ChainingWriter<ChainingXmlWriter> {
 		return super.tz(defaultTimeZone, outlookCompatible);
 	}
 
+	@Override
+	public ChainingXmlWriter tz(TimeZone defaultTimeZone, VTimezoneGenerator generator) {
+		return super.tz(defaultTimeZone, generator);
+	}
+
 	@Override
 	public ChainingXmlWriter register(ICalPropertyScribe<? extends ICalProperty> scribe) {
 		return super.register(scribe);
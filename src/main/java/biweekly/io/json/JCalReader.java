@@ -156,13 +156,21 @@ public class JCalReader extends StreamReader {
 		private final Map<List<String>, ICalComponent> components = new HashMap<List<String>, ICalComponent>();
 
 		public void readProperty(List<String> componentHierarchy, String propertyName, ICalParameters parameters, ICalDataType dataType, JCalValue value) {
+			//get the component that the property belongs to
+			ICalComponent parent = components.get(componentHierarchy);
+			if (parent == null) {
+				//the component was filtered out
+				return;
+			}
+
+			if (!isPropertyIncluded(propertyName, parent)) {
+				return;
+			}
+
 			context.getWarnings().clear();
 			context.setLineNumber(reader.getLineNum());
 			context.setPropertyName(propertyName);
 
-			//get the component that the property belongs to
-			ICalComponent parent = components.get(componentHierarchy);
-
 			//unmarshal the property
 			ICalPropertyScribe<? extends ICalProperty> scribe = index.getPropertyScribe(propertyName, ICalVersion.V2_0);
 			try {
@@ -202,10 +210,19 @@ public class JCalReader extends StreamReader {
 		}
 
 		public void readComponent(List<String> parentHierarchy, String componentName) {
+			ICalComponent parent = components.get(parentHierarchy);
+			if (parent == null && !parentHierarchy.isEmpty()) {
+				//the parent component was filtered out
+				return;
+			}
+
+			if (!isComponentIncluded(componentName)) {
+				return;
+			}
+
 			ICalComponentScribe<? extends ICalComponent> scribe = index.getComponentScribe(componentName, ICalVersion.V2_0);
 			ICalComponent component = scribe.emptyInstance();
 
-			ICalComponent parent = components.get(parentHierarchy);
 			if (parent != null) {
 				parent.addComponent(component);
 			}
@@ -0,0 +1,196 @@
+package biweekly.io.scribe;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * A hash table whose keys are case-insensitive strings. Unlike a map whose
+ * keys are converted to upper-case, looking up a value does not create any
+ * objects.
+ * @author Michael Angstadt
+ * @param <V> the value class
+ */
+class CaseInsensitiveMap<V> {
+	private static final int INITIAL_CAPACITY = 16;
+
+	private Entry<V>[] table;
+	private int size = 0;
+
+	public CaseInsensitiveMap() {
+		//empty
+	}
+
+	/**
+	 * Copy constructor.
+	 * @param original the map to copy
+	 */
+	public CaseInsensitiveMap(CaseInsensitiveMap<V> original) {
+		if (original.table == null) {
+			return;
+		}
+
+		for (Entry<V> bucket : original.table) {
+			for (Entry<V> entry = bucket; entry != null; entry = entry.next) {
+				put(entry.key, entry.value);
+			}
+		}
+	}
+
+	/**
+	 * Gets a value.
+	 * @param key the key (case-insensitive)
+	 * @return the value or null if not found
+	 */
+	public V get(String key) {
+		if (table == null) {
+			return null;
+		}
+
+		int hash = hash(key);
+		for (Entry<V> entry = table[index(hash, table.length)]; entry != null; entry = entry.next) {
+			if (entry.hash == hash && entry.key.equalsIgnoreCase(key)) {
+				return entry.value;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Adds a value, replacing the existing value if there is one.
+	 * @param key the key (case-insensitive)
+	 * @param value the value
+	 */
+	public void put(String key, V value) {
+		if (table == null) {
+			table = newTable(INITIAL_CAPACITY);
+		}
+
+		int hash = hash(key);
+		int index = index(hash, table.length);
+		for (Entry<V> entry = table[index]; entry != null; entry = entry.next) {
+			if (entry.hash == hash && entry.key.equalsIgnoreCase(key)) {
+				entry.value = value;
+				return;
+			}
+		}
+
+		table[index] = new Entry<V>(key, hash, value, table[index]);
+		size++;
+
+		if (size > table.length * 3 / 4) {
+			resize();
+		}
+	}
+
+	/**
+	 * Removes a value.
+	 * @param key the key (case-insensitive)
+	 * @return the removed value or null if not found
+	 */
+	public V remove(String key) {
+		if (table == null) {
+			return null;
+		}
+
+		int hash = hash(key);
+		int index = index(hash, table.length);
+		Entry<V> prev = null;
+		for (Entry<V> entry = table[index]; entry != null; entry = entry.next) {
+			if (entry.hash == hash && entry.key.equalsIgnoreCase(key)) {
+				if (prev == null) {
+					table[index] = entry.next;
+				} else {
+					prev.next = entry.next;
+				}
+				size--;
+				return entry.value;
+			}
+			prev = entry;
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the number of values in the map.
+	 * @return the size
+	 */
+	public int size() {
+		return size;
+	}
+
+	private void resize() {
+		Entry<V>[] newTable = newTable(table.length * 2);
+		for (Entry<V> bucket : table) {
+			Entry<V> entry = bucket;
+			while (entry != null) {
+				Entry<V> next = entry.next;
+				int index = index(entry.hash, newTable.length);
+				entry.next = newTable[index];
+				newTable[index] = entry;
+				entry = next;
+			}
+		}
+		table = newTable;
+	}
+
+	/**
+	 * Computes the hash code of a key, ignoring case. Case is folded the same
+	 * way as {@link String#equalsIgnoreCase}.
+	 * @param key the key
+	 * @return the hash code
+	 */
+	private static int hash(String key) {
+		int hash = 0;
+		for (int i = 0; i < key.length(); i++) {
+			char c = Character.toLowerCase(Character.toUpperCase(key.charAt(i)));
+			hash = 31 * hash + c;
+		}
+		return hash ^ (hash >>> 16);
+	}
+
+	private static int index(int hash, int length) {
+		return hash & (length - 1);
+	}
+
+	private static <V> Entry<V>[] newTable(int capacity) {
+		@SuppressWarnings("unchecked")
+		Entry<V>[] table = (Entry<V>[]) new Entry<?>[capacity];
+		return table;
+	}
+
+	private static class Entry<V> {
+		private final String key;
+		private final int hash;
+		private V value;
+		private Entry<V> next;
+
+		public Entry(String key, int hash, V value, Entry<V> next) {
+			this.key = key;
+			this.hash = hash;
+			this.value = value;
+			this.next = next;
+		}
+	}
+}
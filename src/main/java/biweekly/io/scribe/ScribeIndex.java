@@ -1,12 +1,15 @@
 package biweekly.io.scribe;
 
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.namespace.QName;
 
 import biweekly.ICalVersion;
 import biweekly.ICalendar;
+import biweekly.Messages;
 import biweekly.component.ICalComponent;
 import biweekly.component.RawComponent;
 import biweekly.io.scribe.component.DaylightSavingsTimeScribe;
@@ -146,11 +149,22 @@ import biweekly.property.Xml;
  *   writer.write(ical);
  * }
  * </pre>
+ * <p>
+ * An index can be frozen by calling {@link #freeze}. A frozen index cannot be
+ * modified and is safe to share between threads. By default, all readers and
+ * writers share the frozen index returned by {@link #getDefaultIndex}.
+ * </p>
  * @author Michael Angstadt
  */
 public class ScribeIndex {
+	/**
+	 * The maximum number of scribes to cache for properties and components
+	 * that do not have a scribe of their own.
+	 */
+	private static final int MAX_CACHED_RAW_SCRIBES = 1000;
+
 	//define standard component scribes
-	private static final Map<String, ICalComponentScribe<? extends ICalComponent>> standardCompByName = new HashMap<String, ICalComponentScribe<? extends ICalComponent>>();
+	private static final CaseInsensitiveMap<ICalComponentScribe<? extends ICalComponent>> standardCompByName = new CaseInsensitiveMap<ICalComponentScribe<? extends ICalComponent>>();
 	private static final Map<Class<? extends ICalComponent>, ICalComponentScribe<? extends ICalComponent>> standardCompByClass = new HashMap<Class<? extends ICalComponent>, ICalComponentScribe<? extends ICalComponent>>();
 	static {
 		registerStandard(new ICalendarScribe());
@@ -165,7 +179,7 @@ public class ScribeIndex {
 	}
 
 	//define standard property scribes
-	private static final Map<String, ICalPropertyScribe<? extends ICalProperty>> standardPropByName = new HashMap<String, ICalPropertyScribe<? extends ICalProperty>>();
+	private static final Map<ICalVersion, CaseInsensitiveMap<ICalPropertyScribe<? extends ICalProperty>>> standardPropByName = newPropertyNameMap();
 	private static final Map<Class<? extends ICalProperty>, ICalPropertyScribe<? extends ICalProperty>> standardPropByClass = new HashMap<Class<? extends ICalProperty>, ICalPropertyScribe<? extends ICalProperty>>();
 	private static final Map<QName, ICalPropertyScribe<? extends ICalProperty>> standardPropByQName = new HashMap<QName, ICalPropertyScribe<? extends ICalProperty>>();
 	static {
@@ -240,12 +254,84 @@ public class ScribeIndex {
 		registerStandard(new RefreshIntervalScribe());
 	}
 
-	private final Map<String, ICalComponentScribe<? extends ICalComponent>> experimentalCompByName = new HashMap<String, ICalComponentScribe<? extends ICalComponent>>(0);
-	private final Map<Class<? extends ICalComponent>, ICalComponentScribe<? extends ICalComponent>> experimentalCompByClass = new HashMap<Class<? extends ICalComponent>, ICalComponentScribe<? extends ICalComponent>>(0);
+	private static final ScribeIndex defaultIndex = new ScribeIndex().freeze();
+
+	private final CaseInsensitiveMap<ICalComponentScribe<? extends ICalComponent>> experimentalCompByName;
+	private final Map<Class<? extends ICalComponent>, ICalComponentScribe<? extends ICalComponent>> experimentalCompByClass;
+
+	private final Map<ICalVersion, CaseInsensitiveMap<ICalPropertyScribe<? extends ICalProperty>>> experimentalPropByName;
+	private final Map<Class<? extends ICalProperty>, ICalPropertyScribe<? extends ICalProperty>> experimentalPropByClass;
+	private final Map<QName, ICalPropertyScribe<? extends ICalProperty>> experimentalPropByQName;
+
+	/*
+	 * Scribes for properties and components that are not recognized, keyed by
+	 * the scribe's property/component name.
+	 */
+	private final Map<String, RawComponentScribe> rawCompScribes = new ConcurrentHashMap<String, RawComponentScribe>();
+	private final Map<String, RawPropertyScribe> rawPropScribes = new ConcurrentHashMap<String, RawPropertyScribe>();
+
+	private final boolean frozen;
 
-	private final Map<String, ICalPropertyScribe<? extends ICalProperty>> experimentalPropByName = new HashMap<String, ICalPropertyScribe<? extends ICalProperty>>(0);
-	private final Map<Class<? extends ICalProperty>, ICalPropertyScribe<? extends ICalProperty>> experimentalPropByClass = new HashMap<Class<? extends ICalProperty>, ICalPropertyScribe<? extends ICalProperty>>(0);
-	private final Map<QName, ICalPropertyScribe<? extends ICalProperty>> experimentalPropByQName = new HashMap<QName, ICalPropertyScribe<? extends ICalProperty>>(0);
+	public ScribeIndex() {
+		experimentalCompByName = new CaseInsensitiveMap<ICalComponentScribe<? extends ICalComponent>>();
+		experimentalCompByClass = new HashMap<Class<? extends ICalComponent>, ICalComponentScribe<? extends ICalComponent>>(0);
+
+		experimentalPropByName = newPropertyNameMap();
+		experimentalPropByClass = new HashMap<Class<? extends ICalProperty>, ICalPropertyScribe<? extends ICalProperty>>(0);
+		experimentalPropByQName = new HashMap<QName, ICalPropertyScribe<? extends ICalProperty>>(0);
+
+		frozen = false;
+	}
+
+	/**
+	 * Copy constructor. The copy is not frozen.
+	 * @param original the index to copy
+	 */
+	public ScribeIndex(ScribeIndex original) {
+		this(original, false);
+	}
+
+	private ScribeIndex(ScribeIndex original, boolean frozen) {
+		experimentalCompByName = new CaseInsensitiveMap<ICalComponentScribe<? extends ICalComponent>>(original.experimentalCompByName);
+		experimentalCompByClass = new HashMap<Class<? extends ICalComponent>, ICalComponentScribe<? extends ICalComponent>>(original.experimentalCompByClass);
+
+		experimentalPropByName = new EnumMap<ICalVersion, CaseInsensitiveMap<ICalPropertyScribe<? extends ICalProperty>>>(ICalVersion.class);
+		for (Map.Entry<ICalVersion, CaseInsensitiveMap<ICalPropertyScribe<? extends ICalProperty>>> entry : original.experimentalPropByName.entrySet()) {
+			experimentalPropByName.put(entry.getKey(), new CaseInsensitiveMap<ICalPropertyScribe<? extends ICalProperty>>(entry.getValue()));
+		}
+		experimentalPropByClass = new HashMap<Class<? extends ICalProperty>, ICalPropertyScribe<? extends ICalProperty>>(original.experimentalPropByClass);
+		experimentalPropByQName = new HashMap<QName, ICalPropertyScribe<? extends ICalProperty>>(original.experimentalPropByQName);
+
+		this.frozen = frozen;
+	}
+
+	/**
+	 * Gets a frozen index that contains only the standard scribes. This index
+	 * is used by all readers and writers until a scribe is registered with
+	 * them.
+	 * @return the index
+	 */
+	public static ScribeIndex getDefaultIndex() {
+		return defaultIndex;
+	}
+
+	/**
+	 * Creates a frozen copy of this index. A frozen index cannot be modified,
+	 * which makes it safe to share between threads.
+	 * @return the frozen copy (or this object if it is already frozen)
+	 */
+	public ScribeIndex freeze() {
+		return frozen ? this : new ScribeIndex(this, true);
+	}
+
+	/**
+	 * Determines if this index is frozen.
+	 * @return true if it is frozen, false if not
+	 * @see #freeze
+	 */
+	public boolean isFrozen() {
+		return frozen;
+	}
 
 	/**
 	 * Gets a component scribe by name.
@@ -254,20 +340,18 @@ public class ScribeIndex {
 	 * @return the component scribe or a {@link RawComponentScribe} if not found
 	 */
 	public ICalComponentScribe<? extends ICalComponent> getComponentScribe(String componentName, ICalVersion version) {
-		componentName = componentName.toUpperCase();
-
 		ICalComponentScribe<? extends ICalComponent> scribe = experimentalCompByName.get(componentName);
 		if (scribe == null) {
 			scribe = standardCompByName.get(componentName);
 		}
 
 		if (scribe == null) {
-			return new RawComponentScribe(componentName);
+			return rawComponentScribe(toUpperCase(componentName));
 		}
 
 		if (version != null && !scribe.getSupportedVersions().contains(version)) {
 			//treat the component as a raw component if the current iCal version doesn't support it
-			return new RawComponentScribe(componentName);
+			return rawComponentScribe(toUpperCase(componentName));
 		}
 
 		return scribe;
@@ -280,21 +364,18 @@ public class ScribeIndex {
 	 * @return the property scribe or a {@link RawPropertyScribe} if not found
 	 */
 	public ICalPropertyScribe<? extends ICalProperty> getPropertyScribe(String propertyName, ICalVersion version) {
-		propertyName = propertyName.toUpperCase();
-
-		String key = propertyNameKey(propertyName, version);
-		ICalPropertyScribe<? extends ICalProperty> scribe = experimentalPropByName.get(key);
+		ICalPropertyScribe<? extends ICalProperty> scribe = experimentalPropByName.get(version).get(propertyName);
 		if (scribe == null) {
-			scribe = standardPropByName.get(key);
+			scribe = standardPropByName.get(version).get(propertyName);
 		}
 
 		if (scribe == null) {
-			return new RawPropertyScribe(propertyName);
+			return rawPropertyScribe(toUpperCase(propertyName));
 		}
 
 		if (version != null && !scribe.getSupportedVersions().contains(version)) {
 			//treat the property as a raw property if the current iCal version doesn't support it
-			return new RawPropertyScribe(propertyName);
+			return rawPropertyScribe(toUpperCase(propertyName));
 		}
 
 		return scribe;
@@ -336,7 +417,7 @@ public class ScribeIndex {
 	public ICalComponentScribe<? extends ICalComponent> getComponentScribe(ICalComponent component) {
 		if (component instanceof RawComponent) {
 			RawComponent raw = (RawComponent) component;
-			return new RawComponentScribe(raw.getName());
+			return rawComponentScribe(raw.getName());
 		}
 
 		return getComponentScribe(component.getClass());
@@ -350,7 +431,7 @@ public class ScribeIndex {
 	public ICalPropertyScribe<? extends ICalProperty> getPropertyScribe(ICalProperty property) {
 		if (property instanceof RawProperty) {
 			RawProperty raw = (RawProperty) property;
-			return new RawPropertyScribe(raw.getName());
+			return rawPropertyScribe(raw.getName());
 		}
 
 		return getPropertyScribe(property.getClass());
@@ -369,7 +450,7 @@ public class ScribeIndex {
 
 		if (scribe == null || !scribe.getSupportedVersions().contains(ICalVersion.V2_0)) {
 			if (XCalNamespaceContext.XCAL_NS.equals(qname.getNamespaceURI())) {
-				return new RawPropertyScribe(qname.getLocalPart().toUpperCase());
+				return rawPropertyScribe(toUpperCase(qname.getLocalPart()));
 			}
 			return getPropertyScribe(Xml.class);
 		}
@@ -380,19 +461,23 @@ public class ScribeIndex {
 	/**
 	 * Registers a component scribe.
 	 * @param scribe the scribe to register
+	 * @throws UnsupportedOperationException if the index is frozen
 	 */
 	public void register(ICalComponentScribe<? extends ICalComponent> scribe) {
-		experimentalCompByName.put(scribe.getComponentName().toUpperCase(), scribe);
+		checkNotFrozen();
+		experimentalCompByName.put(scribe.getComponentName(), scribe);
 		experimentalCompByClass.put(scribe.getComponentClass(), scribe);
 	}
 
 	/**
 	 * Registers a property scribe.
 	 * @param scribe the scribe to register
+	 * @throws UnsupportedOperationException if the index is frozen
 	 */
 	public void register(ICalPropertyScribe<? extends ICalProperty> scribe) {
+		checkNotFrozen();
 		for (ICalVersion version : ICalVersion.values()) {
-			experimentalPropByName.put(propertyNameKey(scribe, version), scribe);
+			experimentalPropByName.get(version).put(scribe.getPropertyName(version), scribe);
 		}
 		experimentalPropByClass.put(scribe.getPropertyClass(), scribe);
 		experimentalPropByQName.put(scribe.getQName(), scribe);
@@ -401,19 +486,23 @@ public class ScribeIndex {
 	/**
 	 * Unregisters a component scribe.
 	 * @param scribe the scribe to unregister
+	 * @throws UnsupportedOperationException if the index is frozen
 	 */
 	public void unregister(ICalComponentScribe<? extends ICalComponent> scribe) {
-		experimentalCompByName.remove(scribe.getComponentName().toUpperCase());
+		checkNotFrozen();
+		experimentalCompByName.remove(scribe.getComponentName());
 		experimentalCompByClass.remove(scribe.getComponentClass());
 	}
 
 	/**
 	 * Unregisters a property scribe
 	 * @param scribe the scribe to unregister
+	 * @throws UnsupportedOperationException if the index is frozen
 	 */
 	public void unregister(ICalPropertyScribe<? extends ICalProperty> scribe) {
+		checkNotFrozen();
 		for (ICalVersion version : ICalVersion.values()) {
-			experimentalPropByName.remove(propertyNameKey(scribe, version));
+			experimentalPropByName.get(version).remove(scribe.getPropertyName(version));
 		}
 		experimentalPropByClass.remove(scribe.getPropertyClass());
 		experimentalPropByQName.remove(scribe.getQName());
@@ -428,24 +517,82 @@ public class ScribeIndex {
 		return (ICalendarScribe) standardCompByClass.get(ICalendar.class);
 	}
 
+	private void checkNotFrozen() {
+		if (frozen) {
+			throw new UnsupportedOperationException(Messages.INSTANCE.getExceptionMessage(28));
+		}
+	}
+
+	/**
+	 * Gets the scribe for a component that does not have a scribe of its own.
+	 * @param componentName the component name
+	 * @return the scribe
+	 */
+	private RawComponentScribe rawComponentScribe(String componentName) {
+		RawComponentScribe scribe = rawCompScribes.get(componentName);
+		if (scribe == null) {
+			scribe = new RawComponentScribe(componentName);
+			if (rawCompScribes.size() < MAX_CACHED_RAW_SCRIBES) {
+				rawCompScribes.put(componentName, scribe);
+			}
+		}
+		return scribe;
+	}
+
+	/**
+	 * Gets the scribe for a property that does not have a scribe of its own.
+	 * @param propertyName the property name
+	 * @return the scribe
+	 */
+	private RawPropertyScribe rawPropertyScribe(String propertyName) {
+		if (propertyName == null) {
+			return new RawPropertyScribe(null);
+		}
+
+		RawPropertyScribe scribe = rawPropScribes.get(propertyName);
+		if (scribe == null) {
+			scribe = new RawPropertyScribe(propertyName);
+			if (rawPropScribes.size() < MAX_CACHED_RAW_SCRIBES) {
+				rawPropScribes.put(propertyName, scribe);
+			}
+		}
+		return scribe;
+	}
+
+	/**
+	 * Converts a string to upper-case. Unlike {@link String#toUpperCase}, no
+	 * new string is created if the string is already in upper-case.
+	 * @param string the string
+	 * @return the upper-case string
+	 */
+	private static String toUpperCase(String string) {
+		for (int i = 0; i < string.length(); i++) {
+			char c = string.charAt(i);
+			if (Character.toUpperCase(c) != c) {
+				return string.toUpperCase();
+			}
+		}
+		return string;
+	}
+
+	private static Map<ICalVersion, CaseInsensitiveMap<ICalPropertyScribe<? extends ICalProperty>>> newPropertyNameMap() {
+		Map<ICalVersion, CaseInsensitiveMap<ICalPropertyScribe<? extends ICalProperty>>> map = new EnumMap<ICalVersion, CaseInsensitiveMap<ICalPropertyScribe<? extends ICalProperty>>>(ICalVersion.class);
+		for (ICalVersion version : ICalVersion.values()) {
+			map.put(version, new CaseInsensitiveMap<ICalPropertyScribe<? extends ICalProperty>>());
+		}
+		return map;
+	}
+
 	private static void registerStandard(ICalComponentScribe<? extends ICalComponent> scribe) {
-		standardCompByName.put(scribe.getComponentName().toUpperCase(), scribe);
+		standardCompByName.put(scribe.getComponentName(), scribe);
 		standardCompByClass.put(scribe.getComponentClass(), scribe);
 	}
 
 	private static void registerStandard(ICalPropertyScribe<? extends ICalProperty> scribe) {
 		for (ICalVersion version : ICalVersion.values()) {
-			standardPropByName.put(propertyNameKey(scribe, version), scribe);
+			standardPropByName.get(version).put(scribe.getPropertyName(version), scribe);
 		}
 		standardPropByClass.put(scribe.getPropertyClass(), scribe);
 		standardPropByQName.put(scribe.getQName(), scribe);
 	}
-
-	private static String propertyNameKey(ICalPropertyScribe<? extends ICalProperty> scribe, ICalVersion version) {
-		return propertyNameKey(scribe.getPropertyName(version), version);
-	}
-
-	private static String propertyNameKey(String propertyName, ICalVersion version) {
-		return version.ordinal() + propertyName.toUpperCase();
-	}
 }
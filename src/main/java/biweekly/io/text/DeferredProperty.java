@@ -0,0 +1,217 @@
+package biweekly.io.text;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import biweekly.ICalDataType;
+import biweekly.ICalVersion;
+import biweekly.ICalendar;
+import biweekly.component.ICalComponent;
+import biweekly.io.CannotParseException;
+import biweekly.io.DataModelConversionException;
+import biweekly.io.ParseContext;
+import biweekly.io.ParseWarning;
+import biweekly.io.SkipMeException;
+import biweekly.io.TimezoneInfo;
+import biweekly.io.scribe.property.ICalPropertyScribe;
+import biweekly.io.scribe.property.RawPropertyScribe;
+import biweekly.parameter.ICalParameters;
+import biweekly.property.ICalProperty;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * Holds the raw value of a property whose parsing was deferred until the
+ * property is first accessed. The property's scribe is not invoked until
+ * {@link #call} is called.
+ * </p>
+ * <p>
+ * Instances of this class are created by {@link ICalReader} when lazy parsing
+ * is enabled. They are stored in the {@link ICalComponent} that the property
+ * belongs to, which parses them when its properties are retrieved.
+ * </p>
+ * @author Michael Angstadt
+ * @see ICalReader#setLazyParsing(boolean)
+ */
+class DeferredProperty implements Callable<List<ICalProperty>> {
+	private static Method addDeferredProperty;
+
+	private final ICalComponent parent;
+	private final ICalPropertyScribe<? extends ICalProperty> scribe;
+	private final String name;
+	private final String value;
+	private final ICalDataType dataType;
+	private final ICalParameters parameters;
+	private final ICalVersion version;
+	private final Integer lineNumber;
+	private final Batch batch;
+
+	/**
+	 * Creates a deferred property.
+	 * @param parent the component the property belongs to
+	 * @param scribe the scribe to parse the property with
+	 * @param name the property name
+	 * @param value the raw property value
+	 * @param dataType the property's data type
+	 * @param parameters the property's parameters
+	 * @param version the version of the iCalendar object the property belongs
+	 * to
+	 * @param lineNumber the line number the property is on or null if unknown
+	 * @param batch the batch the property belongs to
+	 */
+	public DeferredProperty(ICalComponent parent, ICalPropertyScribe<? extends ICalProperty> scribe, String name, String value, ICalDataType dataType, ICalParameters parameters, ICalVersion version, Integer lineNumber, Batch batch) {
+		this.parent = parent;
+		this.scribe = scribe;
+		this.name = name;
+		this.value = value;
+		this.dataType = dataType;
+		this.parameters = parameters;
+		this.version = version;
+		this.lineNumber = lineNumber;
+		this.batch = batch;
+	}
+
+	/**
+	 * Adds this property to its parent component. The component's method for
+	 * doing this is not public, so it is invoked through reflection.
+	 */
+	public void addToParent() {
+		try {
+			getAddMethod().invoke(parent, scribe.getPropertyClass(), this);
+		} catch (IllegalAccessException e) {
+			throw new RuntimeException(e);
+		} catch (InvocationTargetException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new RuntimeException(cause);
+		}
+	}
+
+	private static synchronized Method getAddMethod() {
+		if (addDeferredProperty == null) {
+			try {
+				Method method = ICalComponent.class.getDeclaredMethod("addDeferredProperty", Class.class, Callable.class);
+				method.setAccessible(true);
+				addDeferredProperty = method;
+			} catch (NoSuchMethodException e) {
+				throw new RuntimeException(e);
+			}
+		}
+		return addDeferredProperty;
+	}
+
+	/**
+	 * Parses the property. Any warnings that occur are added to the batch's
+	 * warnings list and any components that the property is converted into
+	 * are added to the parent component. This method should only be called
+	 * once.
+	 * @return the parsed properties (usually just one, empty if the property
+	 * was skipped)
+	 */
+	public List<ICalProperty> call() {
+		ParseContext context = new ParseContext();
+		context.setVersion(version);
+		context.setLineNumber(lineNumber);
+		context.setPropertyName(name);
+
+		List<ParseWarning> warnings = new ArrayList<ParseWarning>();
+		List<ICalProperty> properties = new ArrayList<ICalProperty>(1);
+		try {
+			properties.add(scribe.parseText(value, dataType, parameters, context));
+		} catch (SkipMeException e) {
+			//@formatter:off
+			warnings.add(new ParseWarning.Builder(context)
+				.message(0, e.getMessage())
+				.build()
+			);
+			//@formatter:on
+		} catch (CannotParseException e) {
+			//@formatter:off
+			warnings.add(new ParseWarning.Builder(context)
+				.message(e)
+				.build()
+			);
+			//@formatter:on
+			properties.add(new RawPropertyScribe(name).parseText(value, dataType, parameters, context));
+		} catch (DataModelConversionException e) {
+			properties.addAll(e.getProperties());
+			for (ICalComponent component : e.getComponents()) {
+				parent.addComponent(component);
+			}
+		}
+
+		warnings.addAll(context.getWarnings());
+		batch.resolveDates(context, warnings);
+		batch.warnings.addAll(warnings);
+
+		return properties;
+	}
+
+	/**
+	 * Holds the state that is shared by all the deferred properties of an
+	 * iCalendar object (or of a single streamed component).
+	 */
+	static class Batch {
+		private final ICalendar ical;
+		private final List<ParseWarning> warnings;
+		private TimezoneInfo propertyTzinfo;
+
+		/**
+		 * @param ical the iCalendar object whose VTIMEZONE components are
+		 * used to resolve the TZID parameters of the properties
+		 * @param warnings the list to add the parse warnings to (should be
+		 * thread-safe if the properties are accessed from multiple threads)
+		 */
+		public Batch(ICalendar ical, List<ParseWarning> warnings) {
+			this.ical = ical;
+			this.warnings = warnings;
+		}
+
+		/**
+		 * Sets the object that the timezone of each property is recorded in.
+		 * @param propertyTzinfo the timezone info or null to use the
+		 * iCalendar object's timezone info (default)
+		 */
+		public void setPropertyTimezoneInfo(TimezoneInfo propertyTzinfo) {
+			this.propertyTzinfo = propertyTzinfo;
+		}
+
+		private void resolveDates(ParseContext context, List<ParseWarning> warnings) {
+			TimezoneInfo tzinfo = ical.getTimezoneInfo();
+			TimezoneInfo propertyTzinfo = (this.propertyTzinfo == null) ? tzinfo : this.propertyTzinfo;
+			ICalReader.resolveDates(context, tzinfo, propertyTzinfo, warnings);
+		}
+	}
+}
@@ -9,17 +9,23 @@ import java.io.Reader;
 import java.io.StringReader;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import biweekly.ICalDataType;
 import biweekly.ICalVersion;
 import biweekly.ICalendar;
 import biweekly.component.ICalComponent;
+import biweekly.component.Observance;
+import biweekly.component.VTimezone;
 import biweekly.io.CannotParseException;
+import biweekly.io.ComponentListener;
 import biweekly.io.DataModelConversionException;
+import biweekly.io.ParseContext;
 import biweekly.io.ParseWarning;
 import biweekly.io.SkipMeException;
 import biweekly.io.StreamReader;
+import biweekly.io.TimezoneInfo;
 import biweekly.io.scribe.ScribeIndex;
 import biweekly.io.scribe.component.ICalComponentScribe;
 import biweekly.io.scribe.property.ICalPropertyScribe;
@@ -91,6 +97,10 @@ public class ICalReader extends StreamReader {
 
 	private final VObjectReader reader;
 	private final ICalVersion defaultVersion;
+	private ComponentListener componentListener;
+	private int lineNumberOffset = 0;
+	private boolean lazyParsing = false;
+	private List<ParseWarning> deferredWarnings = Collections.synchronizedList(new ArrayList<ParseWarning>());
 
 	/**
 	 * Creates a new iCalendar reader.
@@ -244,9 +254,116 @@ public class ICalReader extends StreamReader {
 		return defaultVersion;
 	}
 
+	/**
+	 * Gets whether the values of component properties are parsed when they are
+	 * first accessed instead of when they are read (disabled by default).
+	 * @return true if lazy parsing is enabled, false if not
+	 * @see #setLazyParsing(boolean)
+	 */
+	public boolean isLazyParsing() {
+		return lazyParsing;
+	}
+
+	/**
+	 * <p>
+	 * Sets whether the values of component properties are parsed when they are
+	 * first accessed instead of when they are read (disabled by default).
+	 * </p>
+	 * <p>
+	 * When enabled, the reader stores the raw value, parameters, and data type
+	 * of each property that belongs to a component such as a VEVENT. The
+	 * property is not parsed until it is retrieved from its component (for
+	 * example, by calling {@link ICalComponent#getProperty(Class)}). This
+	 * speeds up the reading of large iCalendar objects when only a few of
+	 * their properties are needed.
+	 * </p>
+	 * <p>
+	 * The properties of the VCALENDAR component, the properties of VTIMEZONE
+	 * components, and the properties of vCal 1.0 objects are always parsed
+	 * immediately. Warnings that occur while parsing a deferred property are
+	 * added to the list returned by {@link #getDeferredWarnings}, not
+	 * {@link #getWarnings}.
+	 * </p>
+	 * <p>
+	 * Note that retrieving the properties of a single class may change the
+	 * order in which the component's properties are written.
+	 * </p>
+	 * @param lazyParsing true to enable lazy parsing, false not to
+	 */
+	public void setLazyParsing(boolean lazyParsing) {
+		this.lazyParsing = lazyParsing;
+	}
+
+	/**
+	 * Gets the warnings that have occurred while parsing the deferred
+	 * properties of the last iCalendar object that was read. Warnings are
+	 * added to this list as the properties are accessed, so the list will
+	 * grow over time. The list is thread-safe.
+	 * @return the warnings
+	 * @see #setLazyParsing(boolean)
+	 */
+	public List<ParseWarning> getDeferredWarnings() {
+		return deferredWarnings;
+	}
+
+	/**
+	 * <p>
+	 * Reads the next iCalendar object from the data stream, passing each of
+	 * its top-level components (such as VEVENTs and VTODOs) to the given
+	 * listener as soon as the component has been parsed. The components are
+	 * not added to the returned {@link ICalendar} object, so only one component
+	 * is held in memory at a time.
+	 * </p>
+	 * <p>
+	 * VTIMEZONE components are not passed to the listener. They are added to
+	 * the iCalendar object's {@link TimezoneInfo} as soon as they are read so
+	 * that the date-time values of the components that follow them can be
+	 * parsed under the correct timezone. Therefore, VTIMEZONE components must
+	 * appear before the components that reference them (which is almost always
+	 * the case).
+	 * </p>
+	 * @param listener the listener to pass the components to
+	 * @return the iCalendar object, containing its properties and VTIMEZONE
+	 * components, or null if there are no more iCalendar objects
+	 * @throws IOException if there's a problem reading from the stream
+	 */
+	public ICalendar readNext(ComponentListener listener) throws IOException {
+		componentListener = listener;
+		try {
+			return readNext();
+		} finally {
+			componentListener = null;
+		}
+	}
+
+	/**
+	 * Reads the next iCalendar object from the data stream without applying
+	 * timezones to its date-time values. The date-time values are recorded in
+	 * the given parse context so that they can be handled later on.
+	 * @param context the parse context
+	 * @return the iCalendar object or null if there are no more
+	 * @throws IOException if there's a problem reading from the stream
+	 */
+	ICalendar readNextUnresolved(ParseContext context) throws IOException {
+		warnings.clear();
+		this.context = context;
+		return _readNext();
+	}
+
+	/**
+	 * Sets the number to add to the line numbers that are reported in parse
+	 * warnings. Used when the data stream is only a portion of the original
+	 * input.
+	 * @param lineNumberOffset the offset (defaults to zero)
+	 */
+	void setLineNumberOffset(int lineNumberOffset) {
+		this.lineNumberOffset = lineNumberOffset;
+	}
+
 	@Override
 	protected ICalendar _readNext() throws IOException {
-		VObjectDataListenerImpl listener = new VObjectDataListenerImpl();
+		deferredWarnings = Collections.synchronizedList(new ArrayList<ParseWarning>());
+		VObjectDataListenerImpl listener = new VObjectDataListenerImpl(componentListener);
 		reader.parse(listener);
 		return listener.ical;
 	}
@@ -256,12 +373,53 @@ public class ICalReader extends StreamReader {
 		private ICalVersion version = defaultVersion;
 		private ComponentStack stack = new ComponentStack();
 
+		/**
+		 * The listener to pass the top-level components to as they are parsed
+		 * or null to add them to the iCalendar object.
+		 */
+		private final ComponentListener componentListener;
+
+		/**
+		 * The parse context of the iCalendar object while a top-level
+		 * component is being streamed, or null if no component is being
+		 * streamed.
+		 */
+		private ParseContext calendarContext;
+
+		/**
+		 * The batch that deferred properties are added to when lazy parsing is
+		 * enabled.
+		 */
+		private DeferredProperty.Batch batch;
+
+		/**
+		 * The batch of the iCalendar object while a top-level component is
+		 * being streamed.
+		 */
+		private DeferredProperty.Batch calendarBatch;
+
+		/**
+		 * The depth of the component that is being skipped over because it
+		 * was filtered out (zero if no component is being skipped).
+		 */
+		private int skipDepth = 0;
+
+		public VObjectDataListenerImpl(ComponentListener componentListener) {
+			this.componentListener = componentListener;
+		}
+
 		public void onComponentBegin(String name, Context vobjectContext) {
 			//ignore everything until a VCALENDAR component is read
 			if (ical == null && !isVCalendarComponent(name)) {
 				return;
 			}
 
+			//skip the component and everything inside of it
+			if (skipDepth > 0 || !isComponentIncluded(name)) {
+				skipDepth++;
+				return;
+			}
+
 			ICalComponent parentComponent = stack.peek();
 
 			ICalComponentScribe<? extends ICalComponent> scribe = index.getComponentScribe(name, version);
@@ -271,6 +429,14 @@ public class ICalReader extends StreamReader {
 			if (parentComponent == null) {
 				ical = (ICalendar) component;
 				context.setVersion(version);
+				batch = new DeferredProperty.Batch(ical, deferredWarnings);
+			} else if (isStreamed(component, parentComponent)) {
+				//parse the component's date-time values separately from the rest of the iCalendar object
+				calendarContext = context;
+				context = new ParseContext();
+				context.setVersion(version);
+				calendarBatch = batch;
+				batch = new DeferredProperty.Batch(ical, deferredWarnings);
 			} else {
 				parentComponent.addComponent(component);
 			}
@@ -282,31 +448,68 @@ public class ICalReader extends StreamReader {
 				return;
 			}
 
+			if (skipDepth > 0) {
+				skipDepth--;
+				return;
+			}
+
 			/*
 			 * VObjectDataListener guarantees correct ordering of component
 			 * begin/end callback invocations (see javadocs), so we can pop
 			 * blindly without checking if the component name matches.
 			 */
-			stack.pop();
+			ICalComponent component = stack.pop();
 
 			//stop reading when "END:VCALENDAR" is reached
 			if (stack.isEmpty()) {
 				vobjectContext.stop();
+				return;
+			}
+
+			if (componentListener == null || stack.size() > 1) {
+				return;
+			}
+
+			if (isStreamed(component, ical)) {
+				ParseContext componentContext = context;
+				context = calendarContext;
+				calendarContext = null;
+
+				TimezoneInfo tzinfo = handleTimezones(ical, componentContext);
+				batch.setPropertyTimezoneInfo(tzinfo);
+				batch = calendarBatch;
+				calendarBatch = null;
+
+				componentListener.onComponent(component, tzinfo);
+				return;
+			}
+
+			if (component instanceof VTimezone) {
+				//register the timezone now so it can be applied to the components that follow it
+				VTimezone timezone = (VTimezone) component;
+				if (registerTimezone(timezone, ical.getTimezoneInfo())) {
+					ical.removeComponent(timezone);
+				}
 			}
 		}
 
 		public void onProperty(VObjectProperty vobjectProperty, Context vobjectContext) {
 			//VCALENDAR component not read yet, ignore
-			if (ical == null) {
+			if (ical == null || skipDepth > 0) {
 				return;
 			}
 
 			String propertyName = vobjectProperty.getName();
+			ICalComponent parentComponent = stack.peek();
+			if (!isPropertyIncluded(propertyName, parentComponent)) {
+				return;
+			}
+
 			ICalParameters parameters = new ICalParameters(vobjectProperty.getParameters().getMap());
 			String value = vobjectProperty.getValue();
 			
 			context.getWarnings().clear();
-			context.setLineNumber(vobjectContext.getLineNumber());
+			context.setLineNumber(vobjectContext.getLineNumber() + lineNumberOffset);
 			context.setPropertyName(propertyName);
 
 			ICalPropertyScribe<? extends ICalProperty> scribe = index.getPropertyScribe(propertyName, version);
@@ -322,7 +525,12 @@ public class ICalReader extends StreamReader {
 				dataType = scribe.defaultDataType(version);
 			}
 
-			ICalComponent parentComponent = stack.peek();
+			if (isDeferred(parentComponent)) {
+				new DeferredProperty(parentComponent, scribe, propertyName, value, dataType, parameters, version, context.getLineNumber(), batch).addToParent();
+				warnings.addAll(context.getWarnings());
+				return;
+			}
+
 			try {
 				ICalProperty property = scribe.parseText(value, dataType, parameters, context);
 				parentComponent.addProperty(property);
@@ -356,7 +564,7 @@ public class ICalReader extends StreamReader {
 
 		public void onVersion(String value, Context vobjectContext) {
 			//ignore if we are not directly under the root VCALENDAR component
-			if (stack.size() != 1) {
+			if (stack.size() != 1 || skipDepth > 0) {
 				return;
 			}
 
@@ -372,7 +580,7 @@ public class ICalReader extends StreamReader {
 
 			//@formatter:off
 			warnings.add(new ParseWarning.Builder()
-				.lineNumber(vobjectContext.getLineNumber())
+				.lineNumber(vobjectContext.getLineNumber() + lineNumberOffset)
 				.propertyName((property == null) ? null : property.getName())
 				.message(warning.getMessage())
 				.build()
@@ -384,6 +592,32 @@ public class ICalReader extends StreamReader {
 			return VCALENDAR_COMPONENT_NAME.equals(componentName);
 		}
 
+		/**
+		 * Determines if a component should be passed to the component
+		 * listener instead of being added to the iCalendar object.
+		 * @param component the component
+		 * @param parentComponent the component's parent
+		 * @return true if the component should be streamed, false if not
+		 */
+		private boolean isStreamed(ICalComponent component, ICalComponent parentComponent) {
+			return componentListener != null && parentComponent == ical && !(component instanceof VTimezone);
+		}
+
+		/**
+		 * Determines if the parsing of a property should be deferred until the
+		 * property is accessed.
+		 * @param parentComponent the component the property belongs to
+		 * @return true to defer parsing, false to parse the property now
+		 */
+		private boolean isDeferred(ICalComponent parentComponent) {
+			if (!lazyParsing || version == ICalVersion.V1_0) {
+				return false;
+			}
+
+			//VTIMEZONE components are needed to parse the rest of the iCalendar object
+			return parentComponent != ical && !(parentComponent instanceof VTimezone) && !(parentComponent instanceof Observance);
+		}
+
 		/**
 		 * Assigns names to all nameless parameters. v2.0 requires all
 		 * parameters to have names, but v1.0 does not.
@@ -430,6 +664,18 @@ public class ICalReader extends StreamReader {
 		}
 	}
 
+	/**
+	 * Resolves the timezones of the date-time values of a property whose
+	 * parsing was deferred (lazy parsing).
+	 * @param context the context the property was parsed with
+	 * @param tzinfo the iCalendar object's timezone info
+	 * @param propertyTzinfo the object to record the property's timezone in
+	 * @param warnings the list to add warnings to
+	 */
+	static void resolveDates(ParseContext context, TimezoneInfo tzinfo, TimezoneInfo propertyTzinfo, List<ParseWarning> warnings) {
+		StreamReader.resolveDates(context, tzinfo, propertyTzinfo, null, warnings);
+	}
+
 	/**
 	 * Keeps track of the hierarchy of nested components.
 	 */
@@ -0,0 +1,443 @@
+package biweekly.io.text;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.Future;
+
+import biweekly.ICalVersion;
+import biweekly.ICalendar;
+import biweekly.Messages;
+import biweekly.component.ICalComponent;
+import biweekly.io.ParseContext;
+import biweekly.io.ParseContext.TimezonedDate;
+import biweekly.io.ParseWarning;
+import biweekly.io.StreamReader;
+import biweekly.io.scribe.ScribeIndex;
+import biweekly.property.ICalProperty;
+import biweekly.util.Gobble;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * Parses {@link ICalendar} objects from a plain-text iCalendar data stream,
+ * using multiple threads to parse each iCalendar object.
+ * </p>
+ * <p>
+ * The input is first scanned for the boundaries of each top-level component
+ * (such as VEVENT and VTODO). The components are then divided into groups,
+ * which are parsed in parallel. Finally, the results are merged back into a
+ * single {@link ICalendar} object, in their original order. Timezones are
+ * applied to the date-time values once the merge is complete, so VTIMEZONE
+ * components can appear anywhere in the iCalendar object.
+ * </p>
+ * <p>
+ * Because the entire input must be scanned up front, this class only accepts
+ * strings and files. It only pays off for large iCalendar objects that contain
+ * many components. For everything else, use {@link ICalReader}.
+ * </p>
+ * <p>
+ * <b>Example:</b>
+ * </p>
+ *
+ * <pre class="brush:java">
+ * File file = new File("huge.ics");
+ * ParallelICalReader reader = new ParallelICalReader(file);
+ * try {
+ *   ICalendar ical;
+ *   while ((ical = reader.readNext()) != null) {
+ *     //...
+ *   }
+ * } finally {
+ *   reader.close();
+ * }
+ * </pre>
+ * @author Michael Angstadt
+ */
+public class ParallelICalReader extends StreamReader {
+	private static final String VCALENDAR_COMPONENT_NAME = ScribeIndex.getICalendarScribe().getComponentName(); //"VCALENDAR"
+	private static final String NEWLINE = "\r\n";
+
+	private final String ical;
+	private final ICalVersion defaultVersion;
+	private final ExecutorService executor;
+	private final boolean shutdownExecutor;
+	private int componentsPerTask = 500;
+	private int position = 0, lineNumber = 1;
+
+	/**
+	 * Creates a new parallel iCalendar reader that uses one daemon thread
+	 * for each available processor.
+	 * @param ical the string to read from
+	 */
+	public ParallelICalReader(String ical) {
+		this(ical, ICalVersion.V2_0);
+	}
+
+	/**
+	 * Creates a new parallel iCalendar reader that uses one daemon thread
+	 * for each available processor.
+	 * @param ical the string to read from
+	 * @param defaultVersion the version to assume the iCalendar object is in
+	 * until a VERSION property is encountered (defaults to 2.0)
+	 */
+	public ParallelICalReader(String ical, ICalVersion defaultVersion) {
+		this(ical, defaultVersion, newDefaultExecutor(), true);
+	}
+
+	/**
+	 * Creates a new parallel iCalendar reader.
+	 * @param ical the string to read from
+	 * @param defaultVersion the version to assume the iCalendar object is in
+	 * until a VERSION property is encountered (defaults to 2.0)
+	 * @param executor the executor to parse the components with (it is not
+	 * shut down when the reader is closed)
+	 */
+	public ParallelICalReader(String ical, ICalVersion defaultVersion, ExecutorService executor) {
+		this(ical, defaultVersion, executor, false);
+	}
+
+	/**
+	 * Creates a new parallel iCalendar reader that uses one daemon thread
+	 * for each available processor.
+	 * @param file the file to read from (must be UTF-8 encoded)
+	 * @throws IOException if there's a problem reading the file
+	 */
+	public ParallelICalReader(File file) throws IOException {
+		this(new Gobble(file).asString("UTF-8"));
+	}
+
+	private ParallelICalReader(String ical, ICalVersion defaultVersion, ExecutorService executor, boolean shutdownExecutor) {
+		this.ical = ical;
+		this.defaultVersion = defaultVersion;
+		this.executor = executor;
+		this.shutdownExecutor = shutdownExecutor;
+	}
+
+	/**
+	 * Creates the thread pool that is used when one is not passed into the
+	 * constructor. Its threads are daemon threads, so a reader that is never
+	 * closed does not keep the JVM running.
+	 * @return the thread pool
+	 */
+	private static ExecutorService newDefaultExecutor() {
+		return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+			private final ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+
+			public Thread newThread(Runnable runnable) {
+				Thread thread = defaultFactory.newThread(runnable);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Gets the maximum number of top-level components that each thread parses
+	 * at a time.
+	 * @return the number of components (defaults to 500)
+	 */
+	public int getComponentsPerTask() {
+		return componentsPerTask;
+	}
+
+	/**
+	 * Sets the maximum number of top-level components that each thread parses
+	 * at a time. Smaller values spread the work more evenly across the threads,
+	 * but add overhead.
+	 * @param componentsPerTask the number of components (defaults to 500)
+	 * @throws IllegalArgumentException if the number is less than one
+	 */
+	public void setComponentsPerTask(int componentsPerTask) {
+		if (componentsPerTask < 1) {
+			throw Messages.INSTANCE.getIllegalArgumentException(27);
+		}
+		this.componentsPerTask = componentsPerTask;
+	}
+
+	/**
+	 * Gets the iCalendar version that this reader will assume each iCalendar
+	 * object is formatted in up until a VERSION property is encountered.
+	 * @return the default version (defaults to "2.0")
+	 */
+	public ICalVersion getDefaultVersion() {
+		return defaultVersion;
+	}
+
+	@Override
+	protected ICalendar _readNext() throws IOException {
+		List<Segment> segments = nextSegments();
+		if (segments == null) {
+			return null;
+		}
+
+		/*
+		 * Parse the calendar-level properties first, which contain the
+		 * iCalendar object's version.
+		 */
+		Segment header = segments.get(0);
+		ICalReader headerReader = newReader(header, defaultVersion);
+		ICalendar root;
+		try {
+			root = headerReader.readNextUnresolved(context);
+		} finally {
+			headerReader.close();
+		}
+		warnings.addAll(headerReader.getWarnings());
+		if (root == null) {
+			return null;
+		}
+
+		final ICalVersion version = context.getVersion();
+		List<Callable<Result>> tasks = new ArrayList<Callable<Result>>(segments.size() - 1);
+		for (final Segment segment : segments.subList(1, segments.size())) {
+			tasks.add(new Callable<Result>() {
+				public Result call() throws Exception {
+					return parse(segment, version);
+				}
+			});
+		}
+
+		List<Future<Result>> futures;
+		try {
+			futures = executor.invokeAll(tasks);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e.getMessage());
+		}
+
+		//merge the results, in order
+		for (Future<Result> future : futures) {
+			Result result = get(future);
+			if (result.ical == null) {
+				continue;
+			}
+
+			for (ICalProperty property : result.ical.getProperties().values()) {
+				root.addProperty(property);
+			}
+			for (ICalComponent component : result.ical.getComponents().values()) {
+				root.addComponent(component);
+			}
+
+			for (Map.Entry<String, List<TimezonedDate>> entry : result.context.getTimezonedDates()) {
+				String tzid = entry.getKey();
+				for (TimezonedDate timezonedDate : entry.getValue()) {
+					context.addTimezonedDate(tzid, timezonedDate.getProperty(), timezonedDate.getDate());
+				}
+			}
+			for (TimezonedDate timezonedDate : result.context.getFloatingDates()) {
+				context.addFloatingDate(timezonedDate.getProperty(), timezonedDate.getDate());
+			}
+
+			warnings.addAll(result.warnings);
+		}
+
+		return root;
+	}
+
+	private Result parse(Segment segment, ICalVersion version) throws IOException {
+		ICalReader reader = newReader(segment, version);
+		try {
+			ParseContext context = new ParseContext();
+			ICalendar ical = reader.readNextUnresolved(context);
+			return new Result(ical, context, reader.getWarnings());
+		} finally {
+			reader.close();
+		}
+	}
+
+	private ICalReader newReader(Segment segment, ICalVersion version) {
+		StringBuilder sb = new StringBuilder(segment.end - segment.start + 64);
+		if (!segment.header) {
+			sb.append("BEGIN:").append(VCALENDAR_COMPONENT_NAME).append(NEWLINE);
+		}
+		sb.append(ical, segment.start, segment.end);
+		char last = ical.charAt(segment.end - 1);
+		if (last != '\n' && last != '\r') {
+			sb.append(NEWLINE);
+		}
+		sb.append("END:").append(VCALENDAR_COMPONENT_NAME).append(NEWLINE);
+
+		ICalReader reader = new ICalReader(sb.toString(), version);
+		reader.setScribeIndex(index);
+		reader.setParseFilter(filter);
+		reader.setLineNumberOffset(segment.header ? segment.lineNumber - 1 : segment.lineNumber - 2);
+		return reader;
+	}
+
+	private static Result get(Future<Result> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e.getMessage());
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new RuntimeException(cause);
+		}
+	}
+
+	/**
+	 * Scans the next iCalendar object in the input for the boundaries of its
+	 * top-level components.
+	 * @return the segments of the iCalendar object (the first segment contains
+	 * the BEGIN:VCALENDAR line and the properties that come before the first
+	 * component) or null if there are no more iCalendar objects
+	 */
+	private List<Segment> nextSegments() {
+		List<Segment> segments = new ArrayList<Segment>();
+		Segment current = null;
+		int depth = 0;
+
+		int length = ical.length();
+		while (position < length) {
+			int lineStart = position;
+			int lineEnd = lineStart;
+			while (lineEnd < length && ical.charAt(lineEnd) != '\r' && ical.charAt(lineEnd) != '\n') {
+				lineEnd++;
+			}
+
+			position = lineEnd;
+			if (position < length && ical.charAt(position) == '\r') {
+				position++;
+			}
+			if (position < length && ical.charAt(position) == '\n') {
+				position++;
+			}
+			int lineNumber = this.lineNumber++;
+
+			if (startsWith(lineStart, lineEnd, "BEGIN:")) {
+				if (depth == 0) {
+					if (!equalsName(lineStart + 6, lineEnd, VCALENDAR_COMPONENT_NAME)) {
+						//ignore everything until a VCALENDAR component is read
+						continue;
+					}
+					current = new Segment(lineStart, lineNumber, true);
+					segments.add(current);
+				} else if (depth == 1 && (current.header || current.components >= componentsPerTask)) {
+					current.end = lineStart;
+					current = new Segment(lineStart, lineNumber, false);
+					segments.add(current);
+				}
+				depth++;
+				continue;
+			}
+
+			if (depth > 0 && startsWith(lineStart, lineEnd, "END:")) {
+				depth--;
+				if (depth == 1) {
+					current.components++;
+				} else if (depth == 0) {
+					current.end = lineStart;
+					return segments;
+				}
+			}
+		}
+
+		if (current == null) {
+			return null;
+		}
+
+		//the VCALENDAR component was not closed
+		current.end = length;
+		return segments;
+	}
+
+	private boolean startsWith(int start, int end, String prefix) {
+		return end - start >= prefix.length() && ical.regionMatches(true, start, prefix, 0, prefix.length());
+	}
+
+	private boolean equalsName(int start, int end, String name) {
+		String value = ical.substring(start, end).trim();
+		return value.equalsIgnoreCase(name);
+	}
+
+	/**
+	 * Shuts down the thread pool, if it was created by this reader. The
+	 * threads of the pool are daemon threads, so they do not prevent the JVM
+	 * from exiting if the reader is not closed, but they are not released
+	 * until this method is called.
+	 */
+	public void close() {
+		if (shutdownExecutor) {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * A contiguous range of lines within an iCalendar object.
+	 */
+	private static class Segment {
+		private final int start, lineNumber;
+		private final boolean header;
+		private int end, components;
+
+		/**
+		 * @param start the character offset of the first line
+		 * @param lineNumber the line number of the first line
+		 * @param header true if this segment contains the start of the
+		 * iCalendar object, false if it begins at a component
+		 */
+		public Segment(int start, int lineNumber, boolean header) {
+			this.start = start;
+			this.lineNumber = lineNumber;
+			this.header = header;
+		}
+	}
+
+	/**
+	 * The result of parsing a single segment.
+	 */
+	private static class Result {
+		private final ICalendar ical;
+		private final ParseContext context;
+		private final List<ParseWarning> warnings;
+
+		public Result(ICalendar ical, ParseContext context, List<ParseWarning> warnings) {
+			this.ical = ical;
+			this.context = context;
+			this.warnings = warnings;
+		}
+	}
+}
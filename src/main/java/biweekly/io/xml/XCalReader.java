@@ -302,7 +302,7 @@ public class XCalReader extends StreamReader {
 
 				case components:
 					//start component element
-					if (XCAL_NS.equals(namespace)) {
+					if (XCAL_NS.equals(namespace) && isComponentIncluded(localName)) {
 						ICalComponentScribe<? extends ICalComponent> scribe = index.getComponentScribe(localName, ICalVersion.V2_0);
 						curComponent = scribe.emptyInstance();
 
@@ -315,6 +315,11 @@ public class XCalReader extends StreamReader {
 
 				case properties:
 					//start property element
+					if (!isPropertyIncluded(localName, curComponent)) {
+						//skip the property and all of its child elements
+						break;
+					}
+
 					propertyElement = createElement(namespace, localName, attributes);
 					parameters = new ICalParameters();
 					parent = propertyElement;
@@ -0,0 +1,494 @@
+package biweekly.util;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TimeZone;
+
+import biweekly.ICalendar;
+import biweekly.Messages;
+import biweekly.component.VFreeBusy;
+import biweekly.parameter.FreeBusyType;
+import biweekly.parameter.ParticipationLevel;
+import biweekly.property.Attendee;
+import biweekly.property.FreeBusy;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * Finds the windows of time in which all of the required attendees of a
+ * meeting are free.
+ * </p>
+ * <p>
+ * Each attendee's busy time is read from {@link VFreeBusy} components and/or
+ * computed from their iCalendar objects (see {@link FreeBusyCalculator}). An
+ * attendee is optional if their {@link Attendee#getParticipationLevel
+ * participation level} (the ROLE parameter) is
+ * {@link ParticipationLevel#OPTIONAL OPT-PARTICIPANT}, and is ignored if it is
+ * {@link ParticipationLevel#FYI NON-PARTICIPANT}. All other attendees are
+ * required.
+ * </p>
+ * <p>
+ * The sorted busy periods of the required attendees are merged with a k-way
+ * heap sweep, and the gaps between them are intersected with the working hours
+ * (if set). Each gap that is at least as long as the meeting is returned as a
+ * {@link MeetingSlot}, along with the optional attendees who are free for the
+ * whole gap. The sweep stops as soon as the requested number of slots have
+ * been found.
+ * </p>
+ * <p>
+ * <b>Example:</b>
+ * </p>
+ * 
+ * <pre class="brush:java">
+ * AvailabilitySolver solver = new AvailabilitySolver();
+ * solver.addAttendee(alice, aliceFreeBusy);
+ * solver.addAttendee(bob, bobCalendar);
+ * solver.setWorkingHours(9, 0, 17, 0);
+ * solver.setWorkingDays(DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY, DayOfWeek.THURSDAY, DayOfWeek.FRIDAY);
+ * 
+ * //find the first three slots in which a 30 minute meeting fits
+ * List&lt;MeetingSlot&gt; slots = solver.findSlots(windowStart, windowEnd, new Duration.Builder().minutes(30).build(), 3);
+ * </pre>
+ * @author Michael Angstadt
+ */
+public class AvailabilitySolver {
+	private final List<Participant> participants = new ArrayList<Participant>();
+	private TimeZone timezone = TimeZone.getDefault();
+	private int workStart = -1, workEnd = -1;
+	private boolean[] workingDays;
+	private boolean tentativeBusy = true;
+
+	/**
+	 * Adds free/busy information for an attendee. This method can be called
+	 * multiple times for the same attendee.
+	 * @param attendee the attendee
+	 * @param freeBusy the attendee's free/busy information
+	 */
+	public void addAttendee(Attendee attendee, VFreeBusy freeBusy) {
+		getParticipant(attendee).freeBusy.add(freeBusy);
+	}
+
+	/**
+	 * Adds a calendar for an attendee. The attendee's busy time is computed
+	 * from the calendar's events. This method can be called multiple times
+	 * for the same attendee.
+	 * @param attendee the attendee
+	 * @param ical the attendee's calendar
+	 */
+	public void addAttendee(Attendee attendee, ICalendar ical) {
+		Participant participant = getParticipant(attendee);
+		participant.icals.add(ical);
+		participant.calculator = null;
+	}
+
+	private Participant getParticipant(Attendee attendee) {
+		for (Participant participant : participants) {
+			if (participant.attendee == attendee) {
+				return participant;
+			}
+		}
+
+		Participant participant = new Participant(attendee);
+		participants.add(participant);
+		return participant;
+	}
+
+	/**
+	 * Sets the hours of the day that meetings can be scheduled in.
+	 * @param startHour the hour of the start of the working day (0-23)
+	 * @param startMinute the minute of the start of the working day (0-59)
+	 * @param endHour the hour of the end of the working day (0-24)
+	 * @param endMinute the minute of the end of the working day (0-59)
+	 * @throws IllegalArgumentException if the end is not after the start
+	 */
+	public void setWorkingHours(int startHour, int startMinute, int endHour, int endMinute) {
+		int start = startHour * 60 + startMinute;
+		int end = endHour * 60 + endMinute;
+		if (start < 0 || end <= start || end > 24 * 60) {
+			throw Messages.INSTANCE.getIllegalArgumentException(30);
+		}
+
+		workStart = start;
+		workEnd = end;
+	}
+
+	/**
+	 * Sets the days of the week that meetings can be scheduled on (defaults to
+	 * all days).
+	 * @param days the days
+	 */
+	public void setWorkingDays(DayOfWeek... days) {
+		workingDays = new boolean[8];
+		for (DayOfWeek day : days) {
+			workingDays[day.getCalendarConstant()] = true;
+		}
+	}
+
+	/**
+	 * Sets the timezone that the working hours are in.
+	 * @param timezone the timezone (defaults to the JVM's default timezone)
+	 */
+	public void setTimezone(TimeZone timezone) {
+		this.timezone = timezone;
+	}
+
+	/**
+	 * Sets whether tentatively busy time should be treated as busy time.
+	 * @param tentativeBusy true to treat it as busy time, false to treat it as
+	 * free time (defaults to true)
+	 */
+	public void setTentativeBusy(boolean tentativeBusy) {
+		this.tentativeBusy = tentativeBusy;
+	}
+
+	/**
+	 * Finds all of the windows of time within the given range that a meeting
+	 * can be scheduled in.
+	 * @param windowStart the start of the range (inclusive)
+	 * @param windowEnd the end of the range (exclusive)
+	 * @param duration the length of the meeting
+	 * @return the slots, in ascending order
+	 */
+	public List<MeetingSlot> findSlots(Date windowStart, Date windowEnd, Duration duration) {
+		return findSlots(windowStart, windowEnd, duration, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Finds the first windows of time within the given range that a meeting
+	 * can be scheduled in.
+	 * @param windowStart the start of the range (inclusive)
+	 * @param windowEnd the end of the range (exclusive)
+	 * @param duration the length of the meeting
+	 * @param limit the maximum number of slots to return
+	 * @return the slots, in ascending order
+	 * @throws IllegalArgumentException if the limit is less than one
+	 */
+	public List<MeetingSlot> findSlots(Date windowStart, Date windowEnd, Duration duration, int limit) {
+		if (limit < 1) {
+			throw Messages.INSTANCE.getIllegalArgumentException(29);
+		}
+
+		List<MeetingSlot> slots = new ArrayList<MeetingSlot>();
+		long start = windowStart.getTime();
+		long end = windowEnd.getTime();
+		long length = Math.max(duration.toMillis(), 0);
+		if (start >= end) {
+			return slots;
+		}
+
+		List<long[]> required = new ArrayList<long[]>();
+		List<Participant> optional = new ArrayList<Participant>();
+		List<long[]> optionalBusy = new ArrayList<long[]>();
+		for (Participant participant : participants) {
+			ParticipationLevel level = participant.attendee.getParticipationLevel();
+			if (level == ParticipationLevel.FYI) {
+				continue;
+			}
+
+			long[] busy = participant.getBusyTimes(start, end, tentativeBusy);
+			if (level == ParticipationLevel.OPTIONAL) {
+				optional.add(participant);
+				optionalBusy.add(busy);
+			} else if (busy.length > 0) {
+				required.add(busy);
+			}
+		}
+
+		long[] working = getWorkingPeriods(start, end);
+		BusyMerger merger = new BusyMerger(required);
+		long freeStart = start;
+		int w = 0;
+		while (freeStart < end) {
+			long freeEnd;
+			long nextFreeStart;
+			if (merger.next()) {
+				freeEnd = Math.min(merger.start, end);
+				nextFreeStart = merger.end;
+			} else {
+				freeEnd = end;
+				nextFreeStart = end;
+			}
+
+			//intersect the free period with the working periods
+			while (w < working.length && working[w + 1] <= freeStart) {
+				w += 2;
+			}
+			for (int k = w; k < working.length && working[k] < freeEnd; k += 2) {
+				long slotStart = Math.max(freeStart, working[k]);
+				long slotEnd = Math.min(freeEnd, working[k + 1]);
+				if (slotEnd <= slotStart || slotEnd - slotStart < length) {
+					continue;
+				}
+
+				List<Attendee> available = new ArrayList<Attendee>();
+				for (int i = 0; i < optional.size(); i++) {
+					if (isFree(optionalBusy.get(i), slotStart, slotEnd)) {
+						available.add(optional.get(i).attendee);
+					}
+				}
+
+				slots.add(new MeetingSlot(new Date(slotStart), new Date(slotEnd), available));
+				if (slots.size() == limit) {
+					return slots;
+				}
+			}
+
+			freeStart = nextFreeStart;
+		}
+
+		return slots;
+	}
+
+	/**
+	 * Computes the periods of time within the given range that fall within
+	 * the working hours.
+	 * @param start the start of the range
+	 * @param end the end of the range
+	 * @return the periods (each period's start and end are stored one after
+	 * the other)
+	 */
+	private long[] getWorkingPeriods(long start, long end) {
+		if (workStart < 0 && workingDays == null) {
+			return new long[] { start, end };
+		}
+
+		int dayStart = (workStart < 0) ? 0 : workStart;
+		int dayEnd = (workStart < 0) ? 24 * 60 : workEnd;
+
+		FreeBusyCalculator.Intervals periods = new FreeBusyCalculator.Intervals();
+		Calendar day = Calendar.getInstance(timezone);
+		day.setTimeInMillis(start);
+		day.set(Calendar.HOUR_OF_DAY, 0);
+		day.set(Calendar.MINUTE, 0);
+		day.set(Calendar.SECOND, 0);
+		day.set(Calendar.MILLISECOND, 0);
+		while (day.getTimeInMillis() < end) {
+			if (workingDays == null || workingDays[day.get(Calendar.DAY_OF_WEEK)]) {
+				long periodStart = Math.max(timeOfDay(day, dayStart), start);
+				long periodEnd = Math.min(timeOfDay(day, dayEnd), end);
+				if (periodStart < periodEnd) {
+					periods.add(periodStart, periodEnd);
+				}
+			}
+			day.add(Calendar.DATE, 1);
+		}
+
+		return periods.toArray();
+	}
+
+	/**
+	 * Gets a time on the given day.
+	 * @param day the day
+	 * @param minutes the time, in minutes since midnight (1440 is the
+	 * following midnight)
+	 * @return the time
+	 */
+	private static long timeOfDay(Calendar day, int minutes) {
+		Calendar c = (Calendar) day.clone();
+		c.set(Calendar.HOUR_OF_DAY, minutes / 60);
+		c.set(Calendar.MINUTE, minutes % 60);
+		return c.getTimeInMillis();
+	}
+
+	/**
+	 * Determines if a set of busy periods leaves a window of time free.
+	 * @param busy the busy periods (sorted and non-overlapping)
+	 * @param start the start of the window
+	 * @param end the end of the window
+	 * @return true if the window is free, false if not
+	 */
+	private static boolean isFree(long[] busy, long start, long end) {
+		//find the first period that ends after the window starts
+		int low = 0, high = busy.length / 2 - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (busy[mid * 2 + 1] <= start) {
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+
+		return low * 2 >= busy.length || busy[low * 2] >= end;
+	}
+
+	/**
+	 * An attendee and the sources of their busy time.
+	 */
+	private static class Participant {
+		private final Attendee attendee;
+		private final List<VFreeBusy> freeBusy = new ArrayList<VFreeBusy>();
+		private final List<ICalendar> icals = new ArrayList<ICalendar>();
+		private FreeBusyCalculator calculator;
+
+		public Participant(Attendee attendee) {
+			this.attendee = attendee;
+		}
+
+		/**
+		 * Gets the attendee's busy time within a window.
+		 * @param start the start of the window
+		 * @param end the end of the window
+		 * @param tentativeBusy true to include tentatively busy time, false
+		 * not to
+		 * @return the busy periods, sorted and non-overlapping (each period's
+		 * start and end are stored one after the other)
+		 */
+		public long[] getBusyTimes(long start, long end, boolean tentativeBusy) {
+			FreeBusyCalculator.Intervals periods = new FreeBusyCalculator.Intervals();
+
+			for (VFreeBusy component : freeBusy) {
+				for (FreeBusy property : component.getFreeBusy()) {
+					FreeBusyType type = property.getType();
+					if (type == FreeBusyType.FREE || (!tentativeBusy && type == FreeBusyType.BUSY_TENTATIVE)) {
+						continue;
+					}
+
+					for (Period period : property.getValues()) {
+						ICalDate periodStart = period.getStartDate();
+						if (periodStart == null) {
+							continue;
+						}
+
+						long periodStartMillis = periodStart.getTime();
+						long periodEndMillis;
+						if (period.getEndDate() != null) {
+							periodEndMillis = period.getEndDate().getTime();
+						} else if (period.getDuration() != null) {
+							periodEndMillis = periodStartMillis + period.getDuration().toMillis();
+						} else {
+							continue;
+						}
+
+						periodStartMillis = Math.max(periodStartMillis, start);
+						periodEndMillis = Math.min(periodEndMillis, end);
+						if (periodStartMillis < periodEndMillis) {
+							periods.add(periodStartMillis, periodEndMillis);
+						}
+					}
+				}
+			}
+
+			if (!icals.isEmpty()) {
+				if (calculator == null) {
+					calculator = new FreeBusyCalculator(icals);
+				}
+
+				long[][] busyTimes = calculator.getBusyTimes(start, end);
+				add(periods, busyTimes[0]);
+				if (tentativeBusy) {
+					add(periods, busyTimes[1]);
+				}
+			}
+
+			return periods.merge();
+		}
+
+		private static void add(FreeBusyCalculator.Intervals intervals, long[] periods) {
+			for (int i = 0; i < periods.length; i += 2) {
+				intervals.add(periods[i], periods[i + 1]);
+			}
+		}
+	}
+
+	/**
+	 * Merges the busy periods of multiple attendees into a single sorted
+	 * stream of non-overlapping periods, using a heap.
+	 */
+	private static class BusyMerger {
+		private final PriorityQueue<Cursor> queue;
+
+		/**
+		 * The current merged period.
+		 */
+		private long start, end;
+
+		public BusyMerger(List<long[]> busyTimes) {
+			queue = new PriorityQueue<Cursor>(Math.max(1, busyTimes.size()), new Comparator<Cursor>() {
+				public int compare(Cursor a, Cursor b) {
+					long aStart = a.periods[a.index], bStart = b.periods[b.index];
+					return (aStart < bStart) ? -1 : (aStart == bStart) ? 0 : 1;
+				}
+			});
+
+			for (long[] periods : busyTimes) {
+				if (periods.length > 0) {
+					queue.add(new Cursor(periods));
+				}
+			}
+		}
+
+		/**
+		 * Moves to the next merged period.
+		 * @return true if there was another period, false if not
+		 */
+		public boolean next() {
+			Cursor cursor = queue.poll();
+			if (cursor == null) {
+				return false;
+			}
+
+			start = cursor.periods[cursor.index];
+			end = cursor.periods[cursor.index + 1];
+			advance(cursor);
+
+			//absorb the periods that overlap or touch the current one
+			while (!queue.isEmpty()) {
+				Cursor next = queue.peek();
+				if (next.periods[next.index] > end) {
+					break;
+				}
+
+				queue.poll();
+				end = Math.max(end, next.periods[next.index + 1]);
+				advance(next);
+			}
+
+			return true;
+		}
+
+		private void advance(Cursor cursor) {
+			cursor.index += 2;
+			if (cursor.index < cursor.periods.length) {
+				queue.add(cursor);
+			}
+		}
+	}
+
+	private static class Cursor {
+		private final long[] periods;
+		private int index = 0;
+
+		public Cursor(long[] periods) {
+			this.periods = periods;
+		}
+	}
+}
@@ -0,0 +1,228 @@
+package biweekly.util;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import biweekly.component.ICalComponent;
+import biweekly.property.ExceptionDates;
+import biweekly.property.RecurrenceDates;
+import biweekly.util.com.google.ical.iter.DateValueSet;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * The {@link RecurrenceDates RDATE} and {@link ExceptionDates EXDATE} values of
+ * a component, converted to UTC and sorted. This object is created by
+ * {@link Google2445Utils} the first time the component's dates are iterated
+ * over, and cached, so that components with a large number of RDATEs or
+ * EXDATEs do not have to have them converted and sorted every time.
+ * </p>
+ * <p>
+ * The cache is keyed by component identity (components define
+ * {@link ICalComponent#equals equals} in terms of their contents), and an
+ * entry is discarded when its component is garbage collected.
+ * </p>
+ * <p>
+ * The cached object remembers which properties and {@link ICalDate} objects
+ * it was created from, and is re-created if any are added, removed, or
+ * replaced, or if the time of an {@link ICalDate} object is changed.
+ * </p>
+ * @author Michael Angstadt
+ */
+final class CompiledRecurrenceDates {
+	private static final Map<ComponentKey, CompiledRecurrenceDates> cache = new HashMap<ComponentKey, CompiledRecurrenceDates>();
+	private static final ReferenceQueue<ICalComponent> collected = new ReferenceQueue<ICalComponent>();
+
+	private final Object[] sources;
+	private final long[] times;
+	private final DateValueSet recurrenceDates, exceptionDates;
+
+	/**
+	 * Gets the compiled RDATE and EXDATE values of a component, compiling them
+	 * if they are not cached or if they have changed since they were cached.
+	 * @param component the component
+	 * @return the compiled values
+	 */
+	static CompiledRecurrenceDates of(ICalComponent component) {
+		CompiledRecurrenceDates compiled = getCached(component);
+		if (compiled != null && compiled.isCurrent(component)) {
+			return compiled;
+		}
+
+		/*
+		 * The dates are compiled outside of the lock. If two threads compile
+		 * the dates at the same time, the results are equivalent, so it
+		 * doesn't matter which one is cached.
+		 */
+		compiled = new CompiledRecurrenceDates(component);
+		synchronized (cache) {
+			expungeCollected();
+			cache.put(new ComponentKey(component, collected), compiled);
+		}
+		return compiled;
+	}
+
+	/**
+	 * Gets the cached values of a component.
+	 * @param component the component
+	 * @return the cached values (which may be out of date) or null if the
+	 * component's values are not cached
+	 */
+	static CompiledRecurrenceDates getCached(ICalComponent component) {
+		synchronized (cache) {
+			return cache.get(new ComponentKey(component, null));
+		}
+	}
+
+	/**
+	 * Removes the cache entries of components that have been garbage
+	 * collected.
+	 */
+	private static void expungeCollected() {
+		Object key;
+		while ((key = collected.poll()) != null) {
+			cache.remove(key);
+		}
+	}
+
+	/**
+	 * Compiles the RDATE and EXDATE values of a component.
+	 * @param component the component
+	 */
+	private CompiledRecurrenceDates(ICalComponent component) {
+		List<Object> sources = new ArrayList<Object>();
+		List<ICalDate> dates = new ArrayList<ICalDate>();
+		for (RecurrenceDates property : component.getProperties(RecurrenceDates.class)) {
+			sources.add(property);
+			for (ICalDate date : property.getDates()) {
+				sources.add(date);
+				dates.add(date);
+			}
+		}
+		int numRecurrenceDates = dates.size();
+		for (ExceptionDates property : component.getProperties(ExceptionDates.class)) {
+			sources.add(property);
+			for (ICalDate date : property.getValues()) {
+				sources.add(date);
+				dates.add(date);
+			}
+		}
+
+		this.sources = sources.toArray();
+		times = new long[dates.size()];
+		for (int i = 0; i < times.length; i++) {
+			times[i] = dates.get(i).getTime();
+		}
+
+		long[] rdates = new long[numRecurrenceDates];
+		long[] exdates = new long[times.length - numRecurrenceDates];
+		System.arraycopy(times, 0, rdates, 0, rdates.length);
+		System.arraycopy(times, rdates.length, exdates, 0, exdates.length);
+		recurrenceDates = new DateValueSet(rdates);
+		exceptionDates = new DateValueSet(exdates);
+	}
+
+	/**
+	 * Gets the component's RDATE values.
+	 * @return the RDATE values (in UTC)
+	 */
+	DateValueSet getRecurrenceDates() {
+		return recurrenceDates;
+	}
+
+	/**
+	 * Gets the component's EXDATE values.
+	 * @return the EXDATE values (in UTC)
+	 */
+	DateValueSet getExceptionDates() {
+		return exceptionDates;
+	}
+
+	/**
+	 * Determines if the given component still has the RDATE and EXDATE values
+	 * that this object was created from. This check compares object
+	 * references and times only. It does not convert or sort any dates.
+	 * @param component the component
+	 * @return true if the values are the same, false if they have changed
+	 */
+	private boolean isCurrent(ICalComponent component) {
+		int s = 0, t = 0;
+
+		for (RecurrenceDates property : component.getProperties(RecurrenceDates.class)) {
+			if (s == sources.length || sources[s++] != property) {
+				return false;
+			}
+			for (ICalDate date : property.getDates()) {
+				if (s == sources.length || sources[s++] != date || times[t++] != date.getTime()) {
+					return false;
+				}
+			}
+		}
+
+		for (ExceptionDates property : component.getProperties(ExceptionDates.class)) {
+			if (s == sources.length || sources[s++] != property) {
+				return false;
+			}
+			for (ICalDate date : property.getValues()) {
+				if (s == sources.length || sources[s++] != date || times[t++] != date.getTime()) {
+					return false;
+				}
+			}
+		}
+
+		return s == sources.length;
+	}
+
+	/**
+	 * A weak reference to a component that is compared by identity.
+	 */
+	private static class ComponentKey extends WeakReference<ICalComponent> {
+		private final int hash;
+
+		public ComponentKey(ICalComponent component, ReferenceQueue<ICalComponent> queue) {
+			super(component, queue);
+			hash = System.identityHashCode(component);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) return true;
+			if (!(obj instanceof ComponentKey)) return false;
+			Object component = get();
+			return component != null && component == ((ComponentKey) obj).get();
+		}
+	}
+}
@@ -0,0 +1,369 @@
+package biweekly.util;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * Parses date and date-time strings that are in ISO-8601 basic or extended
+ * format (e.g. "20130609T181023Z" or "2013-06-09T18:10:23-04:00").
+ * </p>
+ * <p>
+ * The string is scanned once, without the use of regular expressions or
+ * substrings. Date-time values that are in UTC or that have a UTC offset are
+ * converted to milliseconds using arithmetic instead of a {@link Calendar}
+ * object.
+ * </p>
+ * @author Michael Angstadt
+ */
+final class DateTimeScanner {
+	private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+	/**
+	 * The first day on which the Gregorian calendar was in effect everywhere
+	 * (January 1, 1583). {@link Calendar} objects use the Julian calendar for
+	 * dates that come before the Gregorian cutover date, so these dates cannot
+	 * be computed arithmetically.
+	 */
+	private static final long GREGORIAN_EPOCH_DAY = daysFromCivil(1583, 1, 1);
+
+	private final String str;
+	private int pos;
+
+	int year, month, date, hour, minute, second, millisecond;
+	boolean hasTime, utc, hasOffset;
+	int offsetMillis;
+
+	/**
+	 * @param str the string to parse
+	 */
+	DateTimeScanner(String str) {
+		this.str = str;
+	}
+
+	/**
+	 * Scans the string.
+	 * @param strict true to require the entire string to be a valid date or
+	 * date-time value, false to parse as much of the beginning of the string
+	 * as possible and ignore the rest (fractional seconds and UTC offsets are
+	 * ignored in this mode)
+	 * @return true if the string was parsed successfully, false if not
+	 */
+	boolean scan(boolean strict) {
+		pos = 0;
+
+		//date
+		year = digits(4);
+		if (year < 0) {
+			return false;
+		}
+		skip('-');
+		month = digits(2);
+		if (month < 0) {
+			return false;
+		}
+		skip('-');
+		date = digits(2);
+		if (date < 0) {
+			return false;
+		}
+
+		if (strict && pos == str.length()) {
+			return true;
+		}
+
+		//time
+		int timeStart = pos;
+		hasTime = scanTime();
+		if (!hasTime) {
+			if (strict) {
+				return false;
+			}
+
+			pos = timeStart;
+			hour = minute = second = 0;
+			return true;
+		}
+
+		if (!strict) {
+			utc = skip('Z');
+			return true;
+		}
+
+		//fractional seconds
+		if (skip('.')) {
+			if (!scanFraction()) {
+				return false;
+			}
+		}
+
+		if (pos == str.length()) {
+			return true;
+		}
+
+		//UTC offset
+		hasOffset = true;
+		if (skip('Z')) {
+			utc = true;
+			return pos == str.length();
+		}
+
+		char sign = str.charAt(pos);
+		if (sign != '+' && sign != '-') {
+			return false;
+		}
+		pos++;
+
+		int offsetHour = digits(2);
+		if (offsetHour < 0) {
+			return false;
+		}
+
+		int offsetMinute = 0;
+		if (pos < str.length()) {
+			skip(':');
+			offsetMinute = digits(2);
+			if (offsetMinute < 0) {
+				return false;
+			}
+		}
+
+		offsetMillis = (offsetHour * 60 + offsetMinute) * 60 * 1000;
+		if (sign == '-') {
+			offsetMillis = -offsetMillis;
+		}
+
+		return pos == str.length();
+	}
+
+	/**
+	 * Converts the parsed values to a timestamp.
+	 * @param timezone the timezone to use if the value does not have a UTC
+	 * offset or null to use the JVM's default timezone
+	 * @return the number of milliseconds since the epoch
+	 */
+	long toMillis(TimeZone timezone) {
+		if (hasOffset) {
+			return utcMillis(year, month, date, hour, minute, second, millisecond) - offsetMillis;
+		}
+
+		if (timezone == null) {
+			timezone = TimeZone.getDefault();
+		}
+		return toMillis(year, month, date, hour, minute, second, millisecond, timezone);
+	}
+
+	/**
+	 * Converts a set of date-time fields to a timestamp. Out-of-range values
+	 * are handled leniently, the same way as a lenient {@link Calendar}.
+	 * @param year the year
+	 * @param month the month (1-12)
+	 * @param date the date of the month
+	 * @param hour the hour
+	 * @param minute the minute
+	 * @param second the second
+	 * @param millisecond the millisecond
+	 * @param timezone the timezone the fields are in
+	 * @return the number of milliseconds since the epoch
+	 */
+	static long toMillis(int year, int month, int date, int hour, int minute, int second, int millisecond, TimeZone timezone) {
+		if (isUtc(timezone)) {
+			return utcMillis(year, month, date, hour, minute, second, millisecond);
+		}
+
+		return calendarMillis(year, month, date, hour, minute, second, millisecond, timezone);
+	}
+
+	/**
+	 * Converts a set of UTC date-time fields to a timestamp. Out-of-range
+	 * values are handled leniently, the same way as a lenient {@link Calendar}.
+	 * @param year the year
+	 * @param month the month (1-12)
+	 * @param date the date of the month
+	 * @param hour the hour
+	 * @param minute the minute
+	 * @param second the second
+	 * @param millisecond the millisecond
+	 * @return the number of milliseconds since the epoch
+	 */
+	static long utcMillis(int year, int month, int date, int hour, int minute, int second, int millisecond) {
+		//normalize the month
+		int monthIndex = month - 1;
+		year += floorDiv(monthIndex, 12);
+		monthIndex -= floorDiv(monthIndex, 12) * 12;
+
+		long day = daysFromCivil(year, monthIndex + 1, 1) + date - 1;
+		long millis = day * MILLIS_PER_DAY + ((hour * 60L + minute) * 60 + second) * 1000 + millisecond;
+
+		if (millis < GREGORIAN_EPOCH_DAY * MILLIS_PER_DAY) {
+			return calendarMillis(year, monthIndex + 1, date, hour, minute, second, millisecond, TimeZone.getTimeZone("UTC"));
+		}
+
+		return millis;
+	}
+
+	private static long calendarMillis(int year, int month, int date, int hour, int minute, int second, int millisecond, TimeZone timezone) {
+		Calendar c = Calendar.getInstance(timezone);
+		c.clear();
+		c.set(Calendar.YEAR, year);
+		c.set(Calendar.MONTH, month - 1);
+		c.set(Calendar.DATE, date);
+		c.set(Calendar.HOUR_OF_DAY, hour);
+		c.set(Calendar.MINUTE, minute);
+		c.set(Calendar.SECOND, second);
+		c.set(Calendar.MILLISECOND, millisecond);
+		return c.getTimeInMillis();
+	}
+
+	/**
+	 * Determines if a timezone is UTC.
+	 * @param timezone the timezone
+	 * @return true if it's UTC, false if not
+	 */
+	static boolean isUtc(TimeZone timezone) {
+		String id = timezone.getID();
+		return ("UTC".equals(id) || "GMT".equals(id)) && timezone.getRawOffset() == 0 && !timezone.useDaylightTime();
+	}
+
+	/**
+	 * Computes the number of days between the epoch (January 1, 1970) and a
+	 * date in the proleptic Gregorian calendar.
+	 * @param year the year
+	 * @param month the month (1-12)
+	 * @param date the date of the month (1-31)
+	 * @return the number of days
+	 * @see <a href="http://howardhinnant.github.io/date_algorithms.html">
+	 * http://howardhinnant.github.io/date_algorithms.html</a>
+	 */
+	static long daysFromCivil(int year, int month, int date) {
+		long y = (month <= 2) ? year - 1 : year;
+		long era = floorDiv(y, 400);
+		long yearOfEra = y - era * 400;
+		long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + date - 1;
+		long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * 146097 + dayOfEra - 719468;
+	}
+
+	private static int floorDiv(int x, int y) {
+		int q = x / y;
+		return (x % y != 0 && ((x ^ y) < 0)) ? q - 1 : q;
+	}
+
+	private static long floorDiv(long x, long y) {
+		long q = x / y;
+		return (x % y != 0 && ((x ^ y) < 0)) ? q - 1 : q;
+	}
+
+	private boolean scanTime() {
+		if (!skip('T')) {
+			return false;
+		}
+
+		hour = digits(2);
+		if (hour < 0) {
+			return false;
+		}
+		skip(':');
+		minute = digits(2);
+		if (minute < 0) {
+			return false;
+		}
+		skip(':');
+		second = digits(2);
+		return second >= 0;
+	}
+
+	/**
+	 * Scans the fractional part of the seconds value, rounding it to the
+	 * nearest millisecond.
+	 * @return true if it was scanned, false if there are no digits
+	 */
+	private boolean scanFraction() {
+		int start = pos;
+		int millis = 0;
+		int scale = 100;
+		boolean roundUp = false;
+		while (pos < str.length()) {
+			int digit = digit(str.charAt(pos));
+			if (digit < 0) {
+				break;
+			}
+
+			int position = pos - start;
+			if (position < 3) {
+				millis += digit * scale;
+				scale /= 10;
+			} else if (position == 3) {
+				roundUp = (digit >= 5);
+			}
+			pos++;
+		}
+
+		if (pos == start) {
+			return false;
+		}
+
+		millisecond = roundUp ? millis + 1 : millis;
+		return true;
+	}
+
+	/**
+	 * Reads a fixed number of digits.
+	 * @param count the number of digits
+	 * @return the number or -1 if there aren't enough digits
+	 */
+	private int digits(int count) {
+		if (pos + count > str.length()) {
+			return -1;
+		}
+
+		int value = 0;
+		for (int i = 0; i < count; i++) {
+			int digit = digit(str.charAt(pos + i));
+			if (digit < 0) {
+				return -1;
+			}
+			value = value * 10 + digit;
+		}
+
+		pos += count;
+		return value;
+	}
+
+	private boolean skip(char c) {
+		if (pos < str.length() && str.charAt(pos) == c) {
+			pos++;
+			return true;
+		}
+		return false;
+	}
+
+	private static int digit(char c) {
+		return (c >= '0' && c <= '9') ? c - '0' : -1;
+	}
+}
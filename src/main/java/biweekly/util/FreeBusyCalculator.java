@@ -0,0 +1,305 @@
+package biweekly.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import biweekly.ICalendar;
+import biweekly.component.VEvent;
+import biweekly.component.VFreeBusy;
+import biweekly.parameter.FreeBusyType;
+import biweekly.property.FreeBusy;
+import biweekly.property.Status;
+import biweekly.property.Transparency;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * Computes the free/busy time of the events in one or more iCalendar objects.
+ * </p>
+ * <p>
+ * The occurrences of each event (see {@link RecurrenceExpander}) that overlap
+ * the requested window of time are streamed, and the occurrences that do not
+ * block time are skipped. Events that have a TRANSP property of
+ * {@link Transparency#TRANSPARENT TRANSPARENT} or a STATUS property of
+ * {@link Status#CANCELLED CANCELLED} do not block time. Events that have a
+ * STATUS property of {@link Status#TENTATIVE TENTATIVE} are reported as
+ * {@link FreeBusyType#BUSY_TENTATIVE BUSY-TENTATIVE}, and all other events are
+ * reported as {@link FreeBusyType#BUSY BUSY}. The time periods of each type
+ * are then sorted and merged, so that overlapping and adjacent periods are
+ * combined into one. Tentative periods that overlap busy periods are removed.
+ * </p>
+ * <p>
+ * The components of each iCalendar object are grouped and indexed when the
+ * calculator is created, so the calculator should be reused for multiple
+ * requests against the same iCalendar objects, and recreated if they are
+ * modified.
+ * </p>
+ * <p>
+ * <b>Example:</b>
+ * </p>
+ * 
+ * <pre class="brush:java">
+ * ICalendar ical = ...
+ * FreeBusyCalculator calculator = new FreeBusyCalculator(ical);
+ * VFreeBusy freeBusy = calculator.calculate(windowStart, windowEnd);
+ * </pre>
+ * @author Michael Angstadt
+ * @see <a href="http://tools.ietf.org/html/rfc5545#page-100">RFC 5545
+ * p.100-1</a>
+ */
+public class FreeBusyCalculator {
+	private final List<RecurrenceExpander> expanders;
+
+	/**
+	 * Creates a new free/busy calculator.
+	 * @param icals the iCalendar objects
+	 */
+	public FreeBusyCalculator(ICalendar... icals) {
+		this(Arrays.asList(icals));
+	}
+
+	/**
+	 * Creates a new free/busy calculator.
+	 * @param icals the iCalendar objects
+	 */
+	public FreeBusyCalculator(Collection<ICalendar> icals) {
+		expanders = new ArrayList<RecurrenceExpander>(icals.size());
+		for (ICalendar ical : icals) {
+			expanders.add(new RecurrenceExpander(ical.getTimezoneInfo(), ical.getEvents()));
+		}
+	}
+
+	/**
+	 * Computes the free/busy time within the given window of time. Time
+	 * periods that extend outside of the window are truncated.
+	 * @param windowStart the start of the window (inclusive)
+	 * @param windowEnd the end of the window (exclusive)
+	 * @return a component containing the busy time periods, with DTSTART and
+	 * DTEND properties that are set to the window
+	 */
+	public VFreeBusy calculate(Date windowStart, Date windowEnd) {
+		VFreeBusy freeBusy = new VFreeBusy();
+		freeBusy.setDateStart(windowStart);
+		freeBusy.setDateEnd(windowEnd);
+
+		long[][] busyTimes = getBusyTimes(windowStart.getTime(), windowEnd.getTime());
+		addFreeBusy(freeBusy, FreeBusyType.BUSY, busyTimes[0]);
+		addFreeBusy(freeBusy, FreeBusyType.BUSY_TENTATIVE, busyTimes[1]);
+
+		return freeBusy;
+	}
+
+	private static void addFreeBusy(VFreeBusy freeBusy, FreeBusyType type, long[] periods) {
+		if (periods.length == 0) {
+			return;
+		}
+
+		FreeBusy property = new FreeBusy();
+		property.setType(type);
+		List<Period> values = property.getValues();
+		for (int i = 0; i < periods.length; i += 2) {
+			values.add(new Period(new Date(periods[i]), new Date(periods[i + 1])));
+		}
+		freeBusy.addFreeBusy(property);
+	}
+
+	/**
+	 * Computes the busy time within the given window of time.
+	 * @param windowStart the start of the window (inclusive)
+	 * @param windowEnd the end of the window (exclusive)
+	 * @return the busy periods (index 0) and the tentatively busy periods that
+	 * do not overlap the busy periods (index 1). Each array contains the start
+	 * and end of each period, one after the other, in ascending order.
+	 */
+	long[][] getBusyTimes(long windowStart, long windowEnd) {
+		Intervals busy = new Intervals();
+		Intervals tentative = new Intervals();
+
+		if (windowStart < windowEnd) {
+			for (RecurrenceExpander expander : expanders) {
+				OccurrenceIterator it = expander.getOccurrences();
+				it.advanceTo(new Date(windowStart - expander.getMaxLength()));
+				while (it.hasNext()) {
+					Occurrence occurrence = it.next();
+					long start = occurrence.getStartDate().getTime();
+					if (start >= windowEnd) {
+						break;
+					}
+
+					long end = occurrence.getEndDate().getTime();
+					if (end <= windowStart || end <= start) {
+						//zero-length occurrences do not block time
+						continue;
+					}
+
+					VEvent event = (VEvent) occurrence.getComponent();
+					Transparency transparency = event.getTransparency();
+					if (transparency != null && transparency.isTransparent()) {
+						continue;
+					}
+
+					Status status = event.getStatus();
+					if (status != null && status.isCancelled()) {
+						continue;
+					}
+
+					Intervals intervals = (status != null && status.isTentative()) ? tentative : busy;
+					intervals.add(Math.max(start, windowStart), Math.min(end, windowEnd));
+				}
+			}
+		}
+
+		long[] mergedBusy = busy.merge();
+		long[] mergedTentative = subtract(tentative.merge(), mergedBusy);
+		return new long[][] { mergedBusy, mergedTentative };
+	}
+
+	/**
+	 * Removes one set of periods from another.
+	 * @param periods the periods to remove from (sorted and non-overlapping)
+	 * @param remove the periods to remove (sorted and non-overlapping)
+	 * @return the remaining periods
+	 */
+	static long[] subtract(long[] periods, long[] remove) {
+		if (periods.length == 0 || remove.length == 0) {
+			return periods;
+		}
+
+		Intervals result = new Intervals();
+		int j = 0;
+		for (int i = 0; i < periods.length; i += 2) {
+			long start = periods[i];
+			long end = periods[i + 1];
+
+			while (j < remove.length && remove[j + 1] <= start) {
+				j += 2;
+			}
+
+			long cur = start;
+			for (int k = j; k < remove.length && remove[k] < end; k += 2) {
+				if (remove[k] > cur) {
+					result.add(cur, remove[k]);
+				}
+				cur = Math.max(cur, remove[k + 1]);
+			}
+			if (cur < end) {
+				result.add(cur, end);
+			}
+		}
+		return result.toArray();
+	}
+
+	/**
+	 * A growable list of time periods, stored in primitive arrays.
+	 */
+	static class Intervals {
+		private long[] starts = new long[16];
+		private long[] ends = new long[16];
+		private int size = 0;
+
+		/**
+		 * Adds a time period.
+		 * @param start the start of the period (inclusive)
+		 * @param end the end of the period (exclusive, must be after the start)
+		 */
+		public void add(long start, long end) {
+			if (size == starts.length) {
+				starts = grow(starts);
+				ends = grow(ends);
+			}
+			starts[size] = start;
+			ends[size] = end;
+			size++;
+		}
+
+		/**
+		 * Gets the time periods in the order they were added. Each period's
+		 * start and end are stored one after the other.
+		 * @return the periods
+		 */
+		public long[] toArray() {
+			long[] array = new long[size * 2];
+			for (int i = 0; i < size; i++) {
+				array[i * 2] = starts[i];
+				array[i * 2 + 1] = ends[i];
+			}
+			return array;
+		}
+
+		/**
+		 * Combines the overlapping and adjacent time periods. The start and
+		 * end values are sorted separately and then swept in a single pass.
+		 * This list is modified by this method.
+		 * @return the merged periods, in ascending order. Each period's start
+		 * and end are stored one after the other.
+		 */
+		public long[] merge() {
+			Arrays.sort(starts, 0, size);
+			Arrays.sort(ends, 0, size);
+
+			long[] merged = new long[size * 2];
+			int length = 0;
+			int active = 0;
+			int j = 0;
+			for (int i = 0; i < size;) {
+				//process starts before ends so that adjacent periods are combined
+				if (starts[i] <= ends[j]) {
+					if (active == 0) {
+						merged[length++] = starts[i];
+					}
+					active++;
+					i++;
+				} else {
+					active--;
+					if (active == 0) {
+						merged[length++] = ends[j];
+					}
+					j++;
+				}
+			}
+			if (size > 0) {
+				merged[length++] = ends[size - 1];
+			}
+
+			if (length == merged.length) {
+				return merged;
+			}
+			long[] trimmed = new long[length];
+			System.arraycopy(merged, 0, trimmed, 0, length);
+			return trimmed;
+		}
+
+		private static long[] grow(long[] array) {
+			long[] grown = new long[array.length * 2];
+			System.arraycopy(array, 0, grown, 0, array.length);
+			return grown;
+		}
+	}
+}
@@ -1,7 +1,6 @@
 package biweekly.util;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
@@ -10,7 +9,11 @@ import java.util.NoSuchElementException;
 import java.util.TimeZone;
 
 import biweekly.component.ICalComponent;
+import biweekly.component.VEvent;
+import biweekly.property.DateDue;
+import biweekly.property.DateEnd;
 import biweekly.property.DateStart;
+import biweekly.property.DurationProperty;
 import biweekly.property.ExceptionDates;
 import biweekly.property.ExceptionRule;
 import biweekly.property.RecurrenceDates;
@@ -18,9 +21,13 @@ import biweekly.property.RecurrenceRule;
 import biweekly.property.ValuedProperty;
 import biweekly.util.com.google.ical.compat.javautil.DateIterator;
 import biweekly.util.com.google.ical.compat.javautil.DateIteratorFactory;
+import biweekly.util.com.google.ical.iter.ExpansionBudget;
+import biweekly.util.com.google.ical.iter.LongRecurrenceIterator;
 import biweekly.util.com.google.ical.iter.RecurrenceIterable;
 import biweekly.util.com.google.ical.iter.RecurrenceIterator;
+import biweekly.util.com.google.ical.iter.DateValueSet;
 import biweekly.util.com.google.ical.iter.RecurrenceIteratorFactory;
+import biweekly.util.com.google.ical.iter.ReverseRecurrenceIterator;
 import biweekly.util.com.google.ical.values.DateTimeValue;
 import biweekly.util.com.google.ical.values.DateTimeValueImpl;
 import biweekly.util.com.google.ical.values.DateValue;
@@ -198,6 +205,21 @@ public final class Google2445Utils {
 		return RecurrenceIteratorFactory.createRecurrenceIterator(recurrence, startValue, timezone);
 	}
 
+	/**
+	 * Creates a recurrence iterator based on the given recurrence rule whose
+	 * work is limited by the given budget.
+	 * @param recurrence the recurrence rule
+	 * @param start the start date
+	 * @param timezone the timezone to iterate in. This is needed in order to
+	 * account for when the iterator passes over a daylight savings boundary.
+	 * @param budget the budget (see {@link ExpansionBudget})
+	 * @return the recurrence iterator
+	 */
+	public static RecurrenceIterator createRecurrenceIterator(Recurrence recurrence, ICalDate start, TimeZone timezone, ExpansionBudget budget) {
+		DateValue startValue = convert(start, timezone);
+		return RecurrenceIteratorFactory.createRecurrenceIterator(recurrence, startValue, timezone, budget);
+	}
+
 	/**
 	 * Creates a recurrence iterator based on the given recurrence rule.
 	 * @param recurrence the recurrence rule
@@ -211,6 +233,44 @@ public final class Google2445Utils {
 		return RecurrenceIteratorFactory.createRecurrenceIterable(recurrence, startValue, timezone);
 	}
 
+	/**
+	 * Calculates the last date of a recurrence rule that is bounded by a COUNT
+	 * or UNTIL. Unlike iterating over the rule with
+	 * {@link #createRecurrenceIterator(Recurrence, ICalDate, TimeZone)}, the
+	 * dates before the last date are not created. Simple rules (rules that only
+	 * have a frequency and an interval) are solved without generating any dates
+	 * at all.
+	 * @param recurrence the recurrence rule
+	 * @param start the start date
+	 * @param timezone the timezone to iterate in. This is needed in order to
+	 * account for when the iterator passes over a daylight savings boundary.
+	 * @return the last date or null if the rule is unbounded or does not
+	 * generate any dates
+	 * @see RecurrenceIteratorFactory#getLastInstance
+	 */
+	public static Date getLastOccurrence(Recurrence recurrence, ICalDate start, TimeZone timezone) {
+		DateValue startValue = convert(start, timezone);
+		DateValue last = RecurrenceIteratorFactory.getLastInstance(recurrence, startValue, timezone);
+		return (last == null) ? null : convertUtc(last);
+	}
+
+	/**
+	 * Calculates the number of dates in a recurrence rule that is bounded by a
+	 * COUNT or UNTIL. See
+	 * {@link #getLastOccurrence(Recurrence, ICalDate, TimeZone)} for details.
+	 * @param recurrence the recurrence rule
+	 * @param start the start date
+	 * @param timezone the timezone to iterate in. This is needed in order to
+	 * account for when the iterator passes over a daylight savings boundary.
+	 * @return the number of dates or -1 if the rule is unbounded or is too
+	 * large to solve
+	 * @see RecurrenceIteratorFactory#countInstances
+	 */
+	public static long getOccurrenceCount(Recurrence recurrence, ICalDate start, TimeZone timezone) {
+		DateValue startValue = convert(start, timezone);
+		return RecurrenceIteratorFactory.countInstances(recurrence, startValue, timezone);
+	}
+
 	/**
 	 * <p>
 	 * Creates an iterator that computes the dates defined by the
@@ -235,6 +295,113 @@ public final class Google2445Utils {
 	 * @return the iterator
 	 */
 	public static DateIterator getDateIterator(ICalComponent component, TimeZone timezone) {
+		RecurrenceIterator iterator = createRecurrenceIterator(component, timezone);
+		return (iterator == null) ? new EmptyDateIterator() : DateIteratorFactory.createDateIterator(iterator);
+	}
+
+	/**
+	 * Creates an iterator that computes the dates of the given component in
+	 * the same way as {@link #getDateIterator(ICalComponent, TimeZone)}, but
+	 * which stops once the given budget is exhausted. This protects against
+	 * recurrence rules that take a very long time to produce their dates, such
+	 * as rules that never match any dates. Call
+	 * {@link ExpansionBudget#getExceededLimit} after the iterator has stopped
+	 * to determine whether all of the dates were produced.
+	 * @param component the component
+	 * @param timezone the timezone to iterate in (see
+	 * {@link #getDateIterator(ICalComponent, TimeZone)})
+	 * @param budget the budget (a new budget object must be used for each
+	 * iterator)
+	 * @return the iterator
+	 */
+	public static DateIterator getDateIterator(ICalComponent component, TimeZone timezone, ExpansionBudget budget) {
+		RecurrenceIterator iterator = createRecurrenceIterator(component, timezone, budget);
+		return (iterator == null) ? new EmptyDateIterator() : DateIteratorFactory.createDateIterator(iterator);
+	}
+
+	/**
+	 * Creates an iterator that computes the dates defined by the
+	 * {@link RecurrenceRule} and {@link RecurrenceDates} properties (if
+	 * present), and excludes those dates which are defined by the
+	 * {@link ExceptionRule} and {@link ExceptionDates} properties (if present),
+	 * in the same way as {@link #getDateIterator(ICalComponent, TimeZone)}.
+	 * The iterator returns each date as milliseconds, which avoids creating
+	 * objects for the dates of the recurrence rules.
+	 * @param component the component
+	 * @param timezone the timezone to iterate in (see
+	 * {@link #getDateIterator(ICalComponent, TimeZone)})
+	 * @return the iterator
+	 */
+	public static LongRecurrenceIterator getLongRecurrenceIterator(ICalComponent component, TimeZone timezone) {
+		RecurrenceIterator iterator = createRecurrenceIterator(component, timezone);
+		if (iterator == null) {
+			iterator = RecurrenceIteratorFactory.createRecurrenceIterator(Collections.<DateValue> emptyList());
+		}
+		return RecurrenceIteratorFactory.createLongRecurrenceIterator(iterator);
+	}
+
+	/**
+	 * Creates an iterator that computes the same dates as
+	 * {@link #getDateIterator(ICalComponent, TimeZone)}, but in descending
+	 * order, starting with the latest date that comes before the given date.
+	 * Only the dates near the given date are computed, so this is much faster
+	 * than iterating forward from the start date when the component started a
+	 * long time ago.
+	 * @param component the component
+	 * @param timezone the timezone to iterate in (see
+	 * {@link #getDateIterator(ICalComponent, TimeZone)})
+	 * @param end the date to start iterating backwards from (exclusive)
+	 * @return the iterator
+	 * @see RecurrenceIteratorFactory#createReverseRecurrenceIterator
+	 */
+	public static ReverseRecurrenceIterator getReverseRecurrenceIterator(final ICalComponent component, final TimeZone timezone, Date end) {
+		RecurrenceIterable iterable = new RecurrenceIterable() {
+			public RecurrenceIterator iterator() {
+				RecurrenceIterator iterator = createRecurrenceIterator(component, timezone);
+				return (iterator == null) ? RecurrenceIteratorFactory.createRecurrenceIterator(Collections.<DateValue> emptyList()) : iterator;
+			}
+		};
+		return RecurrenceIteratorFactory.createReverseRecurrenceIterator(iterable, convertUtc(new ICalDate(end)));
+	}
+
+	/**
+	 * Gets the latest date of a component that comes before the given date,
+	 * such as the last time a recurring event was held. The dates are computed
+	 * in the same way as {@link #getDateIterator(ICalComponent, TimeZone)}.
+	 * @param component the component
+	 * @param timezone the timezone to iterate in (see
+	 * {@link #getDateIterator(ICalComponent, TimeZone)})
+	 * @param date the date (exclusive)
+	 * @return the latest date before the given date or null if there isn't
+	 * one
+	 * @see #getReverseRecurrenceIterator
+	 */
+	public static Date getLastOccurrenceBefore(ICalComponent component, TimeZone timezone, Date date) {
+		ReverseRecurrenceIterator it = getReverseRecurrenceIterator(component, timezone, date);
+		return it.hasPrevious() ? new Date(it.previousMillis()) : null;
+	}
+
+	/**
+	 * Creates the recurrence iterator that is used by
+	 * {@link #getDateIterator(ICalComponent, TimeZone)}.
+	 * @param component the component
+	 * @param timezone the timezone to iterate in
+	 * @return the iterator or null if the component has no dates
+	 */
+	private static RecurrenceIterator createRecurrenceIterator(ICalComponent component, TimeZone timezone) {
+		return createRecurrenceIterator(component, timezone, new ExpansionBudget());
+	}
+
+	/**
+	 * Creates the recurrence iterator that is used by
+	 * {@link #getDateIterator(ICalComponent, TimeZone, ExpansionBudget)}.
+	 * @param component the component
+	 * @param timezone the timezone to iterate in
+	 * @param budget the budget, which is shared by all of the component's
+	 * recurrence rules
+	 * @return the iterator or null if the component has no dates
+	 */
+	private static RecurrenceIterator createRecurrenceIterator(ICalComponent component, TimeZone timezone, ExpansionBudget budget) {
 		DateStart dtstart = component.getProperty(DateStart.class);
 		ICalDate start = ValuedProperty.getValue(dtstart);
 
@@ -255,24 +422,23 @@ public final class Google2445Utils {
 			for (RecurrenceRule rrule : component.getProperties(RecurrenceRule.class)) {
 				Recurrence recurrence = ValuedProperty.getValue(rrule);
 				if (recurrence != null) {
-					include.add(createRecurrenceIterator(recurrence, start, timezone));
+					include.add(createRecurrenceIterator(recurrence, start, timezone, budget));
 				}
 			}
 		}
 
-		List<ICalDate> allDates = new ArrayList<ICalDate>();
-		for (RecurrenceDates rdate : component.getProperties(RecurrenceDates.class)) {
-			allDates.addAll(rdate.getDates());
-		}
-		if (!allDates.isEmpty()) {
-			include.add(new ICalDateRecurrenceIterator(allDates));
+		CompiledRecurrenceDates compiled = CompiledRecurrenceDates.of(component);
+		DateValueSet rdates = compiled.getRecurrenceDates();
+		if (!rdates.isEmpty()) {
+			include.add(RecurrenceIteratorFactory.createRecurrenceIterator(rdates));
 		}
 
 		if (include.isEmpty()) {
 			if (start == null) {
-				return new EmptyDateIterator();
+				return null;
 			}
-			include.add(new ICalDateRecurrenceIterator(Arrays.asList(start)));
+			DateValueSet dates = new DateValueSet(new long[] { start.getTime() });
+			include.add(RecurrenceIteratorFactory.createRecurrenceIterator(dates));
 		}
 
 		/////////////EXCLUDE/////////////
@@ -283,29 +449,115 @@ public final class Google2445Utils {
 			for (ExceptionRule exrule : component.getProperties(ExceptionRule.class)) {
 				Recurrence recurrence = ValuedProperty.getValue(exrule);
 				if (recurrence != null) {
-					exclude.add(createRecurrenceIterator(recurrence, start, timezone));
+					exclude.add(createRecurrenceIterator(recurrence, start, timezone, budget));
 				}
 			}
 		}
 
-		allDates = new ArrayList<ICalDate>();
-		for (ExceptionDates exdate : component.getProperties(ExceptionDates.class)) {
-			allDates.addAll(exdate.getValues());
+		/*
+		 * EXDATEs are not merged with the other iterators. They are looked up
+		 * in a sorted array as each date is generated instead, which is much
+		 * faster when there are a lot of them.
+		 */
+		DateValueSet exdates = compiled.getExceptionDates();
+
+		/////////////JOIN/////////////
+
+		RecurrenceIterator iterator = join(include);
+		if (!exclude.isEmpty()) {
+			iterator = RecurrenceIteratorFactory.except(iterator, join(exclude));
 		}
-		if (!allDates.isEmpty()) {
-			exclude.add(new ICalDateRecurrenceIterator(allDates));
+		if (!exdates.isEmpty()) {
+			iterator = RecurrenceIteratorFactory.except(iterator, exdates);
 		}
+		return iterator;
+	}
 
-		/////////////JOIN/////////////
+	/**
+	 * <p>
+	 * Gets the occurrences of a component that overlap the given window of
+	 * time. The length of each occurrence is determined by the component's
+	 * {@link DateEnd}, {@link DurationProperty}, or {@link DateDue} property.
+	 * If none of these properties are present, then occurrences of events
+	 * whose start date does not have a time component are one day long, and
+	 * all other occurrences have no length.
+	 * </p>
+	 * <p>
+	 * The underlying iterators are advanced to the start of the window before
+	 * any dates are generated, so the occurrences that come before the window
+	 * are skipped over, rather than computed one by one, where possible.
+	 * </p>
+	 * @param component the component
+	 * @param timezone the timezone to iterate in (see
+	 * {@link #getDateIterator(ICalComponent, TimeZone)})
+	 * @param windowStart the start of the window (inclusive)
+	 * @param windowEnd the end of the window (exclusive)
+	 * @return the occurrences, sorted by start date
+	 */
+	public static List<Period> getOccurrences(ICalComponent component, TimeZone timezone, Date windowStart, Date windowEnd) {
+		List<Period> occurrences = new ArrayList<Period>();
+		if (!windowStart.before(windowEnd)) {
+			return occurrences;
+		}
 
-		RecurrenceIterator includeJoined = join(include);
-		if (exclude.isEmpty()) {
-			return DateIteratorFactory.createDateIterator(includeJoined);
+		ICalDate start = ValuedProperty.getValue(component.getProperty(DateStart.class));
+		long length = getOccurrenceLength(component, start);
+		long windowStartMillis = windowStart.getTime();
+		long windowEndMillis = windowEnd.getTime();
+
+		LongRecurrenceIterator it = getLongRecurrenceIterator(component, timezone);
+		it.advanceTo(windowStartMillis - length);
+		while (it.hasNext()) {
+			long startMillis = it.nextMillis();
+			if (startMillis >= windowEndMillis) {
+				break;
+			}
+
+			long endMillis = startMillis + length;
+			boolean overlaps = (length == 0) ? startMillis >= windowStartMillis : endMillis > windowStartMillis;
+			if (overlaps) {
+				occurrences.add(new Period(new Date(startMillis), new Date(endMillis)));
+			}
 		}
 
-		RecurrenceIterator excludeJoined = join(exclude);
-		RecurrenceIterator iterator = RecurrenceIteratorFactory.except(includeJoined, excludeJoined);
-		return DateIteratorFactory.createDateIterator(iterator);
+		return occurrences;
+	}
+
+	/**
+	 * Determines the length of each occurrence of a component.
+	 * @param component the component
+	 * @param start the component's start date or null if it doesn't have one
+	 * @return the length in milliseconds
+	 */
+	static long getOccurrenceLength(ICalComponent component, ICalDate start) {
+		Duration duration = ValuedProperty.getValue(component.getProperty(DurationProperty.class));
+		if (duration != null) {
+			return Math.max(0, duration.toMillis());
+		}
+
+		if (start == null) {
+			return 0;
+		}
+
+		ICalDate end = ValuedProperty.getValue(component.getProperty(DateEnd.class));
+		if (end == null) {
+			end = ValuedProperty.getValue(component.getProperty(DateDue.class));
+		}
+		if (end != null) {
+			return Math.max(0, end.getTime() - start.getTime());
+		}
+
+		/*
+		 * RFC 5545 p.54: "For cases where a "VEVENT" calendar component
+		 * specifies a "DTSTART" property with a DATE value type but no "DTEND"
+		 * nor "DURATION" property, the event's duration is taken to be one
+		 * day."
+		 */
+		if (component instanceof VEvent && !start.hasTime()) {
+			return 24L * 60 * 60 * 1000;
+		}
+
+		return 0;
 	}
 
 	/**
@@ -353,41 +605,6 @@ public final class Google2445Utils {
 		}
 	}
 
-	private static class ICalDateRecurrenceIterator implements RecurrenceIterator {
-		private final List<ICalDate> dates;
-		private int index = 0;
-
-		/*
-		 * Note: I don't think a timezone needs to be passed in here, because it
-		 * appears that the DateValue objects are expected to be in UTC (judging
-		 * by the parameter name in the "advanceTo" method).
-		 */
-		public ICalDateRecurrenceIterator(List<ICalDate> dates) {
-			this.dates = new ArrayList<ICalDate>(dates);
-			Collections.sort(this.dates);
-		}
-
-		public boolean hasNext() {
-			return index < dates.size();
-		}
-
-		public DateValue next() {
-			ICalDate next = dates.get(index++);
-			return convertUtc(next);
-		}
-
-		public void advanceTo(DateValue newStartUtc) {
-			ICalDate newStart = convertUtc(newStartUtc);
-			while (index < dates.size() && newStart.compareTo(dates.get(index)) > 0) {
-				index++;
-			}
-		}
-
-		public void remove() {
-			throw new UnsupportedOperationException();
-		}
-	}
-
 	private Google2445Utils() {
 		//hide
 	}
@@ -3,11 +3,8 @@ package biweekly.util;
 import java.text.DateFormat;
 import java.text.FieldPosition;
 import java.text.SimpleDateFormat;
-import java.util.Calendar;
 import java.util.Date;
 import java.util.TimeZone;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /*
  Copyright (c) 2013-2017, Michael Angstadt
@@ -208,130 +205,12 @@ public enum ICalDateFormat {
 	 * accepted ISO8601 formats
 	 */
 	public static Date parse(String dateStr, TimeZone timezone) {
-		TimestampPattern p = new TimestampPattern(dateStr);
-		if (!p.matches()) {
+		DateTimeScanner scanner = new DateTimeScanner(dateStr);
+		if (!scanner.scan(true)) {
 			throw parseException(dateStr);
 		}
 
-		if (p.hasOffset()) {
-			timezone = TimeZone.getTimeZone("UTC");
-		} else if (timezone == null) {
-			timezone = TimeZone.getDefault();
-		}
-
-		Calendar c = Calendar.getInstance(timezone);
-		c.clear();
-
-		c.set(Calendar.YEAR, p.year());
-		c.set(Calendar.MONTH, p.month() - 1);
-		c.set(Calendar.DATE, p.date());
-
-		if (p.hasTime()) {
-			c.set(Calendar.HOUR_OF_DAY, p.hour());
-			c.set(Calendar.MINUTE, p.minute());
-			c.set(Calendar.SECOND, p.second());
-			c.set(Calendar.MILLISECOND, p.millisecond());
-
-			if (p.hasOffset()) {
-				c.set(Calendar.ZONE_OFFSET, p.offsetMillis());
-			}
-		}
-
-		return c.getTime();
-	}
-
-	/**
-	 * Wrapper for a complex regular expression that parses multiple date
-	 * formats.
-	 */
-	private static class TimestampPattern {
-		//@formatter:off
-		private static final Pattern regex = Pattern.compile(
-			"^(\\d{4})-?(\\d{2})-?(\\d{2})" +
-			"(" +
-				"T(\\d{2}):?(\\d{2}):?(\\d{2})(\\.\\d+)?" +
-				"(" +
-					"Z|([-+])((\\d{2})|((\\d{2}):?(\\d{2})))" +
-				")?" +
-			")?$"
-		);
-		//@formatter:on
-
-		private final Matcher m;
-		private final boolean matches;
-
-		public TimestampPattern(String str) {
-			m = regex.matcher(str);
-			matches = m.find();
-		}
-
-		public boolean matches() {
-			return matches;
-		}
-
-		public int year() {
-			return parseInt(1);
-		}
-
-		public int month() {
-			return parseInt(2);
-		}
-
-		public int date() {
-			return parseInt(3);
-		}
-
-		public boolean hasTime() {
-			return m.group(5) != null;
-		}
-
-		public int hour() {
-			return parseInt(5);
-		}
-
-		public int minute() {
-			return parseInt(6);
-		}
-
-		public int second() {
-			return parseInt(7);
-		}
-
-		public int millisecond() {
-			if (m.group(8) == null) {
-				return 0;
-			}
-
-			double ms = Double.parseDouble(m.group(8)) * 1000;
-			return (int) Math.round(ms);
-		}
-
-		public boolean hasOffset() {
-			return m.group(9) != null;
-		}
-
-		public int offsetMillis() {
-			if (m.group(9).equals("Z")) {
-				return 0;
-			}
-
-			int positive = m.group(10).equals("+") ? 1 : -1;
-
-			int offsetHour, offsetMinute;
-			if (m.group(12) != null) {
-				offsetHour = parseInt(12);
-				offsetMinute = 0;
-			} else {
-				offsetHour = parseInt(14);
-				offsetMinute = parseInt(15);
-			}
-
-			return (offsetHour * 60 * 60 * 1000 + offsetMinute * 60 * 1000) * positive;
-		}
-
-		private int parseInt(int group) {
-			return Integer.parseInt(m.group(group));
-		}
+		return new Date(scanner.toMillis(timezone));
 	}
 
 	/**
@@ -0,0 +1,194 @@
+package biweekly.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * Reads the characters of a UTF-8 encoded file by memory-mapping the file and
+ * decoding its contents directly from the mapped region. This avoids the
+ * intermediate byte buffers and extra copies that are involved when reading a
+ * file through a {@link FileInputStream}.
+ * </p>
+ * <p>
+ * Files larger than the maximum size of a single mapping are mapped one
+ * region at a time.
+ * </p>
+ * <p>
+ * Note that the Java API provides no way to explicitly release a mapping.
+ * The mapping is released when it is garbage collected, which means that, on
+ * some platforms (such as Windows), the file cannot be deleted until then.
+ * </p>
+ * @author Michael Angstadt
+ */
+public class MappedUtf8Reader extends Reader {
+	private static final int DEFAULT_REGION_SIZE = Integer.MAX_VALUE;
+	private static final int BUFFER_SIZE = 8192;
+
+	private final FileInputStream in;
+	private final FileChannel channel;
+	private final long size;
+	private final int regionSize;
+	private final CharsetDecoder decoder;
+	private final CharBuffer buffer = CharBuffer.allocate(BUFFER_SIZE);
+
+	private ByteBuffer region;
+	private long regionStart = 0;
+	private boolean eof = false;
+
+	/**
+	 * Creates a new memory-mapped UTF-8 reader.
+	 * @param file the file to read from
+	 * @throws IOException if the file cannot be opened or mapped
+	 */
+	public MappedUtf8Reader(File file) throws IOException {
+		this(file, DEFAULT_REGION_SIZE);
+	}
+
+	/**
+	 * Creates a new memory-mapped UTF-8 reader.
+	 * @param file the file to read from
+	 * @param regionSize the maximum number of bytes to map at a time
+	 * @throws IOException if the file cannot be opened or mapped
+	 */
+	MappedUtf8Reader(File file, int regionSize) throws IOException {
+		in = new FileInputStream(file);
+		channel = in.getChannel();
+		size = channel.size();
+		this.regionSize = regionSize;
+
+		//mimic the behavior of InputStreamReader
+		decoder = Charset.forName("UTF-8").newDecoder();
+		decoder.onMalformedInput(CodingErrorAction.REPLACE);
+		decoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+		try {
+			map(0);
+		} catch (IOException e) {
+			in.close();
+			throw e;
+		}
+
+		buffer.flip();
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (!buffer.hasRemaining()) {
+			buffer.clear();
+			decode(buffer);
+			buffer.flip();
+			if (!buffer.hasRemaining()) {
+				return -1;
+			}
+		}
+		return buffer.get();
+	}
+
+	@Override
+	public int read(char[] cbuf, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+
+		int read = 0;
+		if (buffer.hasRemaining()) {
+			read = Math.min(len, buffer.remaining());
+			buffer.get(cbuf, off, read);
+			if (read == len) {
+				return read;
+			}
+		}
+
+		//decode straight into the caller's array
+		CharBuffer target = CharBuffer.wrap(cbuf, off + read, len - read);
+		decode(target);
+		read += target.position() - (off + read);
+
+		return (read == 0) ? -1 : read;
+	}
+
+	/**
+	 * Decodes characters from the mapped file until the given buffer is full
+	 * or the end of the file is reached.
+	 * @param target the buffer to decode into
+	 * @throws IOException if there's a problem mapping the next region of the
+	 * file
+	 */
+	private void decode(CharBuffer target) throws IOException {
+		while (target.hasRemaining() && !eof) {
+			long regionEnd = regionStart + region.limit();
+			boolean lastRegion = (regionEnd == size);
+
+			CoderResult result = decoder.decode(region, target, lastRegion);
+			if (result.isOverflow()) {
+				return;
+			}
+
+			if (!lastRegion) {
+				//map the next region, starting with any bytes that belong to an incomplete character
+				map(regionStart + region.position());
+				continue;
+			}
+
+			decoder.flush(target);
+			eof = true;
+		}
+	}
+
+	private void map(long position) throws IOException {
+		long length = Math.min(regionSize, size - position);
+		region = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+		regionStart = position;
+	}
+
+	@Override
+	public boolean ready() {
+		return buffer.hasRemaining() || !eof;
+	}
+
+	/**
+	 * Closes the file. The mapped region is released when it is garbage
+	 * collected.
+	 * @throws IOException if there's a problem closing the file
+	 */
+	@Override
+	public void close() throws IOException {
+		region = null;
+		in.close();
+	}
+}
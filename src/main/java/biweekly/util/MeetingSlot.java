@@ -0,0 +1,114 @@
+package biweekly.util;
+
+import java.util.Date;
+import java.util.List;
+
+import biweekly.property.Attendee;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * A window of time in which a meeting can be scheduled.
+ * @author Michael Angstadt
+ * @see AvailabilitySolver
+ */
+public final class MeetingSlot {
+	private final Date start;
+	private final Date end;
+	private final List<Attendee> optionalAttendees;
+
+	/**
+	 * Creates a new meeting slot.
+	 * @param start the start of the slot
+	 * @param end the end of the slot
+	 * @param optionalAttendees the optional attendees who are free for the
+	 * entire slot
+	 */
+	public MeetingSlot(Date start, Date end, List<Attendee> optionalAttendees) {
+		this.start = start;
+		this.end = end;
+		this.optionalAttendees = optionalAttendees;
+	}
+
+	/**
+	 * Gets the start of the slot. This is the earliest time the meeting can
+	 * start.
+	 * @return the start date
+	 */
+	public Date getStart() {
+		return start;
+	}
+
+	/**
+	 * Gets the end of the slot. This is the latest time the meeting can end.
+	 * @return the end date
+	 */
+	public Date getEnd() {
+		return end;
+	}
+
+	/**
+	 * Gets the optional attendees who are free for the entire slot. All of
+	 * the required attendees are always free.
+	 * @return the optional attendees
+	 */
+	public List<Attendee> getOptionalAttendees() {
+		return optionalAttendees;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((end == null) ? 0 : end.hashCode());
+		result = prime * result + ((optionalAttendees == null) ? 0 : optionalAttendees.hashCode());
+		result = prime * result + ((start == null) ? 0 : start.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) return true;
+		if (obj == null) return false;
+		if (getClass() != obj.getClass()) return false;
+		MeetingSlot other = (MeetingSlot) obj;
+		if (end == null) {
+			if (other.end != null) return false;
+		} else if (!end.equals(other.end)) return false;
+		if (optionalAttendees == null) {
+			if (other.optionalAttendees != null) return false;
+		} else if (!optionalAttendees.equals(other.optionalAttendees)) return false;
+		if (start == null) {
+			if (other.start != null) return false;
+		} else if (!start.equals(other.start)) return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "MeetingSlot [start=" + start + ", end=" + end + ", optionalAttendees=" + optionalAttendees + "]";
+	}
+}
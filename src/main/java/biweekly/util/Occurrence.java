@@ -0,0 +1,136 @@
+package biweekly.util;
+
+import biweekly.component.ICalComponent;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * Represents a single occurrence of a recurring component, after any
+ * overridden occurrences have been substituted.
+ * </p>
+ * <p>
+ * Note that the getter methods do not make copies of the date objects they
+ * return.
+ * </p>
+ * @author Michael Angstadt
+ * @see RecurrenceExpander
+ */
+public final class Occurrence {
+	private final ICalComponent component;
+	private final ICalDate recurrenceId;
+	private final ICalDate startDate;
+	private final ICalDate endDate;
+
+	/**
+	 * Creates a new occurrence.
+	 * @param component the component that describes the occurrence
+	 * @param recurrenceId the original start date of the occurrence
+	 * @param startDate the start date
+	 * @param endDate the end date
+	 */
+	public Occurrence(ICalComponent component, ICalDate recurrenceId, ICalDate startDate, ICalDate endDate) {
+		this.component = component;
+		this.recurrenceId = recurrenceId;
+		this.startDate = startDate;
+		this.endDate = endDate;
+	}
+
+	/**
+	 * Gets the component that describes the occurrence. This is the master
+	 * component of the series, unless the occurrence was overridden by a
+	 * component with a RECURRENCE-ID property.
+	 * @return the component
+	 */
+	public ICalComponent getComponent() {
+		return component;
+	}
+
+	/**
+	 * Gets the date that the occurrence would have started on had it not been
+	 * overridden. This is the value that a RECURRENCE-ID property would use to
+	 * refer to the occurrence.
+	 * @return the original start date
+	 */
+	public ICalDate getRecurrenceId() {
+		return recurrenceId;
+	}
+
+	/**
+	 * Gets the start date of the occurrence.
+	 * @return the start date
+	 */
+	public ICalDate getStartDate() {
+		return startDate;
+	}
+
+	/**
+	 * Gets the end date of the occurrence.
+	 * @return the end date
+	 */
+	public ICalDate getEndDate() {
+		return endDate;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((component == null) ? 0 : System.identityHashCode(component));
+		result = prime * result + ((endDate == null) ? 0 : endDate.hashCode());
+		result = prime * result + ((recurrenceId == null) ? 0 : recurrenceId.hashCode());
+		result = prime * result + ((startDate == null) ? 0 : startDate.hashCode());
+		return result;
+	}
+
+	/**
+	 * Two occurrences are equal if they have the same dates and refer to the
+	 * same component instance.
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) return true;
+		if (obj == null) return false;
+		if (getClass() != obj.getClass()) return false;
+		Occurrence other = (Occurrence) obj;
+		if (component != other.component) return false;
+		if (endDate == null) {
+			if (other.endDate != null) return false;
+		} else if (!endDate.equals(other.endDate)) return false;
+		if (recurrenceId == null) {
+			if (other.recurrenceId != null) return false;
+		} else if (!recurrenceId.equals(other.recurrenceId)) return false;
+		if (startDate == null) {
+			if (other.startDate != null) return false;
+		} else if (!startDate.equals(other.startDate)) return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "Occurrence [start=" + startDate + ", end=" + endDate + ", recurrenceId=" + recurrenceId + ", component=" + component.getClass().getSimpleName() + "]";
+	}
+}
@@ -0,0 +1,604 @@
+package biweekly.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import biweekly.ICalendar;
+import biweekly.component.ICalComponent;
+import biweekly.component.VEvent;
+import biweekly.component.VJournal;
+import biweekly.component.VTodo;
+import biweekly.property.Uid;
+import biweekly.property.ValuedProperty;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * Indexes the occurrences of the components in an iCalendar object so that
+ * time-range queries can be answered without expanding every component's
+ * recurrence rules each time.
+ * </p>
+ * <p>
+ * The occurrences that overlap a fixed window of time (the "horizon") are
+ * computed up front and stored in an interval tree. Queries that fall within
+ * the horizon take O(log n + k) time, where n is the number of indexed
+ * occurrences and k is the number of occurrences returned. The occurrences
+ * of a series that lie outside of the horizon (such as the occurrences of a
+ * recurrence rule that never ends) are not stored. Instead, the series is
+ * remembered, and these occurrences are computed if a query extends past the
+ * horizon.
+ * </p>
+ * <p>
+ * Components can be added to and removed from the index without rebuilding
+ * it. Only the series that the component belongs to is re-indexed. Note that
+ * the index does not modify the iCalendar object itself. Only events, to-dos,
+ * and journal entries are indexed.
+ * </p>
+ * <p>
+ * <b>Example:</b>
+ * </p>
+ * 
+ * <pre class="brush:java">
+ * ICalendar ical = ...
+ * OccurrenceIndex index = new OccurrenceIndex(ical, horizonStart, horizonEnd);
+ * List&lt;Occurrence&gt; occurrences = index.getOccurrences(windowStart, windowEnd);
+ * </pre>
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ * @author Michael Angstadt
+ * @see RecurrenceExpander
+ */
+public class OccurrenceIndex {
+	private final ICalendar ical;
+	private final long horizonStart, horizonEnd;
+
+	private final Map<GroupKey, Group> groupsByUid = new HashMap<GroupKey, Group>();
+	private final Map<ICalComponent, Group> groupsWithoutUid = new IdentityHashMap<ICalComponent, Group>();
+
+	/**
+	 * The series that have occurrences before and after the horizon.
+	 */
+	private final Set<Group> lazyBefore = new LinkedHashSet<Group>(), lazyAfter = new LinkedHashSet<Group>();
+
+	private final Random random = new Random();
+	private Node root;
+	private long nextId = 0;
+	private int size = 0;
+
+	/**
+	 * Creates a new occurrence index.
+	 * @param ical the iCalendar object whose components will be indexed
+	 * @param horizonStart the start of the window of time whose overlapping
+	 * occurrences are computed up front (inclusive)
+	 * @param horizonEnd the end of the window of time whose overlapping
+	 * occurrences are computed up front (exclusive)
+	 */
+	public OccurrenceIndex(ICalendar ical, Date horizonStart, Date horizonEnd) {
+		this.ical = ical;
+		this.horizonStart = horizonStart.getTime();
+		this.horizonEnd = horizonEnd.getTime();
+
+		Map<GroupKey, List<ICalComponent>> componentsByUid = new LinkedHashMap<GroupKey, List<ICalComponent>>();
+		List<ICalComponent> components = new ArrayList<ICalComponent>();
+		components.addAll(ical.getEvents());
+		components.addAll(ical.getTodos());
+		components.addAll(ical.getJournals());
+		for (ICalComponent component : components) {
+			String uid = ValuedProperty.getValue(component.getProperty(Uid.class));
+			if (uid == null) {
+				Group group = new Group();
+				group.components.add(component);
+				groupsWithoutUid.put(component, group);
+				index(group);
+				continue;
+			}
+
+			GroupKey key = new GroupKey(component.getClass(), uid);
+			List<ICalComponent> group = componentsByUid.get(key);
+			if (group == null) {
+				group = new ArrayList<ICalComponent>();
+				componentsByUid.put(key, group);
+			}
+			group.add(component);
+		}
+
+		for (Map.Entry<GroupKey, List<ICalComponent>> entry : componentsByUid.entrySet()) {
+			Group group = new Group();
+			group.components.addAll(entry.getValue());
+			groupsByUid.put(entry.getKey(), group);
+			index(group);
+		}
+	}
+
+	/**
+	 * Adds a component to the index. If the component belongs to a series
+	 * that is already in the index (in other words, it has the same UID as
+	 * another component), then the series is re-indexed.
+	 * @param component the component (should be an event, to-do, or journal
+	 * entry)
+	 */
+	public void add(ICalComponent component) {
+		if (!isIndexable(component)) {
+			return;
+		}
+
+		String uid = ValuedProperty.getValue(component.getProperty(Uid.class));
+		if (uid == null) {
+			if (groupsWithoutUid.containsKey(component)) {
+				return;
+			}
+
+			Group group = new Group();
+			group.components.add(component);
+			groupsWithoutUid.put(component, group);
+			index(group);
+			return;
+		}
+
+		GroupKey key = new GroupKey(component.getClass(), uid);
+		Group group = groupsByUid.get(key);
+		if (group == null) {
+			group = new Group();
+			groupsByUid.put(key, group);
+		} else {
+			for (ICalComponent existing : group.components) {
+				if (existing == component) {
+					return;
+				}
+			}
+			unindex(group);
+		}
+
+		group.components.add(component);
+		index(group);
+	}
+
+	/**
+	 * Removes a component from the index. If the component belongs to a
+	 * series that has other components, then the rest of the series is
+	 * re-indexed. The component's UID must not have been changed since it was
+	 * added to the index.
+	 * @param component the component
+	 * @return true if the component was removed, false if it was not in the
+	 * index
+	 */
+	public boolean remove(ICalComponent component) {
+		Group group = groupsWithoutUid.remove(component);
+		if (group != null) {
+			unindex(group);
+			return true;
+		}
+
+		String uid = ValuedProperty.getValue(component.getProperty(Uid.class));
+		if (uid == null) {
+			return false;
+		}
+
+		GroupKey key = new GroupKey(component.getClass(), uid);
+		group = groupsByUid.get(key);
+		if (group == null) {
+			return false;
+		}
+
+		boolean removed = false;
+		for (int i = 0; i < group.components.size(); i++) {
+			if (group.components.get(i) == component) {
+				group.components.remove(i);
+				removed = true;
+				break;
+			}
+		}
+		if (!removed) {
+			return false;
+		}
+
+		unindex(group);
+		if (group.components.isEmpty()) {
+			groupsByUid.remove(key);
+		} else {
+			index(group);
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the occurrences that overlap the given window of time. The length
+	 * of each occurrence is determined in the same way as
+	 * {@link Google2445Utils#getOccurrences(ICalComponent, java.util.TimeZone, Date, Date)}
+	 * .
+	 * @param windowStart the start of the window (inclusive)
+	 * @param windowEnd the end of the window (exclusive)
+	 * @return the occurrences, in ascending order of start date
+	 */
+	public List<Occurrence> getOccurrences(Date windowStart, Date windowEnd) {
+		List<Occurrence> occurrences = new ArrayList<Occurrence>();
+		long start = windowStart.getTime();
+		long end = windowEnd.getTime();
+		if (start >= end) {
+			return occurrences;
+		}
+
+		query(root, start, end, occurrences);
+
+		int indexed = occurrences.size();
+		if (start < horizonStart) {
+			for (Group group : lazyBefore) {
+				group.queryBefore(start, end, occurrences);
+			}
+		}
+		if (end > horizonEnd) {
+			for (Group group : lazyAfter) {
+				group.queryAfter(start, end, occurrences);
+			}
+		}
+
+		if (occurrences.size() > indexed) {
+			Collections.sort(occurrences, new Comparator<Occurrence>() {
+				public int compare(Occurrence a, Occurrence b) {
+					return a.getStartDate().compareTo(b.getStartDate());
+				}
+			});
+		}
+
+		return occurrences;
+	}
+
+	/**
+	 * Gets the occurrences that are in progress at the given time.
+	 * @param date the time
+	 * @return the occurrences, in ascending order of start date
+	 */
+	public List<Occurrence> getOccurrencesAt(Date date) {
+		return getOccurrences(date, new Date(date.getTime() + 1));
+	}
+
+	/**
+	 * Gets the number of occurrences that are stored in the index. This does
+	 * not include the occurrences that lie outside of the horizon.
+	 * @return the number of occurrences
+	 */
+	public int size() {
+		return size;
+	}
+
+	private static boolean isIndexable(ICalComponent component) {
+		return component instanceof VEvent || component instanceof VTodo || component instanceof VJournal;
+	}
+
+	/**
+	 * Computes the occurrences of a series that start within the horizon and
+	 * adds them to the tree.
+	 * @param group the series
+	 */
+	private void index(Group group) {
+		RecurrenceExpander expander = new RecurrenceExpander(ical.getTimezoneInfo(), group.components);
+		group.maxLength = expander.getMaxLength();
+		boolean before = false, after = false;
+
+		OccurrenceIterator it = expander.getOccurrences();
+		while (it.hasNext()) {
+			Occurrence occurrence = it.next();
+			long start = occurrence.getStartDate().getTime();
+			if (start >= horizonEnd) {
+				after = true;
+				break;
+			}
+
+			long end = occurrence.getEndDate().getTime();
+			if (!RecurrenceExpander.endsAfter(start, end, horizonStart)) {
+				if (!before) {
+					before = true;
+					it.advanceTo(new Date(horizonStart - group.maxLength));
+				}
+				continue;
+			}
+
+			if (end == start) {
+				//zero-length occurrences overlap a window if they start inside of it
+				end++;
+			}
+
+			Node node = new Node(occurrence, start, end, nextId++, random.nextInt());
+			root = insert(root, node);
+			group.nodes.add(node);
+			size++;
+		}
+
+		if (before || after) {
+			group.expander = expander;
+		}
+		if (before) {
+			lazyBefore.add(group);
+		}
+		if (after) {
+			lazyAfter.add(group);
+		}
+	}
+
+	/**
+	 * Removes the occurrences of a series from the tree.
+	 * @param group the series
+	 */
+	private void unindex(Group group) {
+		for (Node node : group.nodes) {
+			root = delete(root, node);
+			size--;
+		}
+		group.nodes.clear();
+		group.expander = null;
+		lazyBefore.remove(group);
+		lazyAfter.remove(group);
+	}
+
+	/**
+	 * Adds the occurrences in the given subtree that overlap the given window
+	 * to a list, in ascending order of start date.
+	 * @param node the root of the subtree
+	 * @param start the start of the window (inclusive)
+	 * @param end the end of the window (exclusive)
+	 * @param occurrences the list to add to
+	 */
+	private static void query(Node node, long start, long end, List<Occurrence> occurrences) {
+		while (node != null && node.maxEnd > start) {
+			query(node.left, start, end, occurrences);
+			if (node.start >= end) {
+				//every node in the right subtree starts after the window
+				return;
+			}
+
+			if (node.end > start) {
+				occurrences.add(node.occurrence);
+			}
+			node = node.right;
+		}
+	}
+
+	/*
+	 * The tree is a treap: a binary search tree ordered by start date that is
+	 * kept balanced by giving each node a random priority and keeping the
+	 * nodes in heap order by priority. Each node also stores the latest end
+	 * date in its subtree, which allows subtrees that end before a query
+	 * window to be skipped.
+	 */
+
+	private Node insert(Node node, Node newNode) {
+		if (node == null) {
+			return newNode;
+		}
+
+		if (newNode.compareTo(node) < 0) {
+			node.left = insert(node.left, newNode);
+			if (node.left.priority > node.priority) {
+				node = rotateRight(node);
+			}
+		} else {
+			node.right = insert(node.right, newNode);
+			if (node.right.priority > node.priority) {
+				node = rotateLeft(node);
+			}
+		}
+
+		node.update();
+		return node;
+	}
+
+	private Node delete(Node node, Node target) {
+		if (node == null) {
+			return null;
+		}
+
+		if (node == target) {
+			return merge(node.left, node.right);
+		}
+
+		if (target.compareTo(node) < 0) {
+			node.left = delete(node.left, target);
+		} else {
+			node.right = delete(node.right, target);
+		}
+
+		node.update();
+		return node;
+	}
+
+	private Node merge(Node left, Node right) {
+		if (left == null) {
+			return right;
+		}
+		if (right == null) {
+			return left;
+		}
+
+		if (left.priority > right.priority) {
+			left.right = merge(left.right, right);
+			left.update();
+			return left;
+		}
+
+		right.left = merge(left, right.left);
+		right.update();
+		return right;
+	}
+
+	private static Node rotateRight(Node node) {
+		Node left = node.left;
+		node.left = left.right;
+		left.right = node;
+		node.update();
+		return left;
+	}
+
+	private static Node rotateLeft(Node node) {
+		Node right = node.right;
+		node.right = right.left;
+		right.left = node;
+		node.update();
+		return right;
+	}
+
+	private static class Node implements Comparable<Node> {
+		private final Occurrence occurrence;
+		private final long start, end, id;
+		private final int priority;
+
+		/**
+		 * The latest end date in the subtree that this node is the root of.
+		 */
+		private long maxEnd;
+
+		private Node left, right;
+
+		public Node(Occurrence occurrence, long start, long end, long id, int priority) {
+			this.occurrence = occurrence;
+			this.start = start;
+			this.end = end;
+			this.id = id;
+			this.priority = priority;
+			maxEnd = end;
+		}
+
+		public void update() {
+			maxEnd = end;
+			if (left != null && left.maxEnd > maxEnd) {
+				maxEnd = left.maxEnd;
+			}
+			if (right != null && right.maxEnd > maxEnd) {
+				maxEnd = right.maxEnd;
+			}
+		}
+
+		public int compareTo(Node that) {
+			if (start != that.start) {
+				return (start < that.start) ? -1 : 1;
+			}
+			if (id != that.id) {
+				return (id < that.id) ? -1 : 1;
+			}
+			return 0;
+		}
+	}
+
+	/**
+	 * The components that make up a single series.
+	 */
+	private class Group {
+		private final List<ICalComponent> components = new ArrayList<ICalComponent>();
+		private final List<Node> nodes = new ArrayList<Node>();
+
+		/**
+		 * The expander of the series if it has occurrences that lie outside of
+		 * the horizon, null if not.
+		 */
+		private RecurrenceExpander expander;
+		private long maxLength;
+
+		/**
+		 * Adds the occurrences that end before the horizon and that overlap
+		 * the given window to a list.
+		 * @param start the start of the window (inclusive)
+		 * @param end the end of the window (exclusive)
+		 * @param occurrences the list to add to
+		 */
+		public void queryBefore(long start, long end, List<Occurrence> occurrences) {
+			long beforeEnd = Math.min(end, horizonStart);
+			OccurrenceIterator it = expander.getOccurrences();
+			it.advanceTo(new Date(start - maxLength));
+			while (it.hasNext()) {
+				Occurrence occurrence = it.next();
+				long occurrenceStart = occurrence.getStartDate().getTime();
+				if (occurrenceStart >= beforeEnd) {
+					break;
+				}
+
+				long occurrenceEnd = occurrence.getEndDate().getTime();
+				if (RecurrenceExpander.endsAfter(occurrenceStart, occurrenceEnd, horizonStart)) {
+					//already in the tree
+					continue;
+				}
+				if (RecurrenceExpander.endsAfter(occurrenceStart, occurrenceEnd, start)) {
+					occurrences.add(occurrence);
+				}
+			}
+		}
+
+		/**
+		 * Adds the occurrences that start after the horizon and that overlap
+		 * the given window to a list.
+		 * @param start the start of the window (inclusive)
+		 * @param end the end of the window (exclusive)
+		 * @param occurrences the list to add to
+		 */
+		public void queryAfter(long start, long end, List<Occurrence> occurrences) {
+			OccurrenceIterator it = expander.getOccurrences();
+			it.advanceTo(new Date(Math.max(start - maxLength, horizonEnd)));
+			occurrences.addAll(RecurrenceExpander.collect(it, new Date(start), new Date(end), Integer.MAX_VALUE));
+		}
+	}
+
+	/**
+	 * Identifies a series. Components of different types are never part of
+	 * the same series, even if they have the same UID.
+	 */
+	private static class GroupKey {
+		private final Class<?> type;
+		private final String uid;
+
+		public GroupKey(Class<?> type, String uid) {
+			this.type = type;
+			this.uid = uid;
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + type.hashCode();
+			result = prime * result + uid.hashCode();
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) return true;
+			if (obj == null) return false;
+			if (getClass() != obj.getClass()) return false;
+			GroupKey other = (GroupKey) obj;
+			return type == other.type && uid.equals(other.uid);
+		}
+	}
+}
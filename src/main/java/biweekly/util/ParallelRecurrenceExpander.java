@@ -0,0 +1,185 @@
+package biweekly.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import biweekly.ICalendar;
+import biweekly.Messages;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * Expands the recurring components of multiple iCalendar objects into a single
+ * stream of occurrences, such as for building an agenda that spans many
+ * calendars.
+ * </p>
+ * <p>
+ * Each iCalendar object is prepared in its own task: its components are
+ * grouped and indexed (see {@link RecurrenceExpander}), and its recurrence
+ * iterators are advanced to the requested start date. The tasks are run in
+ * parallel on the given executor. The per-calendar streams are then lazily
+ * merged using a heap, so retrieving the first few occurrences does not
+ * require the rest of the occurrences to be computed.
+ * </p>
+ * <p>
+ * <b>Example:</b>
+ * </p>
+ * 
+ * <pre class="brush:java">
+ * List&lt;ICalendar&gt; icals = ...
+ * ExecutorService executor = Executors.newFixedThreadPool(4);
+ * ParallelRecurrenceExpander expander = new ParallelRecurrenceExpander(icals, executor);
+ * 
+ * //get the next 50 events
+ * List&lt;Occurrence&gt; agenda = expander.getOccurrences(new Date(), windowEnd, 50);
+ * </pre>
+ * <p>
+ * The iCalendar objects must not be modified while their occurrences are being
+ * retrieved.
+ * </p>
+ * @author Michael Angstadt
+ */
+public class ParallelRecurrenceExpander {
+	private final List<ICalendar> icals;
+	private final ExecutorService executor;
+
+	/**
+	 * Creates a new parallel recurrence expander.
+	 * @param icals the iCalendar objects
+	 * @param executor the executor to prepare the iCalendar objects with (it
+	 * is not shut down by this class)
+	 */
+	public ParallelRecurrenceExpander(Collection<ICalendar> icals, ExecutorService executor) {
+		this.icals = new ArrayList<ICalendar>(icals);
+		this.executor = executor;
+	}
+
+	/**
+	 * Gets the occurrences of all of the components in all of the iCalendar
+	 * objects that start on or after the given date.
+	 * @param start the start date
+	 * @return the occurrences, in ascending order of start date
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 * for the iCalendar objects to be prepared
+	 */
+	public OccurrenceIterator getOccurrences(Date start) throws InterruptedException {
+		return iterator(start, false);
+	}
+
+	/**
+	 * Gets the occurrences of all of the components in all of the iCalendar
+	 * objects that overlap the given window of time.
+	 * @param windowStart the start of the window (inclusive)
+	 * @param windowEnd the end of the window (exclusive)
+	 * @return the occurrences, in ascending order of start date
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 * for the iCalendar objects to be prepared
+	 * @see RecurrenceExpander#getOccurrences(Date, Date)
+	 */
+	public List<Occurrence> getOccurrences(Date windowStart, Date windowEnd) throws InterruptedException {
+		return getOccurrences(windowStart, windowEnd, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Gets the first occurrences of all of the components in all of the
+	 * iCalendar objects that overlap the given window of time.
+	 * @param windowStart the start of the window (inclusive)
+	 * @param windowEnd the end of the window (exclusive)
+	 * @param limit the maximum number of occurrences to return
+	 * @return the occurrences, in ascending order of start date
+	 * @throws IllegalArgumentException if the limit is less than one
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 * for the iCalendar objects to be prepared
+	 * @see RecurrenceExpander#getOccurrences(Date, Date)
+	 */
+	public List<Occurrence> getOccurrences(Date windowStart, Date windowEnd, int limit) throws InterruptedException {
+		if (limit < 1) {
+			throw Messages.INSTANCE.getIllegalArgumentException(29);
+		}
+		if (!windowStart.before(windowEnd)) {
+			return new ArrayList<Occurrence>(0);
+		}
+
+		OccurrenceIterator it = iterator(windowStart, true);
+		return RecurrenceExpander.collect(it, windowStart, windowEnd, limit);
+	}
+
+	/**
+	 * Prepares each iCalendar object in parallel and merges their occurrences.
+	 * @param start the date to advance each iterator to
+	 * @param overlapping true to also include the occurrences that start
+	 * before the start date, but might still be in progress, false not to
+	 * @return the merged iterator
+	 * @throws InterruptedException if the thread is interrupted
+	 */
+	private OccurrenceIterator iterator(final Date start, final boolean overlapping) throws InterruptedException {
+		List<Callable<OccurrenceIterator>> tasks = new ArrayList<Callable<OccurrenceIterator>>(icals.size());
+		for (final ICalendar ical : icals) {
+			tasks.add(new Callable<OccurrenceIterator>() {
+				public OccurrenceIterator call() {
+					RecurrenceExpander expander = new RecurrenceExpander(ical);
+					long millis = start.getTime();
+					if (overlapping) {
+						millis -= expander.getMaxLength();
+					}
+
+					OccurrenceIterator it = expander.getOccurrences();
+					it.advanceTo(new Date(millis));
+					return it;
+				}
+			});
+		}
+
+		List<Future<OccurrenceIterator>> futures = executor.invokeAll(tasks);
+		List<OccurrenceIterator> iterators = new ArrayList<OccurrenceIterator>(futures.size());
+		for (Future<OccurrenceIterator> future : futures) {
+			iterators.add(get(future));
+		}
+		return RecurrenceExpander.merge(iterators);
+	}
+
+	private static OccurrenceIterator get(Future<OccurrenceIterator> future) throws InterruptedException {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new RuntimeException(cause);
+		}
+	}
+}
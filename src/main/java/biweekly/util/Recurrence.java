@@ -13,6 +13,7 @@ import java.util.TimeZone;
 import biweekly.property.DateStart;
 import biweekly.util.com.google.ical.compat.javautil.DateIterator;
 import biweekly.util.com.google.ical.compat.javautil.DateIteratorFactory;
+import biweekly.util.com.google.ical.iter.ExpansionBudget;
 import biweekly.util.com.google.ical.iter.RecurrenceIterator;
 
 /*
@@ -82,17 +83,22 @@ public final class Recurrence {
 		interval = builder.interval;
 		count = builder.count;
 		until = builder.until;
-		bySecond = Collections.unmodifiableList(builder.bySecond);
-		byMinute = Collections.unmodifiableList(builder.byMinute);
-		byHour = Collections.unmodifiableList(builder.byHour);
-		byMonthDay = Collections.unmodifiableList(builder.byMonthDay);
-		byYearDay = Collections.unmodifiableList(builder.byYearDay);
-		byWeekNo = Collections.unmodifiableList(builder.byWeekNo);
-		byMonth = Collections.unmodifiableList(builder.byMonth);
-		bySetPos = Collections.unmodifiableList(builder.bySetPos);
-		byDay = Collections.unmodifiableList(builder.byDay);
+		/*
+		 * Copy the lists so that modifying the builder after calling build()
+		 * doesn't modify this object. Recurrence objects are used as cache
+		 * keys, so they must not change.
+		 */
+		bySecond = Collections.unmodifiableList(new ArrayList<Integer>(builder.bySecond));
+		byMinute = Collections.unmodifiableList(new ArrayList<Integer>(builder.byMinute));
+		byHour = Collections.unmodifiableList(new ArrayList<Integer>(builder.byHour));
+		byMonthDay = Collections.unmodifiableList(new ArrayList<Integer>(builder.byMonthDay));
+		byYearDay = Collections.unmodifiableList(new ArrayList<Integer>(builder.byYearDay));
+		byWeekNo = Collections.unmodifiableList(new ArrayList<Integer>(builder.byWeekNo));
+		byMonth = Collections.unmodifiableList(new ArrayList<Integer>(builder.byMonth));
+		bySetPos = Collections.unmodifiableList(new ArrayList<Integer>(builder.bySetPos));
+		byDay = Collections.unmodifiableList(new ArrayList<ByDay>(builder.byDay));
 		workweekStarts = builder.workweekStarts;
-		xrules = Collections.unmodifiableMap(builder.xrules.getMap());
+		xrules = Collections.unmodifiableMap(new ListMultimap<String, String>(builder.xrules).getMap());
 	}
 
 	/**
@@ -247,6 +253,86 @@ public final class Recurrence {
 		return DateIteratorFactory.createDateIterator(iterator);
 	}
 
+	/**
+	 * Creates an iterator that computes the dates defined by this recurrence,
+	 * and which stops once the given budget is exhausted.
+	 * @param startDate the date that the recurrence starts (typically, the
+	 * value of the {@link DateStart} property)
+	 * @param timezone the timezone to iterate in (see
+	 * {@link #getDateIterator(ICalDate, TimeZone)})
+	 * @param budget limits the amount of work the iterator can do (a new
+	 * budget object must be used for each iterator)
+	 * @return the iterator
+	 */
+	public DateIterator getDateIterator(ICalDate startDate, TimeZone timezone, ExpansionBudget budget) {
+		RecurrenceIterator iterator = Google2445Utils.createRecurrenceIterator(this, startDate, timezone, budget);
+		return DateIteratorFactory.createDateIterator(iterator);
+	}
+
+	/**
+	 * Calculates the last date of this recurrence, if it is bounded by a
+	 * COUNT or UNTIL. This is much faster than iterating over every date with
+	 * {@link #getDateIterator(ICalDate, TimeZone)}.
+	 * @param startDate the date that the recurrence starts (typically, the
+	 * value of the {@link DateStart} property)
+	 * @param timezone the timezone to iterate in (typically, the timezone
+	 * associated with the {@link DateStart} property). This is needed in order
+	 * to adjust for when the iterator passes over a daylight savings boundary.
+	 * @return the last date or null if the recurrence is unbounded or does not
+	 * generate any dates
+	 */
+	public Date getLastOccurrence(Date startDate, TimeZone timezone) {
+		return getLastOccurrence(new ICalDate(startDate), timezone);
+	}
+
+	/**
+	 * Calculates the last date of this recurrence, if it is bounded by a
+	 * COUNT or UNTIL. This is much faster than iterating over every date with
+	 * {@link #getDateIterator(ICalDate, TimeZone)}.
+	 * @param startDate the date that the recurrence starts (typically, the
+	 * value of the {@link DateStart} property)
+	 * @param timezone the timezone to iterate in (typically, the timezone
+	 * associated with the {@link DateStart} property). This is needed in order
+	 * to adjust for when the iterator passes over a daylight savings boundary.
+	 * @return the last date or null if the recurrence is unbounded or does not
+	 * generate any dates
+	 */
+	public Date getLastOccurrence(ICalDate startDate, TimeZone timezone) {
+		return Google2445Utils.getLastOccurrence(this, startDate, timezone);
+	}
+
+	/**
+	 * Calculates the number of dates in this recurrence, if it is bounded by a
+	 * COUNT or UNTIL. This is much faster than iterating over every date with
+	 * {@link #getDateIterator(ICalDate, TimeZone)}.
+	 * @param startDate the date that the recurrence starts (typically, the
+	 * value of the {@link DateStart} property)
+	 * @param timezone the timezone to iterate in (typically, the timezone
+	 * associated with the {@link DateStart} property). This is needed in order
+	 * to adjust for when the iterator passes over a daylight savings boundary.
+	 * @return the number of dates or -1 if the recurrence is unbounded or is
+	 * too large to solve
+	 */
+	public long getOccurrenceCount(Date startDate, TimeZone timezone) {
+		return getOccurrenceCount(new ICalDate(startDate), timezone);
+	}
+
+	/**
+	 * Calculates the number of dates in this recurrence, if it is bounded by a
+	 * COUNT or UNTIL. This is much faster than iterating over every date with
+	 * {@link #getDateIterator(ICalDate, TimeZone)}.
+	 * @param startDate the date that the recurrence starts (typically, the
+	 * value of the {@link DateStart} property)
+	 * @param timezone the timezone to iterate in (typically, the timezone
+	 * associated with the {@link DateStart} property). This is needed in order
+	 * to adjust for when the iterator passes over a daylight savings boundary.
+	 * @return the number of dates or -1 if the recurrence is unbounded or is
+	 * too large to solve
+	 */
+	public long getOccurrenceCount(ICalDate startDate, TimeZone timezone) {
+		return Google2445Utils.getOccurrenceCount(this, startDate, timezone);
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
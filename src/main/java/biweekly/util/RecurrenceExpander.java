@@ -0,0 +1,672 @@
+package biweekly.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.TimeZone;
+
+import biweekly.ICalendar;
+import biweekly.component.ICalComponent;
+import biweekly.io.TimezoneAssignment;
+import biweekly.io.TimezoneInfo;
+import biweekly.parameter.Range;
+import biweekly.property.DateDue;
+import biweekly.property.DateEnd;
+import biweekly.property.DateStart;
+import biweekly.property.DurationProperty;
+import biweekly.property.RecurrenceId;
+import biweekly.property.Uid;
+import biweekly.property.ValuedProperty;
+import biweekly.util.com.google.ical.iter.LongRecurrenceIterator;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * Expands the recurring components of an iCalendar object into their
+ * individual occurrences.
+ * </p>
+ * <p>
+ * Components that share the same UID are treated as a single series. The
+ * component without a RECURRENCE-ID property is the master component, whose
+ * recurrence rules generate the occurrences. The components with a
+ * RECURRENCE-ID property replace the occurrences that their RECURRENCE-ID
+ * values refer to. If the RECURRENCE-ID property has a RANGE parameter of
+ * {@link Range#THIS_AND_FUTURE THISANDFUTURE}, then the component also
+ * replaces all of the occurrences after that one, and any change it makes to
+ * the start time is applied to each of them.
+ * </p>
+ * <p>
+ * The overriding components are indexed by their RECURRENCE-ID values when
+ * the expander is created, so the overrides of a series are looked up in
+ * constant time as its occurrences are generated. Occurrences that were moved
+ * are returned in their new position in the stream.
+ * </p>
+ * <p>
+ * <b>Example:</b>
+ * </p>
+ * 
+ * <pre class="brush:java">
+ * ICalendar ical = ...
+ * RecurrenceExpander expander = new RecurrenceExpander(ical);
+ * for (Occurrence occurrence : expander.getOccurrences(windowStart, windowEnd)) {
+ *   ICalComponent component = occurrence.getComponent();
+ *   ...
+ * }
+ * </pre>
+ * <p>
+ * This class is not thread-safe, but the iterators it creates are independent
+ * of one another.
+ * </p>
+ * @author Michael Angstadt
+ * @see <a href="http://tools.ietf.org/html/rfc5545#page-112">RFC 5545
+ * p.112-4</a>
+ */
+public class RecurrenceExpander {
+	private final TimezoneInfo tzinfo;
+	private final List<Series> series = new ArrayList<Series>();
+	private final ListMultimap<String, Series> seriesByUid = new ListMultimap<String, Series>();
+
+	/**
+	 * Creates a new recurrence expander. The components of the iCalendar
+	 * object are grouped and indexed by this constructor, so the expander
+	 * should be recreated if the iCalendar object is modified.
+	 * @param ical the iCalendar object
+	 */
+	public RecurrenceExpander(ICalendar ical) {
+		tzinfo = ical.getTimezoneInfo();
+		group(ical.getEvents());
+		group(ical.getTodos());
+		group(ical.getJournals());
+	}
+
+	/**
+	 * Creates a recurrence expander for a subset of the components in an
+	 * iCalendar object.
+	 * @param tzinfo the timezone information of the iCalendar object
+	 * @param components the components (must all be of the same type)
+	 */
+	RecurrenceExpander(TimezoneInfo tzinfo, List<? extends ICalComponent> components) {
+		this.tzinfo = tzinfo;
+		group(components);
+	}
+
+	/**
+	 * Gets the occurrences of all of the components in the iCalendar object.
+	 * @return the occurrences, in ascending order of start date
+	 */
+	public OccurrenceIterator getOccurrences() {
+		return iterator(series);
+	}
+
+	/**
+	 * Gets the occurrences of the components that have the given UID.
+	 * @param uid the UID
+	 * @return the occurrences, in ascending order of start date
+	 */
+	public OccurrenceIterator getOccurrences(String uid) {
+		return iterator(seriesByUid.get(uid));
+	}
+
+	/**
+	 * Gets the occurrences of all of the components in the iCalendar object
+	 * that overlap the given window of time. The length of each occurrence is
+	 * determined in the same way as
+	 * {@link Google2445Utils#getOccurrences(ICalComponent, TimeZone, Date, Date)}
+	 * .
+	 * @param windowStart the start of the window (inclusive)
+	 * @param windowEnd the end of the window (exclusive)
+	 * @return the occurrences, in ascending order of start date
+	 */
+	public List<Occurrence> getOccurrences(Date windowStart, Date windowEnd) {
+		OccurrenceIterator it = getOccurrences();
+		it.advanceTo(new Date(windowStart.getTime() - getMaxLength()));
+		return collect(it, windowStart, windowEnd, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Gets the length of the longest occurrence in the iCalendar object. An
+	 * iterator must be advanced this far before the start of a window in order
+	 * to find all of the occurrences that overlap the window.
+	 * @return the length in milliseconds
+	 */
+	long getMaxLength() {
+		long maxLength = 0;
+		for (Series s : series) {
+			maxLength = Math.max(maxLength, s.maxLength);
+		}
+		return maxLength;
+	}
+
+	/**
+	 * Retrieves the occurrences from an iterator that overlap the given window
+	 * of time.
+	 * @param it the iterator
+	 * @param windowStart the start of the window (inclusive)
+	 * @param windowEnd the end of the window (exclusive)
+	 * @param limit the maximum number of occurrences to retrieve
+	 * @return the occurrences
+	 */
+	static List<Occurrence> collect(OccurrenceIterator it, Date windowStart, Date windowEnd, int limit) {
+		List<Occurrence> occurrences = new ArrayList<Occurrence>();
+		long windowStartMillis = windowStart.getTime();
+		long windowEndMillis = windowEnd.getTime();
+		if (windowStartMillis >= windowEndMillis) {
+			return occurrences;
+		}
+
+		while (occurrences.size() < limit && it.hasNext()) {
+			Occurrence occurrence = it.next();
+			long startMillis = occurrence.getStartDate().getTime();
+			if (startMillis >= windowEndMillis) {
+				break;
+			}
+
+			long endMillis = occurrence.getEndDate().getTime();
+			if (endsAfter(startMillis, endMillis, windowStartMillis)) {
+				occurrences.add(occurrence);
+			}
+		}
+
+		return occurrences;
+	}
+
+	private OccurrenceIterator iterator(Collection<Series> series) {
+		List<Source> sources = new ArrayList<Source>();
+		for (Series s : series) {
+			s.addSources(sources);
+		}
+		return new MergingIterator(sources);
+	}
+
+	/**
+	 * Determines if an occurrence ends after the given date. Zero-length
+	 * occurrences are treated as ending after the date if they start on or
+	 * after it.
+	 * @param start the start of the occurrence
+	 * @param end the end of the occurrence
+	 * @param date the date
+	 * @return true if the occurrence ends after the date, false if not
+	 */
+	static boolean endsAfter(long start, long end, long date) {
+		return (start == end) ? start >= date : end > date;
+	}
+
+	/**
+	 * Merges multiple occurrence iterators into one.
+	 * @param iterators the iterators (each must return its occurrences in
+	 * ascending order of start date)
+	 * @return the merged iterator
+	 */
+	static OccurrenceIterator merge(List<OccurrenceIterator> iterators) {
+		List<Source> sources = new ArrayList<Source>(iterators.size());
+		for (OccurrenceIterator it : iterators) {
+			sources.add(new IteratorSource(it));
+		}
+		return new MergingIterator(sources);
+	}
+
+	/**
+	 * Groups the given components into series by UID.
+	 * @param components the components (must all be of the same type)
+	 */
+	private void group(List<? extends ICalComponent> components) {
+		Map<String, List<ICalComponent>> byUid = new LinkedHashMap<String, List<ICalComponent>>();
+		for (ICalComponent component : components) {
+			String uid = ValuedProperty.getValue(component.getProperty(Uid.class));
+			if (uid == null) {
+				add(null, Collections.singletonList(component));
+				continue;
+			}
+
+			List<ICalComponent> group = byUid.get(uid);
+			if (group == null) {
+				group = new ArrayList<ICalComponent>();
+				byUid.put(uid, group);
+			}
+			group.add(component);
+		}
+
+		for (Map.Entry<String, List<ICalComponent>> entry : byUid.entrySet()) {
+			add(entry.getKey(), entry.getValue());
+		}
+	}
+
+	private void add(String uid, List<ICalComponent> components) {
+		ICalComponent master = null;
+		List<ICalComponent> overrides = new ArrayList<ICalComponent>();
+		for (ICalComponent component : components) {
+			if (getRecurrenceId(component) != null) {
+				overrides.add(component);
+				continue;
+			}
+
+			if (master == null) {
+				master = component;
+				continue;
+			}
+
+			//only one master component is allowed, so treat any others as separate series
+			add(new Series(uid, component, Collections.<ICalComponent> emptyList()));
+		}
+
+		add(new Series(uid, master, overrides));
+	}
+
+	private void add(Series s) {
+		series.add(s);
+		if (s.uid != null) {
+			seriesByUid.put(s.uid, s);
+		}
+	}
+
+	/**
+	 * Determines the timezone that a component's recurrence rules should be
+	 * evaluated in.
+	 * @param component the component
+	 * @return the timezone
+	 */
+	private TimeZone getTimezone(ICalComponent component) {
+		DateStart dtstart = component.getProperty(DateStart.class);
+		if (dtstart == null) {
+			return TimeZone.getTimeZone("UTC");
+		}
+
+		if (tzinfo.isFloating(dtstart)) {
+			return TimeZone.getDefault();
+		}
+
+		TimezoneAssignment assignment = tzinfo.getTimezoneToWriteIn(dtstart);
+		return (assignment == null) ? TimeZone.getTimeZone("UTC") : assignment.getTimeZone();
+	}
+
+	private static RecurrenceId getRecurrenceId(ICalComponent component) {
+		RecurrenceId recurrenceId = component.getProperty(RecurrenceId.class);
+		return (recurrenceId == null || recurrenceId.getValue() == null) ? null : recurrenceId;
+	}
+
+	/**
+	 * Converts a date to the key that is used to look up overrides. The
+	 * recurrence iterators ignore milliseconds, so they are dropped.
+	 * @param millis the date
+	 * @return the key
+	 */
+	private static long normalize(long millis) {
+		long mod = millis % 1000;
+		return millis - ((mod < 0) ? mod + 1000 : mod);
+	}
+
+	/**
+	 * A master component and the components that override its occurrences.
+	 */
+	private class Series {
+		private final String uid;
+		private final ICalComponent master;
+		private final TimeZone timezone;
+		private final boolean hasTime;
+		private final long length;
+
+		/**
+		 * The overriding components, keyed by the original start date of the
+		 * occurrence they override.
+		 */
+		private final Map<Long, ICalComponent> overrides = new HashMap<Long, ICalComponent>();
+
+		/**
+		 * The occurrences defined by the overriding components, sorted by
+		 * start date.
+		 */
+		private final List<Occurrence> overrideOccurrences = new ArrayList<Occurrence>();
+
+		/**
+		 * The components that have a RANGE of THISANDFUTURE, sorted by
+		 * RECURRENCE-ID.
+		 */
+		private final List<ICalComponent> futureOverrides = new ArrayList<ICalComponent>();
+
+		/**
+		 * The length of the longest occurrence in the series.
+		 */
+		private long maxLength;
+
+		public Series(String uid, ICalComponent master, List<ICalComponent> overrides) {
+			this.uid = uid;
+			this.master = master;
+
+			ICalDate start = (master == null) ? null : ValuedProperty.getValue(master.getProperty(DateStart.class));
+			timezone = (master == null) ? null : getTimezone(master);
+			hasTime = (start == null) ? true : start.hasTime();
+			length = (master == null) ? 0 : Google2445Utils.getOccurrenceLength(master, start);
+			maxLength = length;
+
+			for (ICalComponent override : overrides) {
+				RecurrenceId recurrenceId = getRecurrenceId(override);
+				Long key = normalize(recurrenceId.getValue().getTime());
+				if (this.overrides.containsKey(key)) {
+					//ignore duplicates
+					continue;
+				}
+				this.overrides.put(key, override);
+
+				ICalDate overrideStart = getStart(override);
+				long overrideLength = getLength(override);
+				maxLength = Math.max(maxLength, overrideLength);
+				overrideOccurrences.add(new Occurrence(override, recurrenceId.getValue(), overrideStart, new ICalDate(new Date(overrideStart.getTime() + overrideLength), overrideStart.hasTime())));
+
+				if (master != null && recurrenceId.getRange() == Range.THIS_AND_FUTURE) {
+					futureOverrides.add(override);
+				}
+			}
+
+			Collections.sort(overrideOccurrences, new Comparator<Occurrence>() {
+				public int compare(Occurrence a, Occurrence b) {
+					return a.getStartDate().compareTo(b.getStartDate());
+				}
+			});
+			Collections.sort(futureOverrides, new Comparator<ICalComponent>() {
+				public int compare(ICalComponent a, ICalComponent b) {
+					return getRecurrenceId(a).getValue().compareTo(getRecurrenceId(b).getValue());
+				}
+			});
+		}
+
+		/**
+		 * Gets the start date of an overriding component.
+		 * @param override the overriding component
+		 * @return the start date
+		 */
+		private ICalDate getStart(ICalComponent override) {
+			ICalDate start = ValuedProperty.getValue(override.getProperty(DateStart.class));
+			return (start == null) ? getRecurrenceId(override).getValue() : start;
+		}
+
+		/**
+		 * Gets the length of the occurrences of an overriding component. If
+		 * the component doesn't define a length, then the length of the master
+		 * component is used.
+		 * @param override the overriding component
+		 * @return the length in milliseconds
+		 */
+		private long getLength(ICalComponent override) {
+			boolean hasLength = override.getProperty(DurationProperty.class) != null || override.getProperty(DateEnd.class) != null || override.getProperty(DateDue.class) != null;
+			if (hasLength || master == null) {
+				return Google2445Utils.getOccurrenceLength(override, getStart(override));
+			}
+			return length;
+		}
+
+		/**
+		 * Creates the streams that make up the series.
+		 * @param sources the list to add the streams to
+		 */
+		public void addSources(List<Source> sources) {
+			sources.add(new ListSource(overrideOccurrences));
+			if (master == null) {
+				return;
+			}
+
+			/*
+			 * Each THISANDFUTURE override starts a new segment of the series,
+			 * which ends where the next one starts. Each segment can move its
+			 * occurrences by a different amount of time, so each one gets its
+			 * own stream.
+			 */
+			long segmentStart = Long.MIN_VALUE;
+			ICalComponent component = master;
+			for (ICalComponent override : futureOverrides) {
+				long segmentEnd = normalize(getRecurrenceId(override).getValue().getTime());
+				sources.add(new SegmentSource(this, component, segmentStart, segmentEnd));
+				segmentStart = segmentEnd;
+				component = override;
+			}
+			sources.add(new SegmentSource(this, component, segmentStart, Long.MAX_VALUE));
+		}
+	}
+
+	/**
+	 * A time-ordered stream of occurrences that can be merged with other
+	 * streams.
+	 */
+	private static abstract class Source {
+		/**
+		 * The next occurrence in the stream or null if the stream is
+		 * exhausted.
+		 */
+		protected Occurrence head;
+
+		/**
+		 * The start date of {@link #head}.
+		 */
+		protected long headStart;
+
+		/**
+		 * Discards the current head and moves to the next occurrence.
+		 */
+		abstract void shift();
+
+		/**
+		 * Discards all occurrences that start before the given date.
+		 * @param millis the date
+		 */
+		abstract void advanceTo(long millis);
+	}
+
+	/**
+	 * A stream of occurrences that have already been computed.
+	 */
+	private static class ListSource extends Source {
+		private final List<Occurrence> occurrences;
+		private int index = 0;
+
+		public ListSource(List<Occurrence> occurrences) {
+			this.occurrences = occurrences;
+		}
+
+		@Override
+		void shift() {
+			if (index < occurrences.size()) {
+				head = occurrences.get(index++);
+				headStart = head.getStartDate().getTime();
+			} else {
+				head = null;
+			}
+		}
+
+		@Override
+		void advanceTo(long millis) {
+			while (head != null && headStart < millis) {
+				shift();
+			}
+		}
+	}
+
+	/**
+	 * A stream of occurrences that is backed by another iterator.
+	 */
+	private static class IteratorSource extends Source {
+		private final OccurrenceIterator it;
+
+		public IteratorSource(OccurrenceIterator it) {
+			this.it = it;
+		}
+
+		@Override
+		void shift() {
+			if (it.hasNext()) {
+				head = it.next();
+				headStart = head.getStartDate().getTime();
+			} else {
+				head = null;
+			}
+		}
+
+		@Override
+		void advanceTo(long millis) {
+			if (head == null || headStart >= millis) {
+				return;
+			}
+			it.advanceTo(new Date(millis));
+			shift();
+		}
+	}
+
+	/**
+	 * A stream of the occurrences generated by a master component's recurrence
+	 * rules, between two RECURRENCE-ID values.
+	 */
+	private static class SegmentSource extends Source {
+		private final Series series;
+		private final ICalComponent component;
+		private final LongRecurrenceIterator it;
+		private final long end;
+		private final long offset;
+		private final long length;
+		private final boolean hasTime;
+
+		/**
+		 * @param series the series
+		 * @param component the component that describes the occurrences
+		 * @param start the first RECURRENCE-ID value that belongs to the
+		 * segment
+		 * @param end the first RECURRENCE-ID value that does not belong to
+		 * the segment
+		 */
+		public SegmentSource(Series series, ICalComponent component, long start, long end) {
+			this.series = series;
+			this.component = component;
+			this.end = end;
+
+			it = Google2445Utils.getLongRecurrenceIterator(series.master, series.timezone);
+			if (start != Long.MIN_VALUE) {
+				it.advanceTo(start);
+			}
+
+			if (component == series.master) {
+				offset = 0;
+				length = series.length;
+				hasTime = series.hasTime;
+			} else {
+				ICalDate overrideStart = series.getStart(component);
+				offset = overrideStart.getTime() - getRecurrenceId(component).getValue().getTime();
+				length = series.getLength(component);
+				hasTime = overrideStart.hasTime();
+			}
+		}
+
+		@Override
+		void shift() {
+			head = null;
+			while (it.hasNext()) {
+				long recurrenceId = it.nextMillis();
+				if (recurrenceId >= end) {
+					return;
+				}
+
+				if (!series.overrides.isEmpty() && series.overrides.containsKey(recurrenceId)) {
+					//the occurrence is defined by its own component
+					continue;
+				}
+
+				headStart = recurrenceId + offset;
+				head = new Occurrence(component, new ICalDate(new Date(recurrenceId), series.hasTime), new ICalDate(new Date(headStart), hasTime), new ICalDate(new Date(headStart + length), hasTime));
+				return;
+			}
+		}
+
+		@Override
+		void advanceTo(long millis) {
+			if (head == null || headStart >= millis) {
+				return;
+			}
+			it.advanceTo(millis - offset);
+			shift();
+		}
+	}
+
+	/**
+	 * Merges multiple streams of occurrences into one, using a heap.
+	 */
+	private static class MergingIterator implements OccurrenceIterator {
+		private final PriorityQueue<Source> queue;
+
+		public MergingIterator(List<Source> sources) {
+			queue = new PriorityQueue<Source>(Math.max(1, sources.size()), new Comparator<Source>() {
+				public int compare(Source a, Source b) {
+					return (a.headStart < b.headStart) ? -1 : (a.headStart == b.headStart) ? 0 : 1;
+				}
+			});
+
+			for (Source source : sources) {
+				source.shift();
+				if (source.head != null) {
+					queue.add(source);
+				}
+			}
+		}
+
+		public boolean hasNext() {
+			return !queue.isEmpty();
+		}
+
+		public Occurrence next() {
+			Source source = queue.poll();
+			if (source == null) {
+				throw new NoSuchElementException();
+			}
+
+			Occurrence next = source.head;
+			source.shift();
+			if (source.head != null) {
+				queue.add(source);
+			}
+			return next;
+		}
+
+		public void advanceTo(Date newStart) {
+			long millis = newStart.getTime();
+			List<Source> sources = new ArrayList<Source>(queue);
+			queue.clear();
+			for (Source source : sources) {
+				source.advanceTo(millis);
+				if (source.head != null) {
+					queue.add(source);
+				}
+			}
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -43,6 +43,7 @@ import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
 
+import biweekly.util.com.google.ical.iter.LongRecurrenceIterator;
 import biweekly.util.com.google.ical.iter.RecurrenceIterable;
 import biweekly.util.com.google.ical.iter.RecurrenceIterator;
 import biweekly.util.com.google.ical.iter.RecurrenceIteratorFactory;
@@ -92,10 +93,19 @@ public class DateIteratorFactory {
 
 	private static final class RecurrenceIteratorWrapper implements DateIterator {
 		private final RecurrenceIterator it;
+
+		/**
+		 * The same as {@link #it} if the iterator can return its dates as
+		 * milliseconds, null if not. Going through this interface avoids
+		 * creating a {@link DateValue} object for each date.
+		 */
+		private final LongRecurrenceIterator longIt;
+
 		private final Calendar utcCalendar = new GregorianCalendar(TimeUtils.utcTimezone());
 
 		public RecurrenceIteratorWrapper(RecurrenceIterator it) {
 			this.it = it;
+			longIt = (it instanceof LongRecurrenceIterator) ? (LongRecurrenceIterator) it : null;
 		}
 
 		public boolean hasNext() {
@@ -103,11 +113,15 @@ public class DateIteratorFactory {
 		}
 
 		public Date next() {
-			return toDate(it.next());
+			return (longIt == null) ? toDate(it.next()) : new Date(longIt.nextMillis());
 		}
 
 		public void advanceTo(Date d) {
-			it.advanceTo(toDateValue(d));
+			if (longIt == null) {
+				it.advanceTo(toDateValue(d));
+			} else {
+				longIt.advanceTo(d.getTime());
+			}
 		}
 
 		public void remove() {
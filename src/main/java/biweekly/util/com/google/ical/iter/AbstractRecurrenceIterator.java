@@ -0,0 +1,72 @@
+package biweekly.util.com.google.ical.iter;
+
+import biweekly.util.com.google.ical.values.DateValue;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * Base class for the recurrence iterators in this package. Dates are passed
+ * between iterators as {@link DateValueComparison#comparable comparable}
+ * values, and are only converted to {@link DateValue} objects when they are
+ * retrieved through the {@link RecurrenceIterator} interface.
+ * @author Michael Angstadt
+ */
+abstract class AbstractRecurrenceIterator implements RecurrenceIterator, LongRecurrenceIterator {
+	/**
+	 * Returns the next date in the series.
+	 * @return the comparable value of the next date (in UTC)
+	 * @throws java.util.NoSuchElementException if there are no more dates
+	 */
+	abstract long nextComparable();
+
+	/**
+	 * Skips all dates in the series that come before the given date.
+	 * @param newStartUtc the comparable value of the date to advance to (in
+	 * UTC)
+	 * @see RecurrenceIterator#advanceTo
+	 */
+	abstract void advanceToComparable(long newStartUtc);
+
+	public DateValue next() {
+		return DateValueComparison.toDateValue(nextComparable());
+	}
+
+	public long nextMillis() {
+		return DateValueComparison.toMillis(nextComparable());
+	}
+
+	public void advanceTo(DateValue newStartUtc) {
+		advanceToComparable(DateValueComparison.comparable(newStartUtc));
+	}
+
+	public void advanceTo(long newStartMillis) {
+		advanceToComparable(DateValueComparison.fromMillis(newStartMillis));
+	}
+
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+}
@@ -51,7 +51,7 @@ import biweekly.util.com.google.ical.values.DateValue;
  * @author mikesamuel+svn@gmail.com (Mike Samuel)
  * @author Michael Angstadt
  */
-final class CompoundIteratorImpl implements RecurrenceIterator {
+final class CompoundIteratorImpl extends AbstractRecurrenceIterator {
 	/**
 	 * A queue that keeps the earliest dates at the head.
 	 */
@@ -96,6 +96,7 @@ final class CompoundIteratorImpl implements RecurrenceIterator {
 		return pending != null;
 	}
 
+	@Override
 	public DateValue next() {
 		requirePending();
 		if (pending == null) {
@@ -107,17 +108,25 @@ final class CompoundIteratorImpl implements RecurrenceIterator {
 		return head;
 	}
 
-	public void remove() {
-		throw new UnsupportedOperationException();
+	@Override
+	long nextComparable() {
+		requirePending();
+		if (pending == null) {
+			throw new NoSuchElementException();
+		}
+		long head = pending.comparable();
+		reattach(pending);
+		pending = null;
+		return head;
 	}
 
-	public void advanceTo(DateValue newStart) {
-		long newStartCmp = DateValueComparison.comparable(newStart);
+	@Override
+	void advanceToComparable(long newStartCmp) {
 		if (pending != null) {
 			if (pending.comparable() >= newStartCmp) {
 				return;
 			}
-			pending.advanceTo(newStart);
+			pending.advanceTo(newStartCmp);
 			reattach(pending);
 			pending = null;
 		}
@@ -128,7 +137,7 @@ final class CompoundIteratorImpl implements RecurrenceIterator {
 		 */
 		while (nInclusionsRemaining != 0 && !queue.isEmpty() && queue.peek().comparable() < newStartCmp) {
 			HeapElement el = queue.poll();
-			el.advanceTo(newStart);
+			el.advanceTo(newStartCmp);
 			reattach(el);
 		}
 	}
@@ -219,25 +228,34 @@ final class HeapElement {
 	private final RecurrenceIterator it;
 
 	/**
-	 * The {@link DateValueComparison#comparable} for {@link #head}.
+	 * The same as {@link #it} if the iterator can pass its values along as
+	 * comparables, null if not.
+	 */
+	private final AbstractRecurrenceIterator packedIt;
+
+	/**
+	 * The {@link DateValueComparison#comparable} of the last value removed
+	 * from the iterator (in UTC).
 	 */
 	private long comparable;
 
 	/**
-	 * The last value removed from the iterator (in UTC).
+	 * The last value removed from the iterator (in UTC). Only populated if the
+	 * iterator cannot pass its values along as comparables.
 	 */
 	private DateValue head;
 
 	HeapElement(boolean inclusion, RecurrenceIterator it) {
 		this.inclusion = inclusion;
 		this.it = it;
+		packedIt = (it instanceof AbstractRecurrenceIterator) ? (AbstractRecurrenceIterator) it : null;
 	}
 
 	/**
 	 * Gets the last value removed from the iterator.
 	 */
 	DateValue head() {
-		return head;
+		return (packedIt == null) ? head : DateValueComparison.toDateValue(comparable);
 	}
 
 	/**
@@ -258,23 +276,32 @@ final class HeapElement {
 		if (!it.hasNext()) {
 			return false;
 		}
-		head = it.next();
-		comparable = DateValueComparison.comparable(head);
+		if (packedIt == null) {
+			head = it.next();
+			comparable = DateValueComparison.comparable(head);
+		} else {
+			comparable = packedIt.nextComparable();
+		}
 		return true;
 	}
 
 	/**
 	 * Advances the underlying iterator to the given date value.
-	 * @param newStartUtc the date to advance to (in UTC)
+	 * @param newStartUtc the comparable value of the date to advance to (in
+	 * UTC)
 	 * @see RecurrenceIterator#advanceTo
 	 */
-	void advanceTo(DateValue newStartUtc) {
-		it.advanceTo(newStartUtc);
+	void advanceTo(long newStartUtc) {
+		if (packedIt == null) {
+			it.advanceTo(DateValueComparison.toDateValue(newStartUtc));
+		} else {
+			packedIt.advanceToComparable(newStartUtc);
+		}
 	}
 
 	@Override
 	public String toString() {
-		return "[" + head.toString() + ", " + (inclusion ? "inclusion" : "exclusion") + "]";
+		return "[" + head().toString() + ", " + (inclusion ? "inclusion" : "exclusion") + "]";
 	}
 
 	/**
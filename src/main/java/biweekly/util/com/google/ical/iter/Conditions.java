@@ -54,12 +54,13 @@ final class Conditions {
 	 * @param count the number of dates to count before the condition fails
 	 * @return the condition
 	 */
-	static Predicate<DateValue> countCondition(final int count) {
-		return new Predicate<DateValue>() {
+	static Condition countCondition(final int count) {
+		return new Condition() {
 			private static final long serialVersionUID = -3770774958208833665L;
 			int count_ = count;
 
-			public boolean apply(DateValue value) {
+			@Override
+			boolean apply(long dateUtc) {
 				return --count_ >= 0;
 			}
 
@@ -76,12 +77,14 @@ final class Conditions {
 	 * @param until the date
 	 * @return the condition
 	 */
-	static Predicate<DateValue> untilCondition(final DateValue until) {
-		return new Predicate<DateValue>() {
+	static Condition untilCondition(final DateValue until) {
+		final long untilComparable = DateValueComparison.comparable(until);
+		return new Condition() {
 			private static final long serialVersionUID = -130394842437801858L;
 
-			public boolean apply(DateValue date) {
-				return date.compareTo(until) <= 0;
+			@Override
+			boolean apply(long dateUtc) {
+				return dateUtc <= untilComparable;
 			}
 
 			@Override
@@ -91,6 +94,48 @@ final class Conditions {
 		};
 	}
 
+	/**
+	 * Constructs a condition that passes all dates.
+	 * @return the condition
+	 */
+	static Condition alwaysTrue() {
+		return ALWAYS_TRUE;
+	}
+
+	private static final Condition ALWAYS_TRUE = new Condition() {
+		private static final long serialVersionUID = 2458137163521939541L;
+
+		@Override
+		boolean apply(long dateUtc) {
+			return true;
+		}
+
+		@Override
+		public String toString() {
+			return "AlwaysTrue";
+		}
+	};
+
+	/**
+	 * A predicate that can be applied to the
+	 * {@link DateValueComparison#comparable comparable} value of a date, so
+	 * that the date does not have to be turned into an object first.
+	 */
+	static abstract class Condition implements Predicate<DateValue> {
+		private static final long serialVersionUID = -8862218624547468245L;
+
+		/**
+		 * Applies this condition to a date.
+		 * @param dateUtc the comparable value of the date (in UTC)
+		 * @return the value of this condition when applied to the date
+		 */
+		abstract boolean apply(long dateUtc);
+
+		public boolean apply(DateValue date) {
+			return apply(DateValueComparison.comparable(date));
+		}
+	}
+
 	private Conditions() {
 		//uninstantiable
 	}
@@ -39,6 +39,9 @@
 
 package biweekly.util.com.google.ical.iter;
 
+import biweekly.util.com.google.ical.util.TimeUtils;
+import biweekly.util.com.google.ical.values.DateTimeValue;
+import biweekly.util.com.google.ical.values.DateTimeValueImpl;
 import biweekly.util.com.google.ical.values.DateValue;
 import biweekly.util.com.google.ical.values.DateValueImpl;
 import biweekly.util.com.google.ical.values.TimeValue;
@@ -106,22 +109,177 @@ final class DateValueComparison {
    * @return the value to use for comparisons
    */
   static long comparable(DateValue date) {
-  long comp = (((((long) date.year()) << 4) + date.month()) << 5) + date.day();
     if (date instanceof TimeValue) {
       TimeValue time = (TimeValue) date;
+      return comparable(date.year(), date.month(), date.day(), time.hour(), time.minute(), time.second());
+    }
+    return comparable(date.year(), date.month(), date.day());
+  }
+
+  /**
+   * Reduces a date to a value that can be easily compared to others.
+   * @param year the year
+   * @param month the month (1-12)
+   * @param day the day of the month
+   * @return the value to use for comparisons
+   */
+  static long comparable(int year, int month, int day) {
+    return ((((((long) year) << 4) + month) << 5) + day) << 17;
+  }
+
+  /**
+   * Reduces a date-time to a value that can be easily compared to others.
+   * @param year the year
+   * @param month the month (1-12)
+   * @param day the day of the month
+   * @param hour the hour (0-23)
+   * @param minute the minute
+   * @param second the second
+   * @return the value to use for comparisons
+   */
+  static long comparable(int year, int month, int day, int hour, int minute, int second) {
+    long comp = (((((long) year) << 4) + month) << 5) + day;
+
+    /*
+     * We add 1 to comparable for timed values to make sure that timed events
+     * are distinct from all-day events, in keeping with DateValue.compareTo.
+     * 
+     * It would be odd if an all day exclusion matched a midnight event on the
+     * same day, but not one at another time of day.
+     */
+    return (((((comp << 5) + hour) << 6) + minute) << 6) + second + 1;
+  }
+
+  /**
+   * Determines if a comparable value represents a date-time or a date.
+   * @param comparable the comparable value
+   * @return true if it's a date-time, false if it's a date
+   */
+  static boolean hasTime(long comparable) {
+    return (comparable & TIME_MASK) != 0;
+  }
+
+  /**
+   * Converts a comparable value back into the date it was reduced from.
+   * @param comparable the comparable value
+   * @return the date or date-time
+   */
+  static DateValue toDateValue(long comparable) {
+    int year = (int) (comparable >> 26);
+    int month = (int) (comparable >> 22) & 0xf;
+    int day = (int) (comparable >> 17) & 0x1f;
+    if (!hasTime(comparable)) {
+      return new DateValueImpl(year, month, day);
+    }
+
+    int time = (int) (comparable & TIME_MASK) - 1;
+    return new DateTimeValueImpl(year, month, day, time >> 12, (time >> 6) & 0x3f, time & 0x3f);
+  }
+
+  /**
+   * Converts a comparable value to a "time_t" in milliseconds. The value is
+   * assumed to be in UTC. Dates are treated as midnight.
+   * @param comparable the comparable value
+   * @return the number of milliseconds since 00:00:00 Jan 1, 1970 GMT
+   */
+  static long toMillis(long comparable) {
+    int year = (int) (comparable >> 26);
+    int month = (int) (comparable >> 22) & 0xf;
+    int day = (int) (comparable >> 17) & 0x1f;
+    int time = hasTime(comparable) ? (int) (comparable & TIME_MASK) - 1 : 0;
+    int hour = time >> 12, minute = (time >> 6) & 0x3f, second = time & 0x3f;
+
+    if (year < MIN_ARITHMETIC_YEAR || year > MAX_ARITHMETIC_YEAR) {
+      return TimeUtils.timetMillis(year, month, day, hour, minute, second, TimeUtils.utcTimezone());
+    }
+
+    long days = TimeUtils.fixedFromGregorian(year, month, day) - EPOCH_FIXED;
+    return days * MILLIS_PER_DAY + ((hour * 60 + minute) * 60 + second) * 1000L;
+  }
+
+  /**
+   * Reduces a "time_t" in milliseconds to a comparable value in UTC.
+   * Milliseconds are discarded. Midnight is treated as a date so that
+   * advancing to a date's start will not skip over that date.
+   * @param millis the number of milliseconds since 00:00:00 Jan 1, 1970 GMT
+   * @return the comparable value
+   */
+  static long fromMillis(long millis) {
+    return fromMillis(millis, true);
+  }
+
+  /**
+   * Reduces a "time_t" in milliseconds to a comparable date-time value in
+   * UTC. Milliseconds are discarded.
+   * @param millis the number of milliseconds since 00:00:00 Jan 1, 1970 GMT
+   * @return the comparable value
+   */
+  static long dateTimeFromMillis(long millis) {
+    return fromMillis(millis, false);
+  }
+
+  private static long fromMillis(long millis, boolean midnightIsDate) {
+    int year, month, day, hour, minute, second;
+    if (millis < MIN_ARITHMETIC_MILLIS || millis >= MAX_ARITHMETIC_MILLIS) {
+      DateTimeValue date = TimeUtils.toDateTimeValue(millis, TimeUtils.utcTimezone());
+      year = date.year();
+      month = date.month();
+      day = date.day();
+      hour = date.hour();
+      minute = date.minute();
+      second = date.second();
+    } else {
+      long secs = millis / 1000;
+      if (millis % 1000 < 0) {
+        secs--;
+      }
+      int days = (int) (secs / SECS_PER_DAY);
+      int secsInDay = (int) (secs % SECS_PER_DAY);
+      if (secsInDay < 0) {
+        days--;
+        secsInDay += SECS_PER_DAY;
+      }
+      second = secsInDay % 60;
+      minute = (secsInDay / 60) % 60;
+      hour = secsInDay / 3600;
 
       /*
-       * We add 1 to comparable for timed values to make sure that timed events
-       * are distinct from all-day events, in keeping with DateValue.compareTo.
-       * 
-       * It would be odd if an all day exclusion matched a midnight event on the
-       * same day, but not one at another time of day.
+       * Convert the day count to a date in the proleptic Gregorian calendar,
+       * using years that start in March so that leap days fall at the end of
+       * the year.
        */
-      return (((((comp << 5) + time.hour()) << 6) + time.minute()) << 6) + time.second() + 1;
+      int z = days + 719468; //days since 0000-03-01
+      int era = z / 146097;
+      int dayOfEra = z - era * 146097;
+      int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+      int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+      int mp = (5 * dayOfYear + 2) / 153;
+      day = dayOfYear - (153 * mp + 2) / 5 + 1;
+      month = (mp < 10) ? mp + 3 : mp - 9;
+      year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
     }
-    return comp << 17;
+
+    if (midnightIsDate && (hour | minute | second) == 0) {
+      return comparable(year, month, day);
+    }
+    return comparable(year, month, day, hour, minute, second);
   }
 
+  private static final long TIME_MASK = (1L << 17) - 1;
+  private static final int SECS_PER_DAY = 24 * 60 * 60;
+  private static final long MILLIS_PER_DAY = SECS_PER_DAY * 1000L;
+  private static final int EPOCH_FIXED = TimeUtils.fixedFromGregorian(1970, 1, 1);
+
+  /*
+   * GregorianCalendar switches to the Julian calendar for dates before
+   * October 1582, so only do the conversions ourselves inside of a range of
+   * years where the two calendars agree.
+   */
+  private static final int MIN_ARITHMETIC_YEAR = 1583;
+  private static final int MAX_ARITHMETIC_YEAR = 9999;
+  private static final long MIN_ARITHMETIC_MILLIS = (TimeUtils.fixedFromGregorian(MIN_ARITHMETIC_YEAR, 1, 1) - EPOCH_FIXED) * MILLIS_PER_DAY;
+  private static final long MAX_ARITHMETIC_MILLIS = (TimeUtils.fixedFromGregorian(MAX_ARITHMETIC_YEAR + 1, 1, 1) - EPOCH_FIXED) * MILLIS_PER_DAY;
+
   private DateValueComparison() {
     //uninstantiable
   }
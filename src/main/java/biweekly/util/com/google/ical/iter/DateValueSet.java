@@ -0,0 +1,149 @@
+package biweekly.util.com.google.ical.iter;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import biweekly.util.com.google.ical.values.DateValue;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * An immutable, sorted set of dates, such as the values of a component's RDATE
+ * or EXDATE properties.
+ * </p>
+ * <p>
+ * The dates are stored in a single array of
+ * {@link DateValueComparison#comparable comparable} values, so the iterators
+ * that are created from the set can find a date with a binary search instead
+ * of comparing {@link DateValue} objects one at a time. A set can be created
+ * once and then shared by any number of iterators and threads.
+ * </p>
+ * @see RecurrenceIteratorFactory#createRecurrenceIterator(DateValueSet)
+ * @see RecurrenceIteratorFactory#except(RecurrenceIterator, DateValueSet)
+ * @author Michael Angstadt
+ */
+public final class DateValueSet {
+	private static final long[] EMPTY = new long[0];
+
+	/**
+	 * The comparable values of the dates, sorted in ascending order and
+	 * without duplicates. This array must not be modified.
+	 */
+	final long[] comparables;
+
+	/**
+	 * Creates a set of dates.
+	 * @param datesUtc the dates (in UTC)
+	 */
+	public DateValueSet(Collection<? extends DateValue> datesUtc) {
+		long[] comparables = new long[datesUtc.size()];
+		int i = 0;
+		for (DateValue date : datesUtc) {
+			comparables[i++] = DateValueComparison.comparable(date);
+		}
+		this.comparables = sortAndRemoveDuplicates(comparables);
+	}
+
+	/**
+	 * Creates a set of date-time values from timestamps. Milliseconds are
+	 * discarded.
+	 * @param millis the number of milliseconds since 00:00:00 Jan 1, 1970 GMT
+	 * of each date (this array is not modified)
+	 */
+	public DateValueSet(long[] millis) {
+		long[] comparables = new long[millis.length];
+		for (int i = 0; i < millis.length; i++) {
+			comparables[i] = DateValueComparison.dateTimeFromMillis(millis[i]);
+		}
+		this.comparables = sortAndRemoveDuplicates(comparables);
+	}
+
+	/**
+	 * Gets the number of dates in the set.
+	 * @return the number of dates
+	 */
+	public int size() {
+		return comparables.length;
+	}
+
+	/**
+	 * Determines if the set is empty.
+	 * @return true if the set is empty, false if not
+	 */
+	public boolean isEmpty() {
+		return comparables.length == 0;
+	}
+
+	/**
+	 * Finds the first date in a sorted array of comparable values that is
+	 * greater than or equal to the given value.
+	 * @param comparables the sorted array
+	 * @param from the index to start searching from
+	 * @param comparable the value to search for
+	 * @return the index of the date or the length of the array if all the
+	 * dates are less than the given value
+	 */
+	static int ceiling(long[] comparables, int from, long comparable) {
+		int low = from, high = comparables.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (comparables[mid] < comparable) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Sorts an array and removes its duplicate values.
+	 * @param values the array (this array is modified)
+	 * @return a new array if any elements were removed or the original array if
+	 * no elements were removed
+	 */
+	private static long[] sortAndRemoveDuplicates(long[] values) {
+		if (values.length == 0) {
+			return EMPTY;
+		}
+
+		Arrays.sort(values);
+		int k = 0;
+		for (int i = 1; i < values.length; ++i) {
+			if (values[i] != values[k]) {
+				values[++k] = values[i];
+			}
+		}
+
+		if (++k < values.length) {
+			long[] unique = new long[k];
+			System.arraycopy(values, 0, unique, 0, k);
+			return unique;
+		}
+		return values;
+	}
+}
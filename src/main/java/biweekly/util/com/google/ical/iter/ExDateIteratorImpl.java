@@ -0,0 +1,132 @@
+package biweekly.util.com.google.ical.iter;
+
+import java.util.Collection;
+import java.util.NoSuchElementException;
+
+import biweekly.util.com.google.ical.values.DateValue;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * A recurrence iterator that removes a fixed set of dates, such as the dates
+ * of an EXDATE property, from another recurrence iterator.
+ * </p>
+ * <p>
+ * The excluded dates are kept in a sorted array of
+ * {@link DateValueComparison#comparable comparable} values instead of in a
+ * second iterator that has to be merged with the included dates. Because the
+ * included dates come out of the iterator in ascending order, a cursor into
+ * this array only ever moves forward, so each date is checked in constant
+ * (amortized) time.
+ * </p>
+ * @author Michael Angstadt
+ */
+final class ExDateIteratorImpl extends AbstractRecurrenceIterator {
+	private final AbstractRecurrenceIterator included;
+	private final long[] excludedUtc;
+
+	/**
+	 * The index of the first excluded date that is not before the last date
+	 * that was pulled from {@link #included}.
+	 */
+	private int cursor;
+
+	/**
+	 * The next date to return or {@link #NONE} if it hasn't been computed
+	 * yet.
+	 */
+	private long pendingUtc = NONE;
+
+	/**
+	 * Marks the absence of a date.
+	 */
+	private static final long NONE = Long.MIN_VALUE;
+
+	/**
+	 * Creates a new recurrence iterator.
+	 * @param included the dates to include
+	 * @param excludedUtc the dates to exclude (assumes they are all in UTC)
+	 */
+	ExDateIteratorImpl(AbstractRecurrenceIterator included, Collection<? extends DateValue> excludedUtc) {
+		this(included, new DateValueSet(excludedUtc));
+	}
+
+	/**
+	 * Creates a new recurrence iterator.
+	 * @param included the dates to include
+	 * @param excluded the dates to exclude
+	 */
+	ExDateIteratorImpl(AbstractRecurrenceIterator included, DateValueSet excluded) {
+		this.included = included;
+		this.excludedUtc = excluded.comparables;
+	}
+
+	public boolean hasNext() {
+		if (pendingUtc != NONE) {
+			return true;
+		}
+
+		while (included.hasNext()) {
+			long next = included.nextComparable();
+			while (cursor < excludedUtc.length && excludedUtc[cursor] < next) {
+				cursor++;
+			}
+			if (cursor < excludedUtc.length && excludedUtc[cursor] == next) {
+				continue;
+			}
+
+			pendingUtc = next;
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	long nextComparable() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		long next = pendingUtc;
+		pendingUtc = NONE;
+		return next;
+	}
+
+	@Override
+	void advanceToComparable(long newStartUtc) {
+		if (pendingUtc != NONE) {
+			if (pendingUtc >= newStartUtc) {
+				return;
+			}
+			pendingUtc = NONE;
+		}
+
+		included.advanceToComparable(newStartUtc);
+
+		//find the first excluded date that is greater than or equal to the new start date
+		cursor = DateValueSet.ceiling(excludedUtc, cursor, newStartUtc);
+	}
+}
@@ -0,0 +1,325 @@
+package biweekly.util.com.google.ical.iter;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * Limits the amount of work that is done to expand a recurrence. This protects
+ * against rules that take a long time to compute, such as
+ * <code>FREQ=SECONDLY</code> rules whose BYxxx parts never match, which would
+ * otherwise examine every second of the next 100 years before giving up.
+ * </p>
+ * <p>
+ * When a limit is exceeded, the iterators that are using the budget stop
+ * returning dates (their <code>hasNext()</code> methods return false), and
+ * the limit that was exceeded can be retrieved with
+ * {@link #getExceededLimit}.
+ * </p>
+ * <p>
+ * A budget keeps track of the work that has been done, so a new budget
+ * object must be created for each expansion. The iterators that are created
+ * for the same expansion (such as the iterators for each RRULE and EXRULE of a
+ * component) share the budget. Budget objects are not thread-safe.
+ * </p>
+ * <p>
+ * <b>Example:</b>
+ * </p>
+ * 
+ * <pre class="brush:java">
+ * ExpansionBudget budget = new ExpansionBudget();
+ * budget.setMaxSteps(100000);
+ * budget.setMaxTime(50);
+ * DateIterator it = Google2445Utils.getDateIterator(event, timezone, budget);
+ * while (it.hasNext()) {
+ *   Date date = it.next();
+ *   //...
+ * }
+ * if (budget.getExceededLimit() != null) {
+ *   //expansion was cut short
+ * }
+ * </pre>
+ * @author Michael Angstadt
+ */
+public class ExpansionBudget {
+	/**
+	 * The limits that a budget enforces.
+	 */
+	public enum Limit {
+		/**
+		 * The maximum number of candidate dates that the generators can
+		 * produce.
+		 */
+		STEPS,
+
+		/**
+		 * The maximum number of dates that the recurrence rules can produce.
+		 */
+		INSTANCES,
+
+		/**
+		 * The maximum amount of time the expansion can take.
+		 */
+		TIME
+	}
+
+	/**
+	 * <p>
+	 * The default maximum number of years generated between instances. See
+	 * {@link ThrottledGenerator} for a description of the problem this solves.
+	 * </p>
+	 * <p>
+	 * Note: This counts the maximum number of years generated, so for
+	 * <code>FREQ=YEARLY;INTERVAL=4</code> the generator would try 100
+	 * individual years over a span of 400 years before giving up and concluding
+	 * that the rule generates no usable dates.
+	 * </p>
+	 */
+	static final int DEFAULT_MAX_YEARS_BETWEEN_INSTANCES = 100;
+
+	/**
+	 * The clock is checked after this many steps (must be a power of 2).
+	 */
+	private static final int STEPS_BETWEEN_CLOCK_CHECKS = 1024;
+
+	private long maxSteps = Long.MAX_VALUE;
+	private long maxInstances = Long.MAX_VALUE;
+	private long maxTime = 0;
+	private int maxYearsBetweenInstances = DEFAULT_MAX_YEARS_BETWEEN_INSTANCES;
+
+	private long steps, instances;
+	private long deadline;
+	private boolean started, halted, yearsExceeded;
+	private Limit exceeded;
+
+	/**
+	 * Gets the maximum number of candidate dates that the generators can
+	 * produce. Each date that the generators produce counts as a step, even if
+	 * it is then discarded because it does not match the rule's BYxxx parts.
+	 * @return the maximum number of steps (defaults to no limit)
+	 */
+	public long getMaxSteps() {
+		return maxSteps;
+	}
+
+	/**
+	 * Sets the maximum number of candidate dates that the generators can
+	 * produce. Each date that the generators produce counts as a step, even if
+	 * it is then discarded because it does not match the rule's BYxxx parts.
+	 * @param maxSteps the maximum number of steps
+	 */
+	public void setMaxSteps(long maxSteps) {
+		this.maxSteps = maxSteps;
+	}
+
+	/**
+	 * Gets the maximum number of dates that the recurrence rules can produce.
+	 * Dates that are later removed by an EXDATE or EXRULE count toward this
+	 * limit.
+	 * @return the maximum number of dates (defaults to no limit)
+	 */
+	public long getMaxInstances() {
+		return maxInstances;
+	}
+
+	/**
+	 * Sets the maximum number of dates that the recurrence rules can produce.
+	 * Dates that are later removed by an EXDATE or EXRULE count toward this
+	 * limit.
+	 * @param maxInstances the maximum number of dates
+	 */
+	public void setMaxInstances(long maxInstances) {
+		this.maxInstances = maxInstances;
+	}
+
+	/**
+	 * Gets the maximum amount of time that the expansion can take, measured
+	 * from when the first iterator that uses this budget is created.
+	 * @return the maximum time in milliseconds or zero for no limit (the
+	 * default)
+	 */
+	public long getMaxTime() {
+		return maxTime;
+	}
+
+	/**
+	 * Sets the maximum amount of time that the expansion can take, measured
+	 * from when the first iterator that uses this budget is created. The clock
+	 * is only checked periodically, so the expansion may run slightly over.
+	 * @param maxTime the maximum time in milliseconds or zero for no limit
+	 */
+	public void setMaxTime(long maxTime) {
+		this.maxTime = maxTime;
+	}
+
+	/**
+	 * Gets the maximum number of years that a recurrence rule can search
+	 * through without finding a date before the rule is considered to be
+	 * exhausted.
+	 * @return the maximum number of years (defaults to 100)
+	 */
+	public int getMaxYearsBetweenInstances() {
+		return maxYearsBetweenInstances;
+	}
+
+	/**
+	 * <p>
+	 * Sets the maximum number of years that a recurrence rule can search
+	 * through without finding a date before the rule is considered to be
+	 * exhausted.
+	 * </p>
+	 * <p>
+	 * Unlike the other limits, exceeding this limit only stops the rule that
+	 * exceeded it. This is because some rules, such as
+	 * <code>FREQ=YEARLY;BYMONTH=2;BYMONTHDAY=30</code>, never produce any
+	 * dates. For the same reason, exceeding it is not reported by
+	 * {@link #getExceededLimit} (see {@link #isYearsExceeded}).
+	 * </p>
+	 * @param maxYearsBetweenInstances the maximum number of years
+	 */
+	public void setMaxYearsBetweenInstances(int maxYearsBetweenInstances) {
+		this.maxYearsBetweenInstances = maxYearsBetweenInstances;
+	}
+
+	/**
+	 * Gets the number of candidate dates that the generators have produced so
+	 * far.
+	 * @return the number of steps
+	 */
+	public long getSteps() {
+		return steps;
+	}
+
+	/**
+	 * Gets the number of dates that the recurrence rules have produced so far.
+	 * @return the number of dates
+	 */
+	public long getInstances() {
+		return instances;
+	}
+
+	/**
+	 * Gets the limit that stopped the expansion, if any. If this returns null
+	 * after the iterators have stopped, then every date was produced.
+	 * @return the limit or null if no limits were exceeded
+	 */
+	public Limit getExceededLimit() {
+		return exceeded;
+	}
+
+	/**
+	 * Determines if any recurrence rule gave up after searching through the
+	 * maximum number of years without finding a date (see
+	 * {@link #setMaxYearsBetweenInstances}). This usually means that the rule
+	 * does not produce any more dates, so it does not stop the expansion.
+	 * @return true if a rule gave up, false if not
+	 */
+	public boolean isYearsExceeded() {
+		return yearsExceeded;
+	}
+
+	/**
+	 * Starts the clock, if it hasn't been started already. This is called when
+	 * an iterator that uses this budget is created.
+	 */
+	void start() {
+		if (started) {
+			return;
+		}
+
+		started = true;
+		if (maxTime > 0) {
+			deadline = System.nanoTime() + maxTime * 1000000;
+		}
+	}
+
+	/**
+	 * Records that a generator has produced a candidate date.
+	 * @return true if the generator can continue, false if the budget is
+	 * exhausted
+	 */
+	boolean step() {
+		if (halted) {
+			return false;
+		}
+
+		if (steps >= maxSteps) {
+			halt(Limit.STEPS);
+			return false;
+		}
+		steps++;
+
+		if (maxTime > 0 && (steps & (STEPS_BETWEEN_CLOCK_CHECKS - 1)) == 0 && System.nanoTime() - deadline > 0) {
+			halt(Limit.TIME);
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Determines if a recurrence rule can produce another date.
+	 * @return true if it can, false if the budget is exhausted
+	 */
+	boolean canProduceInstance() {
+		if (halted) {
+			return false;
+		}
+
+		if (instances >= maxInstances) {
+			halt(Limit.INSTANCES);
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Records that a recurrence rule has produced a date.
+	 */
+	void instanceProduced() {
+		instances++;
+	}
+
+	/**
+	 * Records that a recurrence rule has searched through the maximum number
+	 * of years without finding a date. Other rules can continue to use the
+	 * budget.
+	 */
+	void yearsExceeded() {
+		yearsExceeded = true;
+	}
+
+	/**
+	 * Stops all iterators that use this budget.
+	 * @param limit the limit that was exceeded
+	 */
+	private void halt(Limit limit) {
+		halted = true;
+		if (exceeded == null) {
+			exceeded = limit;
+		}
+	}
+}
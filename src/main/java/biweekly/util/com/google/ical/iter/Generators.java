@@ -56,33 +56,34 @@ import biweekly.util.com.google.ical.values.TimeValue;
  */
 final class Generators {
 	/**
-	 * <p>
-	 * The maximum number of years generated between instances. See
-	 * {@link ThrottledGenerator} for a description of the problem this solves.
-	 * </p>
-	 * <p>
-	 * Note: This counts the maximum number of years generated, so for
-	 * <code>FREQ=YEARLY;INTERVAL=4</code> the generator would try 100
-	 * individual years over a span of 400 years before giving up and concluding
-	 * that the rule generates no usable dates.
-	 * </p>
+	 * Constructs a generator that generates years successively counting from
+	 * the first year passed in.
+	 * @param interval number of years to advance each step
+	 * @param dtStart the start date
+	 * @return the year in dtStart the first time called and interval + last
+	 * return value on subsequent calls
 	 */
-	private static final int MAX_YEARS_BETWEEN_INSTANCES = 100;
+	static ThrottledGenerator serialYearGenerator(int interval, DateValue dtStart) {
+		return serialYearGenerator(interval, dtStart, new ExpansionBudget());
+	}
 
 	/**
 	 * Constructs a generator that generates years successively counting from
 	 * the first year passed in.
 	 * @param interval number of years to advance each step
 	 * @param dtStart the start date
+	 * @param budget determines the maximum number of years to generate
+	 * between instances (see {@link ExpansionBudget#getMaxYearsBetweenInstances})
 	 * @return the year in dtStart the first time called and interval + last
 	 * return value on subsequent calls
 	 */
-	static ThrottledGenerator serialYearGenerator(final int interval, final DateValue dtStart) {
+	static ThrottledGenerator serialYearGenerator(final int interval, final DateValue dtStart, final ExpansionBudget budget) {
+		final int maxYears = budget.getMaxYearsBetweenInstances();
 		return new ThrottledGenerator() {
 			//the last year seen
 			int year = dtStart.year() - interval;
 
-			int throttle = MAX_YEARS_BETWEEN_INSTANCES;
+			int throttle = maxYears;
 
 			@Override
 			boolean generate(DTBuilder builder) throws IteratorShortCircuitingException {
@@ -93,6 +94,7 @@ final class Generators {
 				 * FREQ=YEARLY;BYMONTHDAY=30;BYMONTH=2
 				 */
 				if (--throttle < 0) {
+					budget.yearsExceeded();
 					throw IteratorShortCircuitingException.instance();
 				}
 				year += interval;
@@ -102,7 +104,23 @@ final class Generators {
 
 			@Override
 			void workDone() {
-				this.throttle = MAX_YEARS_BETWEEN_INSTANCES;
+				this.throttle = maxYears;
+			}
+
+			@Override
+			void skipTo(int targetYear) {
+				//the number of years in the series that come before the target year
+				int skipped = (targetYear - 1 - year) / interval;
+				if (skipped <= 0) {
+					return;
+				}
+
+				/*
+				 * The years were skipped on purpose, not searched, so the
+				 * search for the next date starts over at the target year.
+				 */
+				year += skipped * interval;
+				throttle = maxYears;
 			}
 
 			@Override
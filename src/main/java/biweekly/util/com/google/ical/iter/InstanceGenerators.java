@@ -59,9 +59,10 @@ import biweekly.util.com.google.ical.values.TimeValue;
 class InstanceGenerators {
 	/**
 	 * A collector that yields each date in the period without doing any set
-	 * collecting.
+	 * collecting. Each candidate date counts as a step against the given
+	 * budget.
 	 */
-	static Generator serialInstanceGenerator(final Predicate<? super DateValue> filter, final Generator yearGenerator, final Generator monthGenerator, final Generator dayGenerator, final Generator hourGenerator, final Generator minuteGenerator, final Generator secondGenerator) {
+	static Generator serialInstanceGenerator(final Predicate<? super DateValue> filter, final Generator yearGenerator, final Generator monthGenerator, final Generator dayGenerator, final Generator hourGenerator, final Generator minuteGenerator, final Generator secondGenerator, final ExpansionBudget budget) {
 		if (skipSubDayGenerators(hourGenerator, minuteGenerator, secondGenerator)) {
 			//fast case for generators that are not more frequent than daily
 			return new Generator() {
@@ -69,6 +70,10 @@ class InstanceGenerators {
 				public boolean generate(DTBuilder builder) throws IteratorShortCircuitingException {
 					//cascade through periods to compute the next date
 					do {
+						if (!budget.step()) {
+							throw IteratorShortCircuitingException.instance();
+						}
+
 						//until we run out of days in the current month
 						while (!dayGenerator.generate(builder)) {
 							//until we run out of months in the current year
@@ -92,6 +97,10 @@ class InstanceGenerators {
 				public boolean generate(DTBuilder builder) throws IteratorShortCircuitingException {
 					//cascade through periods to compute the next date
 					do {
+						if (!budget.step()) {
+							throw IteratorShortCircuitingException.instance();
+						}
+
 						//until we run out of seconds in the current minute
 						while (!secondGenerator.generate(builder)) {
 							//until we run out of minutes in the current hour
@@ -123,10 +132,10 @@ class InstanceGenerators {
 		}
 	}
 
-	static Generator bySetPosInstanceGenerator(int[] setPos, final Frequency freq, final DayOfWeek wkst, final Predicate<? super DateValue> filter, final Generator yearGenerator, final Generator monthGenerator, final Generator dayGenerator, final Generator hourGenerator, final Generator minuteGenerator, final Generator secondGenerator) {
+	static Generator bySetPosInstanceGenerator(int[] setPos, final Frequency freq, final DayOfWeek wkst, final Predicate<? super DateValue> filter, final Generator yearGenerator, final Generator monthGenerator, final Generator dayGenerator, final Generator hourGenerator, final Generator minuteGenerator, final Generator secondGenerator, ExpansionBudget budget) {
 		final int[] uSetPos = Util.uniquify(setPos);
 
-		final Generator serialInstanceGenerator = serialInstanceGenerator(filter, yearGenerator, monthGenerator, dayGenerator, hourGenerator, minuteGenerator, secondGenerator);
+		final Generator serialInstanceGenerator = serialInstanceGenerator(filter, yearGenerator, monthGenerator, dayGenerator, hourGenerator, minuteGenerator, secondGenerator, budget);
 
 		//TODO(msamuel): does this work?
 		final int maxPos = uSetPos[uSetPos.length - 1];
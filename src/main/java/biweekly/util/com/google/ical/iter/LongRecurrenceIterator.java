@@ -0,0 +1,68 @@
+package biweekly.util.com.google.ical.iter;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * Iterates over a series of dates in ascending order, returning each date as
+ * a "time_t" in milliseconds instead of as an object. Dates that do not have
+ * a time component are returned as midnight UTC.
+ * </p>
+ * <p>
+ * The iterators created by {@link RecurrenceIteratorFactory} implement this
+ * interface. They do not create any objects per date when they are consumed
+ * through it, which makes a difference when expanding a large number of
+ * recurrences.
+ * </p>
+ * @see RecurrenceIteratorFactory#createLongRecurrenceIterator
+ * @author Michael Angstadt
+ */
+public interface LongRecurrenceIterator {
+	/**
+	 * Determines if there are more dates in the series.
+	 * @return true if there are more dates, false if not
+	 */
+	boolean hasNext();
+
+	/**
+	 * Returns the next date in the series.
+	 * @return the next date, as the number of milliseconds since 00:00:00 Jan
+	 * 1, 1970 GMT (will be strictly later than any date previously returned by
+	 * this iterator)
+	 * @throws java.util.NoSuchElementException if there are no more dates
+	 */
+	long nextMillis();
+
+	/**
+	 * Skips all dates in the series that come before the given date, so that
+	 * the next call to {@link #nextMillis} will return a date on or after the
+	 * given date (assuming the recurrence includes such a date). A value that
+	 * falls on midnight UTC is treated as a date without a time component.
+	 * @param newStartMillis the date to advance to, as the number of
+	 * milliseconds since 00:00:00 Jan 1, 1970 GMT
+	 */
+	void advanceTo(long newStartMillis);
+}
@@ -45,12 +45,13 @@ import java.util.NoSuchElementException;
 import biweekly.util.com.google.ical.values.DateValue;
 
 /**
- * A recurrence iterator that iterates over an array of dates.
+ * A recurrence iterator that iterates over an array of dates. The dates are
+ * held in a {@link DateValueSet}, so advancing the iterator is a binary search.
  * @author mikesamuel+svn@gmail.com (Mike Samuel)
  * @author Michael Angstadt
  */
-final class RDateIteratorImpl implements RecurrenceIterator {
-	private final DateValue[] datesUtc;
+final class RDateIteratorImpl extends AbstractRecurrenceIterator {
+	private final long[] comparables;
 	private int i;
 
 	/**
@@ -58,52 +59,31 @@ final class RDateIteratorImpl implements RecurrenceIterator {
 	 * @param datesUtc the dates to iterate over (assumes they are all in UTC)
 	 */
 	RDateIteratorImpl(DateValue[] datesUtc) {
-		datesUtc = datesUtc.clone();
-		Arrays.sort(datesUtc);
-		this.datesUtc = removeDuplicates(datesUtc);
+		this(new DateValueSet(Arrays.asList(datesUtc)));
 	}
 
-	public boolean hasNext() {
-		return i < datesUtc.length;
-	}
-
-	public DateValue next() {
-		if (i >= datesUtc.length) {
-			throw new NoSuchElementException();
-		}
-		return datesUtc[i++];
+	/**
+	 * Creates a new recurrence iterator.
+	 * @param dates the dates to iterate over
+	 */
+	RDateIteratorImpl(DateValueSet dates) {
+		comparables = dates.comparables;
 	}
 
-	public void remove() {
-		throw new UnsupportedOperationException();
+	public boolean hasNext() {
+		return i < comparables.length;
 	}
 
-	public void advanceTo(DateValue newStartUtc) {
-		long startCmp = DateValueComparison.comparable(newStartUtc);
-		while (i < datesUtc.length && startCmp > DateValueComparison.comparable(datesUtc[i])) {
-			++i;
+	@Override
+	long nextComparable() {
+		if (i >= comparables.length) {
+			throw new NoSuchElementException();
 		}
+		return comparables[i++];
 	}
 
-	/**
-	 * Removes duplicates from a list of date values.
-	 * @param dates the date values (must be sorted in ascending order)
-	 * @return a new array if any elements were removed or the original array if
-	 * no elements were removed
-	 */
-	private static DateValue[] removeDuplicates(DateValue[] dates) {
-		int k = 0;
-		for (int i = 1; i < dates.length; ++i) {
-			if (!dates[i].equals(dates[k])) {
-				dates[++k] = dates[i];
-			}
-		}
-
-		if (++k < dates.length) {
-			DateValue[] uniqueDates = new DateValue[k];
-			System.arraycopy(dates, 0, uniqueDates, 0, k);
-			return uniqueDates;
-		}
-		return dates;
+	@Override
+	void advanceToComparable(long newStartUtc) {
+		i = DateValueSet.ceiling(comparables, i, newStartUtc);
 	}
 }
@@ -39,10 +39,11 @@
 
 package biweekly.util.com.google.ical.iter;
 
+import java.util.NoSuchElementException;
 import java.util.TimeZone;
 
+import biweekly.util.com.google.ical.iter.Conditions.Condition;
 import biweekly.util.com.google.ical.util.DTBuilder;
-import biweekly.util.com.google.ical.util.Predicate;
 import biweekly.util.com.google.ical.util.TimeUtils;
 import biweekly.util.com.google.ical.values.DateValue;
 import biweekly.util.com.google.ical.values.DateValueImpl;
@@ -53,12 +54,12 @@ import biweekly.util.com.google.ical.values.TimeValue;
  * @author mikesamuel+svn@gmail.com (Mike Samuel)
  * @author Michael Angstadt
  */
-final class RRuleIteratorImpl implements RecurrenceIterator {
+final class RRuleIteratorImpl extends AbstractRecurrenceIterator {
 	/**
 	 * Determines when the recurrence ends. The condition is applied
 	 * <b>after</b> the date is converted to UTC.
 	 */
-	private final Predicate<? super DateValue> condition;
+	private final Condition condition;
 
 	/**
 	 * Applies the various period generators to generate an entire date. This
@@ -80,9 +81,16 @@ final class RRuleIteratorImpl implements RecurrenceIterator {
 	private final Generator monthGenerator;
 
 	/**
-	 * A date that has been computed but not yet yielded to the user.
+	 * The {@link DateValueComparison#comparable comparable} value of a date
+	 * that has been computed but not yet yielded to the user, or {@link #NONE}
+	 * if there isn't one.
 	 */
-	private DateValue pendingUtc;
+	private long pendingUtc = NONE;
+
+	/**
+	 * Marks the absence of a date.
+	 */
+	private static final long NONE = Long.MIN_VALUE;
 
 	/**
 	 * Used to build successive dates. At the start of the building process,
@@ -115,6 +123,22 @@ final class RRuleIteratorImpl implements RecurrenceIterator {
 	 */
 	private final TimeZone tzid;
 
+	/**
+	 * True if the dates have a time component.
+	 */
+	private final boolean hasTime;
+
+	/**
+	 * True if the timezone is UTC, which means that dates do not have to be
+	 * converted.
+	 */
+	private final boolean utc;
+
+	/**
+	 * Limits the amount of work this iterator can do.
+	 */
+	private final ExpansionBudget budget;
+
 	/**
 	 * Creates the iterator.
 	 * @param dtStart the start date of the recurrence
@@ -130,8 +154,9 @@ final class RRuleIteratorImpl implements RecurrenceIterator {
 	 * @param secondGenerator populates each date's second field
 	 * @param canShortcutAdvance false iff shortcutting advance would break the
 	 * semantics of the iteration, true if not
+	 * @param budget limits the amount of work the iterator can do
 	 */
-	RRuleIteratorImpl(DateValue dtStart, TimeZone tzid, Predicate<? super DateValue> condition, Generator instanceGenerator, ThrottledGenerator yearGenerator, Generator monthGenerator, Generator dayGenerator, Generator hourGenerator, Generator minuteGenerator, Generator secondGenerator, boolean canShortcutAdvance) {
+	RRuleIteratorImpl(DateValue dtStart, TimeZone tzid, Condition condition, Generator instanceGenerator, ThrottledGenerator yearGenerator, Generator monthGenerator, Generator dayGenerator, Generator hourGenerator, Generator minuteGenerator, Generator secondGenerator, boolean canShortcutAdvance, ExpansionBudget budget) {
 
 		this.condition = condition;
 		this.instanceGenerator = instanceGenerator;
@@ -140,6 +165,10 @@ final class RRuleIteratorImpl implements RecurrenceIterator {
 		this.dtStart = dtStart;
 		this.tzid = tzid;
 		this.canShortcutAdvance = canShortcutAdvance;
+		this.budget = budget;
+		budget.start();
+		hasTime = dtStart instanceof TimeValue;
+		utc = (tzid == null || tzid.hasSameRules(TimeUtils.utcTimezone()));
 
 		int initWorkLimit = 1000;
 
@@ -182,21 +211,24 @@ final class RRuleIteratorImpl implements RecurrenceIterator {
 			done = true;
 		}
 
+		long dtStartUtc = DateValueComparison.comparable(TimeUtils.toUtc(dtStart, tzid));
 		while (!done) {
 			pendingUtc = generateInstance();
-			if (pendingUtc == null) {
+			if (pendingUtc == NONE) {
 				done = true;
 				break;
 			}
 
-			if (pendingUtc.compareTo(TimeUtils.toUtc(dtStart, tzid)) >= 0) {
+			if (pendingUtc >= dtStartUtc) {
 				/*
 				 * We only apply the condition to the ones past dtStart to avoid
 				 * counting useless instances.
 				 */
 				if (!condition.apply(pendingUtc)) {
 					done = true;
-					pendingUtc = null;
+					pendingUtc = NONE;
+				} else {
+					yearGenerator.workDone();
 				}
 				break;
 			}
@@ -209,53 +241,65 @@ final class RRuleIteratorImpl implements RecurrenceIterator {
 	}
 
 	public boolean hasNext() {
-		if (pendingUtc == null) {
+		if (pendingUtc == NONE) {
 			fetchNext();
 		}
-		return pendingUtc != null;
+		return pendingUtc != NONE && budget.canProduceInstance();
 	}
 
+	@Override
 	public DateValue next() {
-		if (pendingUtc == null) {
-			fetchNext();
-		}
-		DateValue next = pendingUtc;
-		pendingUtc = null;
-		return next;
+		//null is returned when the recurrence is exhausted
+		return hasNext() ? super.next() : null;
 	}
 
-	public void remove() {
-		throw new UnsupportedOperationException();
+	@Override
+	long nextComparable() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		long next = pendingUtc;
+		pendingUtc = NONE;
+		budget.instanceProduced();
+		return next;
 	}
 
-	public void advanceTo(DateValue dateUtc) {
+	@Override
+	void advanceToComparable(long dateUtc) {
 		/*
 		 * Don't throw away a future pending date since the iterators will not
 		 * generate it again.
 		 */
-		if (pendingUtc != null && dateUtc.compareTo(pendingUtc) <= 0) {
+		if (pendingUtc != NONE && dateUtc <= pendingUtc) {
 			return;
 		}
 
-		DateValue dateLocal = TimeUtils.fromUtc(dateUtc, tzid);
+		DateValue dateLocal = TimeUtils.fromUtc(DateValueComparison.toDateValue(dateUtc), tzid);
 
 		//short-circuit if we're already past dateUtc
 		if (dateLocal.compareTo(builder.toDate()) <= 0) {
 			return;
 		}
 
-		pendingUtc = null;
+		pendingUtc = NONE;
 
 		try {
 			if (canShortcutAdvance) {
 				//skip years before date.year
 				if (builder.year < dateLocal.year()) {
-					do {
-						if (!yearGenerator.generate(builder)) {
-							done = true;
-							return;
-						}
-					} while (builder.year < dateLocal.year());
+					/*
+					 * Jump straight to the target year instead of generating
+					 * each year in between. The month and day generators
+					 * re-align themselves arithmetically when the year or month
+					 * changes, so the remaining work is bounded by the number
+					 * of months in a year and days in a month, no matter how
+					 * far away the target date is.
+					 */
+					yearGenerator.skipTo(dateLocal.year());
+					if (!yearGenerator.generate(builder)) {
+						done = true;
+						return;
+					}
 					while (!monthGenerator.generate(builder)) {
 						if (!yearGenerator.generate(builder)) {
 							done = true;
@@ -279,8 +323,8 @@ final class RRuleIteratorImpl implements RecurrenceIterator {
 
 			//consume any remaining instances
 			while (!done) {
-				DateValue dUtc = generateInstance();
-				if (dUtc == null) {
+				long dUtc = generateInstance();
+				if (dUtc == NONE) {
 					done = true;
 					return;
 				}
@@ -289,8 +333,9 @@ final class RRuleIteratorImpl implements RecurrenceIterator {
 					done = true;
 					return;
 				}
+				yearGenerator.workDone();
 
-				if (dUtc.compareTo(dateUtc) >= 0) {
+				if (dUtc >= dateUtc) {
 					pendingUtc = dUtc;
 					break;
 				}
@@ -302,14 +347,14 @@ final class RRuleIteratorImpl implements RecurrenceIterator {
 
 	/** calculates and stored the next date in this recurrence. */
 	private void fetchNext() {
-		if (pendingUtc != null || done) {
+		if (pendingUtc != NONE || done) {
 			return;
 		}
 
-		DateValue dUtc = generateInstance();
+		long dUtc = generateInstance();
 
 		//check the exit condition
-		if (dUtc == null || !condition.apply(dUtc)) {
+		if (dUtc == NONE || !condition.apply(dUtc)) {
 			done = true;
 			return;
 		}
@@ -325,26 +370,44 @@ final class RRuleIteratorImpl implements RecurrenceIterator {
 	 * guaranteed to be monotonic, but because of daylight savings shifts, the
 	 * time in UTC may not be.
 	 */
-	private DateValue lastUtc_ = MIN_DATE;
+	private long lastUtc_ = DateValueComparison.comparable(MIN_DATE);
 
 	/**
 	 * Generates a date.
-	 * @return a date value in UTC or null if a date value could not be
-	 * generated
+	 * @return the comparable value of the date (in UTC) or {@link #NONE} if a
+	 * date could not be generated
 	 */
-	private DateValue generateInstance() {
+	private long generateInstance() {
 		try {
 			do {
 				if (!instanceGenerator.generate(builder)) {
-					return null;
+					return NONE;
 				}
-				DateValue dUtc = dtStart instanceof TimeValue ? TimeUtils.toUtc(builder.toDateTime(), tzid) : builder.toDate();
-				if (dUtc.compareTo(lastUtc_) > 0) {
+				long dUtc = builderToUtc();
+				if (dUtc > lastUtc_) {
 					return dUtc;
 				}
 			} while (true);
 		} catch (Generator.IteratorShortCircuitingException ex) {
-			return null;
+			return NONE;
 		}
 	}
+
+	/**
+	 * Converts the date that is in the builder to UTC. This is called for every
+	 * generated date, so it does not create any objects.
+	 * @return the comparable value of the date (in UTC)
+	 */
+	private long builderToUtc() {
+		builder.normalize();
+		if (!hasTime) {
+			return DateValueComparison.comparable(builder.year, builder.month, builder.day);
+		}
+		if (utc || builder.year == 0) {
+			return DateValueComparison.comparable(builder.year, builder.month, builder.day, builder.hour, builder.minute, builder.second);
+		}
+
+		long millis = TimeUtils.timetMillis(builder.year, builder.month, builder.day, builder.hour, builder.minute, builder.second, tzid);
+		return DateValueComparison.dateTimeFromMillis(millis);
+	}
 }
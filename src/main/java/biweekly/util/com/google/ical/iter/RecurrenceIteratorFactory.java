@@ -44,7 +44,9 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
 
 import biweekly.util.ByDay;
 import biweekly.util.DayOfWeek;
@@ -102,8 +104,17 @@ public class RecurrenceIteratorFactory {
 	 * @return the iterator
 	 */
 	public static RecurrenceIterator createRecurrenceIterator(Collection<? extends DateValue> dates) {
-		DateValue[] datesArray = dates.toArray(new DateValue[0]);
-		return new RDateIteratorImpl(datesArray);
+		return createRecurrenceIterator(new DateValueSet(dates));
+	}
+
+	/**
+	 * Creates a recurrence iterator from a precomputed RDATE or EXDATE list.
+	 * The list can be shared between any number of iterators.
+	 * @param dates the list of dates
+	 * @return the iterator
+	 */
+	public static RecurrenceIterator createRecurrenceIterator(DateValueSet dates) {
+		return new RDateIteratorImpl(dates);
 	}
 
 	/**
@@ -131,317 +142,806 @@ public class RecurrenceIteratorFactory {
 	 * @return the iterator
 	 */
 	public static RecurrenceIterator createRecurrenceIterator(Recurrence rrule, DateValue dtStart, TimeZone tzid) {
-		Frequency freq = rrule.getFrequency();
-		DayOfWeek wkst = rrule.getWorkweekStarts();
-
-		ICalDate until = rrule.getUntil();
-
-		DateValue untilUtc = (until == null) ? null : Google2445Utils.convert(until, tzid);
-
-		int count = toInt(rrule.getCount());
-		int interval = toInt(rrule.getInterval());
-		ByDay[] byDay = rrule.getByDay().toArray(new ByDay[0]);
-		int[] byMonth = toIntArray(rrule.getByMonth());
-		int[] byMonthDay = toIntArray(rrule.getByMonthDay());
-		int[] byWeekNo = toIntArray(rrule.getByWeekNo());
-		int[] byYearDay = toIntArray(rrule.getByYearDay());
-		int[] bySetPos = toIntArray(rrule.getBySetPos());
-		int[] byHour = toIntArray(rrule.getByHour());
-		int[] byMinute = toIntArray(rrule.getByMinute());
-		int[] bySecond = toIntArray(rrule.getBySecond());
-
-		if (interval <= 0) {
-			interval = 1;
+		return getPlan(rrule, dtStart, tzid).iterator();
+	}
+
+	/**
+	 * Creates a recurrence iterator from an RRULE whose work is limited by the
+	 * given budget. When the budget is exhausted, the iterator stops returning
+	 * dates, and the limit that was exceeded is recorded in the budget.
+	 * @param rrule the recurrence rule
+	 * @param dtStart the start date of the series
+	 * @param tzid the timezone that the start date is in, as well as the
+	 * timezone to iterate in
+	 * @param budget the budget (a new budget object must be used for each
+	 * expansion)
+	 * @return the iterator
+	 */
+	public static RecurrenceIterator createRecurrenceIterator(Recurrence rrule, DateValue dtStart, TimeZone tzid, ExpansionBudget budget) {
+		return getPlan(rrule, dtStart, tzid).iterator(budget);
+	}
+
+	/**
+	 * <p>
+	 * Calculates the last date of an RRULE that is bounded by a COUNT or
+	 * UNTIL.
+	 * </p>
+	 * <p>
+	 * Simple rules (rules that only have a frequency and an interval) are
+	 * solved arithmetically. All other rules are solved by running the rule's
+	 * generators without converting each date to UTC. Either way, the result is
+	 * the same as the last date returned by
+	 * {@link #createRecurrenceIterator(Recurrence, DateValue, TimeZone)}. The
+	 * result is cached along with the compiled rule.
+	 * </p>
+	 * <p>
+	 * Running the generators is stopped after 10 million candidate dates. If a
+	 * rule needs more than that, such as a <code>FREQ=SECONDLY</code> rule
+	 * whose UNTIL is years away, it is treated as if it were unbounded.
+	 * </p>
+	 * @param rrule the recurrence rule
+	 * @param dtStart the start date of the series
+	 * @param tzid the timezone that the start date is in, as well as the
+	 * timezone to iterate in
+	 * @return the last date (in UTC) or null if the rule is unbounded, does not
+	 * generate any dates, or is too large to solve
+	 */
+	public static DateValue getLastInstance(Recurrence rrule, DateValue dtStart, TimeZone tzid) {
+		long[] extent = getPlan(rrule, dtStart, tzid).extent();
+		return (extent[0] > 0) ? DateValueComparison.toDateValue(extent[1]) : null;
+	}
+
+	/**
+	 * Calculates the number of dates in an RRULE that is bounded by a COUNT or
+	 * UNTIL. See {@link #getLastInstance} for details.
+	 * @param rrule the recurrence rule
+	 * @param dtStart the start date of the series
+	 * @param tzid the timezone that the start date is in, as well as the
+	 * timezone to iterate in
+	 * @return the number of dates or -1 if the rule is unbounded or is too
+	 * large to solve
+	 */
+	public static long countInstances(Recurrence rrule, DateValue dtStart, TimeZone tzid) {
+		return getPlan(rrule, dtStart, tzid).extent()[0];
+	}
+
+	/**
+	 * The maximum number of candidate dates that are generated when
+	 * calculating the extent of a rule that cannot be solved arithmetically.
+	 */
+	private static final long MAX_WALK_STEPS = 10000000;
+
+	/**
+	 * The maximum number of compiled rules to keep in the cache.
+	 */
+	static final int MAX_CACHE_SIZE = 1000;
+
+	/**
+	 * Caches compiled rules, so that components which share the same RRULE and
+	 * start date do not have to convert and validate the rule every time they
+	 * are iterated over. Once the cache is full, new rules are compiled but
+	 * not added to it.
+	 */
+	private static final Map<PlanKey, RRulePlan> cache = new ConcurrentHashMap<PlanKey, RRulePlan>();
+
+	/**
+	 * Gets the compiled form of an RRULE, compiling it if it is not in the
+	 * cache.
+	 * @param rrule the recurrence rule
+	 * @param dtStart the start date of the series
+	 * @param tzid the timezone that the start date is in, as well as the
+	 * timezone to iterate in
+	 * @return the compiled rule
+	 */
+	static RRulePlan getPlan(Recurrence rrule, DateValue dtStart, TimeZone tzid) {
+		PlanKey key = new PlanKey(rrule, dtStart, tzid);
+
+		RRulePlan plan = cache.get(key);
+		if (plan == null) {
+			/*
+			 * If two threads compile the same rule at the same time, the plans
+			 * are equivalent, so it doesn't matter which one ends up in the
+			 * cache.
+			 */
+			plan = new RRulePlan(rrule, dtStart, tzid);
+			if (cache.size() < MAX_CACHE_SIZE) {
+				cache.put(key, plan);
+			}
 		}
+		return plan;
+	}
+
+	/**
+	 * Clears the cache of compiled RRULEs.
+	 */
+	public static void clearCache() {
+		cache.clear();
+	}
 
-		if (wkst == null) {
-			wkst = DayOfWeek.MONDAY;
+	/**
+	 * Identifies a compiled RRULE in the cache.
+	 */
+	private static final class PlanKey {
+		private final Recurrence rrule;
+		private final DateValue dtStart;
+		private final boolean hasTime;
+		private final TimeZone tzid;
+
+		PlanKey(Recurrence rrule, DateValue dtStart, TimeZone tzid) {
+			this.rrule = rrule;
+			this.dtStart = dtStart;
+			this.tzid = tzid;
+
+			/*
+			 * A date and a date-time at midnight are equal to each other, but
+			 * produce different iterators.
+			 */
+			hasTime = (dtStart instanceof TimeValue);
 		}
 
-		//optimize out BYSETPOS where possible
-		if (bySetPos.length > 0) {
-			switch (freq) {
-			case HOURLY:
-				if (byHour.length > 0 && byMinute.length <= 1 && bySecond.length <= 1) {
-					byHour = filterBySetPos(byHour, bySetPos);
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + rrule.hashCode();
+			result = prime * result + dtStart.hashCode();
+			result = prime * result + (hasTime ? 1231 : 1237);
+			result = prime * result + ((tzid == null) ? 0 : tzid.hashCode());
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) return true;
+			if (obj == null) return false;
+			if (getClass() != obj.getClass()) return false;
+			PlanKey other = (PlanKey) obj;
+			if (hasTime != other.hasTime) return false;
+			if (!dtStart.equals(other.dtStart)) return false;
+			if (!rrule.equals(other.rrule)) return false;
+			if (tzid == null) {
+				if (other.tzid != null) return false;
+			} else if (!tzid.equals(other.tzid)) return false;
+			return true;
+		}
+	}
+
+	/**
+	 * <p>
+	 * The compiled form of an RRULE. This holds everything about the rule that
+	 * does not change from one iteration to the next, such as the converted
+	 * UNTIL date and the normalized BYxxx rule parts.
+	 * </p>
+	 * <p>
+	 * Instances of this class are immutable and can be shared between threads.
+	 * Each call to {@link #iterator} creates a fresh set of the (stateful)
+	 * generators and conditions.
+	 * </p>
+	 */
+	static final class RRulePlan {
+		private final Frequency freq;
+		private final DayOfWeek wkst;
+		private final DateValue dtStart, start, untilUtc;
+		private final TimeZone tzid;
+		private final int count, interval;
+		private final boolean utc;
+		private final ByDay[] byDay;
+		private final int[] byMonth, byMonthDay, byWeekNo, byYearDay, bySetPos, byHour, byMinute, bySecond;
+
+		/**
+		 * The number of dates in the rule and the comparable value of the last
+		 * date (in UTC), or null if they have not been calculated yet.
+		 */
+		private volatile long[] extent;
+
+		/**
+		 * Compiles an RRULE.
+		 * @param rrule the recurrence rule
+		 * @param dtStart the start date of the series
+		 * @param tzid the timezone that the start date is in, as well as the
+		 * timezone to iterate in
+		 */
+		RRulePlan(Recurrence rrule, DateValue dtStart, TimeZone tzid) {
+			this.dtStart = dtStart;
+			this.tzid = tzid;
+
+			Frequency freq = rrule.getFrequency();
+			DayOfWeek wkst = rrule.getWorkweekStarts();
+
+			ICalDate until = rrule.getUntil();
+
+			DateValue untilUtc = (until == null) ? null : Google2445Utils.convert(until, tzid);
+
+			int count = toInt(rrule.getCount());
+			int interval = toInt(rrule.getInterval());
+			ByDay[] byDay = rrule.getByDay().toArray(new ByDay[0]);
+			int[] byMonth = toIntArray(rrule.getByMonth());
+			int[] byMonthDay = toIntArray(rrule.getByMonthDay());
+			int[] byWeekNo = toIntArray(rrule.getByWeekNo());
+			int[] byYearDay = toIntArray(rrule.getByYearDay());
+			int[] bySetPos = toIntArray(rrule.getBySetPos());
+			int[] byHour = toIntArray(rrule.getByHour());
+			int[] byMinute = toIntArray(rrule.getByMinute());
+			int[] bySecond = toIntArray(rrule.getBySecond());
+
+			if (interval <= 0) {
+				interval = 1;
+			}
+
+			if (wkst == null) {
+				wkst = DayOfWeek.MONDAY;
+			}
+
+			//optimize out BYSETPOS where possible
+			if (bySetPos.length > 0) {
+				switch (freq) {
+				case HOURLY:
+					if (byHour.length > 0 && byMinute.length <= 1 && bySecond.length <= 1) {
+						byHour = filterBySetPos(byHour, bySetPos);
+					}
+
+					/*
+					 * Handling bySetPos for rules that are more frequent than
+					 * daily tends to lead to large amounts of processor being
+					 * used before other work limiting features can kick in
+					 * since there many seconds between dtStart and where the
+					 * year limit kicks in. There are no known use cases for
+					 * the use of bySetPos with hourly minutely and secondly
+					 * rules so we just ignore it.
+					 */
+					bySetPos = NO_INTS;
+					break;
+				case MINUTELY:
+					if (byMinute.length > 0 && bySecond.length <= 1) {
+						byMinute = filterBySetPos(byMinute, bySetPos);
+					}
+					//see bySetPos handling comment above
+					bySetPos = NO_INTS;
+					break;
+				case SECONDLY:
+					if (bySecond.length > 0) {
+						bySecond = filterBySetPos(bySecond, bySetPos);
+					}
+					//see bySetPos handling comment above
+					bySetPos = NO_INTS;
+					break;
+				default:
 				}
+			}
 
+			DateValue start = dtStart;
+			if (bySetPos.length > 0) {
 				/*
-				 * Handling bySetPos for rules that are more frequent than daily
-				 * tends to lead to large amounts of processor being used before
-				 * other work limiting features can kick in since there many
-				 * seconds between dtStart and where the year limit kicks in.
-				 * There are no known use cases for the use of bySetPos with
-				 * hourly minutely and secondly rules so we just ignore it.
+				 * Roll back until the beginning of the period to make sure
+				 * that any positive indices are indexed properly. The actual
+				 * iterator implementation is responsible for anything <
+				 * dtStart.
 				 */
-				bySetPos = NO_INTS;
-				break;
-			case MINUTELY:
-				if (byMinute.length > 0 && bySecond.length <= 1) {
-					byMinute = filterBySetPos(byMinute, bySetPos);
+				switch (freq) {
+				case YEARLY:
+					start = (dtStart instanceof TimeValue) ? new DateTimeValueImpl(start.year(), 1, 1, 0, 0, 0) : new DateValueImpl(start.year(), 1, 1);
+					break;
+				case MONTHLY:
+					start = (dtStart instanceof TimeValue) ? new DateTimeValueImpl(start.year(), start.month(), 1, 0, 0, 0) : new DateValueImpl(start.year(), start.month(), 1);
+					break;
+				case WEEKLY:
+					int d = (7 + wkst.ordinal() - TimeUtils.dayOfWeek(dtStart).getCalendarConstant()) % 7;
+					start = TimeUtils.add(dtStart, new DateValueImpl(0, 0, -d));
+					break;
+				default:
+					break;
 				}
-				//see bySetPos handling comment above
-				bySetPos = NO_INTS;
-				break;
-			case SECONDLY:
-				if (bySecond.length > 0) {
-					bySecond = filterBySetPos(bySecond, bySetPos);
+			}
+
+			if (count == 0 && untilUtc != null) {
+				if ((untilUtc instanceof TimeValue) != (dtStart instanceof TimeValue)) {
+					// TODO(msamuel): warn
+					if (dtStart instanceof TimeValue) {
+						untilUtc = TimeUtils.dayStart(untilUtc);
+					} else {
+						untilUtc = TimeUtils.toDateValue(untilUtc);
+					}
 				}
-				//see bySetPos handling comment above
-				bySetPos = NO_INTS;
-				break;
-			default:
 			}
+
+			this.freq = freq;
+			this.wkst = wkst;
+			this.untilUtc = untilUtc;
+			this.count = count;
+			this.interval = interval;
+			this.start = start;
+			this.byDay = byDay;
+			this.byMonth = byMonth;
+			this.byMonthDay = byMonthDay;
+			this.byWeekNo = byWeekNo;
+			this.byYearDay = byYearDay;
+			this.bySetPos = bySetPos;
+			this.byHour = byHour;
+			this.byMinute = byMinute;
+			this.bySecond = bySecond;
+			utc = (tzid == null || tzid.hasSameRules(TimeUtils.utcTimezone()));
 		}
 
-		DateValue start = dtStart;
-		if (bySetPos.length > 0) {
+		/**
+		 * Creates a new iterator over the dates in the rule.
+		 * @return the iterator
+		 */
+		RecurrenceIterator iterator() {
+			return iterator(new ExpansionBudget());
+		}
+
+		/**
+		 * Creates a new iterator over the dates in the rule.
+		 * @param budget limits the amount of work the iterator can do
+		 * @return the iterator
+		 */
+		RecurrenceIterator iterator(ExpansionBudget budget) {
+			return iterator(tzid, untilUtc, budget);
+		}
+
+		/**
+		 * Creates a new iterator over the dates in the rule.
+		 * @param zone the timezone that the generated dates should be converted
+		 * from (null to leave them as-is)
+		 * @param until the date to stop at if the rule doesn't have a COUNT (in
+		 * the same timezone as the dates returned by the iterator), or null to
+		 * never stop
+		 * @param budget limits the amount of work the iterator can do
+		 * @return the iterator
+		 */
+		private RRuleIteratorImpl iterator(TimeZone zone, DateValue until, ExpansionBudget budget) {
+			/*
+			 * These are reassigned below as the rule parts they hold are
+			 * consumed by generators and filters. The arrays themselves are
+			 * never modified.
+			 */
+			ByDay[] byDay = this.byDay;
+			int[] byMonthDay = this.byMonthDay;
+			int[] byWeekNo = this.byWeekNo;
+			int[] bySecond = this.bySecond;
+			int[] byMinute = this.byMinute;
+			int[] byHour = this.byHour;
+
 			/*
-			 * Roll back until the beginning of the period to make sure that any
-			 * positive indices are indexed properly. The actual iterator
-			 * implementation is responsible for anything < dtStart.
+			 * Recurrences are implemented as a sequence of periodic generators.
+			 * First a year is generated, and then months, and within months,
+			 * days.
 			 */
+			ThrottledGenerator yearGenerator = Generators.serialYearGenerator(freq == Frequency.YEARLY ? interval : 1, dtStart, budget);
+			Generator monthGenerator = null;
+			Generator dayGenerator = null;
+			Generator secondGenerator = null;
+			Generator minuteGenerator = null;
+			Generator hourGenerator = null;
+
+			/*
+			 * When multiple generators are specified for a period, they act as
+			 * a union operator. We could have multiple generators (say, for
+			 * day) and then run each and merge the results, but some generators
+			 * are more efficient than others. So to avoid generating 53 Sundays
+			 * and throwing away all but 1 for
+			 * RRULE:FREQ=YEARLY;BYDAY=TU;BYWEEKNO=1, we reimplement some of the
+			 * more prolific generators as filters.
+			 */
+			// TODO(msamuel): don't need a list here
+			List<Predicate<? super DateValue>> filters = new ArrayList<Predicate<? super DateValue>>();
+
 			switch (freq) {
-			case YEARLY:
-				start = (dtStart instanceof TimeValue) ? new DateTimeValueImpl(start.year(), 1, 1, 0, 0, 0) : new DateValueImpl(start.year(), 1, 1);
+			case SECONDLY:
+				if (bySecond.length == 0 || interval != 1) {
+					secondGenerator = Generators.serialSecondGenerator(interval, dtStart);
+					if (bySecond.length > 0) {
+						filters.add(Filters.bySecondFilter(bySecond));
+					}
+				}
 				break;
-			case MONTHLY:
-				start = (dtStart instanceof TimeValue) ? new DateTimeValueImpl(start.year(), start.month(), 1, 0, 0, 0) : new DateValueImpl(start.year(), start.month(), 1);
+			case MINUTELY:
+				if (byMinute.length == 0 || interval != 1) {
+					minuteGenerator = Generators.serialMinuteGenerator(interval, dtStart);
+					if (byMinute.length > 0) {
+						filters.add(Filters.byMinuteFilter(byMinute));
+					}
+				}
+				break;
+			case HOURLY:
+				if (byHour.length == 0 || interval != 1) {
+					hourGenerator = Generators.serialHourGenerator(interval, dtStart);
+					if (byHour.length > 0) {
+						filters.add(Filters.byHourFilter(bySecond));
+					}
+				}
+				break;
+			case DAILY:
 				break;
 			case WEEKLY:
-				int d = (7 + wkst.ordinal() - TimeUtils.dayOfWeek(dtStart).getCalendarConstant()) % 7;
-				start = TimeUtils.add(dtStart, new DateValueImpl(0, 0, -d));
+				/*
+				 * Week is not considered a period because a week may span
+				 * multiple months and/or years. There are no week generators,
+				 * so a filter is used to make sure that FREQ=WEEKLY;INTERVAL=2
+				 * only generates dates within the proper week.
+				 */
+				if (byDay.length > 0) {
+					dayGenerator = Generators.byDayGenerator(byDay, false, start);
+					byDay = NO_DAYS;
+					if (interval > 1) {
+						filters.add(Filters.weekIntervalFilter(interval, wkst, dtStart));
+					}
+				} else {
+					dayGenerator = Generators.serialDayGenerator(interval * 7, dtStart);
+				}
 				break;
-			default:
+			case YEARLY:
+				if (byYearDay.length > 0) {
+					/*
+					 * The BYYEARDAY rule part specifies a COMMA separated list
+					 * of days of the year. Valid values are 1 to 366 or -366 to
+					 * -1. For example, -1 represents the last day of the year
+					 * (December 31st) and -306 represents the 306th to the last
+					 * day of the year (March 1st).
+					 */
+					dayGenerator = Generators.byYearDayGenerator(byYearDay, start);
+					break;
+				}
+				// $FALL-THROUGH$
+			case MONTHLY:
+				if (byMonthDay.length > 0) {
+					/*
+					 * The BYMONTHDAY rule part specifies a COMMA separated list
+					 * of days of the month. Valid values are 1 to 31 or -31 to
+					 * -1. For example, -10 represents the tenth to the last day
+					 * of the month.
+					 */
+					dayGenerator = Generators.byMonthDayGenerator(byMonthDay, start);
+					byMonthDay = NO_INTS;
+				} else if (byWeekNo.length > 0 && Frequency.YEARLY == freq) {
+					/*
+					 * The BYWEEKNO rule part specifies a COMMA separated list
+					 * of ordinals specifying weeks of the year. This rule part
+					 * is only valid for YEARLY rules.
+					 */
+					dayGenerator = Generators.byWeekNoGenerator(byWeekNo, wkst, start);
+					byWeekNo = NO_INTS;
+				} else if (byDay.length > 0) {
+					/*
+					 * Each BYDAY value can also be preceded by a positive (n)
+					 * or negative (-n) integer. If present, this indicates the
+					 * nth occurrence of the specific day within the MONTHLY or
+					 * YEARLY RRULE. For example, within a MONTHLY rule, +1MO
+					 * (or simply 1MO) represents the first Monday within the
+					 * month, whereas -1MO represents the last Monday of the
+					 * month. If an integer modifier is not present, it means
+					 * all days of this type within the specified frequency. For
+					 * example, within a MONTHLY rule, MO represents all Mondays
+					 * within the month.
+					 */
+					dayGenerator = Generators.byDayGenerator(byDay, Frequency.YEARLY == freq && byMonth.length == 0, start);
+					byDay = NO_DAYS;
+				} else {
+					if (Frequency.YEARLY == freq) {
+						monthGenerator = Generators.byMonthGenerator(new int[] { dtStart.month() }, start);
+					}
+					dayGenerator = Generators.byMonthDayGenerator(new int[] { dtStart.day() }, start);
+				}
 				break;
 			}
-		}
 
-		/*
-		 * Recurrences are implemented as a sequence of periodic generators.
-		 * First a year is generated, and then months, and within months, days.
-		 */
-		ThrottledGenerator yearGenerator = Generators.serialYearGenerator(freq == Frequency.YEARLY ? interval : 1, dtStart);
-		Generator monthGenerator = null;
-		Generator dayGenerator = null;
-		Generator secondGenerator = null;
-		Generator minuteGenerator = null;
-		Generator hourGenerator = null;
-
-		/*
-		 * When multiple generators are specified for a period, they act as a
-		 * union operator. We could have multiple generators (say, for day) and
-		 * then run each and merge the results, but some generators are more
-		 * efficient than others. So to avoid generating 53 Sundays and throwing
-		 * away all but 1 for RRULE:FREQ=YEARLY;BYDAY=TU;BYWEEKNO=1, we
-		 * reimplement some of the more prolific generators as filters.
-		 */
-		// TODO(msamuel): don't need a list here
-		List<Predicate<? super DateValue>> filters = new ArrayList<Predicate<? super DateValue>>();
-
-		switch (freq) {
-		case SECONDLY:
-			if (bySecond.length == 0 || interval != 1) {
-				secondGenerator = Generators.serialSecondGenerator(interval, dtStart);
-				if (bySecond.length > 0) {
-					filters.add(Filters.bySecondFilter(bySecond));
+			if (secondGenerator == null) {
+				secondGenerator = Generators.bySecondGenerator(bySecond, start);
+			}
+			if (minuteGenerator == null) {
+				if (byMinute.length == 0 && freq.compareTo(Frequency.MINUTELY) < 0) {
+					minuteGenerator = Generators.serialMinuteGenerator(1, dtStart);
+				} else {
+					minuteGenerator = Generators.byMinuteGenerator(byMinute, start);
 				}
 			}
-			break;
-		case MINUTELY:
-			if (byMinute.length == 0 || interval != 1) {
-				minuteGenerator = Generators.serialMinuteGenerator(interval, dtStart);
-				if (byMinute.length > 0) {
-					filters.add(Filters.byMinuteFilter(byMinute));
+			if (hourGenerator == null) {
+				if (byHour.length == 0 && freq.compareTo(Frequency.HOURLY) < 0) {
+					hourGenerator = Generators.serialHourGenerator(1, dtStart);
+				} else {
+					hourGenerator = Generators.byHourGenerator(byHour, start);
 				}
 			}
-			break;
-		case HOURLY:
-			if (byHour.length == 0 || interval != 1) {
-				hourGenerator = Generators.serialHourGenerator(interval, dtStart);
-				if (byHour.length > 0) {
-					filters.add(Filters.byHourFilter(bySecond));
+
+			if (dayGenerator == null) {
+				boolean dailyOrMoreOften = freq.compareTo(Frequency.DAILY) <= 0;
+				if (byMonthDay.length > 0) {
+					dayGenerator = Generators.byMonthDayGenerator(byMonthDay, start);
+					byMonthDay = NO_INTS;
+				} else if (byDay.length > 0) {
+					dayGenerator = Generators.byDayGenerator(byDay, Frequency.YEARLY == freq, start);
+					byDay = NO_DAYS;
+				} else if (dailyOrMoreOften) {
+					dayGenerator = Generators.serialDayGenerator(Frequency.DAILY == freq ? interval : 1, dtStart);
+				} else {
+					dayGenerator = Generators.byMonthDayGenerator(new int[] { dtStart.day() }, start);
 				}
 			}
-			break;
-		case DAILY:
-			break;
-		case WEEKLY:
-			/*
-			 * Week is not considered a period because a week may span multiple
-			 * months and/or years. There are no week generators, so a filter is
-			 * used to make sure that FREQ=WEEKLY;INTERVAL=2 only generates
-			 * dates within the proper week.
-			 */
+
 			if (byDay.length > 0) {
-				dayGenerator = Generators.byDayGenerator(byDay, false, start);
+				filters.add(Filters.byDayFilter(byDay, Frequency.YEARLY == freq, wkst));
 				byDay = NO_DAYS;
-				if (interval > 1) {
-					filters.add(Filters.weekIntervalFilter(interval, wkst, dtStart));
-				}
-			} else {
-				dayGenerator = Generators.serialDayGenerator(interval * 7, dtStart);
 			}
-			break;
-		case YEARLY:
-			if (byYearDay.length > 0) {
+
+			if (byMonthDay.length > 0) {
+				filters.add(Filters.byMonthDayFilter(byMonthDay));
+			}
+
+			//generator inference common to all periods
+			if (byMonth.length > 0) {
+				monthGenerator = Generators.byMonthGenerator(byMonth, start);
+			} else if (monthGenerator == null) {
+				monthGenerator = Generators.serialMonthGenerator(freq == Frequency.MONTHLY ? interval : 1, dtStart);
+			}
+
+			/*
+			 * The condition tells the iterator when to halt. The condition is
+			 * exclusive, so the date that triggers it will not be included.
+			 */
+			Conditions.Condition condition;
+			boolean canShortcutAdvance = true;
+			if (count != 0) {
+				condition = Conditions.countCondition(count);
+
 				/*
-				 * The BYYEARDAY rule part specifies a COMMA separated list of
-				 * days of the year. Valid values are 1 to 366 or -366 to -1.
-				 * For example, -1 represents the last day of the year (December
-				 * 31st) and -306 represents the 306th to the last day of the
-				 * year (March 1st).
+				 * We can't shortcut because the countCondition must see every
+				 * generated instance.
+				 *
+				 * TODO(msamuel): If count is large, we might try predicting
+				 * the end date so that we can convert the COUNT condition to
+				 * an UNTIL condition.
 				 */
-				dayGenerator = Generators.byYearDayGenerator(byYearDay, start);
+				canShortcutAdvance = false;
+			} else if (until != null) {
+				condition = Conditions.untilCondition(until);
+			} else {
+				condition = Conditions.alwaysTrue();
+			}
+
+			//combine filters into a single function
+			Predicate<? super DateValue> filter;
+			switch (filters.size()) {
+			case 0:
+				filter = Predicates.<DateValue> alwaysTrue();
+				break;
+			case 1:
+				filter = filters.get(0);
+				break;
+			default:
+				filter = Predicates.and(filters);
 				break;
 			}
-			// $FALL-THROUGH$
-		case MONTHLY:
-			if (byMonthDay.length > 0) {
-				/*
-				 * The BYMONTHDAY rule part specifies a COMMA separated list of
-				 * days of the month. Valid values are 1 to 31 or -31 to -1. For
-				 * example, -10 represents the tenth to the last day of the
-				 * month.
-				 */
-				dayGenerator = Generators.byMonthDayGenerator(byMonthDay, start);
-				byMonthDay = NO_INTS;
-			} else if (byWeekNo.length > 0 && Frequency.YEARLY == freq) {
-				/*
-				 * The BYWEEKNO rule part specifies a COMMA separated list of
-				 * ordinals specifying weeks of the year. This rule part is only
-				 * valid for YEARLY rules.
-				 */
-				dayGenerator = Generators.byWeekNoGenerator(byWeekNo, wkst, start);
-				byWeekNo = NO_INTS;
-			} else if (byDay.length > 0) {
-				/*
-				 * Each BYDAY value can also be preceded by a positive (n) or
-				 * negative (-n) integer. If present, this indicates the nth
-				 * occurrence of the specific day within the MONTHLY or YEARLY
-				 * RRULE. For example, within a MONTHLY rule, +1MO (or simply
-				 * 1MO) represents the first Monday within the month, whereas
-				 * -1MO represents the last Monday of the month. If an integer
-				 * modifier is not present, it means all days of this type
-				 * within the specified frequency. For example, within a MONTHLY
-				 * rule, MO represents all Mondays within the month.
-				 */
-				dayGenerator = Generators.byDayGenerator(byDay, Frequency.YEARLY == freq && byMonth.length == 0, start);
-				byDay = NO_DAYS;
+
+			Generator instanceGenerator;
+			if (bySetPos.length > 0) {
+				instanceGenerator = InstanceGenerators.bySetPosInstanceGenerator(bySetPos, freq, wkst, filter, yearGenerator, monthGenerator, dayGenerator, hourGenerator, minuteGenerator, secondGenerator, budget);
 			} else {
-				if (Frequency.YEARLY == freq) {
-					monthGenerator = Generators.byMonthGenerator(new int[] { dtStart.month() }, start);
-				}
-				dayGenerator = Generators.byMonthDayGenerator(new int[] { dtStart.day() }, start);
+				instanceGenerator = InstanceGenerators.serialInstanceGenerator(filter, yearGenerator, monthGenerator, dayGenerator, hourGenerator, minuteGenerator, secondGenerator, budget);
 			}
-			break;
-		}
 
-		if (secondGenerator == null) {
-			secondGenerator = Generators.bySecondGenerator(bySecond, start);
+			return new RRuleIteratorImpl(dtStart, zone, condition, instanceGenerator, yearGenerator, monthGenerator, dayGenerator, hourGenerator, minuteGenerator, secondGenerator, canShortcutAdvance, budget);
 		}
-		if (minuteGenerator == null) {
-			if (byMinute.length == 0 && freq.compareTo(Frequency.MINUTELY) < 0) {
-				minuteGenerator = Generators.serialMinuteGenerator(1, dtStart);
-			} else {
-				minuteGenerator = Generators.byMinuteGenerator(byMinute, start);
+
+		/**
+		 * Calculates the number of dates in the rule and its last date.
+		 * @return the number of dates (-1 if the rule is unbounded) and the
+		 * comparable value of the last date (in UTC)
+		 */
+		long[] extent() {
+			long[] extent = this.extent;
+			if (extent == null) {
+				if (count == 0 && untilUtc == null) {
+					extent = new long[] { -1, 0 };
+				} else {
+					extent = isSimple() ? solve() : walk();
+				}
+				this.extent = extent;
 			}
+			return extent;
 		}
-		if (hourGenerator == null) {
-			if (byHour.length == 0 && freq.compareTo(Frequency.HOURLY) < 0) {
-				hourGenerator = Generators.serialHourGenerator(1, dtStart);
-			} else {
-				hourGenerator = Generators.byHourGenerator(byHour, start);
+
+		/**
+		 * Determines whether the n<sup>th</sup> date of the rule can be
+		 * calculated arithmetically. This is the case for rules that only have
+		 * a frequency and an interval, as long as every period contains the
+		 * start date's day.
+		 * @return true if the rule is simple, false if not
+		 */
+		private boolean isSimple() {
+			if (byDay.length > 0 || byMonth.length > 0 || byMonthDay.length > 0 || byWeekNo.length > 0 || byYearDay.length > 0 || bySetPos.length > 0 || byHour.length > 0 || byMinute.length > 0 || bySecond.length > 0) {
+				return false;
+			}
+
+			switch (freq) {
+			case DAILY:
+			case WEEKLY:
+				return true;
+			case MONTHLY:
+				return dtStart.day() <= 28;
+			case YEARLY:
+				return dtStart.month() != 2 || dtStart.day() != 29;
+			default:
+				return false;
 			}
 		}
 
-		if (dayGenerator == null) {
-			boolean dailyOrMoreOften = freq.compareTo(Frequency.DAILY) <= 0;
-			if (byMonthDay.length > 0) {
-				dayGenerator = Generators.byMonthDayGenerator(byMonthDay, start);
-				byMonthDay = NO_INTS;
-			} else if (byDay.length > 0) {
-				dayGenerator = Generators.byDayGenerator(byDay, Frequency.YEARLY == freq, start);
-				byDay = NO_DAYS;
-			} else if (dailyOrMoreOften) {
-				dayGenerator = Generators.serialDayGenerator(Frequency.DAILY == freq ? interval : 1, dtStart);
+		/**
+		 * Calculates the extent of a {@link #isSimple simple} rule without
+		 * generating any of its dates.
+		 * @return the extent
+		 */
+		private long[] solve() {
+			long n;
+			if (count > 0) {
+				n = count;
 			} else {
-				dayGenerator = Generators.byMonthDayGenerator(new int[] { dtStart.day() }, start);
+				/*
+				 * Estimate the index of the last date using the local time of
+				 * UNTIL, then correct the estimate in case the UTC offset of
+				 * the dates around UNTIL puts them on the other side of it.
+				 */
+				long untilComparable = DateValueComparison.comparable(untilUtc);
+				long i = periodsSinceStart(TimeUtils.fromUtc(untilUtc, tzid));
+				while (instanceUtc(i + 1) <= untilComparable) {
+					i++;
+				}
+				while (i >= 0 && instanceUtc(i) > untilComparable) {
+					i--;
+				}
+				n = i + 1;
 			}
-		}
 
-		if (byDay.length > 0) {
-			filters.add(Filters.byDayFilter(byDay, Frequency.YEARLY == freq, wkst));
-			byDay = NO_DAYS;
+			return new long[] { n, (n > 0) ? instanceUtc(n - 1) : 0 };
 		}
 
-		if (byMonthDay.length > 0) {
-			filters.add(Filters.byMonthDayFilter(byMonthDay));
+		/**
+		 * Calculates the index of the latest date of a {@link #isSimple
+		 * simple} rule that falls on or before the given date, ignoring the
+		 * time of day.
+		 * @param date the date (in local time)
+		 * @return the index or -1 if the date is before the start date
+		 */
+		private long periodsSinceStart(DateValue date) {
+			long periods;
+			switch (freq) {
+			case DAILY:
+				periods = TimeUtils.daysBetween(date, dtStart);
+				break;
+			case WEEKLY:
+				periods = TimeUtils.daysBetween(date, dtStart) / 7;
+				break;
+			case MONTHLY:
+				periods = (date.year() - dtStart.year()) * 12L + (date.month() - dtStart.month());
+				break;
+			default:
+				periods = date.year() - dtStart.year();
+				break;
+			}
+			return (periods < 0) ? -1 : periods / interval;
 		}
 
-		//generator inference common to all periods
-		if (byMonth.length > 0) {
-			monthGenerator = Generators.byMonthGenerator(byMonth, start);
-		} else if (monthGenerator == null) {
-			monthGenerator = Generators.serialMonthGenerator(freq == Frequency.MONTHLY ? interval : 1, dtStart);
+		/**
+		 * Calculates the n<sup>th</sup> date of a {@link #isSimple simple}
+		 * rule.
+		 * @param i the index of the date (zero-based)
+		 * @return the comparable value of the date (in UTC)
+		 */
+		private long instanceUtc(long i) {
+			int year = dtStart.year(), month = dtStart.month(), day = dtStart.day();
+			switch (freq) {
+			case DAILY:
+			case WEEKLY:
+				long days = i * interval * ((freq == Frequency.WEEKLY) ? 7 : 1);
+				DateValue date = TimeUtils.timeFromSecsSinceEpoch((TimeUtils.fixedFromGregorian(year, month, day) + days) * SECS_PER_DAY);
+				year = date.year();
+				month = date.month();
+				day = date.day();
+				break;
+			case MONTHLY:
+				long months = (month - 1) + i * interval;
+				year += (int) (months / 12);
+				month = (int) (months % 12) + 1;
+				break;
+			default:
+				year += (int) (i * interval);
+				break;
+			}
+
+			if (!(dtStart instanceof TimeValue)) {
+				return DateValueComparison.comparable(year, month, day);
+			}
+			TimeValue time = (TimeValue) dtStart;
+			return toUtc(year, month, day, time.hour(), time.minute(), time.second());
 		}
 
-		/*
-		 * The condition tells the iterator when to halt. The condition is
-		 * exclusive, so the date that triggers it will not be included.
+		/**
+		 * Calculates the extent of a rule by running its generators. Rules that
+		 * generate at most one date per day generate their dates in the same
+		 * order in local time as they do in UTC, so their dates are generated
+		 * in local time and only the dates near UNTIL are converted to UTC.
+		 * @return the extent (the rule is reported as unbounded if it needs
+		 * more than {@link #MAX_WALK_STEPS} steps)
 		 */
-		Predicate<DateValue> condition;
-		boolean canShortcutAdvance = true;
-		if (count != 0) {
-			condition = Conditions.countCondition(count);
+		private long[] walk() {
+			boolean local = (dtStart instanceof TimeValue) && !utc && freq.compareTo(Frequency.DAILY) >= 0 && byHour.length <= 1 && byMinute.length <= 1 && bySecond.length <= 1;
 
-			/*
-			 * We can't shortcut because the countCondition must see every
-			 * generated instance.
-			 * 
-			 * TODO(msamuel): If count is large, we might try predicting the end
-			 * date so that we can convert the COUNT condition to an UNTIL
-			 * condition.
-			 */
-			canShortcutAdvance = false;
-		} else if (untilUtc != null) {
-			if ((untilUtc instanceof TimeValue) != (dtStart instanceof TimeValue)) {
-				// TODO(msamuel): warn
-				if (dtStart instanceof TimeValue) {
-					untilUtc = TimeUtils.dayStart(untilUtc);
-				} else {
-					untilUtc = TimeUtils.toDateValue(untilUtc);
+			ExpansionBudget budget = new ExpansionBudget();
+			budget.setMaxSteps(MAX_WALK_STEPS);
+
+			RRuleIteratorImpl it;
+			long untilComparable = 0, safeComparable = 0;
+			if (local) {
+				DateValue until = null;
+				if (count == 0) {
+					/*
+					 * UTC offsets are never more than 14 hours away from UTC,
+					 * so any date that is more than two days before UNTIL in
+					 * local time is also before UNTIL in UTC, and any date that
+					 * is more than two days after UNTIL is also after it.
+					 */
+					DateValue untilLocal = TimeUtils.fromUtc(untilUtc, tzid);
+					untilComparable = DateValueComparison.comparable(untilUtc);
+					safeComparable = DateValueComparison.comparable(TimeUtils.add(untilLocal, new DateValueImpl(0, 0, -2)));
+					until = TimeUtils.add(untilLocal, new DateValueImpl(0, 0, 2));
 				}
+				it = iterator(null, until, budget);
+			} else {
+				it = iterator(tzid, untilUtc, budget);
+			}
+
+			long n = 0, last = 0;
+			while (it.hasNext()) {
+				long next = it.nextComparable();
+				if (local && count == 0 && next > safeComparable && localToUtc(next) > untilComparable) {
+					break;
+				}
+				n++;
+				last = next;
+			}
+
+			if (budget.getExceededLimit() != null) {
+				return new long[] { -1, 0 };
 			}
-			condition = Conditions.untilCondition(untilUtc);
-		} else {
-			condition = Predicates.<DateValue> alwaysTrue();
-		}
 
-		//combine filters into a single function
-		Predicate<? super DateValue> filter;
-		switch (filters.size()) {
-		case 0:
-			filter = Predicates.<DateValue> alwaysTrue();
-			break;
-		case 1:
-			filter = filters.get(0);
-			break;
-		default:
-			filter = Predicates.and(filters);
-			break;
+			if (local && n > 0) {
+				last = localToUtc(last);
+			}
+			return new long[] { n, last };
 		}
 
-		Generator instanceGenerator;
-		if (bySetPos.length > 0) {
-			instanceGenerator = InstanceGenerators.bySetPosInstanceGenerator(bySetPos, freq, wkst, filter, yearGenerator, monthGenerator, dayGenerator, hourGenerator, minuteGenerator, secondGenerator);
-		} else {
-			instanceGenerator = InstanceGenerators.serialInstanceGenerator(filter, yearGenerator, monthGenerator, dayGenerator, hourGenerator, minuteGenerator, secondGenerator);
+		/**
+		 * Converts a date-time in the rule's timezone to UTC.
+		 * @param comparable the comparable value of the date-time
+		 * @return the comparable value of the date-time in UTC
+		 */
+		private long localToUtc(long comparable) {
+			DateTimeValue date = (DateTimeValue) DateValueComparison.toDateValue(comparable);
+			return toUtc(date.year(), date.month(), date.day(), date.hour(), date.minute(), date.second());
 		}
 
-		return new RRuleIteratorImpl(dtStart, tzid, condition, instanceGenerator, yearGenerator, monthGenerator, dayGenerator, hourGenerator, minuteGenerator, secondGenerator, canShortcutAdvance);
+		/**
+		 * Converts a date-time in the rule's timezone to UTC in the same way
+		 * that {@link RRuleIteratorImpl} does.
+		 * @param year the year
+		 * @param month the month
+		 * @param day the day of the month
+		 * @param hour the hour
+		 * @param minute the minute
+		 * @param second the second
+		 * @return the comparable value of the date-time in UTC
+		 */
+		private long toUtc(int year, int month, int day, int hour, int minute, int second) {
+			if (utc || year == 0) {
+				return DateValueComparison.comparable(year, month, day, hour, minute, second);
+			}
+
+			long millis = TimeUtils.timetMillis(year, month, day, hour, minute, second, tzid);
+			return DateValueComparison.dateTimeFromMillis(millis);
+		}
 	}
 
+	private static final long SECS_PER_DAY = 60L * 60 * 24;
+
 	/**
 	 * Generates a recurrence iterator that iterates over the union of the given
 	 * recurrence iterators.
@@ -474,6 +974,95 @@ public class RecurrenceIteratorFactory {
 		return new CompoundIteratorImpl(Collections.<RecurrenceIterator> singleton(included), Collections.<RecurrenceIterator> singleton(excluded));
 	}
 
+	/**
+	 * <p>
+	 * Generates a recurrence iterator that iterates over all the dates in a
+	 * {@link RecurrenceIterator}, excluding the given dates. This is meant for
+	 * EXDATE values.
+	 * </p>
+	 * <p>
+	 * Unlike {@link #except(RecurrenceIterator, RecurrenceIterator)}, the
+	 * excluded dates are not merged with the included dates. Instead, they are
+	 * stored in a sorted array that is looked up as each date is generated,
+	 * which is faster when there are a lot of them.
+	 * </p>
+	 * <p>
+	 * {@link DateValue dates} and {@link DateTimeValue date-times} never match
+	 * one another.
+	 * </p>
+	 * @param included the dates to include
+	 * @param excludedUtc the dates to exclude (in UTC)
+	 * @return the resultant iterator
+	 */
+	public static RecurrenceIterator except(RecurrenceIterator included, Collection<? extends DateValue> excludedUtc) {
+		return new ExDateIteratorImpl(packed(included), excludedUtc);
+	}
+
+	/**
+	 * Generates a recurrence iterator that iterates over all the dates in a
+	 * {@link RecurrenceIterator}, excluding the dates in a precomputed list.
+	 * This is the same as
+	 * {@link #except(RecurrenceIterator, Collection)}, except that the list
+	 * does not have to be sorted again for each iterator.
+	 * @param included the dates to include
+	 * @param excluded the dates to exclude
+	 * @return the resultant iterator
+	 */
+	public static RecurrenceIterator except(RecurrenceIterator included, DateValueSet excluded) {
+		return new ExDateIteratorImpl(packed(included), excluded);
+	}
+
+	/**
+	 * <p>
+	 * Gets a view of a recurrence iterator that returns its dates as
+	 * milliseconds instead of as {@link DateValue} objects.
+	 * </p>
+	 * <p>
+	 * The iterators created by this factory are returned as-is, since they
+	 * already implement {@link LongRecurrenceIterator}. Any other iterator is
+	 * wrapped, which means that it must not be used directly afterwards.
+	 * </p>
+	 * @param rit the recurrence iterator
+	 * @return the long iterator
+	 */
+	public static LongRecurrenceIterator createLongRecurrenceIterator(RecurrenceIterator rit) {
+		return packed(rit);
+	}
+
+	/**
+	 * <p>
+	 * Creates an iterator that returns the dates of a recurrence in descending
+	 * order, starting with the latest date that comes before the given date.
+	 * </p>
+	 * <p>
+	 * The dates are found by searching backwards in windows of time, using a
+	 * new iterator from the given iterable for each window. This works with
+	 * any iterable, including those that combine multiple iterators with
+	 * {@link #join} and {@link #except}.
+	 * </p>
+	 * @param iterable the recurrence (each iterator it creates must return the
+	 * same dates)
+	 * @param endUtc the date to start iterating backwards from (exclusive, in
+	 * UTC)
+	 * @return the reverse iterator
+	 */
+	public static ReverseRecurrenceIterator createReverseRecurrenceIterator(RecurrenceIterable iterable, DateValue endUtc) {
+		return new ReverseIteratorImpl(iterable, DateValueComparison.comparable(endUtc));
+	}
+
+	/**
+	 * Wraps the given iterator, if necessary, so that it can pass its dates
+	 * along as comparable values.
+	 * @param rit the recurrence iterator
+	 * @return the iterator
+	 */
+	static AbstractRecurrenceIterator packed(RecurrenceIterator rit) {
+		if (rit instanceof AbstractRecurrenceIterator) {
+			return (AbstractRecurrenceIterator) rit;
+		}
+		return new CompoundIteratorImpl(Collections.<RecurrenceIterator> singleton(rit), Collections.<RecurrenceIterator> emptyList());
+	}
+
 	/**
 	 * <p>
 	 * Creates an optimized version of an array based on the given BYSETPOS
@@ -0,0 +1,179 @@
+package biweekly.util.com.google.ical.iter;
+
+import java.util.NoSuchElementException;
+
+import biweekly.util.com.google.ical.values.DateValue;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * Iterates over the dates of a {@link RecurrenceIterable} in descending order.
+ * </p>
+ * <p>
+ * Recurrence rules can only be evaluated forwards, so this class searches
+ * backwards in windows of time. For each window, a new forward iterator is
+ * created and advanced to the start of the window, and the dates that fall
+ * within the window are buffered and then returned in reverse. Whenever a
+ * window turns out to be empty, the size of the next window is doubled. This
+ * means that finding the latest date before a given date only requires the
+ * dates near that date to be computed, no matter how long ago the series
+ * started.
+ * </p>
+ * <p>
+ * Note that advancing a recurrence rule that has a COUNT still requires the
+ * dates before the window to be counted.
+ * </p>
+ * @author Michael Angstadt
+ */
+final class ReverseIteratorImpl implements ReverseRecurrenceIterator {
+	private static final long NONE = Long.MIN_VALUE;
+	private static final long INITIAL_WINDOW = 7L * 24 * 60 * 60 * 1000;
+	private static final long MAX_WINDOW = 1000L * 366 * 24 * 60 * 60 * 1000;
+
+	private final RecurrenceIterable iterable;
+
+	/**
+	 * The dates that have been computed, but not yet returned, in ascending
+	 * order (as comparable values).
+	 */
+	private long[] buffer = new long[16];
+	private int size = 0;
+
+	/**
+	 * All dates before this one have not been searched yet (comparable value).
+	 */
+	private long searchEnd;
+
+	/**
+	 * The first date in the series (comparable value), or {@link #NONE} if it
+	 * hasn't been computed yet.
+	 */
+	private long first = NONE;
+
+	private long window = INITIAL_WINDOW;
+	private boolean done = false;
+
+	/**
+	 * @param iterable creates the forward iterators
+	 * @param endUtc the date to start iterating backwards from (exclusive,
+	 * as a comparable value)
+	 */
+	ReverseIteratorImpl(RecurrenceIterable iterable, long endUtc) {
+		this.iterable = iterable;
+		searchEnd = endUtc;
+	}
+
+	public boolean hasPrevious() {
+		if (size == 0) {
+			fill();
+		}
+		return size > 0;
+	}
+
+	public DateValue previous() {
+		return DateValueComparison.toDateValue(previousComparable());
+	}
+
+	public long previousMillis() {
+		return DateValueComparison.toMillis(previousComparable());
+	}
+
+	private long previousComparable() {
+		if (!hasPrevious()) {
+			throw new NoSuchElementException();
+		}
+		return buffer[--size];
+	}
+
+	public void retreatTo(DateValue newEndUtc) {
+		retreatToComparable(DateValueComparison.comparable(newEndUtc));
+	}
+
+	public void retreatTo(long newEndMillis) {
+		retreatToComparable(DateValueComparison.fromMillis(newEndMillis));
+	}
+
+	private void retreatToComparable(long newEndUtc) {
+		while (size > 0 && buffer[size - 1] >= newEndUtc) {
+			size--;
+		}
+		if (size == 0 && newEndUtc < searchEnd) {
+			searchEnd = newEndUtc;
+		}
+	}
+
+	/**
+	 * Searches backwards until at least one date is found or the start of the
+	 * series is reached.
+	 */
+	private void fill() {
+		while (size == 0 && !done) {
+			if (first == NONE) {
+				AbstractRecurrenceIterator it = RecurrenceIteratorFactory.packed(iterable.iterator());
+				if (!it.hasNext()) {
+					done = true;
+					return;
+				}
+				first = it.nextComparable();
+			}
+
+			if (searchEnd <= first) {
+				done = true;
+				return;
+			}
+
+			long windowStart = DateValueComparison.fromMillis(DateValueComparison.toMillis(searchEnd) - window);
+			if (windowStart <= first) {
+				windowStart = first;
+			}
+
+			AbstractRecurrenceIterator it = RecurrenceIteratorFactory.packed(iterable.iterator());
+			it.advanceToComparable(windowStart);
+			while (it.hasNext()) {
+				long date = it.nextComparable();
+				if (date >= searchEnd) {
+					break;
+				}
+				add(date);
+			}
+
+			searchEnd = windowStart;
+			if (size == 0 && window < MAX_WINDOW) {
+				window *= 2;
+			}
+		}
+	}
+
+	private void add(long date) {
+		if (size == buffer.length) {
+			long[] grown = new long[buffer.length * 2];
+			System.arraycopy(buffer, 0, grown, 0, size);
+			buffer = grown;
+		}
+		buffer[size++] = date;
+	}
+}
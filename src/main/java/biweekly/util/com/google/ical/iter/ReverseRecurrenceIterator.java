@@ -0,0 +1,85 @@
+package biweekly.util.com.google.ical.iter;
+
+import biweekly.util.com.google.ical.values.DateValue;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * Iterates over a series of dates in descending order.
+ * </p>
+ * <p>
+ * This is useful for finding the most recent dates of a series that started a
+ * long time ago, such as the last time a recurring event occurred. Iterating
+ * forward from the start of the series would mean computing every date in
+ * between.
+ * </p>
+ * @see RecurrenceIteratorFactory#createReverseRecurrenceIterator
+ * @author Michael Angstadt
+ */
+public interface ReverseRecurrenceIterator {
+	/**
+	 * Determines if there are any earlier dates in the series.
+	 * @return true if there are earlier dates, false if not
+	 */
+	boolean hasPrevious();
+
+	/**
+	 * Returns the previous date in the series.
+	 * @return the previous date, in UTC (will be strictly earlier than any
+	 * date previously returned by this iterator)
+	 * @throws java.util.NoSuchElementException if there are no earlier dates
+	 */
+	DateValue previous();
+
+	/**
+	 * Returns the previous date in the series.
+	 * @return the previous date, as the number of milliseconds since 00:00:00
+	 * Jan 1, 1970 GMT (dates without a time component are returned as
+	 * midnight UTC)
+	 * @throws java.util.NoSuchElementException if there are no earlier dates
+	 */
+	long previousMillis();
+
+	/**
+	 * Skips all dates in the series that come on or after the given date, so
+	 * that the next call to {@link #previous} will return a date before the
+	 * given date (assuming the recurrence includes such a date).
+	 * @param newEndUtc the date to retreat to (in UTC)
+	 */
+	void retreatTo(DateValue newEndUtc);
+
+	/**
+	 * Skips all dates in the series that come on or after the given date, so
+	 * that the next call to {@link #previousMillis} will return a date before
+	 * the given date (assuming the recurrence includes such a date). A value
+	 * that falls on midnight UTC is treated as a date without a time
+	 * component.
+	 * @param newEndMillis the date to retreat to, as the number of
+	 * milliseconds since 00:00:00 Jan 1, 1970 GMT
+	 */
+	void retreatTo(long newEndMillis);
+}
@@ -64,4 +64,19 @@ abstract class ThrottledGenerator extends Generator {
 	 * the outermost loop of any iterator.
 	 */
 	abstract void workDone();
+
+	/**
+	 * <p>
+	 * Positions the generator so that the next call to {@link #generate}
+	 * yields the first value in the series that is on or after the given
+	 * value, without generating each of the values in between.
+	 * </p>
+	 * <p>
+	 * Skipped values do not count against the throttle. The throttle is reset
+	 * instead, so that it limits the values that are searched after the
+	 * target value.
+	 * </p>
+	 * @param value the value to skip to
+	 */
+	abstract void skipTo(int value);
 }
@@ -73,40 +73,83 @@ public class TimeUtils {
 	}
 
 	/**
-	 * Get a "time_t" in milliseconds given a number of seconds since the
-	 * Dershowitz/Reingold epoch relative to a given timezone.
-	 * @param epochSecs the number of seconds since the Dershowitz/Reingold
-	 * epoch relative to the given timezone
-	 * @param zone timezone against which epochSecs applies
+	 * Get a "time_t" in milliseconds given the fields of a date-time in a
+	 * given timezone. Unlike {@link #toUtc}, this method does not create any
+	 * objects, so it can be called once per generated instance of a
+	 * recurrence.
+	 * @param year the year
+	 * @param month the month (1-12)
+	 * @param day the day of the month
+	 * @param hour the hour (0-23)
+	 * @param minute the minute
+	 * @param second the second
+	 * @param zone the timezone the date-time is in
 	 * @return the number of milliseconds since 00:00:00 Jan 1, 1970 GMT
 	 */
-	private static long timetMillisFromEpochSecs(long epochSecs, TimeZone zone) {
-		DateTimeValue date = timeFromSecsSinceEpoch(epochSecs);
-		Calendar cal = new GregorianCalendar(zone);
+	public static long timetMillis(int year, int month, int day, int hour, int minute, int second, TimeZone zone) {
+		if (year <= GREGORIAN_CUTOVER_YEAR || month < 1 || month > 12) {
+			Calendar cal = calendar(zone);
+			cal.set(year, month - 1, day, hour, minute, second);
+			return cal.getTimeInMillis();
+		}
+
+		long localMillis = (fixedFromGregorian(year, month, day) - EPOCH_DAY) * MILLIS_PER_DAY + (second + 60 * (minute + 60L * hour)) * 1000;
+		return (zone == ZULU) ? localMillis : ZoneOffsets.forZone(zone).toUtc(zone, localMillis);
+	}
+
+	/**
+	 * The year in which the Gregorian calendar went into effect. The dates
+	 * that come before it are handled by {@link GregorianCalendar}, which uses
+	 * the Julian calendar for them.
+	 */
+	private static final int GREGORIAN_CUTOVER_YEAR = 1582;
+
+	private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+	/**
+	 * The fixed day (see {@link #fixedFromGregorian(int, int, int)}) of
+	 * January 1, 1970.
+	 */
+	private static final int EPOCH_DAY = fixedFromGregorian(1970, 1, 1);
+
+	/**
+	 * Creating a {@link GregorianCalendar} is expensive, so each thread reuses
+	 * the same instance for all of its conversions.
+	 */
+	private static final ThreadLocal<Calendar> calendar = new ThreadLocal<Calendar>() {
+		@Override
+		protected Calendar initialValue() {
+			return new GregorianCalendar(ZULU);
+		}
+	};
+
+	/**
+	 * Gets the current thread's calendar, cleared and set to the given
+	 * timezone.
+	 * @param zone the timezone
+	 * @return the calendar
+	 */
+	private static Calendar calendar(TimeZone zone) {
+		Calendar cal = calendar.get();
+		cal.setTimeZone(zone);
 		cal.clear();
-		cal.set(date.year(), date.month() - 1, date.day(), date.hour(), date.minute(), date.second());
-		return cal.getTimeInMillis();
+		return cal;
 	}
 
 	private static DateTimeValue convert(DateTimeValue time, TimeZone zone, int sense) {
-		if (zone == null || zone.hasSameRules(ZULU) || time.year() == 0) {
+		if (zone == null || zone == ZULU || time.year() == 0 || ZoneOffsets.forZone(zone).isUtc()) {
 			return time;
 		}
 
-		TimeZone epochTz, dateTimeValueTz;
 		if (sense > 0) {
 			//time is in UTC; convert to time in zone provided
-			epochTz = ZULU;
-			dateTimeValueTz = zone;
-		} else {
-			//time is in local time; convert to UTC
-			epochTz = zone;
-			dateTimeValueTz = ZULU;
+			long timetMillis = timetMillis(time.year(), time.month(), time.day(), time.hour(), time.minute(), time.second(), ZULU);
+			return toDateTimeValue(timetMillis, zone);
 		}
 
-		long epochSeconds = secsSinceEpoch(time);
-		long timetMillis = timetMillisFromEpochSecs(epochSeconds, epochTz);
-		return toDateTimeValue(timetMillis, dateTimeValueTz);
+		//time is in local time; convert to UTC
+		long timetMillis = timetMillis(time.year(), time.month(), time.day(), time.hour(), time.minute(), time.second(), zone);
+		return toDateTimeValue(timetMillis, ZULU);
 	}
 
 	/**
@@ -412,8 +455,16 @@ public class TimeUtils {
 	 * @return the {@link DateTimeValue} object
 	 */
 	public static DateTimeValue toDateTimeValue(long millisFromEpoch, TimeZone zone) {
-		GregorianCalendar c = new GregorianCalendar(zone);
-		c.clear();
+		long localMillis = (zone == ZULU) ? millisFromEpoch : millisFromEpoch + ZoneOffsets.forZone(zone).getOffset(zone, millisFromEpoch);
+		if (localMillis >= GREGORIAN_CUTOVER_MILLIS) {
+			long localSecs = localMillis / 1000;
+			if (localMillis % 1000 < 0) {
+				localSecs--;
+			}
+			return timeFromSecsSinceEpoch(localSecs + EPOCH_DAY * SECS_PER_DAY);
+		}
+
+		Calendar c = calendar(zone);
 		c.setTimeInMillis(millisFromEpoch);
 		//@formatter:off
 		return new DateTimeValueImpl (
@@ -427,6 +478,11 @@ public class TimeUtils {
 		//@formatter:on
 	}
 
+	/**
+	 * The first instant of the year after the Gregorian cutover year.
+	 */
+	private static final long GREGORIAN_CUTOVER_MILLIS = (fixedFromGregorian(GREGORIAN_CUTOVER_YEAR + 1, 1, 1) - EPOCH_DAY) * MILLIS_PER_DAY;
+
 	private static final TimeValue MIDNIGHT = new TimeValue() {
 		public int hour() {
 			return 0;
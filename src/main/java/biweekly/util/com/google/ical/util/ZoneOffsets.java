@@ -0,0 +1,319 @@
+package biweekly.util.com.google.ical.util;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.WeakHashMap;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * <p>
+ * Converts times between UTC and the local time of a timezone using a cached
+ * table of the timezone's UTC offsets.
+ * </p>
+ * <p>
+ * The table is built one year at a time, the first time a year is needed.
+ * Each year's table holds the instants at which the timezone's UTC offset
+ * changes, and the offsets that are in effect between them. After that,
+ * converting a time is just a matter of looking up the offset in the table
+ * and adding it to the time. The tables are cached by timezone object
+ * identity, and are discarded when the timezone object is garbage collected.
+ * </p>
+ * <p>
+ * Local times that fall into a daylight savings gap or overlap are handled the
+ * same way that {@link java.util.GregorianCalendar} handles them for the
+ * JDK's timezones. A local time that does not exist (because the clocks were
+ * turned forward) is interpreted using the UTC offset that was in effect
+ * before the gap, as described in RFC 5545 (section 3.3.5). A local time that
+ * occurs twice (because the clocks were turned back) refers to the second
+ * occurrence, which is consistent with how the rest of the library
+ * interprets local times.
+ * </p>
+ * <p>
+ * Note that the tables assume that the timezone's rules never change. A
+ * timezone object that is modified after it is used should not be used with
+ * this class.
+ * </p>
+ * @author Michael Angstadt
+ */
+final class ZoneOffsets {
+	private static final long MILLIS_PER_HOUR = 60L * 60 * 1000;
+	private static final long MILLIS_PER_DAY = 24 * MILLIS_PER_HOUR;
+	private static final int EPOCH_DAY = TimeUtils.fixedFromGregorian(1970, 1, 1);
+
+	/**
+	 * The range of years whose tables are cached. Times outside of this range
+	 * are converted by asking the timezone directly.
+	 */
+	private static final int FIRST_YEAR = 1600, LAST_YEAR = 2600;
+
+	/**
+	 * How often the timezone's UTC offset is sampled when looking for the
+	 * instants at which it changes.
+	 */
+	private static final long SAMPLE_INTERVAL = 6 * MILLIS_PER_HOUR;
+
+	/**
+	 * The cached tables. Timezones are compared using equals(), so equal
+	 * timezone objects (such as the clones returned by
+	 * {@link TimeZone#getTimeZone(String)}) share the same table. The JDK's
+	 * timezone classes only consider two timezones equal if they have the
+	 * same ID and rules, and timezone classes that do not override equals()
+	 * are compared by identity.
+	 */
+	private static final Map<TimeZone, ZoneOffsets> cache = new WeakHashMap<TimeZone, ZoneOffsets>();
+
+	/**
+	 * The most recently used object. Most conversions involve the same
+	 * timezone as the conversion before them, so checking this first avoids
+	 * having to synchronize on the cache.
+	 */
+	private static volatile ZoneOffsets last;
+
+	/**
+	 * The timezone that the table was created for. It is only used to check
+	 * whether this object can be returned by {@link #forZone} without
+	 * looking in the cache.
+	 */
+	private final WeakReference<TimeZone> zoneRef;
+	private final boolean utc;
+	private final YearTable[] years = new YearTable[LAST_YEAR - FIRST_YEAR];
+
+	/**
+	 * Gets the offset table of the given timezone.
+	 * @param zone the timezone
+	 * @return the offset table
+	 */
+	static ZoneOffsets forZone(TimeZone zone) {
+		ZoneOffsets offsets = last;
+		if (offsets != null && offsets.isFor(zone)) {
+			return offsets;
+		}
+
+		synchronized (cache) {
+			offsets = cache.get(zone);
+			if (offsets == null) {
+				offsets = new ZoneOffsets(zone);
+				cache.put(zone, offsets);
+			}
+		}
+
+		last = offsets;
+		return offsets;
+	}
+
+	private ZoneOffsets(TimeZone zone) {
+		zoneRef = new WeakReference<TimeZone>(zone);
+		utc = zone.hasSameRules(TimeUtils.utcTimezone());
+	}
+
+	private boolean isFor(TimeZone zone) {
+		TimeZone cached = zoneRef.get();
+		return cached == zone || (cached != null && cached.equals(zone));
+	}
+
+	/**
+	 * Determines if the timezone has the same rules as UTC.
+	 * @return true if it has the same rules as UTC, false if not
+	 */
+	boolean isUtc() {
+		return utc;
+	}
+
+	/**
+	 * Gets the UTC offset that is in effect at the given instant.
+	 * @param zone the timezone that this table was retrieved for
+	 * @param utcMillis the instant (in milliseconds since the epoch)
+	 * @return the UTC offset (in milliseconds)
+	 */
+	int getOffset(TimeZone zone, long utcMillis) {
+		YearTable table = table(zone, utcMillis);
+		return (table == null) ? zone.getOffset(utcMillis) : table.getOffset(utcMillis);
+	}
+
+	/**
+	 * Converts a local time to UTC.
+	 * @param zone the timezone that this table was retrieved for
+	 * @param localMillis the local time, expressed as if it were the number
+	 * of milliseconds since the epoch in UTC
+	 * @return the number of milliseconds since the epoch
+	 */
+	long toUtc(TimeZone zone, long localMillis) {
+		YearTable table = table(zone, localMillis);
+		if (table == null) {
+			//interpret the time the same way that GregorianCalendar does
+			return localMillis - zone.getOffset(localMillis - zone.getRawOffset());
+		}
+		return table.toUtc(localMillis);
+	}
+
+	/**
+	 * Gets the table that covers the year that the given time falls in.
+	 * @param zone the timezone to build the table from if it has not been
+	 * built yet
+	 * @param millis the time
+	 * @return the table or null if the year is not cached
+	 */
+	private YearTable table(TimeZone zone, long millis) {
+		int year = yearOf(millis);
+		if (year < FIRST_YEAR || year >= LAST_YEAR) {
+			return null;
+		}
+
+		/*
+		 * The tables are immutable, so if two threads race to build the same
+		 * table, the only harm done is that it is built twice.
+		 */
+		int index = year - FIRST_YEAR;
+		YearTable table = years[index];
+		if (table == null) {
+			table = new YearTable(zone, year);
+			years[index] = table;
+		}
+		return table;
+	}
+
+	/**
+	 * Gets the year that the given time falls in.
+	 * @param millis the number of milliseconds since the epoch
+	 * @return the year
+	 */
+	private static int yearOf(long millis) {
+		long days = millis / MILLIS_PER_DAY;
+		if (millis % MILLIS_PER_DAY < 0) {
+			days--;
+		}
+
+		int year = 1970 + (int) (days * 400 / 146097);
+		while (millis < startOfYear(year)) {
+			year--;
+		}
+		while (millis >= startOfYear(year + 1)) {
+			year++;
+		}
+		return year;
+	}
+
+	private static long startOfYear(int year) {
+		return (TimeUtils.fixedFromGregorian(year, 1, 1) - EPOCH_DAY) * MILLIS_PER_DAY;
+	}
+
+	/**
+	 * Holds the UTC offsets of a single year. The table extends one day past
+	 * either end of the year, so that it covers every local time in the year,
+	 * no matter what the UTC offset is.
+	 */
+	private static class YearTable {
+		/**
+		 * The instants at which the UTC offset changes, sorted.
+		 */
+		private final long[] transitions;
+
+		/**
+		 * The UTC offset that is in effect before each transition. The last
+		 * element is the offset that is in effect after the last transition.
+		 */
+		private final int[] offsets;
+
+		public YearTable(TimeZone zone, int year) {
+			long start = startOfYear(year) - MILLIS_PER_DAY;
+			long end = startOfYear(year + 1) + MILLIS_PER_DAY;
+
+			List<Long> transitions = new ArrayList<Long>();
+			List<Integer> offsets = new ArrayList<Integer>();
+
+			long time = start;
+			int offset = zone.getOffset(time);
+			offsets.add(offset);
+			while (time < end) {
+				long next = Math.min(time + SAMPLE_INTERVAL, end);
+				if (zone.getOffset(next) == offset) {
+					time = next;
+					continue;
+				}
+
+				//find the exact instant that the offset changes
+				long low = time, high = next;
+				while (high - low > 1) {
+					long mid = low + (high - low) / 2;
+					if (zone.getOffset(mid) == offset) {
+						low = mid;
+					} else {
+						high = mid;
+					}
+				}
+
+				time = high;
+				offset = zone.getOffset(time);
+				transitions.add(time);
+				offsets.add(offset);
+			}
+
+			this.transitions = new long[transitions.size()];
+			for (int i = 0; i < this.transitions.length; i++) {
+				this.transitions[i] = transitions.get(i);
+			}
+			this.offsets = new int[offsets.size()];
+			for (int i = 0; i < this.offsets.length; i++) {
+				this.offsets[i] = offsets.get(i);
+			}
+		}
+
+		public int getOffset(long utcMillis) {
+			int i = 0;
+			while (i < transitions.length && utcMillis >= transitions[i]) {
+				i++;
+			}
+			return offsets[i];
+		}
+
+		public long toUtc(long localMillis) {
+			int offset = offsets[0];
+			for (int i = 0; i < transitions.length; i++) {
+				long transition = transitions[i];
+				int before = offsets[i];
+				int after = offsets[i + 1];
+
+				if (localMillis < transition + Math.min(before, after)) {
+					//the local time comes before the transition
+					break;
+				}
+
+				/*
+				 * If the local time does not exist after the transition, then
+				 * it falls into a gap, and the offset that was in effect
+				 * before the gap is used. If it falls into an overlap, then
+				 * the offset that is in effect after the transition is used.
+				 */
+				offset = (localMillis - after < transition) ? before : after;
+			}
+			return localMillis - offset;
+		}
+	}
+}
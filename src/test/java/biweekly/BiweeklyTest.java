@@ -5,6 +5,7 @@ import static biweekly.util.StringUtils.NEWLINE;
 import static biweekly.util.TestUtils.assertIntEquals;
 import static biweekly.util.TestUtils.assertParseWarnings;
 import static biweekly.util.TestUtils.assertRegex;
+import static biweekly.util.TestUtils.utc;
 import static org.custommonkey.xmlunit.XMLAssert.assertXMLEqual;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -16,6 +17,7 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.TimeZone;
 
 import org.junit.Rule;
 import org.junit.Test;
@@ -24,7 +26,9 @@ import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 
 import biweekly.component.ICalComponent;
+import biweekly.component.VEvent;
 import biweekly.io.CannotParseException;
+import biweekly.io.JavaTimezoneGenerator;
 import biweekly.io.ParseContext;
 import biweekly.io.ParseWarning;
 import biweekly.io.WriteContext;
@@ -425,6 +429,20 @@ public class BiweeklyTest {
 		assertRegex(expected, actual);
 	}
 
+	@Test
+	public void write_tz_generator() {
+		ICalendar ical = new ICalendar();
+		VEvent event = new VEvent();
+		event.setDateStart(utc("2017-07-01 16:00:00"));
+		ical.addEvent(event);
+
+		//the VTIMEZONE component is created without accessing the network
+		String actual = Biweekly.write(ical).tz(TimeZone.getTimeZone("America/New_York"), new JavaTimezoneGenerator()).go();
+
+		assertTrue(actual.contains("BEGIN:VTIMEZONE\r\nTZID:America/New_York\r\n"));
+		assertTrue(actual.contains("DTSTART;TZID=America/New_York:20170701T120000\r\n"));
+	}
+
 	@Test
 	public void write_file() throws Exception {
 		ICalendar ical = new ICalendar();
@@ -1,12 +1,16 @@
 package biweekly.io;
 
+import static biweekly.util.TestUtils.utc;
 import static biweekly.util.TestUtils.vtimezoneNewYork;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.TimeZone;
 
 import org.junit.ClassRule;
@@ -19,8 +23,11 @@ import biweekly.component.VTimezone;
 import biweekly.property.TimezoneOffsetFrom;
 import biweekly.property.TimezoneOffsetTo;
 import biweekly.util.DateTimeComponents;
+import biweekly.util.DayOfWeek;
 import biweekly.util.DefaultTimezoneRule;
+import biweekly.util.Frequency;
 import biweekly.util.ICalDate;
+import biweekly.util.Recurrence;
 import biweekly.util.UtcOffset;
 import biweekly.util.com.google.ical.iter.RecurrenceIterator;
 import biweekly.util.com.google.ical.values.DateTimeValueImpl;
@@ -58,6 +65,8 @@ public class ICalTimeZoneTest {
 	@ClassRule
 	public static final DefaultTimezoneRule tzRule = new DefaultTimezoneRule(3, 0);
 
+	private final UtcOffset plus1 = new UtcOffset(true, 1, 0);
+	private final UtcOffset plus2 = new UtcOffset(true, 2, 0);
 	private final UtcOffset minus4 = new UtcOffset(false, 4, 0);
 	private final UtcOffset minus5 = new UtcOffset(false, 5, 0);
 
@@ -329,6 +338,146 @@ public class ICalTimeZoneTest {
 		assertOffset(-4, 0, true, tz, 2014, 3, 10);
 	}
 
+	@Test
+	public void getOffset_recurring_from_1601() {
+		VTimezone component = new VTimezone("W. Europe Standard Time");
+		{
+			StandardTime standard = new StandardTime();
+			standard.setDateStart(new DateTimeComponents(1601, 1, 1, 3, 0, 0, false));
+			standard.setTimezoneOffsetFrom(plus2);
+			standard.setTimezoneOffsetTo(plus1);
+			standard.setRecurrenceRule(new Recurrence.Builder(Frequency.YEARLY).byMonth(10).byDay(-1, DayOfWeek.SUNDAY).build());
+			component.addStandardTime(standard);
+
+			DaylightSavingsTime daylight = new DaylightSavingsTime();
+			daylight.setDateStart(new DateTimeComponents(1601, 1, 1, 2, 0, 0, false));
+			daylight.setTimezoneOffsetFrom(plus1);
+			daylight.setTimezoneOffsetTo(plus2);
+			daylight.setRecurrenceRule(new Recurrence.Builder(Frequency.YEARLY).byMonth(3).byDay(-1, DayOfWeek.SUNDAY).build());
+			component.addDaylightSavingsTime(daylight);
+		}
+
+		ICalTimeZone tz = new ICalTimeZone(component);
+
+		assertOffset(1, 0, false, tz, 2027, 3, 28, 1, 59, 59);
+		assertOffset(2, 0, true, tz, 2027, 3, 28, 2, 0, 0);
+		assertOffset(2, 0, true, tz, 2027, 9, 25);
+		assertOffset(2, 0, true, tz, 2027, 10, 31, 2, 59, 59);
+		assertOffset(1, 0, false, tz, 2027, 10, 31, 3, 0, 0);
+	}
+
+	@Test
+	public void getOffset_outside_of_window() {
+		VTimezone component = vtimezoneNewYork();
+		ICalTimeZone tz = new ICalTimeZone(component, 2000, 2001);
+
+		//window is extended in both directions
+		assertOffset(-4, 0, true, tz, 2014, 3, 10);
+		assertOffset(-5, 0, false, tz, 1977, 1, 1);
+		assertOffset(-4, 56, false, tz, 1883, 11, 17);
+		assertOffset(-4, 0, true, tz, 2000, 7, 1);
+
+		assertOffset(-4, 0, true, tz, 2500, 7, 1);
+		assertOffset(-5, 0, false, tz, 2500, 12, 1);
+	}
+
+	@Test
+	public void getOffset_instant() {
+		//Lord Howe Island moves its clocks forward by 30 minutes
+		UtcOffset plus1030 = new UtcOffset(true, 10, 30);
+		UtcOffset plus11 = new UtcOffset(true, 11, 0);
+		VTimezone component = new VTimezone("Australia/Lord_Howe");
+		{
+			StandardTime standard = new StandardTime();
+			standard.setDateStart(new DateTimeComponents(2008, 4, 6, 2, 0, 0, false));
+			standard.setTimezoneOffsetFrom(plus11);
+			standard.setTimezoneOffsetTo(plus1030);
+			standard.setRecurrenceRule(new Recurrence.Builder(Frequency.YEARLY).byMonth(4).byDay(1, DayOfWeek.SUNDAY).build());
+			component.addStandardTime(standard);
+
+			DaylightSavingsTime daylight = new DaylightSavingsTime();
+			daylight.setDateStart(new DateTimeComponents(2008, 10, 5, 2, 0, 0, false));
+			daylight.setTimezoneOffsetFrom(plus1030);
+			daylight.setTimezoneOffsetTo(plus11);
+			daylight.setRecurrenceRule(new Recurrence.Builder(Frequency.YEARLY).byMonth(10).byDay(1, DayOfWeek.SUNDAY).build());
+			component.addDaylightSavingsTime(daylight);
+		}
+
+		ICalTimeZone tz = new ICalTimeZone(component);
+		assertEquals(30 * 60 * 1000, tz.getDSTSavings());
+
+		//2017-10-01 02:00 local = 2017-09-30 15:30 UTC
+		assertEquals(ms(10, 30, 0), tz.getOffset(utc("2017-09-30 15:29:59").getTime()));
+		assertEquals(ms(11, 0, 0), tz.getOffset(utc("2017-09-30 15:30:00").getTime()));
+		assertEquals(ms(11, 0, 0), tz.getOffset(utc("2017-12-25 00:00:00").getTime()));
+
+		//2017-04-02 02:00 local = 2017-04-01 15:00 UTC
+		assertEquals(ms(11, 0, 0), tz.getOffset(utc("2017-04-01 14:59:59").getTime()));
+		assertEquals(ms(10, 30, 0), tz.getOffset(utc("2017-04-01 15:00:00").getTime()));
+
+		//outside of the default window
+		assertEquals(ms(11, 0, 0), tz.getOffset(utc("2150-01-01 00:00:00").getTime()));
+
+		//Calendar uses this method to compute its fields
+		Calendar c = Calendar.getInstance(tz);
+		c.setTime(utc("2017-09-30 15:30:00"));
+		assertEquals(1, c.get(Calendar.DATE));
+		assertEquals(2, c.get(Calendar.HOUR_OF_DAY));
+		assertEquals(30, c.get(Calendar.MINUTE));
+		assertEquals(30 * 60 * 1000, c.get(Calendar.DST_OFFSET));
+	}
+
+	@Test
+	public void getDSTSavings_no_daylight() {
+		VTimezone component = new VTimezone("Asia/Tokyo");
+		{
+			StandardTime standard = new StandardTime();
+			standard.setDateStart(new DateTimeComponents(1951, 9, 8, 0, 0, 0, false));
+			standard.setTimezoneOffsetFrom(new UtcOffset(true, 10, 0));
+			standard.setTimezoneOffsetTo(new UtcOffset(true, 9, 0));
+			component.addStandardTime(standard);
+		}
+
+		ICalTimeZone tz = new ICalTimeZone(component);
+		assertEquals(0, tz.getDSTSavings());
+		assertEquals(ms(9, 0, 0), tz.getOffset(utc("2017-01-01 00:00:00").getTime()));
+	}
+
+	@Test
+	public void concurrent_access() throws Throwable {
+		final ICalTimeZone tz = new ICalTimeZone(vtimezoneNewYork());
+		final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+
+		Thread[] threads = new Thread[8];
+		for (int i = 0; i < threads.length; i++) {
+			final int offset = i;
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						for (int year = 1946 + offset; year < 2014; year++) {
+							assertOffset(-4, 0, true, tz, year, 7, 15);
+							assertOffset(-5, 0, false, tz, year, 12, 15);
+						}
+					} catch (Throwable t) {
+						errors.add(t);
+					}
+				}
+			};
+		}
+
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		if (!errors.isEmpty()) {
+			throw errors.get(0);
+		}
+	}
+
 	@Test
 	public void createIterator() {
 		VTimezone component = vtimezoneNewYork();
@@ -0,0 +1,157 @@
+package biweekly.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.Iterator;
+import java.util.SimpleTimeZone;
+import java.util.TimeZone;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import biweekly.component.DaylightSavingsTime;
+import biweekly.component.Observance;
+import biweekly.component.StandardTime;
+import biweekly.component.VTimezone;
+import biweekly.util.DateTimeComponents;
+import biweekly.util.DayOfWeek;
+import biweekly.util.Frequency;
+import biweekly.util.ICalDate;
+import biweekly.util.Recurrence;
+import biweekly.util.UtcOffset;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class JavaTimezoneGeneratorTest {
+	@Before
+	public void before() {
+		JavaTimezoneGenerator.clearCache();
+	}
+
+	@Test
+	public void generate() {
+		JavaTimezoneGenerator generator = new JavaTimezoneGenerator(2000, 2020);
+		VTimezone component = generator.generate(TimeZone.getTimeZone("America/New_York"));
+		assertEquals("America/New_York", component.getTimezoneId().getValue());
+
+		Iterator<DaylightSavingsTime> daylights = component.getDaylightSavingsTime().iterator();
+		Iterator<StandardTime> standards = component.getStandardTimes().iterator();
+
+		//@formatter:off
+		assertObservance(daylights.next(), new DateTimeComponents(2000, 4, 2, 2, 0, 0, false), -5, -4,
+			new Recurrence.Builder(Frequency.YEARLY).byMonth(4).byDay(1, DayOfWeek.SUNDAY).until(utc(2006, 4, 2, 7)).build());
+		assertObservance(daylights.next(), new DateTimeComponents(2007, 3, 11, 2, 0, 0, false), -5, -4,
+			new Recurrence.Builder(Frequency.YEARLY).byMonth(3).byDay(2, DayOfWeek.SUNDAY).build());
+		assertFalse(daylights.hasNext());
+
+		assertObservance(standards.next(), new DateTimeComponents(2000, 10, 29, 2, 0, 0, false), -4, -5,
+			new Recurrence.Builder(Frequency.YEARLY).byMonth(10).byDay(-1, DayOfWeek.SUNDAY).until(utc(2006, 10, 29, 6)).build());
+		assertObservance(standards.next(), new DateTimeComponents(2007, 11, 4, 2, 0, 0, false), -4, -5,
+			new Recurrence.Builder(Frequency.YEARLY).byMonth(11).byDay(1, DayOfWeek.SUNDAY).build());
+		assertFalse(standards.hasNext());
+		//@formatter:on
+	}
+
+	@Test
+	public void generate_no_daylight_savings_time() {
+		JavaTimezoneGenerator generator = new JavaTimezoneGenerator(2000, 2020);
+		VTimezone component = generator.generate(new SimpleTimeZone(2 * 60 * 60 * 1000, "Test"));
+
+		assertTrue(component.getDaylightSavingsTime().isEmpty());
+		assertEquals(1, component.getStandardTimes().size());
+		assertObservance(component.getStandardTimes().get(0), new DateTimeComponents(2000, 1, 1, 0, 0, 0, false), 2, 2, null);
+	}
+
+	@Test
+	public void generate_matches_jvm() {
+		String[] ids = { "America/New_York", "Europe/Paris", "Australia/Sydney", "America/Sao_Paulo", "Asia/Kolkata", "Europe/Istanbul" };
+		for (String id : ids) {
+			TimeZone expected = TimeZone.getTimeZone(id);
+			JavaTimezoneGenerator generator = new JavaTimezoneGenerator(1990, 2030);
+			ICalTimeZone actual = new ICalTimeZone(generator.generate(expected));
+
+			Calendar c = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+			c.clear();
+			c.set(1990, Calendar.JANUARY, 1);
+			long end = utc(2031, 1, 1, 0).getTime();
+			long hour = 60 * 60 * 1000;
+			for (long time = c.getTimeInMillis(); time < end; time += 7 * hour) {
+				int offset = expected.getOffset(time);
+
+				//skip the hours around a transition, since local times are ambiguous there
+				if (expected.getOffset(time - 3 * hour) != offset || expected.getOffset(time + 3 * hour) != offset) {
+					continue;
+				}
+
+				c.setTimeInMillis(time + offset);
+				int millis = ((c.get(Calendar.HOUR_OF_DAY) * 60 + c.get(Calendar.MINUTE)) * 60 + c.get(Calendar.SECOND)) * 1000;
+				int actualOffset = actual.getOffset(GregorianCalendar.AD, c.get(Calendar.YEAR), c.get(Calendar.MONTH), c.get(Calendar.DATE), c.get(Calendar.DAY_OF_WEEK), millis);
+				assertEquals(id + " " + c.getTime(), offset, actualOffset);
+			}
+		}
+	}
+
+	@Test
+	public void cache() {
+		JavaTimezoneGenerator generator = new JavaTimezoneGenerator(2000, 2020);
+		TimeZone timezone = TimeZone.getTimeZone("Europe/Paris");
+		VTimezone first = generator.generate(timezone);
+		VTimezone second = generator.generate(timezone);
+		assertEquals(first, second);
+		assertNotSame(first, second);
+
+		//a different year range is cached separately
+		VTimezone third = new JavaTimezoneGenerator(2010, 2020).generate(timezone);
+		assertEquals(new DateTimeComponents(2010, 3, 28, 2, 0, 0, false), third.getDaylightSavingsTime().get(0).getDateStart().getValue().getRawComponents());
+	}
+
+	private static void assertObservance(Observance observance, DateTimeComponents start, int offsetFrom, int offsetTo, Recurrence rrule) {
+		assertEquals(start, observance.getDateStart().getValue().getRawComponents());
+		assertEquals(new UtcOffset(offsetFrom * 60 * 60 * 1000), observance.getTimezoneOffsetFrom().getValue());
+		assertEquals(new UtcOffset(offsetTo * 60 * 60 * 1000), observance.getTimezoneOffsetTo().getValue());
+		if (rrule == null) {
+			assertNull(observance.getRecurrenceRule());
+		} else {
+			assertEquals(rrule, observance.getRecurrenceRule().getValue());
+		}
+	}
+
+	private static ICalDate utc(int year, int month, int date, int hour) {
+		Calendar c = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+		c.clear();
+		c.set(year, month - 1, date, hour, 0, 0);
+		return new ICalDate(c.getTime());
+	}
+}
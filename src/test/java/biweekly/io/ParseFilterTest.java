@@ -0,0 +1,96 @@
+package biweekly.io;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import biweekly.ICalendar;
+import biweekly.component.DaylightSavingsTime;
+import biweekly.component.VEvent;
+import biweekly.component.VTimezone;
+
+/*
+Copyright (c) 2013-2017, Michael Angstadt
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met: 
+
+1. Redistributions of source code must retain the above copyright notice, this
+list of conditions and the following disclaimer. 
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution. 
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+/**
+ * @author Michael Angstadt
+ */
+public class ParseFilterTest {
+	@Test
+	public void empty() {
+		ParseFilter filter = new ParseFilter();
+		assertTrue(filter.isComponentIncluded("VEVENT"));
+		assertTrue(filter.isPropertyIncluded("SUMMARY", new VEvent()));
+	}
+
+	@Test
+	public void components() {
+		ParseFilter filter = new ParseFilter().includeComponents("vevent", "VALARM").excludeComponents("valarm");
+		assertTrue(filter.isComponentIncluded("VCALENDAR"));
+		assertTrue(filter.isComponentIncluded("VEVENT"));
+		assertTrue(filter.isComponentIncluded("vevent"));
+		assertFalse(filter.isComponentIncluded("VALARM"));
+		assertFalse(filter.isComponentIncluded("VTODO"));
+
+		//timezone components are included by default
+		assertTrue(filter.isComponentIncluded("VTIMEZONE"));
+		assertTrue(filter.isComponentIncluded("STANDARD"));
+		assertTrue(filter.isComponentIncluded("DAYLIGHT"));
+
+		filter.excludeComponents("VTIMEZONE");
+		assertFalse(filter.isComponentIncluded("VTIMEZONE"));
+
+		//VCALENDAR is always included
+		filter.excludeComponents("VCALENDAR");
+		assertTrue(filter.isComponentIncluded("VCALENDAR"));
+	}
+
+	@Test
+	public void properties() {
+		VEvent event = new VEvent();
+		ParseFilter filter = new ParseFilter().includeProperties("uid", "DTSTART", "SUMMARY").excludeProperties("summary");
+		assertTrue(filter.isPropertyIncluded("UID", event));
+		assertTrue(filter.isPropertyIncluded("dtstart", event));
+		assertFalse(filter.isPropertyIncluded("SUMMARY", event));
+		assertFalse(filter.isPropertyIncluded("ATTACH", event));
+
+		//VERSION is always included
+		filter.excludeProperties("VERSION");
+		assertTrue(filter.isPropertyIncluded("VERSION", event));
+
+		//vCal timezone properties are always included in the VCALENDAR component
+		filter.excludeProperties("TZ", "DAYLIGHT");
+		assertTrue(filter.isPropertyIncluded("TZ", new ICalendar()));
+		assertTrue(filter.isPropertyIncluded("daylight", new ICalendar()));
+		assertFalse(filter.isPropertyIncluded("TZ", event));
+		assertFalse(filter.isPropertyIncluded("DAYLIGHT", event));
+
+		//properties of timezone components are always included
+		filter.excludeProperties("TZID", "TZOFFSETTO");
+		assertTrue(filter.isPropertyIncluded("TZID", new VTimezone("id")));
+		assertTrue(filter.isPropertyIncluded("TZOFFSETTO", new DaylightSavingsTime()));
+	}
+}
@@ -1,5 +1,10 @@
 package biweekly.io;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
 import java.util.TimeZone;
 
 import org.junit.Test;
@@ -57,4 +62,15 @@ public class TimezoneAssignmentTest {
 		VTimezone component = new VTimezone(" ");
 		new TimezoneAssignment(timezone, component);
 	}
+
+	@Test
+	public void generate() {
+		TimeZone timezone = TimeZone.getTimeZone("America/New_York");
+		TimezoneAssignment assignment = TimezoneAssignment.generate(timezone);
+		assertSame(timezone, assignment.getTimeZone());
+		assertEquals("America/New_York", assignment.getComponent().getTimezoneId().getValue());
+		assertFalse(assignment.getComponent().getDaylightSavingsTime().isEmpty());
+		assertFalse(assignment.getComponent().getStandardTimes().isEmpty());
+		assertNull(assignment.getGlobalId());
+	}
 }
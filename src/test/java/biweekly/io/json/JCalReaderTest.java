@@ -35,6 +35,7 @@ import biweekly.component.VEvent;
 import biweekly.component.VTimezone;
 import biweekly.io.ICalTimeZone;
 import biweekly.io.ParseContext;
+import biweekly.io.ParseFilter;
 import biweekly.io.TimezoneAssignment;
 import biweekly.io.TimezoneInfo;
 import biweekly.io.WriteContext;
@@ -144,6 +145,56 @@ public class JCalReaderTest {
 		assertParseWarnings(reader);
 	}
 
+	@Test
+	public void parse_filter() throws Throwable {
+		//@formatter:off
+		String json =
+		"[\"vcalendar\"," +
+			"[" +
+				"[\"prodid\", {}, \"text\", \"test\"]," +
+				"[\"version\", {}, \"text\", \"2.0\"]" +
+			"]," +
+			"[" +
+				"[\"vevent\"," +
+					"[" +
+						"[\"uid\", {}, \"text\", \"one\"]," +
+						"[\"summary\", {}, \"text\", \"one\"]" +
+					"]," +
+					"[" +
+						"[\"valarm\"," +
+							"[" +
+								"[\"action\", {}, \"text\", \"DISPLAY\"]" +
+							"]," +
+							"[" +
+							"]" +
+						"]" +
+					"]" +
+				"]," +
+				"[\"vtodo\"," +
+					"[" +
+						"[\"uid\", {}, \"text\", \"two\"]" +
+					"]," +
+					"[" +
+					"]" +
+				"]" +
+			"]" +
+		"]";
+		//@formatter:on
+
+		JCalReader reader = new JCalReader(json);
+		reader.setParseFilter(new ParseFilter().excludeComponents("valarm", "vtodo").excludeProperties("summary", "prodid"));
+		ICalendar ical = reader.readNext();
+		assertSize(ical, 1, 0);
+		assertVersion(V2_0, ical);
+
+		VEvent event = ical.getEvents().get(0);
+		assertSize(event, 0, 1);
+		assertEquals("one", event.getUid().getValue());
+
+		assertParseWarnings(reader);
+		assertNull(reader.readNext());
+	}
+
 	@Test
 	public void read_multiple() throws Throwable {
 		//@formatter:off
@@ -0,0 +1,94 @@
+package biweekly.io.scribe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class CaseInsensitiveMapTest {
+	@Test
+	public void get() {
+		CaseInsensitiveMap<String> map = new CaseInsensitiveMap<String>();
+		assertNull(map.get("one"));
+
+		map.put("one", "1");
+		assertEquals("1", map.get("one"));
+		assertEquals("1", map.get("ONE"));
+		assertEquals("1", map.get("One"));
+		assertNull(map.get("two"));
+		assertEquals(1, map.size());
+
+		map.put("ONE", "uno");
+		assertEquals("uno", map.get("one"));
+		assertEquals(1, map.size());
+	}
+
+	@Test
+	public void resize() {
+		CaseInsensitiveMap<Integer> map = new CaseInsensitiveMap<Integer>();
+		for (int i = 0; i < 100; i++) {
+			map.put("x-prop-" + i, i);
+		}
+
+		assertEquals(100, map.size());
+		for (int i = 0; i < 100; i++) {
+			assertEquals(Integer.valueOf(i), map.get("X-PROP-" + i));
+		}
+	}
+
+	@Test
+	public void remove() {
+		CaseInsensitiveMap<String> map = new CaseInsensitiveMap<String>();
+		assertNull(map.remove("one"));
+
+		map.put("one", "1");
+		map.put("two", "2");
+		assertEquals("1", map.remove("ONE"));
+		assertNull(map.get("one"));
+		assertEquals("2", map.get("two"));
+		assertEquals(1, map.size());
+	}
+
+	@Test
+	public void copy() {
+		CaseInsensitiveMap<String> map = new CaseInsensitiveMap<String>();
+		map.put("one", "1");
+
+		CaseInsensitiveMap<String> copy = new CaseInsensitiveMap<String>(map);
+		assertEquals("1", copy.get("ONE"));
+
+		map.put("two", "2");
+		assertNull(copy.get("two"));
+
+		copy = new CaseInsensitiveMap<String>(new CaseInsensitiveMap<String>());
+		assertEquals(0, copy.size());
+	}
+}
@@ -5,8 +5,11 @@ import static biweekly.ICalVersion.V2_0;
 import static biweekly.ICalVersion.V2_0_DEPRECATED;
 import static biweekly.util.TestUtils.each;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import javax.xml.namespace.QName;
 
@@ -212,6 +215,68 @@ public class ScribeIndexTest {
 		assertNull(scribe);
 	}
 
+	@Test
+	public void getPropertyScribe_case_insensitive() {
+		assertTrue(index.getPropertyScribe("uid", V2_0) instanceof UidScribe);
+		assertTrue(index.getPropertyScribe("Uid", V2_0) instanceof UidScribe);
+		assertTrue(index.getComponentScribe("vevent", V2_0) instanceof VEventScribe);
+	}
+
+	@Test
+	public void raw_scribes_are_cached() {
+		ICalPropertyScribe<? extends ICalProperty> property = index.getPropertyScribe("x-foo", V2_0);
+		assertEquals("X-FOO", property.getPropertyName(V2_0));
+		assertSame(property, index.getPropertyScribe("X-FOO", V2_0));
+		assertSame(property, index.getPropertyScribe("x-foo", V2_0));
+
+		ICalComponentScribe<? extends ICalComponent> component = index.getComponentScribe("x-foo", V2_0);
+		assertEquals("X-FOO", component.getComponentName());
+		assertSame(component, index.getComponentScribe("X-FOO", V2_0));
+	}
+
+	@Test
+	public void freeze() {
+		ICalPropertyScribe<? extends ICalProperty> customScribe = new ICalPropertyImplScribe();
+		index.register(customScribe);
+		assertFalse(index.isFrozen());
+
+		ScribeIndex frozen = index.freeze();
+		assertTrue(frozen.isFrozen());
+		assertSame(frozen, frozen.freeze());
+		assertEquals(customScribe, frozen.getPropertyScribe(ICalPropertyImpl.class));
+
+		try {
+			frozen.register(new ICalPropertyImplScribe());
+			fail();
+		} catch (UnsupportedOperationException e) {
+			//expected
+		}
+
+		try {
+			frozen.unregister(customScribe);
+			fail();
+		} catch (UnsupportedOperationException e) {
+			//expected
+		}
+
+		//changes to the original do not affect the frozen copy
+		index.unregister(customScribe);
+		assertEquals(customScribe, frozen.getPropertyScribe(ICalPropertyImpl.class));
+
+		//copies are not frozen
+		ScribeIndex copy = new ScribeIndex(frozen);
+		assertFalse(copy.isFrozen());
+		copy.unregister(customScribe);
+		assertNull(copy.getPropertyScribe(ICalPropertyImpl.class));
+	}
+
+	@Test
+	public void getDefaultIndex() {
+		ScribeIndex index = ScribeIndex.getDefaultIndex();
+		assertTrue(index.isFrozen());
+		assertTrue(index.getPropertyScribe("UID", V2_0) instanceof UidScribe);
+	}
+
 	private class ICalComponentImpl extends ICalComponent {
 		//empty
 	}
@@ -19,8 +19,10 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.TimeZone;
 
 import org.junit.ClassRule;
@@ -40,9 +42,12 @@ import biweekly.component.VFreeBusy;
 import biweekly.component.VJournal;
 import biweekly.component.VTimezone;
 import biweekly.component.VTodo;
+import biweekly.io.ComponentListener;
 import biweekly.io.ICalTimeZone;
 import biweekly.io.ParseContext;
+import biweekly.io.ParseFilter;
 import biweekly.io.ParseWarning;
+import biweekly.io.TimezoneAssignment;
 import biweekly.io.TimezoneInfo;
 import biweekly.io.WriteContext;
 import biweekly.io.scribe.component.ICalComponentScribe;
@@ -914,6 +919,355 @@ public class ICalReaderTest {
 		reader.readNext();
 	}
 
+	@Test
+	public void readNext_component_listener() throws Throwable {
+		//@formatter:off
+		String ical =
+		"BEGIN:VCALENDAR\r\n" +
+			"VERSION:2.0\r\n" +
+			"PRODID:test\r\n" +
+			"BEGIN:VTIMEZONE\r\n" +
+				"TZID:Custom\r\n" +
+				"BEGIN:STANDARD\r\n" +
+					"DTSTART:19700101T000000\r\n" +
+					"TZOFFSETFROM:+0300\r\n" +
+					"TZOFFSETTO:+0300\r\n" +
+				"END:STANDARD\r\n" +
+			"END:VTIMEZONE\r\n" +
+			"BEGIN:VEVENT\r\n" +
+				"SUMMARY:one\r\n" +
+				"DTSTART;TZID=Custom:20170101T120000\r\n" +
+				"DTEND:20170101T130000\r\n" +
+				"BEGIN:VALARM\r\n" +
+					"ACTION:DISPLAY\r\n" +
+				"END:VALARM\r\n" +
+			"END:VEVENT\r\n" +
+			"BEGIN:VTODO\r\n" +
+				"SUMMARY:two\r\n" +
+			"END:VTODO\r\n" +
+		"END:VCALENDAR\r\n" +
+		"BEGIN:VCALENDAR\r\n" +
+			"VERSION:2.0\r\n" +
+			"BEGIN:VEVENT\r\n" +
+				"SUMMARY:three\r\n" +
+			"END:VEVENT\r\n" +
+		"END:VCALENDAR\r\n";
+		//@formatter:on
+
+		ICalReader reader = new ICalReader(ical);
+		final List<ICalComponent> components = new ArrayList<ICalComponent>();
+		final List<TimezoneInfo> tzinfos = new ArrayList<TimezoneInfo>();
+		ICalendar icalendar = reader.readNext(new ComponentListener() {
+			public void onComponent(ICalComponent component, TimezoneInfo tzinfo) {
+				components.add(component);
+				tzinfos.add(tzinfo);
+			}
+		});
+
+		//components are not added to the iCalendar object
+		assertSize(icalendar, 0, 1);
+		assertVersion(V2_0, icalendar);
+		assertEquals("test", icalendar.getProductId().getValue());
+		TimezoneAssignment custom = icalendar.getTimezoneInfo().getTimezoneById("Custom");
+		assertNotNull(custom);
+
+		assertEquals(2, components.size());
+		{
+			VEvent event = (VEvent) components.get(0);
+			assertSize(event, 1, 3);
+			assertEquals("one", event.getSummary().getValue());
+			assertEquals(utc("2017-01-01 09:00:00"), event.getDateStart().getValue());
+			assertNull(event.getDateStart().getParameters().getTimezoneId());
+
+			TimezoneInfo tzinfo = tzinfos.get(0);
+			assertEquals(custom, tzinfo.getTimezone(event.getDateStart()));
+			assertTrue(tzinfo.isFloating(event.getDateEnd()));
+			assertFalse(icalendar.getTimezoneInfo().isFloating(event.getDateEnd()));
+		}
+		{
+			VTodo todo = (VTodo) components.get(1);
+			assertSize(todo, 0, 1);
+			assertEquals("two", todo.getSummary().getValue());
+		}
+
+		assertParseWarnings(reader);
+
+		//listener is not used for subsequent calls to readNext()
+		icalendar = reader.readNext();
+		assertEquals(1, icalendar.getEvents().size());
+		assertEquals(2, components.size());
+
+		assertNull(reader.readNext());
+	}
+
+	@Test
+	public void readNext_component_listener_vcal_DAYLIGHT() throws Throwable {
+		//@formatter:off
+		String ical =
+		"BEGIN:VCALENDAR\r\n" +
+			"VERSION:1.0\r\n" +
+			"DAYLIGHT:TRUE;-0400;20140309T020000;20141102T020000;EST;EDT\r\n" +
+			"BEGIN:VEVENT\r\n" +
+				"DTSTART:20140928T120000\r\n" +
+			"END:VEVENT\r\n" +
+			"BEGIN:VEVENT\r\n" +
+				"DTSTART:20141103T120000\r\n" +
+			"END:VEVENT\r\n" +
+		"END:VCALENDAR\r\n";
+		//@formatter:on
+
+		ICalReader reader = new ICalReader(ical);
+		final List<VEvent> events = new ArrayList<VEvent>();
+		ICalendar icalendar = reader.readNext(new ComponentListener() {
+			public void onComponent(ICalComponent component, TimezoneInfo tzinfo) {
+				events.add((VEvent) component);
+			}
+		});
+		assertSize(icalendar, 0, 0);
+		assertEquals(1, icalendar.getTimezoneInfo().getComponents().size());
+
+		assertEquals(utc("2014-09-28 16:00:00"), events.get(0).getDateStart().getValue());
+		assertEquals(utc("2014-11-03 17:00:00"), events.get(1).getDateStart().getValue());
+
+		assertParseWarnings(reader);
+		assertNull(reader.readNext());
+	}
+
+	@Test
+	public void lazy_parsing() throws Throwable {
+		//@formatter:off
+		String ical =
+		"BEGIN:VCALENDAR\r\n" +
+			"VERSION:2.0\r\n" +
+			"PRODID:test\r\n" +
+			"BEGIN:VTIMEZONE\r\n" +
+				"TZID:Custom\r\n" +
+				"BEGIN:STANDARD\r\n" +
+					"DTSTART:19700101T000000\r\n" +
+					"TZOFFSETFROM:+0300\r\n" +
+					"TZOFFSETTO:+0300\r\n" +
+				"END:STANDARD\r\n" +
+			"END:VTIMEZONE\r\n" +
+			"BEGIN:VEVENT\r\n" +
+				"SUMMARY:one\r\n" +
+				"DTSTART;TZID=Custom:20170101T120000\r\n" +
+				"DTEND;TZID=Invalid:20170101T130000\r\n" +
+				"CANNOTPARSE:value\r\n" +
+				"X-FOO:bar\r\n" +
+			"END:VEVENT\r\n" +
+		"END:VCALENDAR\r\n";
+		//@formatter:on
+
+		ICalReader reader = new ICalReader(ical);
+		reader.registerScribe(new CannotParseScribe());
+		reader.setLazyParsing(true);
+		ICalendar icalendar = reader.readNext();
+		assertParseWarnings(reader);
+
+		//the properties of the VCALENDAR and VTIMEZONE components are parsed right away
+		assertEquals("test", icalendar.getProductId().getValue());
+		TimezoneAssignment custom = icalendar.getTimezoneInfo().getTimezoneById("Custom");
+		assertNotNull(custom);
+
+		VEvent event = icalendar.getEvents().get(0);
+
+		assertEquals("one", event.getSummary().getValue());
+		assertParseWarnings(reader.getDeferredWarnings());
+
+		DateStart dtstart = event.getDateStart();
+		assertEquals(utc("2017-01-01 09:00:00"), dtstart.getValue());
+		assertNull(dtstart.getParameters().getTimezoneId());
+		assertEquals(custom, icalendar.getTimezoneInfo().getTimezone(dtstart));
+		assertParseWarnings(reader.getDeferredWarnings());
+
+		//unknown TZID
+		DateEnd dtend = event.getDateEnd();
+		assertEquals("Invalid", dtend.getParameters().getTimezoneId());
+		assertParseWarnings(reader.getDeferredWarnings(), 38);
+
+		//all properties must be parsed in order to retrieve the raw properties
+		assertEquals("value", event.getExperimentalProperty("CANNOTPARSE").getValue());
+		assertEquals("bar", event.getExperimentalProperty("X-FOO").getValue());
+		assertSize(event, 0, 5);
+		assertParseWarnings(reader.getDeferredWarnings(), 38, 1);
+		assertParseWarnings(reader);
+
+		assertNull(reader.readNext());
+	}
+
+	@Test
+	public void lazy_parsing_equals() throws Throwable {
+		//@formatter:off
+		String ical =
+		"BEGIN:VCALENDAR\r\n" +
+			"VERSION:2.0\r\n" +
+			"BEGIN:VEVENT\r\n" +
+				"SUMMARY:one\r\n" +
+				"DTSTART:20170101T120000Z\r\n" +
+				"RRULE:FREQ=DAILY;COUNT=2\r\n" +
+			"END:VEVENT\r\n" +
+		"END:VCALENDAR\r\n";
+		//@formatter:on
+
+		ICalendar expected = new ICalReader(ical).readNext();
+
+		ICalReader reader = new ICalReader(ical);
+		reader.setLazyParsing(true);
+		ICalendar actual = reader.readNext();
+
+		assertEquals(expected, actual);
+		assertEquals(expected.hashCode(), actual.hashCode());
+		assertEquals(expected.toString(), actual.toString());
+		assertParseWarnings(reader.getDeferredWarnings());
+	}
+
+	@Test
+	public void lazy_parsing_component_listener() throws Throwable {
+		//@formatter:off
+		String ical =
+		"BEGIN:VCALENDAR\r\n" +
+			"VERSION:2.0\r\n" +
+			"BEGIN:VTIMEZONE\r\n" +
+				"TZID:Custom\r\n" +
+				"BEGIN:STANDARD\r\n" +
+					"DTSTART:19700101T000000\r\n" +
+					"TZOFFSETFROM:+0300\r\n" +
+					"TZOFFSETTO:+0300\r\n" +
+				"END:STANDARD\r\n" +
+			"END:VTIMEZONE\r\n" +
+			"BEGIN:VEVENT\r\n" +
+				"DTSTART;TZID=Custom:20170101T120000\r\n" +
+				"DTEND:20170101T130000\r\n" +
+			"END:VEVENT\r\n" +
+		"END:VCALENDAR\r\n";
+		//@formatter:on
+
+		ICalReader reader = new ICalReader(ical);
+		reader.setLazyParsing(true);
+		final List<ICalComponent> components = new ArrayList<ICalComponent>();
+		final List<TimezoneInfo> tzinfos = new ArrayList<TimezoneInfo>();
+		ICalendar icalendar = reader.readNext(new ComponentListener() {
+			public void onComponent(ICalComponent component, TimezoneInfo tzinfo) {
+				components.add(component);
+				tzinfos.add(tzinfo);
+			}
+		});
+
+		TimezoneAssignment custom = icalendar.getTimezoneInfo().getTimezoneById("Custom");
+		VEvent event = (VEvent) components.get(0);
+		TimezoneInfo tzinfo = tzinfos.get(0);
+
+		assertEquals(utc("2017-01-01 09:00:00"), event.getDateStart().getValue());
+		assertEquals(custom, tzinfo.getTimezone(event.getDateStart()));
+		assertTrue(tzinfo.isFloating(event.getDateEnd()));
+		assertFalse(icalendar.getTimezoneInfo().isFloating(event.getDateEnd()));
+		assertParseWarnings(reader.getDeferredWarnings());
+	}
+
+	@Test
+	public void lazy_parsing_vcal() throws Throwable {
+		//@formatter:off
+		String ical =
+		"BEGIN:VCALENDAR\r\n" +
+			"VERSION:1.0\r\n" +
+			"BEGIN:VEVENT\r\n" +
+				"ATTENDEE;ROLE=ORGANIZER:john.doe@example.com\r\n" +
+			"END:VEVENT\r\n" +
+		"END:VCALENDAR\r\n";
+		//@formatter:on
+
+		ICalReader reader = new ICalReader(ical);
+		reader.setLazyParsing(true);
+		ICalendar icalendar = reader.readNext();
+
+		//vCal properties are always parsed right away because they may be converted to other properties
+		VEvent event = icalendar.getEvents().get(0);
+		assertEquals("john.doe@example.com", event.getOrganizer().getEmail());
+	}
+
+	@Test
+	public void parse_filter() throws Throwable {
+		//@formatter:off
+		String ical =
+		"BEGIN:VCALENDAR\r\n" +
+			"VERSION:2.0\r\n" +
+			"PRODID:test\r\n" +
+			"BEGIN:VTIMEZONE\r\n" +
+				"TZID:Custom\r\n" +
+				"BEGIN:STANDARD\r\n" +
+					"DTSTART:19700101T000000\r\n" +
+					"TZOFFSETFROM:+0300\r\n" +
+					"TZOFFSETTO:+0300\r\n" +
+				"END:STANDARD\r\n" +
+			"END:VTIMEZONE\r\n" +
+			"BEGIN:VEVENT\r\n" +
+				"UID:one\r\n" +
+				"SUMMARY:one\r\n" +
+				"DTSTART;TZID=Custom:20170101T120000\r\n" +
+				"BEGIN:VALARM\r\n" +
+					"ACTION:DISPLAY\r\n" +
+				"END:VALARM\r\n" +
+			"END:VEVENT\r\n" +
+			"BEGIN:VTODO\r\n" +
+				"UID:two\r\n" +
+				"BEGIN:X-NESTED\r\n" +
+					"VERSION:1.0\r\n" +
+				"END:X-NESTED\r\n" +
+			"END:VTODO\r\n" +
+		"END:VCALENDAR\r\n";
+		//@formatter:on
+
+		ICalReader reader = new ICalReader(ical);
+		reader.setParseFilter(new ParseFilter().includeComponents("vevent").includeProperties("UID", "DTSTART"));
+		ICalendar icalendar = reader.readNext();
+
+		assertSize(icalendar, 1, 0);
+		assertVersion(V2_0, icalendar);
+		assertNotNull(icalendar.getTimezoneInfo().getTimezoneById("Custom"));
+
+		VEvent event = icalendar.getEvents().get(0);
+		assertSize(event, 0, 2);
+		assertEquals("one", event.getUid().getValue());
+		assertEquals(utc("2017-01-01 09:00:00"), event.getDateStart().getValue());
+
+		assertParseWarnings(reader);
+		assertNull(reader.readNext());
+	}
+
+	@Test
+	public void parseFilter_vcal_timezone() throws Throwable {
+		//@formatter:off
+		String ical =
+		"BEGIN:VCALENDAR\r\n" +
+			"VERSION:1.0\r\n" +
+			"PRODID:prodid\r\n" +
+			"TZ:-0500\r\n" +
+			"DAYLIGHT:TRUE;-0400;20140309T020000;20141102T020000;EST;EDT\r\n" +
+			"BEGIN:VEVENT\r\n" +
+				"UID:one\r\n" +
+				"SUMMARY:one\r\n" +
+				"DTSTART:20140928T120000\r\n" +
+			"END:VEVENT\r\n" +
+		"END:VCALENDAR\r\n";
+		//@formatter:on
+
+		ICalReader reader = new ICalReader(ical);
+		reader.setParseFilter(new ParseFilter().includeProperties("UID", "DTSTART"));
+		ICalendar icalendar = reader.readNext();
+
+		assertSize(icalendar, 1, 0);
+		assertVersion(V1_0, icalendar);
+		assertEquals(1, icalendar.getTimezoneInfo().getComponents().size());
+
+		VEvent event = icalendar.getEvents().get(0);
+		assertSize(event, 0, 2);
+		assertEquals("one", event.getUid().getValue());
+		assertEquals(utc("2014-09-28 16:00:00"), event.getDateStart().getValue());
+
+		assertParseWarnings(reader);
+		assertNull(reader.readNext());
+	}
+
 	@Test
 	public void vcal_AALARM_property() throws Throwable {
 		{
@@ -0,0 +1,201 @@
+package biweekly.io.text;
+
+import static biweekly.ICalVersion.V1_0;
+import static biweekly.ICalVersion.V2_0;
+import static biweekly.util.TestUtils.assertParseWarnings;
+import static biweekly.util.TestUtils.assertSize;
+import static biweekly.util.TestUtils.assertVersion;
+import static biweekly.util.TestUtils.utc;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import biweekly.ICalendar;
+import biweekly.component.VEvent;
+import biweekly.io.ParseWarning;
+import biweekly.io.TimezoneAssignment;
+import biweekly.util.DefaultTimezoneRule;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class ParallelICalReaderTest {
+	@ClassRule
+	public static final DefaultTimezoneRule tzRule = new DefaultTimezoneRule(-1, 0);
+
+	@Test
+	public void same_result_as_ICalReader() throws Throwable {
+		StringBuilder sb = new StringBuilder();
+		sb.append("garbage\r\n");
+		for (int cal = 0; cal < 2; cal++) {
+			sb.append("BEGIN:VCALENDAR\r\n");
+			sb.append("VERSION:2.0\r\n");
+			sb.append("PRODID:test\r\n");
+			for (int i = 0; i < 25; i++) {
+				sb.append("BEGIN:VEVENT\r\n");
+				sb.append("UID:").append(cal).append('-').append(i).append("\r\n");
+				sb.append("SUMMARY:event\r\n  ").append(i).append("\r\n");
+				sb.append("DTSTART;TZID=Custom:20170101T12").append(10 + i).append("00\r\n");
+				sb.append("DTEND:20170101T130000\r\n");
+				sb.append("SEQUENCE:invalid\r\n");
+				sb.append("BEGIN:VALARM\r\n");
+				sb.append("ACTION:DISPLAY\r\n");
+				sb.append("END:VALARM\r\n");
+				sb.append("END:VEVENT\r\n");
+				if (i == 10) {
+					sb.append("X-BETWEEN:value\r\n");
+				}
+			}
+
+			//VTIMEZONE components do not have to come first
+			sb.append("BEGIN:VTIMEZONE\r\n");
+			sb.append("TZID:Custom\r\n");
+			sb.append("BEGIN:STANDARD\r\n");
+			sb.append("DTSTART:19700101T000000\r\n");
+			sb.append("TZOFFSETFROM:+0300\r\n");
+			sb.append("TZOFFSETTO:+0300\r\n");
+			sb.append("END:STANDARD\r\n");
+			sb.append("END:VTIMEZONE\r\n");
+			sb.append("BEGIN:VTODO\r\n");
+			sb.append("SUMMARY:todo\r\n");
+			sb.append("END:VTODO\r\n");
+			sb.append("END:VCALENDAR\r\n");
+		}
+		String ical = sb.toString();
+
+		List<ICalendar> expectedIcals = new ArrayList<ICalendar>();
+		List<List<ParseWarning>> expectedWarnings = new ArrayList<List<ParseWarning>>();
+		ICalReader expectedReader = new ICalReader(ical);
+		ICalendar expected;
+		while ((expected = expectedReader.readNext()) != null) {
+			expectedIcals.add(expected);
+			expectedWarnings.add(expectedReader.getWarnings());
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			ParallelICalReader reader = new ParallelICalReader(ical, V2_0, executor);
+			reader.setComponentsPerTask(4);
+
+			for (int i = 0; i < expectedIcals.size(); i++) {
+				ICalendar actual = reader.readNext();
+				expected = expectedIcals.get(i);
+
+				assertEquals(expected, actual);
+				assertEquals(expected.getEvents(), actual.getEvents());
+				assertEquals(25, actual.getEvents().size());
+				assertEquals(expected.getTimezoneInfo().getComponents(), actual.getTimezoneInfo().getComponents());
+
+				VEvent event = actual.getEvents().get(3);
+				assertEquals(utc("2017-01-01 09:13:00"), event.getDateStart().getValue());
+				TimezoneAssignment assignment = actual.getTimezoneInfo().getTimezone(event.getDateStart());
+				assertEquals("Custom", assignment.getComponent().getTimezoneId().getValue());
+
+				assertEquals(expectedWarnings.get(i).toString(), reader.getWarnings().toString());
+			}
+
+			assertNull(reader.readNext());
+			reader.close();
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void version() throws Throwable {
+		//@formatter:off
+		String ical =
+		"BEGIN:VCALENDAR\r\n" +
+			"VERSION:1.0\r\n" +
+			"DAYLIGHT:TRUE;-0400;20140309T020000;20141102T020000;EST;EDT\r\n" +
+			"BEGIN:VEVENT\r\n" +
+				"DTSTART:20140928T120000\r\n" +
+			"END:VEVENT\r\n" +
+			"BEGIN:VEVENT\r\n" +
+				"DTSTART:20141103T120000\r\n" +
+			"END:VEVENT\r\n" +
+		"END:VCALENDAR\r\n";
+		//@formatter:on
+
+		ParallelICalReader reader = new ParallelICalReader(ical);
+		reader.setComponentsPerTask(1);
+		ICalendar icalendar = reader.readNext();
+		assertSize(icalendar, 2, 0);
+		assertVersion(V1_0, icalendar);
+
+		assertEquals(utc("2014-09-28 16:00:00"), icalendar.getEvents().get(0).getDateStart().getValue());
+		assertEquals(utc("2014-11-03 17:00:00"), icalendar.getEvents().get(1).getDateStart().getValue());
+
+		assertParseWarnings(reader);
+		assertNull(reader.readNext());
+		reader.close();
+	}
+
+	@Test
+	public void missing_end_vcalendar() throws Throwable {
+		//@formatter:off
+		String ical =
+		"BEGIN:VCALENDAR\r\n" +
+			"PRODID:test\r\n" +
+			"BEGIN:VEVENT\r\n" +
+				"SUMMARY:one\r\n" +
+			"END:VEVENT\r\n" +
+			"BEGIN:VEVENT\r\n" +
+				"SUMMARY:two";
+		//@formatter:on
+
+		ParallelICalReader reader = new ParallelICalReader(ical);
+		reader.setComponentsPerTask(1);
+		ICalendar icalendar = reader.readNext();
+		assertSize(icalendar, 2, 1);
+		assertEquals("one", icalendar.getEvents().get(0).getSummary().getValue());
+		assertEquals("two", icalendar.getEvents().get(1).getSummary().getValue());
+
+		assertNull(reader.readNext());
+		reader.close();
+	}
+
+	@Test
+	public void no_vcalendar() throws Throwable {
+		ParallelICalReader reader = new ParallelICalReader("BEGIN:VEVENT\r\nEND:VEVENT\r\n");
+		assertNull(reader.readNext());
+		reader.close();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void setComponentsPerTask_invalid() {
+		new ParallelICalReader("").setComponentsPerTask(0);
+	}
+}
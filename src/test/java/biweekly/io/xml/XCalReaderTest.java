@@ -48,6 +48,7 @@ import biweekly.component.VTimezone;
 import biweekly.io.CannotParseException;
 import biweekly.io.ICalTimeZone;
 import biweekly.io.ParseContext;
+import biweekly.io.ParseFilter;
 import biweekly.io.SkipMeException;
 import biweekly.io.TimezoneInfo;
 import biweekly.io.WriteContext;
@@ -162,6 +163,57 @@ public class XCalReaderTest {
 		reader.close();
 	}
 
+	@Test
+	public void parse_filter() throws Exception {
+		//@formatter:off
+		String xml =
+		"<?xml version=\"1.0\" encoding=\"utf-8\" ?>" +
+		"<icalendar xmlns=\"" + XCAL_NS + "\">" +
+			"<vcalendar>" +
+				"<properties>" +
+					"<prodid><text>test</text></prodid>" +
+					"<version><text>2.0</text></version>" +
+				"</properties>" +
+				"<components>" +
+					"<vevent>" +
+						"<properties>" +
+							"<uid><text>one</text></uid>" +
+							"<summary><text>Team Meeting</text></summary>" +
+						"</properties>" +
+						"<components>" +
+							"<valarm>" +
+								"<properties>" +
+									"<action><text>DISPLAY</text></action>" +
+								"</properties>" +
+							"</valarm>" +
+						"</components>" +
+					"</vevent>" +
+					"<vtodo>" +
+						"<properties>" +
+							"<uid><text>two</text></uid>" +
+						"</properties>" +
+					"</vtodo>" +
+				"</components>" +
+			"</vcalendar>" +
+		"</icalendar>";
+		//@formatter:on
+
+		XCalReader reader = new XCalReader(xml);
+		reader.setParseFilter(new ParseFilter().includeComponents("VEVENT").includeProperties("UID"));
+
+		ICalendar ical = reader.readNext();
+		assertSize(ical, 1, 0);
+		assertEquals(V2_0, ical.getVersion());
+
+		VEvent event = ical.getEvents().get(0);
+		assertSize(event, 0, 1);
+		assertEquals("one", event.getUid().getValue());
+
+		assertParseWarnings(reader);
+		assertNull(reader.readNext());
+		reader.close();
+	}
+
 	@Test
 	public void read_multiple() throws Exception {
 		//@formatter:off
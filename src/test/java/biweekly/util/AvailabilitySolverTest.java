@@ -0,0 +1,168 @@
+package biweekly.util;
+
+import static biweekly.util.TestUtils.date;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import biweekly.ICalendar;
+import biweekly.component.VEvent;
+import biweekly.component.VFreeBusy;
+import biweekly.parameter.FreeBusyType;
+import biweekly.parameter.ParticipationLevel;
+import biweekly.property.Attendee;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class AvailabilitySolverTest {
+	private final TimeZone utc = TimeZone.getTimeZone("UTC");
+	private final Duration oneHour = new Duration.Builder().hours(1).build();
+
+	private Attendee alice, bob, carol, dave;
+	private AvailabilitySolver solver;
+
+	@Before
+	public void before() {
+		solver = new AvailabilitySolver();
+		solver.setTimezone(utc);
+		solver.setWorkingHours(9, 0, 17, 0);
+		solver.setWorkingDays(DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY, DayOfWeek.THURSDAY, DayOfWeek.FRIDAY);
+
+		alice = new Attendee("Alice", "alice@example.com");
+		VFreeBusy freeBusy = new VFreeBusy();
+		freeBusy.addFreeBusy(FreeBusyType.BUSY, date("2017-01-02 09:00:00", utc), date("2017-01-02 10:00:00", utc));
+		freeBusy.addFreeBusy(FreeBusyType.BUSY_TENTATIVE, date("2017-01-02 13:00:00", utc), date("2017-01-02 14:00:00", utc));
+		freeBusy.addFreeBusy(FreeBusyType.FREE, date("2017-01-02 00:00:00", utc), date("2017-01-03 00:00:00", utc));
+		solver.addAttendee(alice, freeBusy);
+
+		bob = new Attendee("Bob", "bob@example.com");
+		bob.setParticipationLevel(ParticipationLevel.REQUIRED);
+		ICalendar ical = new ICalendar();
+		VEvent event = new VEvent();
+		event.setDateStart(date("2017-01-02 09:30:00", utc));
+		event.setDateEnd(date("2017-01-02 11:00:00", utc));
+		ical.addEvent(event);
+		solver.addAttendee(bob, ical);
+
+		carol = new Attendee("Carol", "carol@example.com");
+		carol.setParticipationLevel(ParticipationLevel.OPTIONAL);
+		freeBusy = new VFreeBusy();
+		freeBusy.addFreeBusy(FreeBusyType.BUSY, date("2017-01-02 15:00:00", utc), date("2017-01-02 16:00:00", utc));
+		solver.addAttendee(carol, freeBusy);
+
+		dave = new Attendee("Dave", "dave@example.com");
+		dave.setParticipationLevel(ParticipationLevel.FYI);
+		freeBusy = new VFreeBusy();
+		freeBusy.addFreeBusy(FreeBusyType.BUSY, date("2017-01-01 00:00:00", utc), date("2017-01-10 00:00:00", utc));
+		solver.addAttendee(dave, freeBusy);
+	}
+
+	@Test
+	public void findSlots() {
+		Date start = date("2017-01-02 00:00:00", utc);
+		Date end = date("2017-01-04 00:00:00", utc);
+
+		//@formatter:off
+		List<MeetingSlot> expected = Arrays.asList(
+			slot("2017-01-02 11:00:00", "2017-01-02 13:00:00", carol),
+			slot("2017-01-02 14:00:00", "2017-01-02 17:00:00"),
+			slot("2017-01-03 09:00:00", "2017-01-03 17:00:00", carol)
+		);
+		//@formatter:on
+		assertEquals(expected, solver.findSlots(start, end, oneHour));
+		assertEquals(expected.subList(0, 2), solver.findSlots(start, end, oneHour, 2));
+
+		//@formatter:off
+		expected = Arrays.asList(
+			slot("2017-01-02 14:00:00", "2017-01-02 17:00:00"),
+			slot("2017-01-03 09:00:00", "2017-01-03 17:00:00", carol)
+		);
+		//@formatter:on
+		assertEquals(expected, solver.findSlots(start, end, new Duration.Builder().hours(3).build()));
+	}
+
+	@Test
+	public void findSlots_tentative_free() {
+		solver.setTentativeBusy(false);
+
+		//@formatter:off
+		List<MeetingSlot> expected = Arrays.asList(
+			slot("2017-01-02 11:00:00", "2017-01-02 17:00:00")
+		);
+		//@formatter:on
+		assertEquals(expected, solver.findSlots(date("2017-01-02 00:00:00", utc), date("2017-01-03 00:00:00", utc), oneHour));
+	}
+
+	@Test
+	public void findSlots_weekend() {
+		assertTrue(solver.findSlots(date("2017-01-07 00:00:00", utc), date("2017-01-09 00:00:00", utc), oneHour).isEmpty());
+	}
+
+	@Test
+	public void findSlots_no_working_hours() {
+		AvailabilitySolver solver = new AvailabilitySolver();
+		solver.addAttendee(alice, new VFreeBusy());
+
+		VFreeBusy freeBusy = new VFreeBusy();
+		freeBusy.addFreeBusy(FreeBusyType.BUSY, date("2017-01-02 09:00:00", utc), date("2017-01-02 10:00:00", utc));
+		freeBusy.addFreeBusy(FreeBusyType.BUSY, date("2017-01-02 09:30:00", utc), new Duration.Builder().hours(1).build());
+		solver.addAttendee(alice, freeBusy);
+
+		//@formatter:off
+		List<MeetingSlot> expected = Arrays.asList(
+			slot("2017-01-02 00:00:00", "2017-01-02 09:00:00"),
+			slot("2017-01-02 10:30:00", "2017-01-03 00:00:00")
+		);
+		//@formatter:on
+		assertEquals(expected, solver.findSlots(date("2017-01-02 00:00:00", utc), date("2017-01-03 00:00:00", utc), oneHour));
+	}
+
+	@Test
+	public void setWorkingHours_invalid() {
+		try {
+			solver.setWorkingHours(17, 0, 9, 0);
+			fail();
+		} catch (IllegalArgumentException e) {
+			//expected
+		}
+	}
+
+	private MeetingSlot slot(String start, String end, Attendee... optionalAttendees) {
+		return new MeetingSlot(date(start, utc), date(end, utc), (optionalAttendees.length == 0) ? Collections.<Attendee> emptyList() : Arrays.asList(optionalAttendees));
+	}
+}
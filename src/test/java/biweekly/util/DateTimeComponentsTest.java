@@ -5,6 +5,7 @@ import static biweekly.util.TestUtils.utc;
 import static org.junit.Assert.assertEquals;
 
 import java.util.Date;
+import java.util.TimeZone;
 
 import org.junit.Test;
 
@@ -52,6 +53,20 @@ public class DateTimeComponentsTest {
 		assertEquals(expected, actual);
 	}
 
+	@Test
+	public void parse_trailing_content() {
+		assertParse(new DateTimeComponents(2013, 7, 22, 15, 6, 30, false), "20130722T150630-0400");
+		assertParse(new DateTimeComponents(2013, 7, 22, 15, 6, 30, false), "20130722T150630.5Z");
+		assertParse(new DateTimeComponents(2013, 7, 22), "20130722T1506");
+		assertParse(new DateTimeComponents(2013, 7, 22), "20130722foo");
+	}
+
+	@Test
+	public void parse_hasTime() {
+		assertEquals(new DateTimeComponents(2013, 7, 22, 0, 0, 0, false), DateTimeComponents.parse("20130722", true));
+		assertEquals(new DateTimeComponents(2013, 7, 22), DateTimeComponents.parse("20130722T150630Z", false));
+	}
+
 	@Test(expected = IllegalArgumentException.class)
 	public void parse_invalid() {
 		DateTimeComponents.parse("invalid");
@@ -79,6 +94,18 @@ public class DateTimeComponentsTest {
 		assertToDate(utc("2013-07-22 15:06:30"), new DateTimeComponents(2013, 7, 22, 15, 6, 30, true));
 	}
 
+	@Test
+	public void toDate_timezone() {
+		assertEquals(utc("2013-07-22 15:06:30"), new DateTimeComponents(2013, 7, 22, 15, 6, 30, false).toDate(TimeZone.getTimeZone("UTC")));
+		assertEquals(utc("2013-07-22 19:06:30"), new DateTimeComponents(2013, 7, 22, 15, 6, 30, false).toDate(TimeZone.getTimeZone("America/New_York")));
+	}
+
+	@Test
+	public void toDate_out_of_range_values() {
+		assertToDate(utc("2014-01-01 00:00:00"), new DateTimeComponents(2013, 12, 31, 24, 0, 0, true));
+		assertToDate(utc("2013-03-03 00:00:00"), new DateTimeComponents(2013, 2, 31, 0, 0, 0, true));
+	}
+
 	private void assertToDate(Date expected, DateTimeComponents components) {
 		Date actual = components.toDate();
 		assertEquals(expected, actual);
@@ -0,0 +1,92 @@
+package biweekly.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class DateTimeScannerTest {
+	@Test
+	public void scan_strict() {
+		DateTimeScanner scanner = new DateTimeScanner("2013-07-22T15:06:30.25-04:30");
+		assertTrue(scanner.scan(true));
+		assertEquals(2013, scanner.year);
+		assertEquals(7, scanner.month);
+		assertEquals(22, scanner.date);
+		assertEquals(15, scanner.hour);
+		assertEquals(6, scanner.minute);
+		assertEquals(30, scanner.second);
+		assertEquals(250, scanner.millisecond);
+		assertTrue(scanner.hasTime);
+		assertTrue(scanner.hasOffset);
+		assertFalse(scanner.utc);
+		assertEquals(-(4 * 60 + 30) * 60 * 1000, scanner.offsetMillis);
+
+		scanner = new DateTimeScanner("20130722T150630Z-04");
+		assertFalse(scanner.scan(true));
+	}
+
+	@Test
+	public void scan_lenient() {
+		DateTimeScanner scanner = new DateTimeScanner("20130722T150630Z-04");
+		assertTrue(scanner.scan(false));
+		assertTrue(scanner.hasTime);
+		assertTrue(scanner.utc);
+		assertFalse(scanner.hasOffset);
+
+		scanner = new DateTimeScanner("2013072");
+		assertFalse(scanner.scan(false));
+	}
+
+	@Test
+	public void daysFromCivil() {
+		assertEquals(0, DateTimeScanner.daysFromCivil(1970, 1, 1));
+		assertEquals(-1, DateTimeScanner.daysFromCivil(1969, 12, 31));
+		assertEquals(11017, DateTimeScanner.daysFromCivil(2000, 3, 1));
+		assertEquals(-719468, DateTimeScanner.daysFromCivil(0, 3, 1));
+	}
+
+	@Test
+	public void utcMillis() {
+		Calendar c = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+		int[][] values = { { 2013, 7, 22, 15, 6, 30, 0 }, { 2012, 2, 29, 23, 59, 59, 999 }, { 1969, 12, 31, 0, 0, 0, 0 }, { 2013, 0, 0, -1, 0, 0, 0 }, { 1582, 10, 20, 0, 0, 0, 0 } };
+		for (int[] v : values) {
+			c.clear();
+			c.set(v[0], v[1] - 1, v[2], v[3], v[4], v[5]);
+			c.set(Calendar.MILLISECOND, v[6]);
+			assertEquals(c.getTimeInMillis(), DateTimeScanner.utcMillis(v[0], v[1], v[2], v[3], v[4], v[5], v[6]));
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package biweekly.util;
+
+import static biweekly.util.TestUtils.date;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+import biweekly.ICalendar;
+import biweekly.component.VEvent;
+import biweekly.component.VFreeBusy;
+import biweekly.parameter.FreeBusyType;
+import biweekly.property.FreeBusy;
+import biweekly.property.Status;
+import biweekly.property.Transparency;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class FreeBusyCalculatorTest {
+	private final TimeZone utc = TimeZone.getTimeZone("UTC");
+
+	@Test
+	public void calculate() {
+		ICalendar ical1 = new ICalendar();
+
+		VEvent daily = event("2017-01-02 09:00:00", "2017-01-02 10:00:00");
+		daily.setRecurrenceRule(new Recurrence.Builder(Frequency.DAILY).count(3).build());
+		ical1.addEvent(daily);
+
+		//overlaps the first occurrence
+		ical1.addEvent(event("2017-01-02 09:30:00", "2017-01-02 11:00:00"));
+
+		//adjacent to the previous event
+		ical1.addEvent(event("2017-01-02 11:00:00", "2017-01-02 11:30:00"));
+
+		VEvent transparent = event("2017-01-02 13:00:00", "2017-01-02 14:00:00");
+		transparent.setTransparency(Transparency.transparent());
+		ical1.addEvent(transparent);
+
+		VEvent cancelled = event("2017-01-02 15:00:00", "2017-01-02 16:00:00");
+		cancelled.setStatus(Status.cancelled());
+		ical1.addEvent(cancelled);
+
+		ICalendar ical2 = new ICalendar();
+
+		VEvent tentative = event("2017-01-03 08:00:00", "2017-01-03 12:00:00");
+		tentative.setStatus(Status.tentative());
+		ical2.addEvent(tentative);
+
+		//starts before the window
+		ical2.addEvent(event("2017-01-01 20:00:00", "2017-01-02 01:00:00"));
+
+		FreeBusyCalculator calculator = new FreeBusyCalculator(ical1, ical2);
+		VFreeBusy freeBusy = calculator.calculate(date("2017-01-02 00:00:00", utc), date("2017-01-04 09:30:00", utc));
+
+		assertEquals(date("2017-01-02 00:00:00", utc), freeBusy.getDateStart().getValue());
+		assertEquals(date("2017-01-04 09:30:00", utc), freeBusy.getDateEnd().getValue());
+
+		List<FreeBusy> properties = freeBusy.getFreeBusy();
+		assertEquals(2, properties.size());
+
+		FreeBusy busy = properties.get(0);
+		assertEquals(FreeBusyType.BUSY, busy.getType());
+		//@formatter:off
+		List<Period> expected = Arrays.asList(
+			period("2017-01-02 00:00:00", "2017-01-02 01:00:00"),
+			period("2017-01-02 09:00:00", "2017-01-02 11:30:00"),
+			period("2017-01-03 09:00:00", "2017-01-03 10:00:00"),
+			period("2017-01-04 09:00:00", "2017-01-04 09:30:00")
+		);
+		//@formatter:on
+		assertEquals(expected, busy.getValues());
+
+		FreeBusy busyTentative = properties.get(1);
+		assertEquals(FreeBusyType.BUSY_TENTATIVE, busyTentative.getType());
+		//@formatter:off
+		expected = Arrays.asList(
+			period("2017-01-03 08:00:00", "2017-01-03 09:00:00"),
+			period("2017-01-03 10:00:00", "2017-01-03 12:00:00")
+		);
+		//@formatter:on
+		assertEquals(expected, busyTentative.getValues());
+	}
+
+	@Test
+	public void calculate_free() {
+		ICalendar ical = new ICalendar();
+		ical.addEvent(event("2017-01-02 09:00:00", "2017-01-02 10:00:00"));
+
+		FreeBusyCalculator calculator = new FreeBusyCalculator(ical);
+		VFreeBusy freeBusy = calculator.calculate(date("2017-01-03 00:00:00", utc), date("2017-01-04 00:00:00", utc));
+		assertTrue(freeBusy.getFreeBusy().isEmpty());
+	}
+
+	@Test
+	public void merge() {
+		FreeBusyCalculator.Intervals intervals = new FreeBusyCalculator.Intervals();
+		for (int i = 0; i < 20; i++) {
+			intervals.add(100 - i * 5, 105 - i * 5);
+		}
+		intervals.add(200, 210);
+		intervals.add(202, 204);
+		intervals.add(150, 160);
+
+		assertArrayEquals(new long[] { 5, 105, 150, 160, 200, 210 }, intervals.merge());
+		assertArrayEquals(new long[0], new FreeBusyCalculator.Intervals().merge());
+	}
+
+	@Test
+	public void subtract() {
+		long[] periods = { 0, 10, 20, 30, 40, 50 };
+		assertArrayEquals(new long[] { 0, 2, 4, 10, 20, 25, 45, 50 }, FreeBusyCalculator.subtract(periods, new long[] { 2, 4, 25, 45 }));
+		assertArrayEquals(periods, FreeBusyCalculator.subtract(periods, new long[0]));
+		assertArrayEquals(new long[0], FreeBusyCalculator.subtract(periods, new long[] { -5, 100 }));
+	}
+
+	private VEvent event(String start, String end) {
+		VEvent event = new VEvent();
+		event.setDateStart(date(start, utc));
+		event.setDateEnd(date(end, utc));
+		return event;
+	}
+
+	private Period period(String start, String end) {
+		return new Period(date(start, utc), date(end, utc));
+	}
+}
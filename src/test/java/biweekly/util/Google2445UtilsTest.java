@@ -3,6 +3,11 @@ package biweekly.util;
 import static biweekly.util.TestUtils.date;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
 import java.util.Date;
@@ -13,9 +18,15 @@ import java.util.TimeZone;
 import org.junit.Test;
 
 import biweekly.component.VEvent;
+import biweekly.component.VJournal;
+import biweekly.component.VTodo;
 import biweekly.property.ExceptionDates;
 import biweekly.property.ExceptionRule;
 import biweekly.property.RecurrenceDates;
+import biweekly.property.RecurrenceRule;
+import biweekly.util.com.google.ical.compat.javautil.DateIterator;
+import biweekly.util.com.google.ical.iter.ExpansionBudget;
+import biweekly.util.com.google.ical.iter.ReverseRecurrenceIterator;
 
 /*
  Copyright (c) 2013-2017, Michael Angstadt
@@ -125,6 +136,290 @@ public class Google2445UtilsTest {
 		assertIteratorEquals(expectedList, Google2445Utils.getDateIterator(event, TimeZone.getTimeZone("UTC")));
 	}
 
+	@Test
+	public void getDateIterator_recurrence_dates_cached() {
+		TimeZone tz = TimeZone.getTimeZone("America/Los_Angeles");
+
+		VEvent event = new VEvent();
+		event.setDateStart(date("2016-03-25 14:00:00", tz));
+
+		RecurrenceDates rdate = new RecurrenceDates();
+		rdate.getDates().add(new ICalDate(date("2016-03-27 20:00:00", tz)));
+		rdate.getDates().add(new ICalDate(date("2016-03-26 20:00:00", tz)));
+		event.addRecurrenceDates(rdate);
+
+		ExceptionDates exdate = new ExceptionDates();
+		exdate.getValues().add(new ICalDate(date("2016-03-27 20:00:00", tz)));
+		event.addExceptionDates(exdate);
+
+		//@formatter:off
+		List<Date> expectedList = Arrays.asList(
+			date("2016-03-26 20:00:00", tz)
+		);
+		//@formatter:on
+		assertIteratorEquals(expectedList, Google2445Utils.getDateIterator(event, tz));
+
+		CompiledRecurrenceDates compiled = CompiledRecurrenceDates.getCached(event);
+		assertNotNull(compiled);
+		assertIteratorEquals(expectedList, Google2445Utils.getDateIterator(event, tz));
+		assertSame(compiled, CompiledRecurrenceDates.getCached(event));
+
+		//the cache is rebuilt when a date is added
+		rdate.getDates().add(new ICalDate(date("2016-03-28 20:00:00", tz)));
+
+		//@formatter:off
+		expectedList = Arrays.asList(
+			date("2016-03-26 20:00:00", tz),
+			date("2016-03-28 20:00:00", tz)
+		);
+		//@formatter:on
+		assertIteratorEquals(expectedList, Google2445Utils.getDateIterator(event, tz));
+		assertNotSame(compiled, CompiledRecurrenceDates.getCached(event));
+
+		//the cache is rebuilt when a date is changed
+		exdate.getValues().get(0).setTime(date("2016-03-28 20:00:00", tz).getTime());
+
+		//@formatter:off
+		expectedList = Arrays.asList(
+			date("2016-03-26 20:00:00", tz),
+			date("2016-03-27 20:00:00", tz)
+		);
+		//@formatter:on
+		assertIteratorEquals(expectedList, Google2445Utils.getDateIterator(event, tz));
+
+		//the cache is rebuilt when a property is removed
+		event.removeProperty(exdate);
+
+		//@formatter:off
+		expectedList = Arrays.asList(
+			date("2016-03-26 20:00:00", tz),
+			date("2016-03-27 20:00:00", tz),
+			date("2016-03-28 20:00:00", tz)
+		);
+		//@formatter:on
+		assertIteratorEquals(expectedList, Google2445Utils.getDateIterator(event, tz));
+	}
+
+	@Test
+	public void getDateIterator_budget() {
+		TimeZone tz = TimeZone.getTimeZone("America/Los_Angeles");
+
+		VEvent event = new VEvent();
+		event.setDateStart(date("2016-03-25 14:00:00", tz));
+		event.setRecurrenceRule(new Recurrence.Builder(Frequency.DAILY).build());
+
+		ExpansionBudget budget = new ExpansionBudget();
+		budget.setMaxInstances(2);
+
+		//@formatter:off
+		List<Date> expectedList = Arrays.asList(
+			date("2016-03-25 14:00:00", tz),
+			date("2016-03-26 14:00:00", tz)
+		);
+		//@formatter:on
+		assertIteratorEquals(expectedList, Google2445Utils.getDateIterator(event, tz, budget));
+		assertEquals(ExpansionBudget.Limit.INSTANCES, budget.getExceededLimit());
+
+		//a rule that never produces any dates does not stop the other rules
+		event.setRecurrenceRule(new Recurrence.Builder(Frequency.DAILY).count(2).build());
+		event.addProperty(new RecurrenceRule(new Recurrence.Builder(Frequency.YEARLY).byMonth(2).byMonthDay(30).build()));
+
+		budget = new ExpansionBudget();
+		assertIteratorEquals(expectedList, Google2445Utils.getDateIterator(event, tz, budget));
+		assertTrue(budget.isYearsExceeded());
+
+		//every date was produced
+		assertNull(budget.getExceededLimit());
+
+		//a limit that is exceeded after a rule has run dry is still reported
+		event.setRecurrenceRule(new Recurrence.Builder(Frequency.DAILY).build());
+		event.addProperty(new RecurrenceRule(new Recurrence.Builder(Frequency.YEARLY).byMonth(2).byMonthDay(30).build()));
+		budget = new ExpansionBudget();
+		budget.setMaxSteps(100000);
+		DateIterator it = Google2445Utils.getDateIterator(event, tz, budget);
+		while (it.hasNext()) {
+			it.next();
+		}
+		assertTrue(budget.isYearsExceeded());
+		assertEquals(ExpansionBudget.Limit.STEPS, budget.getExceededLimit());
+	}
+
+	@Test
+	public void getOccurrences() {
+		TimeZone tz = TimeZone.getTimeZone("America/Los_Angeles");
+
+		VEvent event = new VEvent();
+		event.setDateStart(date("2010-01-01 09:00:00", tz));
+		event.setDateEnd(date("2010-01-01 10:30:00", tz));
+		event.setRecurrenceRule(new Recurrence.Builder(Frequency.DAILY).build());
+
+		RecurrenceDates rdate = new RecurrenceDates();
+		rdate.getDates().add(new ICalDate(date("2016-03-28 20:00:00", tz)));
+		rdate.getDates().add(new ICalDate(date("2016-04-05 20:00:00", tz)));
+		event.addRecurrenceDates(rdate);
+
+		ExceptionDates exdate = new ExceptionDates();
+		exdate.getValues().add(new ICalDate(date("2016-03-29 09:00:00", tz)));
+		exdate.getValues().add(new ICalDate(date("2010-01-02 09:00:00", tz)));
+		event.addExceptionDates(exdate);
+
+		ExceptionRule exrule = new ExceptionRule(new Recurrence.Builder(Frequency.WEEKLY).byDay(DayOfWeek.SUNDAY).build());
+		event.addProperty(exrule);
+
+		//@formatter:off
+		List<Period> expected = Arrays.asList(
+			new Period(date("2016-03-28 09:00:00", tz), date("2016-03-28 10:30:00", tz)), //overlaps the start of the window
+			new Period(date("2016-03-28 20:00:00", tz), date("2016-03-28 21:30:00", tz)),
+			new Period(date("2016-03-30 09:00:00", tz), date("2016-03-30 10:30:00", tz)),
+			new Period(date("2016-03-31 09:00:00", tz), date("2016-03-31 10:30:00", tz))
+		);
+		//@formatter:on
+
+		List<Period> actual = Google2445Utils.getOccurrences(event, tz, date("2016-03-28 10:00:00", tz), date("2016-03-31 09:00:01", tz));
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void getOccurrences_start_more_than_100_years_before() {
+		TimeZone tz = TimeZone.getTimeZone("America/Los_Angeles");
+
+		VEvent yearly = new VEvent();
+		yearly.setDateStart(date("1900-01-15 09:00:00", tz));
+		yearly.setDateEnd(date("1900-01-15 10:00:00", tz));
+		yearly.setRecurrenceRule(new Recurrence.Builder(Frequency.YEARLY).build());
+
+		//@formatter:off
+		List<Period> expected = Arrays.asList(
+			new Period(date("2026-01-15 09:00:00", tz), date("2026-01-15 10:00:00", tz))
+		);
+		//@formatter:on
+
+		List<Period> actual = Google2445Utils.getOccurrences(yearly, tz, date("2026-01-01 00:00:00", tz), date("2026-02-01 00:00:00", tz));
+		assertEquals(expected, actual);
+
+		VEvent daily = new VEvent();
+		daily.setDateStart(date("1910-01-01 09:00:00", tz));
+		daily.setDateEnd(date("1910-01-01 10:00:00", tz));
+		daily.setRecurrenceRule(new Recurrence.Builder(Frequency.DAILY).build());
+
+		//@formatter:off
+		expected = Arrays.asList(
+			new Period(date("2026-01-15 09:00:00", tz), date("2026-01-15 10:00:00", tz)),
+			new Period(date("2026-01-16 09:00:00", tz), date("2026-01-16 10:00:00", tz))
+		);
+		//@formatter:on
+
+		actual = Google2445Utils.getOccurrences(daily, tz, date("2026-01-15 00:00:00", tz), date("2026-01-17 00:00:00", tz));
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void getOccurrences_duration() {
+		TimeZone tz = TimeZone.getTimeZone("UTC");
+
+		VTodo todo = new VTodo();
+		todo.setDateStart(date("2016-03-01 09:00:00", tz));
+		todo.setDuration(Duration.builder().hours(2).build());
+		todo.setRecurrenceRule(new Recurrence.Builder(Frequency.WEEKLY).build());
+
+		//@formatter:off
+		List<Period> expected = Arrays.asList(
+			new Period(date("2016-03-08 09:00:00", tz), date("2016-03-08 11:00:00", tz))
+		);
+		//@formatter:on
+
+		assertEquals(expected, todo.getOccurrences(tz, date("2016-03-08 10:59:59", tz), date("2016-03-15 09:00:00", tz)));
+		assertEquals(Arrays.asList(), todo.getOccurrences(tz, date("2016-03-08 11:00:00", tz), date("2016-03-15 09:00:00", tz)));
+	}
+
+	@Test
+	public void getOccurrences_no_length() {
+		TimeZone tz = TimeZone.getTimeZone("UTC");
+
+		VJournal journal = new VJournal();
+		journal.setDateStart(date("2016-03-01 09:00:00", tz));
+		journal.setRecurrenceRule(new Recurrence.Builder(Frequency.DAILY).count(5).build());
+
+		//@formatter:off
+		List<Period> expected = Arrays.asList(
+			new Period(date("2016-03-02 09:00:00", tz), date("2016-03-02 09:00:00", tz)),
+			new Period(date("2016-03-03 09:00:00", tz), date("2016-03-03 09:00:00", tz))
+		);
+		//@formatter:on
+
+		assertEquals(expected, journal.getOccurrences(tz, date("2016-03-02 09:00:00", tz), date("2016-03-04 09:00:00", tz)));
+	}
+
+	@Test
+	public void getOccurrences_all_day_event() {
+		VEvent event = new VEvent();
+		event.setDateStart(date("2016-03-01"), false);
+		event.setRecurrenceRule(new Recurrence.Builder(Frequency.DAILY).build());
+
+		//@formatter:off
+		List<Period> expected = Arrays.asList(
+			new Period(date("2016-03-05 00:00:00"), date("2016-03-06 00:00:00")),
+			new Period(date("2016-03-06 00:00:00"), date("2016-03-07 00:00:00"))
+		);
+		//@formatter:on
+
+		assertEquals(expected, event.getOccurrences(null, date("2016-03-05 12:00:00"), date("2016-03-06 12:00:00")));
+	}
+
+	@Test
+	public void getOccurrences_empty_window() {
+		VEvent event = new VEvent();
+		event.setDateStart(date("2016-03-01 09:00:00"));
+
+		assertEquals(Arrays.asList(), event.getOccurrences(null, date("2016-03-01 09:00:00"), date("2016-03-01 09:00:00")));
+		assertEquals(Arrays.asList(), event.getOccurrences(null, date("2016-03-02 09:00:00"), date("2016-03-01 09:00:00")));
+	}
+
+	@Test
+	public void getLastOccurrenceBefore() {
+		TimeZone tz = TimeZone.getTimeZone("America/Los_Angeles");
+
+		VEvent event = new VEvent();
+		event.setDateStart(date("2000-01-03 09:00:00", tz));
+		event.setRecurrenceRule(new Recurrence.Builder(Frequency.WEEKLY).byDay(DayOfWeek.MONDAY).build());
+
+		ExceptionDates exdate = new ExceptionDates();
+		exdate.getValues().add(new ICalDate(date("2016-03-28 09:00:00", tz)));
+		event.addExceptionDates(exdate);
+
+		RecurrenceDates rdate = new RecurrenceDates();
+		rdate.getDates().add(new ICalDate(date("2016-03-16 20:00:00", tz)));
+		event.addRecurrenceDates(rdate);
+
+		assertEquals(date("2016-03-21 09:00:00", tz), event.getLastOccurrenceBefore(tz, date("2016-04-01 00:00:00", tz)));
+		assertEquals(date("2016-03-16 20:00:00", tz), event.getLastOccurrenceBefore(tz, date("2016-03-21 09:00:00", tz)));
+		assertEquals(date("2000-01-03 09:00:00", tz), event.getLastOccurrenceBefore(tz, date("2000-01-03 09:00:01", tz)));
+		assertNull(event.getLastOccurrenceBefore(tz, date("2000-01-03 09:00:00", tz)));
+
+		ReverseRecurrenceIterator it = Google2445Utils.getReverseRecurrenceIterator(event, tz, date("2016-04-01 00:00:00", tz));
+		assertEquals(date("2016-03-21 09:00:00", tz).getTime(), it.previousMillis());
+		assertEquals(date("2016-03-16 20:00:00", tz).getTime(), it.previousMillis());
+		assertEquals(date("2016-03-14 09:00:00", tz).getTime(), it.previousMillis());
+	}
+
+	@Test
+	public void getLastOccurrenceBefore_start_more_than_100_years_before() {
+		TimeZone tz = TimeZone.getTimeZone("UTC");
+
+		VEvent event = new VEvent();
+		event.setDateStart(date("1925-03-10 09:00:00", tz));
+		event.setRecurrenceRule(new Recurrence.Builder(Frequency.YEARLY).build());
+		assertEquals(date("2026-03-10 09:00:00", tz), event.getLastOccurrenceBefore(tz, date("2026-06-01 00:00:00", tz)));
+
+		event.setDateStart(date("1900-03-10 09:00:00", tz));
+		assertEquals(date("2026-03-10 09:00:00", tz), event.getLastOccurrenceBefore(tz, date("2026-06-01 00:00:00", tz)));
+	}
+
+	@Test
+	public void getLastOccurrenceBefore_no_dates() {
+		assertNull(new VJournal().getLastOccurrenceBefore(null, new Date()));
+	}
+
 	private static <T> void assertIteratorEquals(List<T> expectedList, Iterator<T> actualIt) {
 		Iterator<T> expectedIt = expectedList.iterator();
 		while (expectedIt.hasNext()) {
@@ -7,6 +7,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.util.Calendar;
 import java.util.Date;
@@ -132,6 +133,42 @@ public class ICalDateFormatTest {
 		ICalDateFormat.parse("invalid");
 	}
 
+	@Test
+	public void parse_invalid_formats() {
+		//@formatter:off
+		String[] inputs = {
+			"", "2012", "201207", "2012070", "201207011",
+			"20120701T", "20120701T0701", "20120701T070130.", "20120701T070130Zx",
+			"20120701T070130+", "20120701T070130+030", "20120701T070130+03:", "20120701T070130*0300",
+			"2012-07-01T07:01:30 "
+		};
+		//@formatter:on
+
+		for (String input : inputs) {
+			try {
+				ICalDateFormat.parse(input);
+				fail("Expected exception: " + input);
+			} catch (IllegalArgumentException e) {
+				//expected
+			}
+		}
+	}
+
+	@Test
+	public void parse_out_of_range_values() {
+		//values roll over, like a lenient Calendar
+		assertEquals(utc("2013-02-02 00:00:00"), ICalDateFormat.parse("20121332T240000Z"));
+		assertEquals(utc("2012-03-01 00:00:30"), ICalDateFormat.parse("20120229T235990Z"));
+	}
+
+	@Test
+	public void parse_before_gregorian_cutover() {
+		Calendar c = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+		c.clear();
+		c.set(1500, Calendar.JANUARY, 1, 12, 0, 0);
+		assertEquals(c.getTime(), ICalDateFormat.parse("15000101T120000Z"));
+	}
+
 	@Test
 	public void dateHasTime() {
 		assertFalse(ICalDateFormat.dateHasTime("20130601"));
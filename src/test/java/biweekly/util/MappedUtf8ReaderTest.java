@@ -0,0 +1,125 @@
+package biweekly.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class MappedUtf8ReaderTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void read() throws Exception {
+		String data = "one \u00e9 two \u20ac three \ud83d\ude00";
+		File file = write(data.getBytes("UTF-8"));
+
+		MappedUtf8Reader reader = new MappedUtf8Reader(file);
+		String actual = new Gobble(reader).asString();
+		assertEquals(data, actual);
+	}
+
+	@Test
+	public void read_single_characters() throws Exception {
+		String data = "one \u00e9 two \u20ac three";
+		File file = write(data.getBytes("UTF-8"));
+
+		MappedUtf8Reader reader = new MappedUtf8Reader(file);
+		StringBuilder sb = new StringBuilder();
+		int c;
+		while ((c = reader.read()) != -1) {
+			sb.append((char) c);
+		}
+		reader.close();
+
+		assertEquals(data, sb.toString());
+	}
+
+	@Test
+	public void multiple_regions() throws Exception {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			sb.append("\u00e9\u20ac\ud83d\ude00a");
+		}
+		String data = sb.toString();
+		File file = write(data.getBytes("UTF-8"));
+
+		//characters are split across regions
+		for (int regionSize = 4; regionSize <= 7; regionSize++) {
+			MappedUtf8Reader reader = new MappedUtf8Reader(file, regionSize);
+
+			char[] buffer = new char[3];
+			sb.setLength(0);
+			int c = reader.read();
+			sb.append((char) c);
+			int read;
+			while ((read = reader.read(buffer)) != -1) {
+				sb.append(buffer, 0, read);
+			}
+			reader.close();
+
+			assertEquals(data, sb.toString());
+		}
+	}
+
+	@Test
+	public void malformed() throws Exception {
+		File file = write(new byte[] { 'a', (byte) 0xff, 'b' });
+
+		MappedUtf8Reader reader = new MappedUtf8Reader(file);
+		String actual = new Gobble(reader).asString();
+		assertEquals("a\ufffdb", actual);
+	}
+
+	@Test
+	public void empty() throws Exception {
+		File file = write(new byte[0]);
+
+		MappedUtf8Reader reader = new MappedUtf8Reader(file);
+		assertEquals(-1, reader.read());
+		assertEquals(-1, reader.read(new char[10]));
+		reader.close();
+	}
+
+	private File write(byte[] data) throws IOException {
+		File file = folder.newFile();
+		OutputStream out = new FileOutputStream(file);
+		out.write(data);
+		out.close();
+		return file;
+	}
+}
@@ -0,0 +1,198 @@
+package biweekly.util;
+
+import static biweekly.util.TestUtils.date;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+import biweekly.ICalendar;
+import biweekly.component.VEvent;
+import biweekly.component.VTodo;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class OccurrenceIndexTest {
+	private final TimeZone utc = TimeZone.getTimeZone("UTC");
+
+	@Test
+	public void getOccurrences() {
+		ICalendar ical = new ICalendar();
+
+		VEvent daily = event("a", "2017-01-02 09:00:00", "2017-01-02 10:00:00");
+		daily.setRecurrenceRule(new Recurrence.Builder(Frequency.DAILY).build());
+		ical.addEvent(daily);
+
+		VEvent moved = event("a", "2017-01-20 13:00:00", "2017-01-20 14:00:00");
+		moved.setRecurrenceId(date("2017-01-15 09:00:00", utc));
+		ical.addEvent(moved);
+
+		VEvent weekly = event("b", "2016-12-01 11:00:00", "2016-12-01 11:30:00");
+		weekly.setRecurrenceRule(new Recurrence.Builder(Frequency.WEEKLY).count(20).build());
+		ical.addEvent(weekly);
+
+		VEvent longEvent = event(null, "2017-01-05 00:00:00", "2017-02-05 00:00:00");
+		ical.addEvent(longEvent);
+
+		VEvent zeroLength = event(null, "2017-01-12 12:00:00", "2017-01-12 12:00:00");
+		ical.addEvent(zeroLength);
+
+		VTodo todo = new VTodo();
+		todo.setUid("a");
+		todo.setDateStart(date("2017-01-11 08:00:00", utc));
+		ical.addTodo(todo);
+
+		OccurrenceIndex index = new OccurrenceIndex(ical, date("2017-01-10 00:00:00", utc), date("2017-02-01 00:00:00", utc));
+		RecurrenceExpander expander = new RecurrenceExpander(ical);
+
+		//@formatter:off
+		String[][] windows = {
+			{"2017-01-12 12:00:00", "2017-01-12 12:00:01"}, //zero-length event
+			{"2017-01-12 12:00:01", "2017-01-13 00:00:00"},
+			{"2017-01-15 00:00:00", "2017-01-21 00:00:00"}, //moved occurrence
+			{"2017-01-01 00:00:00", "2017-01-31 00:00:00"}, //before the horizon
+			{"2016-11-01 00:00:00", "2016-12-31 00:00:00"}, //entirely before the horizon
+			{"2017-01-25 00:00:00", "2017-03-01 00:00:00"}, //after the horizon
+			{"2017-03-01 00:00:00", "2017-03-05 00:00:00"}, //entirely after the horizon
+			{"2016-01-01 00:00:00", "2018-01-01 00:00:00"}  //spans the horizon
+		};
+		//@formatter:on
+
+		for (String[] window : windows) {
+			Date start = date(window[0], utc);
+			Date end = date(window[1], utc);
+			List<Occurrence> expected = expander.getOccurrences(start, end);
+			assertFalse(expected.isEmpty());
+			assertEquals(window[0], expected, index.getOccurrences(start, end));
+		}
+
+		List<Occurrence> actual = index.getOccurrences(date("2017-02-01 00:00:00", utc), date("2017-01-01 00:00:00", utc));
+		assertTrue(actual.isEmpty());
+	}
+
+	@Test
+	public void getOccurrencesAt() {
+		ICalendar ical = new ICalendar();
+
+		VEvent daily = event("a", "2017-01-02 09:00:00", "2017-01-02 10:00:00");
+		daily.setRecurrenceRule(new Recurrence.Builder(Frequency.DAILY).build());
+		ical.addEvent(daily);
+
+		VEvent longEvent = event(null, "2017-01-05 00:00:00", "2017-02-05 00:00:00");
+		ical.addEvent(longEvent);
+
+		OccurrenceIndex index = new OccurrenceIndex(ical, date("2017-01-01 00:00:00", utc), date("2017-02-01 00:00:00", utc));
+
+		//@formatter:off
+		List<Occurrence> expected = Arrays.asList(
+			occurrence(longEvent, "2017-01-05 00:00:00", "2017-02-05 00:00:00"),
+			occurrence(daily, "2017-01-10 09:00:00", "2017-01-10 10:00:00")
+		);
+		//@formatter:on
+		assertEquals(expected, index.getOccurrencesAt(date("2017-01-10 09:00:00", utc)));
+
+		//end dates are exclusive
+		assertEquals(expected.subList(0, 1), index.getOccurrencesAt(date("2017-01-10 10:00:00", utc)));
+	}
+
+	@Test
+	public void add_remove() {
+		ICalendar ical = new ICalendar();
+
+		VEvent master = event("a", "2017-01-02 09:00:00", "2017-01-02 10:00:00");
+		master.setRecurrenceRule(new Recurrence.Builder(Frequency.DAILY).count(5).build());
+		ical.addEvent(master);
+
+		OccurrenceIndex index = new OccurrenceIndex(ical, date("2017-01-01 00:00:00", utc), date("2017-02-01 00:00:00", utc));
+		assertEquals(5, index.size());
+
+		Date windowStart = date("2017-01-03 00:00:00", utc);
+		Date windowEnd = date("2017-01-04 00:00:00", utc);
+
+		//@formatter:off
+		List<Occurrence> expected = Arrays.asList(
+			occurrence(master, "2017-01-03 09:00:00", "2017-01-03 10:00:00")
+		);
+		//@formatter:on
+		assertEquals(expected, index.getOccurrences(windowStart, windowEnd));
+
+		VEvent moved = event("a", "2017-01-03 15:00:00", "2017-01-03 16:00:00");
+		moved.setRecurrenceId(date("2017-01-03 09:00:00", utc));
+		index.add(moved);
+		assertEquals(5, index.size());
+
+		//@formatter:off
+		expected = Arrays.asList(
+			new Occurrence(moved, new ICalDate(date("2017-01-03 09:00:00", utc)), new ICalDate(date("2017-01-03 15:00:00", utc)), new ICalDate(date("2017-01-03 16:00:00", utc)))
+		);
+		//@formatter:on
+		assertEquals(expected, index.getOccurrences(windowStart, windowEnd));
+
+		VEvent single = event(null, "2017-01-03 12:00:00", "2017-01-03 13:00:00");
+		index.add(single);
+		index.add(single);
+		assertEquals(6, index.size());
+
+		assertTrue(index.remove(moved));
+		assertFalse(index.remove(moved));
+		assertTrue(index.remove(single));
+		assertEquals(5, index.size());
+
+		//@formatter:off
+		expected = Arrays.asList(
+			occurrence(master, "2017-01-03 09:00:00", "2017-01-03 10:00:00")
+		);
+		//@formatter:on
+		assertEquals(expected, index.getOccurrences(windowStart, windowEnd));
+
+		assertTrue(index.remove(master));
+		assertEquals(0, index.size());
+		assertEquals(Collections.emptyList(), index.getOccurrences(windowStart, windowEnd));
+	}
+
+	private VEvent event(String uid, String start, String end) {
+		VEvent event = new VEvent();
+		event.setUid(uid);
+		event.setDateStart(date(start, utc));
+		event.setDateEnd(date(end, utc));
+		return event;
+	}
+
+	private Occurrence occurrence(VEvent event, String start, String end) {
+		ICalDate startDate = new ICalDate(date(start, utc));
+		return new Occurrence(event, startDate, startDate, new ICalDate(date(end, utc)));
+	}
+}
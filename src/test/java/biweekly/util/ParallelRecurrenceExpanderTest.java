@@ -0,0 +1,156 @@
+package biweekly.util;
+
+import static biweekly.util.TestUtils.date;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import biweekly.ICalendar;
+import biweekly.component.VEvent;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class ParallelRecurrenceExpanderTest {
+	private final TimeZone utc = TimeZone.getTimeZone("UTC");
+	private ExecutorService executor;
+
+	@Before
+	public void before() {
+		executor = Executors.newFixedThreadPool(2);
+	}
+
+	@After
+	public void after() {
+		executor.shutdown();
+	}
+
+	@Test
+	public void getOccurrences() throws Exception {
+		VEvent daily = event("2017-01-02 09:00:00", "2017-01-02 10:00:00", Frequency.DAILY);
+		VEvent weekly = event("2017-01-03 09:30:00", "2017-01-03 09:45:00", Frequency.WEEKLY);
+		VEvent allDay = event("2017-01-01 00:00:00", "2017-01-08 00:00:00", null);
+		List<ICalendar> icals = Arrays.asList(ical(daily), ical(weekly), ical(allDay));
+
+		ParallelRecurrenceExpander expander = new ParallelRecurrenceExpander(icals, executor);
+
+		//@formatter:off
+		List<Occurrence> expected = Arrays.asList(
+			occurrence(allDay, "2017-01-01 00:00:00", "2017-01-08 00:00:00"),
+			occurrence(daily, "2017-01-10 09:00:00", "2017-01-10 10:00:00"),
+			occurrence(weekly, "2017-01-10 09:30:00", "2017-01-10 09:45:00"),
+			occurrence(daily, "2017-01-11 09:00:00", "2017-01-11 10:00:00")
+		);
+		//@formatter:on
+
+		//the all-day event has a length of one week, so it is found even though it starts before the window
+		List<Occurrence> actual = expander.getOccurrences(date("2017-01-07 12:00:00", utc), date("2017-01-11 12:00:00", utc));
+		assertEquals(occurrence(allDay, "2017-01-01 00:00:00", "2017-01-08 00:00:00"), actual.get(0));
+		assertEquals(occurrence(daily, "2017-01-08 09:00:00", "2017-01-08 10:00:00"), actual.get(1));
+		assertEquals(6, actual.size());
+
+		actual = expander.getOccurrences(date("2017-01-10 00:00:00", utc), date("2018-01-01 00:00:00", utc), 3);
+		assertEquals(expected.subList(1, 4), actual);
+
+		OccurrenceIterator it = expander.getOccurrences(date("2017-01-10 00:00:00", utc));
+		assertEquals(expected.get(1), it.next());
+		assertEquals(expected.get(2), it.next());
+		assertEquals(expected.get(3), it.next());
+	}
+
+	@Test
+	public void no_calendars() throws Exception {
+		ParallelRecurrenceExpander expander = new ParallelRecurrenceExpander(Collections.<ICalendar> emptyList(), executor);
+		assertEquals(Collections.emptyList(), expander.getOccurrences(new Date(0), new Date(), 10));
+		assertFalse(expander.getOccurrences(new Date(0)).hasNext());
+	}
+
+	@Test
+	public void invalid_limit() throws Exception {
+		ParallelRecurrenceExpander expander = new ParallelRecurrenceExpander(Collections.<ICalendar> emptyList(), executor);
+		try {
+			expander.getOccurrences(new Date(0), new Date(), 0);
+			fail();
+		} catch (IllegalArgumentException e) {
+			//expected
+		}
+	}
+
+	@Test
+	public void task_exception() throws Exception {
+		final RuntimeException exception = new RuntimeException();
+		ICalendar ical = new ICalendar() {
+			@Override
+			public List<VEvent> getEvents() {
+				throw exception;
+			}
+		};
+
+		ParallelRecurrenceExpander expander = new ParallelRecurrenceExpander(Arrays.asList(ical), executor);
+		try {
+			expander.getOccurrences(new Date(0));
+			fail();
+		} catch (RuntimeException e) {
+			assertSame(exception, e);
+		}
+	}
+
+	private VEvent event(String start, String end, Frequency frequency) {
+		VEvent event = new VEvent();
+		event.setDateStart(date(start, utc));
+		event.setDateEnd(date(end, utc));
+		if (frequency != null) {
+			event.setRecurrenceRule(new Recurrence.Builder(frequency).build());
+		}
+		return event;
+	}
+
+	private static ICalendar ical(VEvent event) {
+		ICalendar ical = new ICalendar();
+		ical.addEvent(event);
+		return ical;
+	}
+
+	private Occurrence occurrence(VEvent event, String start, String end) {
+		ICalDate startDate = new ICalDate(date(start, utc));
+		return new Occurrence(event, startDate, startDate, new ICalDate(date(end, utc)));
+	}
+}
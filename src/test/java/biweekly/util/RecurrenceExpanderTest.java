@@ -0,0 +1,198 @@
+package biweekly.util;
+
+import static biweekly.util.TestUtils.date;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+import biweekly.ICalendar;
+import biweekly.component.ICalComponent;
+import biweekly.component.VEvent;
+import biweekly.parameter.Range;
+import biweekly.property.RecurrenceId;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class RecurrenceExpanderTest {
+	private final TimeZone utc = TimeZone.getTimeZone("UTC");
+
+	@Test
+	public void overrides() {
+		ICalendar ical = new ICalendar();
+
+		VEvent master = event("a", "2017-01-02 09:00:00", "2017-01-02 10:00:00");
+		master.setRecurrenceRule(new Recurrence.Builder(Frequency.DAILY).count(5).build());
+		ical.addEvent(master);
+
+		//moved past the next occurrence
+		VEvent moved = event("a", "2017-01-05 12:00:00", "2017-01-05 13:00:00");
+		moved.setRecurrenceId(date("2017-01-03 09:00:00", utc));
+		ical.addEvent(moved);
+
+		//made longer
+		VEvent longer = event("a", "2017-01-04 09:00:00", "2017-01-04 11:00:00");
+		longer.setRecurrenceId(date("2017-01-04 09:00:00", utc));
+		ical.addEvent(longer);
+
+		VEvent other = event("b", "2017-01-03 15:00:00", "2017-01-03 16:00:00");
+		ical.addEvent(other);
+
+		//@formatter:off
+		List<Occurrence> expected = Arrays.asList(
+			occurrence(master, "2017-01-02 09:00:00", "2017-01-02 09:00:00", "2017-01-02 10:00:00"),
+			occurrence(other, "2017-01-03 15:00:00", "2017-01-03 15:00:00", "2017-01-03 16:00:00"),
+			occurrence(longer, "2017-01-04 09:00:00", "2017-01-04 09:00:00", "2017-01-04 11:00:00"),
+			occurrence(master, "2017-01-05 09:00:00", "2017-01-05 09:00:00", "2017-01-05 10:00:00"),
+			occurrence(moved, "2017-01-03 09:00:00", "2017-01-05 12:00:00", "2017-01-05 13:00:00"),
+			occurrence(master, "2017-01-06 09:00:00", "2017-01-06 09:00:00", "2017-01-06 10:00:00")
+		);
+		//@formatter:on
+
+		RecurrenceExpander expander = new RecurrenceExpander(ical);
+		assertEquals(expected, toList(expander.getOccurrences()));
+
+		//@formatter:off
+		expected = Arrays.asList(
+			occurrence(other, "2017-01-03 15:00:00", "2017-01-03 15:00:00", "2017-01-03 16:00:00")
+		);
+		//@formatter:on
+		assertEquals(expected, toList(expander.getOccurrences("b")));
+		assertFalse(expander.getOccurrences("c").hasNext());
+	}
+
+	@Test
+	public void this_and_future() {
+		ICalendar ical = new ICalendar();
+
+		VEvent master = event("a", "2017-01-02 09:00:00", "2017-01-02 10:00:00");
+		master.setRecurrenceRule(new Recurrence.Builder(Frequency.DAILY).count(5).build());
+		ical.addEvent(master);
+
+		VEvent future = event("a", "2017-01-04 11:00:00", "2017-01-04 11:30:00");
+		RecurrenceId recurrenceId = new RecurrenceId(date("2017-01-04 09:00:00", utc));
+		recurrenceId.setRange(Range.THIS_AND_FUTURE);
+		future.setRecurrenceId(recurrenceId);
+		ical.addEvent(future);
+
+		//single overrides take precedence over THISANDFUTURE overrides
+		VEvent single = event("a", "2017-01-05 08:00:00", null);
+		single.setRecurrenceId(date("2017-01-05 09:00:00", utc));
+		ical.addEvent(single);
+
+		//@formatter:off
+		List<Occurrence> expected = Arrays.asList(
+			occurrence(master, "2017-01-02 09:00:00", "2017-01-02 09:00:00", "2017-01-02 10:00:00"),
+			occurrence(master, "2017-01-03 09:00:00", "2017-01-03 09:00:00", "2017-01-03 10:00:00"),
+			occurrence(future, "2017-01-04 09:00:00", "2017-01-04 11:00:00", "2017-01-04 11:30:00"),
+			occurrence(single, "2017-01-05 09:00:00", "2017-01-05 08:00:00", "2017-01-05 09:00:00"), //length inherited from the master
+			occurrence(future, "2017-01-06 09:00:00", "2017-01-06 11:00:00", "2017-01-06 11:30:00")
+		);
+		//@formatter:on
+
+		assertEquals(expected, toList(new RecurrenceExpander(ical).getOccurrences()));
+	}
+
+	@Test
+	public void window() {
+		ICalendar ical = new ICalendar();
+
+		VEvent master = event("a", "2017-01-02 09:00:00", "2017-01-02 10:00:00");
+		master.setRecurrenceRule(new Recurrence.Builder(Frequency.DAILY).build());
+		ical.addEvent(master);
+
+		VEvent moved = event("a", "2017-01-10 09:30:00", "2017-01-10 12:00:00");
+		moved.setRecurrenceId(date("2017-01-03 09:00:00", utc));
+		ical.addEvent(moved);
+
+		//an override whose master is not in the calendar
+		VEvent orphan = event("b", "2017-01-10 11:00:00", "2017-01-10 11:15:00");
+		orphan.setRecurrenceId(date("2017-01-10 11:00:00", utc));
+		ical.addEvent(orphan);
+
+		//@formatter:off
+		List<Occurrence> expected = Arrays.asList(
+			occurrence(master, "2017-01-10 09:00:00", "2017-01-10 09:00:00", "2017-01-10 10:00:00"),
+			occurrence(moved, "2017-01-03 09:00:00", "2017-01-10 09:30:00", "2017-01-10 12:00:00"),
+			occurrence(orphan, "2017-01-10 11:00:00", "2017-01-10 11:00:00", "2017-01-10 11:15:00")
+		);
+		//@formatter:on
+
+		assertEquals(expected, ical.getOccurrences(date("2017-01-10 09:30:00", utc), date("2017-01-11 09:00:00", utc)));
+
+		OccurrenceIterator it = new RecurrenceExpander(ical).getOccurrences();
+		it.advanceTo(date("2017-01-10 09:00:01", utc));
+		assertEquals(expected.get(1), it.next());
+	}
+
+	@Test
+	public void window_start_more_than_100_years_before() {
+		ICalendar ical = new ICalendar();
+
+		VEvent master = event("a", "1900-01-15 09:00:00", "1900-01-15 10:00:00");
+		master.setRecurrenceRule(new Recurrence.Builder(Frequency.YEARLY).build());
+		ical.addEvent(master);
+
+		//@formatter:off
+		List<Occurrence> expected = Arrays.asList(
+			occurrence(master, "2026-01-15 09:00:00", "2026-01-15 09:00:00", "2026-01-15 10:00:00")
+		);
+		//@formatter:on
+
+		assertEquals(expected, ical.getOccurrences(date("2026-01-01 00:00:00", utc), date("2026-02-01 00:00:00", utc)));
+	}
+
+	private VEvent event(String uid, String start, String end) {
+		VEvent event = new VEvent();
+		event.setUid(uid);
+		event.setDateStart(date(start, utc));
+		if (end != null) {
+			event.setDateEnd(date(end, utc));
+		}
+		return event;
+	}
+
+	private Occurrence occurrence(ICalComponent component, String recurrenceId, String start, String end) {
+		return new Occurrence(component, new ICalDate(date(recurrenceId, utc)), new ICalDate(date(start, utc)), new ICalDate(date(end, utc)));
+	}
+
+	private static List<Occurrence> toList(Iterator<Occurrence> it) {
+		List<Occurrence> list = new ArrayList<Occurrence>();
+		while (it.hasNext()) {
+			list.add(it.next());
+		}
+		return list;
+	}
+}
@@ -2,6 +2,9 @@ package biweekly.util;
 
 import static biweekly.util.TestUtils.assertIterator;
 import static biweekly.util.TestUtils.date;
+import static biweekly.util.TestUtils.utc;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 import java.util.Arrays;
 import java.util.Date;
@@ -163,9 +166,129 @@ public class RecurrenceTest {
 		assertIterator(expected, it);
 	}
 
+	@Test
+	public void builder_reused_after_build() {
+		Recurrence.Builder builder = new Recurrence.Builder(Frequency.WEEKLY).byDay(DayOfWeek.MONDAY).xrule("NAME", "one");
+		Recurrence recur = builder.build();
+		int hashCode = recur.hashCode();
+
+		builder.byDay(DayOfWeek.FRIDAY).bySetPos(1).xrule("NAME", "two");
+
+		assertEquals(Arrays.asList(new ByDay(DayOfWeek.MONDAY)), recur.getByDay());
+		assertEquals(Arrays.asList(), recur.getBySetPos());
+		assertEquals(Arrays.asList("one"), recur.getXRules().get("NAME"));
+		assertEquals(hashCode, recur.hashCode());
+	}
+
 	@Test
 	public void copy_xrule_is_mutable() {
 		Recurrence recur = new Recurrence.Builder(Frequency.WEEKLY).build();
 		new Recurrence.Builder(recur).xrule("NAME", "value").build();
 	}
+
+	@Test
+	public void getLastOccurrence() {
+		TimeZone pacificTimeZone = TimeZone.getTimeZone("America/Los_Angeles");
+		Date start = date("2016-03-06 02:30:00", pacificTimeZone);
+
+		Recurrence recur = new Recurrence.Builder(Frequency.WEEKLY).count(3).build();
+		assertEquals(date("2016-03-20 02:30:00", pacificTimeZone), recur.getLastOccurrence(start, pacificTimeZone));
+		assertEquals(3, recur.getOccurrenceCount(start, pacificTimeZone));
+
+		recur = new Recurrence.Builder(Frequency.WEEKLY).until(date("2016-03-20 02:29:59", pacificTimeZone)).build();
+		assertEquals(date("2016-03-13 03:30:00", pacificTimeZone), recur.getLastOccurrence(start, pacificTimeZone));
+		assertEquals(2, recur.getOccurrenceCount(start, pacificTimeZone));
+
+		recur = new Recurrence.Builder(Frequency.WEEKLY).until(date("2016-03-01 00:00:00", pacificTimeZone)).build();
+		assertNull(recur.getLastOccurrence(start, pacificTimeZone));
+		assertEquals(0, recur.getOccurrenceCount(start, pacificTimeZone));
+
+		recur = new Recurrence.Builder(Frequency.WEEKLY).build();
+		assertNull(recur.getLastOccurrence(start, pacificTimeZone));
+		assertEquals(-1, recur.getOccurrenceCount(start, pacificTimeZone));
+	}
+
+	@Test
+	public void getOccurrenceCount_large() {
+		TimeZone tz = TimeZone.getTimeZone("UTC");
+		Date start = utc("2000-01-01 00:00:00");
+
+		//every minute of a leap year
+		Recurrence recur = new Recurrence.Builder(Frequency.MINUTELY).until(utc("2000-12-31 23:59:00")).build();
+		assertEquals(366L * 24 * 60, recur.getOccurrenceCount(start, tz));
+		assertEquals(utc("2000-12-31 23:59:00"), recur.getLastOccurrence(start, tz));
+
+		//too many dates to count, so the rule is treated as unbounded
+		recur = new Recurrence.Builder(Frequency.SECONDLY).until(utc("2100-01-01 00:00:00")).build();
+		assertEquals(-1, recur.getOccurrenceCount(start, tz));
+		assertNull(recur.getLastOccurrence(start, tz));
+	}
+
+	@Test
+	public void getLastOccurrence_matches_iterator() {
+		//@formatter:off
+		List<Recurrence> rules = Arrays.asList(
+			new Recurrence.Builder(Frequency.DAILY).build(),
+			new Recurrence.Builder(Frequency.DAILY).interval(3).build(),
+			new Recurrence.Builder(Frequency.WEEKLY).interval(2).build(),
+			new Recurrence.Builder(Frequency.MONTHLY).build(),
+			new Recurrence.Builder(Frequency.MONTHLY).interval(5).build(),
+			new Recurrence.Builder(Frequency.YEARLY).build(),
+			new Recurrence.Builder(Frequency.HOURLY).interval(7).build(),
+			new Recurrence.Builder(Frequency.WEEKLY).byDay(DayOfWeek.MONDAY, DayOfWeek.SUNDAY).build(),
+			new Recurrence.Builder(Frequency.MONTHLY).byMonthDay(31).build(),
+			new Recurrence.Builder(Frequency.MONTHLY).byDay(DayOfWeek.FRIDAY).bySetPos(-1).build(),
+			new Recurrence.Builder(Frequency.DAILY).byHour(1, 2, 3).build()
+		);
+		List<TimeZone> timezones = Arrays.asList(
+			TimeZone.getTimeZone("UTC"),
+			TimeZone.getTimeZone("America/Los_Angeles"),
+			TimeZone.getTimeZone("Pacific/Apia")
+		);
+		//@formatter:on
+
+		for (TimeZone timezone : timezones) {
+			//@formatter:off
+			List<ICalDate> starts = Arrays.asList(
+				new ICalDate(date("2011-01-31 02:30:00", timezone)),
+				new ICalDate(date("2016-03-12 02:30:00", timezone)),
+				new ICalDate(date("2016-10-30 01:30:00", timezone)),
+				new ICalDate(date("2016-03-12", timezone), false)
+			);
+			List<Date> untils = Arrays.asList(
+				date("2011-01-01 00:00:00", timezone),
+				date("2011-12-30 02:30:00", timezone),
+				date("2016-11-06 01:30:00", timezone),
+				date("2018-03-11 02:30:00", timezone)
+			);
+			//@formatter:on
+
+			for (Recurrence rule : rules) {
+				for (ICalDate start : starts) {
+					for (int count : new int[] { 1, 7, 100 }) {
+						Recurrence recur = new Recurrence.Builder(rule).count(count).build();
+						assertSameAsIterator(recur, start, timezone);
+					}
+					for (Date until : untils) {
+						Recurrence recur = new Recurrence.Builder(rule).until(until).build();
+						assertSameAsIterator(recur, start, timezone);
+					}
+				}
+			}
+		}
+	}
+
+	private static void assertSameAsIterator(Recurrence recur, ICalDate start, TimeZone timezone) {
+		Date last = null;
+		int count = 0;
+		DateIterator it = recur.getDateIterator(start, timezone);
+		while (it.hasNext()) {
+			last = it.next();
+			count++;
+		}
+
+		String message = recur.getFrequency() + " count=" + recur.getCount() + " until=" + recur.getUntil() + " start=" + start + " " + timezone.getID();
+		assertEquals(message, last, recur.getLastOccurrence(start, timezone));
+		assertEquals(message, count, recur.getOccurrenceCount(start, timezone));
+	}
 }
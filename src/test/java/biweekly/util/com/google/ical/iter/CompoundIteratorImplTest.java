@@ -42,10 +42,13 @@ package biweekly.util.com.google.ical.iter;
 import static biweekly.util.TestUtils.assertIterator;
 import static biweekly.util.TestUtils.date;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.TimeZone;
 
@@ -1005,5 +1008,42 @@ public class CompoundIteratorImplTest {
 		 * TODO(msamuel): write me
 		 */
 	}
+
+	@Test
+	public void createLongRecurrenceIterator() {
+		//iterators from outside of this package are wrapped
+		final Iterator<DateValue> dates = Arrays.<DateValue>asList(
+			new DateValueImpl(2017, 1, 1),
+			new DateTimeValueImpl(2017, 1, 1, 12, 0, 0),
+			new DateValueImpl(2017, 1, 2)
+		).iterator();
+		RecurrenceIterator rit = new RecurrenceIterator() {
+			public boolean hasNext() {
+				return dates.hasNext();
+			}
+
+			public DateValue next() {
+				return dates.next();
+			}
+
+			public void advanceTo(DateValue newStartUtc) {
+				//empty
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+
+		LongRecurrenceIterator it = RecurrenceIteratorFactory.createLongRecurrenceIterator(rit);
+		assertEquals(date("2017-01-01", UTC).getTime(), it.nextMillis());
+		assertEquals(date("2017-01-01 12:00:00", UTC).getTime(), it.nextMillis());
+		assertEquals(date("2017-01-02", UTC).getTime(), it.nextMillis());
+		assertFalse(it.hasNext());
+
+		//iterators from this package are returned as-is
+		RecurrenceIterator compound = RecurrenceIteratorFactory.join(rit, rit);
+		assertSame(compound, RecurrenceIteratorFactory.createLongRecurrenceIterator(compound));
+	}
 }
 //@formatter:on
\ No newline at end of file
@@ -42,11 +42,16 @@ package biweekly.util.com.google.ical.iter;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
 import org.junit.Test;
 
+import biweekly.util.com.google.ical.util.TimeUtils;
 import biweekly.util.com.google.ical.values.DateTimeValueImpl;
 import biweekly.util.com.google.ical.values.DateValue;
 import biweekly.util.com.google.ical.values.DateValueImpl;
+import biweekly.util.com.google.ical.values.TimeValue;
 
 /**
  * @author mikesamuel+svn@gmail.com (Mike Samuel)
@@ -88,6 +93,62 @@ public class DateValueComparisonTest {
 		}
 	}
 
+	@Test
+	public void toDateValue() {
+		//@formatter:off
+		DateValue[] dates = {
+			new DateValueImpl(2006, 4, 11),
+			new DateTimeValueImpl(2006, 4, 11, 0, 0, 0),
+			new DateTimeValueImpl(2006, 12, 31, 23, 59, 59),
+			new DateValueImpl(1, 1, 1),
+			new DateTimeValueImpl(-10, 2, 28, 1, 2, 3)
+		};
+		//@formatter:on
+
+		for (DateValue date : dates) {
+			DateValue actual = DateValueComparison.toDateValue(DateValueComparison.comparable(date));
+			assertEquals(date, actual);
+			assertEquals(date instanceof TimeValue, actual instanceof TimeValue);
+		}
+	}
+
+	@Test
+	public void millis() {
+		Calendar cal = new GregorianCalendar(TimeUtils.utcTimezone());
+		//@formatter:off
+		int[][] dates = {
+			{ 2017, 3, 12, 10, 30, 15 },
+			{ 1970, 1, 1, 0, 0, 1 },
+			{ 1969, 12, 31, 23, 59, 59 },
+			{ 2000, 2, 29, 12, 0, 0 },
+			{ 1583, 1, 1, 0, 0, 1 },
+			{ 1500, 6, 15, 8, 0, 0 }, //Julian calendar
+			{ 9999, 12, 31, 23, 59, 59 },
+			{ 12000, 1, 1, 1, 0, 0 }
+		};
+		//@formatter:on
+
+		for (int[] date : dates) {
+			cal.clear();
+			cal.set(date[0], date[1] - 1, date[2], date[3], date[4], date[5]);
+			long millis = cal.getTimeInMillis();
+			long comparable = DateValueComparison.comparable(date[0], date[1], date[2], date[3], date[4], date[5]);
+
+			assertEquals(millis, DateValueComparison.toMillis(comparable));
+			assertEquals(comparable, DateValueComparison.fromMillis(millis));
+			assertEquals(comparable, DateValueComparison.fromMillis(millis + 999));
+			assertEquals(comparable, DateValueComparison.dateTimeFromMillis(millis));
+		}
+
+		//midnight
+		cal.clear();
+		cal.set(2017, 0, 1);
+		long millis = cal.getTimeInMillis();
+		assertEquals(DateValueComparison.comparable(2017, 1, 1), DateValueComparison.fromMillis(millis));
+		assertEquals(DateValueComparison.comparable(2017, 1, 1, 0, 0, 0), DateValueComparison.dateTimeFromMillis(millis));
+		assertEquals(millis, DateValueComparison.toMillis(DateValueComparison.comparable(2017, 1, 1)));
+	}
+
 	private static final int sign3(int i) {
 		return i < 0 ? -1 : i != 0 ? 1 : 0;
 	}
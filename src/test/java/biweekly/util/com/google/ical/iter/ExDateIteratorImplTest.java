@@ -0,0 +1,109 @@
+package biweekly.util.com.google.ical.iter;
+
+import static biweekly.util.TestUtils.assertIterator;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import biweekly.util.Frequency;
+import biweekly.util.Recurrence;
+import biweekly.util.com.google.ical.util.TimeUtils;
+import biweekly.util.com.google.ical.values.DateTimeValueImpl;
+import biweekly.util.com.google.ical.values.DateValue;
+import biweekly.util.com.google.ical.values.DateValueImpl;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+//@formatter:off
+public class ExDateIteratorImplTest {
+	@Test
+	public void exclude() {
+		Recurrence rrule = new Recurrence.Builder(Frequency.DAILY).count(6).build();
+		DateValue start = new DateTimeValueImpl(2017, 1, 1, 12, 0, 0);
+		List<DateValue> exdates = Arrays.<DateValue>asList(
+			new DateTimeValueImpl(2017, 1, 5, 12, 0, 0),
+			new DateTimeValueImpl(2017, 1, 2, 12, 0, 0),
+			new DateTimeValueImpl(2017, 1, 2, 12, 0, 0),
+			new DateTimeValueImpl(2016, 1, 2, 12, 0, 0),
+			new DateTimeValueImpl(2017, 1, 3, 12, 0, 1), //not an occurrence
+			new DateValueImpl(2017, 1, 4) //dates and date-times never match
+		);
+
+		RecurrenceIterator it = RecurrenceIteratorFactory.except(RecurrenceIteratorFactory.createRecurrenceIterator(rrule, start, TimeUtils.utcTimezone()), exdates);
+		assertIterator(Arrays.<DateValue>asList(
+			new DateTimeValueImpl(2017, 1, 1, 12, 0, 0),
+			new DateTimeValueImpl(2017, 1, 3, 12, 0, 0),
+			new DateTimeValueImpl(2017, 1, 4, 12, 0, 0),
+			new DateTimeValueImpl(2017, 1, 6, 12, 0, 0)
+		), it);
+	}
+
+	@Test
+	public void advanceTo() {
+		List<DateValue> dates = Arrays.<DateValue>asList(
+			new DateValueImpl(2017, 1, 1),
+			new DateValueImpl(2017, 1, 2),
+			new DateValueImpl(2017, 1, 3),
+			new DateValueImpl(2017, 1, 4),
+			new DateValueImpl(2017, 1, 5)
+		);
+		List<DateValue> exdates = Arrays.<DateValue>asList(
+			new DateValueImpl(2017, 1, 1),
+			new DateValueImpl(2017, 1, 4)
+		);
+
+		RecurrenceIterator it = RecurrenceIteratorFactory.except(RecurrenceIteratorFactory.createRecurrenceIterator(dates), exdates);
+		it.advanceTo(new DateValueImpl(2017, 1, 3));
+		assertIterator(Arrays.<DateValue>asList(
+			new DateValueImpl(2017, 1, 3),
+			new DateValueImpl(2017, 1, 5)
+		), it);
+
+		it = RecurrenceIteratorFactory.except(RecurrenceIteratorFactory.createRecurrenceIterator(dates), exdates);
+		it.advanceTo(new DateValueImpl(2017, 1, 4));
+		assertIterator(Arrays.<DateValue>asList(
+			new DateValueImpl(2017, 1, 5)
+		), it);
+	}
+
+	@Test
+	public void no_exclusions() {
+		List<DateValue> dates = Arrays.<DateValue>asList(
+			new DateValueImpl(2017, 1, 1),
+			new DateValueImpl(2017, 1, 2)
+		);
+
+		RecurrenceIterator it = RecurrenceIteratorFactory.except(RecurrenceIteratorFactory.createRecurrenceIterator(dates), Collections.<DateValue>emptyList());
+		assertIterator(dates, it);
+	}
+}
+//@formatter:on
@@ -42,6 +42,7 @@ package biweekly.util.com.google.ical.iter;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -795,6 +796,54 @@ public class GeneratorsTest {
 	}
 	//@formatter:on
 
+	@Test
+	public void serialYearGenerator_skipTo() throws Exception {
+		int interval = 4;
+		DateValue start = new DateValueImpl(2006, 4, 1);
+		ThrottledGenerator generator = Generators.serialYearGenerator(interval, start);
+		DTBuilder builder = new DTBuilder(start);
+
+		assertTrue(generator.generate(builder));
+		assertEquals(2006, builder.year);
+
+		//lands on the first year in the series on or after the target
+		generator.skipTo(2051);
+		assertTrue(generator.generate(builder));
+		assertEquals(2054, builder.year);
+
+		//a year in the series is not skipped over
+		generator.skipTo(2062);
+		assertTrue(generator.generate(builder));
+		assertEquals(2062, builder.year);
+
+		//skipping backwards does nothing
+		generator.skipTo(2000);
+		assertTrue(generator.generate(builder));
+		assertEquals(2066, builder.year);
+	}
+
+	@Test
+	public void serialYearGenerator_skipTo_throttle() throws Exception {
+		DateValue start = new DateValueImpl(2006, 4, 1);
+		ThrottledGenerator generator = Generators.serialYearGenerator(1, start);
+		DTBuilder builder = new DTBuilder(start);
+
+		//skipped years do not count against the throttle
+		generator.skipTo(2500);
+		for (int i = 0; i < ExpansionBudget.DEFAULT_MAX_YEARS_BETWEEN_INSTANCES; i++) {
+			assertTrue(generator.generate(builder));
+			assertEquals(2500 + i, builder.year);
+		}
+
+		//but the years searched after the target year do
+		try {
+			generator.generate(builder);
+			fail();
+		} catch (IteratorShortCircuitingException e) {
+			//expected
+		}
+	}
+
 	@Test
 	public void serialHourGeneratorGivenDate() throws Exception {
 		int interval = 7;
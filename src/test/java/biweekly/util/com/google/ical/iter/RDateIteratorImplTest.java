@@ -40,6 +40,7 @@
 package biweekly.util.com.google.ical.iter;
 
 import static biweekly.util.TestUtils.assertIterator;
+import static org.junit.Assert.assertFalse;
 
 import java.util.Arrays;
 
@@ -115,5 +116,26 @@ public class RDateIteratorImplTest {
 		ri.advanceTo(new DateTimeValueImpl(2006, 4, 13, 12, 0, 0));
 		assertIterator(Arrays.asList(expected), ri);
 	}
+
+	@Test
+	public void shared_set(){
+		DateValueSet dates = new DateValueSet(Arrays.asList(
+			new DateTimeValueImpl(2006, 4, 14, 12, 0, 0),
+			new DateTimeValueImpl(2006, 4, 12, 12, 0, 0),
+			new DateTimeValueImpl(2006, 4, 13, 12, 0, 0)
+		));
+		DateValue[] expected = new DateValue[] {
+			new DateTimeValueImpl(2006, 4, 12, 12, 0, 0),
+			new DateTimeValueImpl(2006, 4, 13, 12, 0, 0),
+			new DateTimeValueImpl(2006, 4, 14, 12, 0, 0)
+		};
+
+		RDateIteratorImpl ri = new RDateIteratorImpl(dates);
+		ri.advanceTo(new DateTimeValueImpl(2006, 4, 15, 12, 0, 0));
+		assertFalse(ri.hasNext());
+
+		ri = new RDateIteratorImpl(dates);
+		assertIterator(Arrays.asList(expected), ri);
+	}
 }
 //@formatter:on
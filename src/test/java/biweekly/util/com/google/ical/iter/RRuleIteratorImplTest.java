@@ -43,7 +43,10 @@ import static biweekly.util.TestUtils.assertIterator;
 import static biweekly.util.TestUtils.date;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -2042,9 +2045,201 @@ public class RRuleIteratorImplTest {
 			run(recur, start, advanceTo, expected);
 		}
 
+		//advancing many years ahead of a daily rule with an interval
+		{
+			Recurrence recur = new Recurrence.Builder(Frequency.DAILY)
+				.interval(3)
+			.build();
+			DateValue start = new DateTimeValueImpl(2002, 1, 7, 9, 0, 0);
+			DateValue advanceTo = new DateValueImpl(2017, 3, 15);
+			DateValue[] expected = {
+				new DateTimeValueImpl(2017, 3, 16, 9, 0, 0),
+				new DateTimeValueImpl(2017, 3, 19, 9, 0, 0),
+				new DateTimeValueImpl(2017, 3, 22, 9, 0, 0),
+				new DateTimeValueImpl(2017, 3, 25, 9, 0, 0)
+			};
+			
+			run(recur, start, advanceTo, expected);
+		}
+		
+		//advancing many years ahead of a bi-weekly rule
+		{
+			Recurrence recur = new Recurrence.Builder(Frequency.WEEKLY)
+				.interval(2)
+				.byDay(DayOfWeek.TUESDAY, DayOfWeek.THURSDAY)
+			.build();
+			DateValue start = new DateValueImpl(2002, 1, 1);
+			DateValue advanceTo = new DateValueImpl(2017, 3, 15);
+			DateValue[] expected = {
+				new DateValueImpl(2017, 3, 21),
+				new DateValueImpl(2017, 3, 23),
+				new DateValueImpl(2017, 4, 4),
+				new DateValueImpl(2017, 4, 6)
+			};
+			
+			run(recur, start, advanceTo, expected);
+		}
+		
+		//advancing many years ahead of a monthly rule with an interval
+		{
+			Recurrence recur = new Recurrence.Builder(Frequency.MONTHLY)
+				.interval(5)
+				.byMonthDay(1, -1)
+			.build();
+			DateValue start = new DateValueImpl(2002, 1, 1);
+			DateValue advanceTo = new DateValueImpl(2017, 3, 15);
+			DateValue[] expected = {
+				new DateValueImpl(2017, 6, 1),
+				new DateValueImpl(2017, 6, 30),
+				new DateValueImpl(2017, 11, 1),
+				new DateValueImpl(2017, 11, 30)
+			};
+			
+			run(recur, start, advanceTo, expected);
+		}
+
 		// TODO(msamuel): check advancement of more examples
 	}
 
+	@Test
+	public void advanceTo_more_than_100_years() {
+		{
+			Recurrence recur = new Recurrence.Builder(Frequency.YEARLY).build();
+			DateValue start = new DateValueImpl(1920, 3, 10);
+			DateValue advanceTo = new DateValueImpl(2026, 1, 1);
+			DateValue[] expected = {
+				new DateValueImpl(2026, 3, 10),
+				new DateValueImpl(2027, 3, 10)
+			};
+
+			run(recur, start, advanceTo, expected);
+		}
+
+		{
+			Recurrence recur = new Recurrence.Builder(Frequency.DAILY).build();
+			DateValue start = new DateTimeValueImpl(1910, 1, 1, 9, 0, 0);
+			DateValue advanceTo = new DateTimeValueImpl(2026, 1, 15, 0, 0, 0);
+			DateValue[] expected = {
+				new DateTimeValueImpl(2026, 1, 15, 9, 0, 0),
+				new DateTimeValueImpl(2026, 1, 16, 9, 0, 0),
+				new DateTimeValueImpl(2026, 1, 17, 9, 0, 0)
+			};
+
+			run(recur, start, advanceTo, expected);
+		}
+
+		{
+			//rules with a COUNT cannot skip ahead, so every date is generated
+			Recurrence recur = new Recurrence.Builder(Frequency.YEARLY).count(130).build();
+			DateValue start = new DateValueImpl(1900, 3, 10);
+			DateValue advanceTo = new DateValueImpl(2026, 6, 1);
+			DateValue[] expected = {
+				new DateValueImpl(2027, 3, 10),
+				new DateValueImpl(2028, 3, 10),
+				new DateValueImpl(2029, 3, 10)
+			};
+
+			run(recur, start, advanceTo, expected);
+		}
+
+		{
+			//rules that never produce a date still stop
+			Recurrence recur = new Recurrence.Builder(Frequency.YEARLY).byMonth(2).byMonthDay(30).build();
+			DateValue start = new DateValueImpl(1900, 1, 1);
+			RecurrenceIterator it = RecurrenceIteratorFactory.createRecurrenceIterator(recur, start, UTC);
+			it.advanceTo(new DateValueImpl(2026, 1, 1));
+			assertFalse(it.hasNext());
+		}
+	}
+
+	@Test
+	public void plan_cache() {
+		RecurrenceIteratorFactory.clearCache();
+
+		Recurrence recur = new Recurrence.Builder(Frequency.WEEKLY)
+			.byDay(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY, DayOfWeek.FRIDAY)
+		.build();
+		Recurrence sameRecur = new Recurrence.Builder(Frequency.WEEKLY)
+			.byDay(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY, DayOfWeek.FRIDAY)
+		.build();
+		DateValue start = new DateTimeValueImpl(2017, 1, 2, 0, 0, 0);
+
+		RecurrenceIteratorFactory.RRulePlan plan = RecurrenceIteratorFactory.getPlan(recur, start, PST);
+		assertSame(plan, RecurrenceIteratorFactory.getPlan(sameRecur, new DateTimeValueImpl(2017, 1, 2, 0, 0, 0), PST));
+
+		//a different start date, date type, or timezone produces a different plan
+		assertNotSame(plan, RecurrenceIteratorFactory.getPlan(recur, new DateTimeValueImpl(2017, 1, 3, 0, 0, 0), PST));
+		assertNotSame(plan, RecurrenceIteratorFactory.getPlan(recur, new DateValueImpl(2017, 1, 2), PST));
+		assertNotSame(plan, RecurrenceIteratorFactory.getPlan(recur, start, UTC));
+
+		//iterators created from the same plan do not share state
+		RecurrenceIterator it1 = RecurrenceIteratorFactory.createRecurrenceIterator(recur, start, PST);
+		RecurrenceIterator it2 = RecurrenceIteratorFactory.createRecurrenceIterator(sameRecur, start, PST);
+		it1.next();
+		it1.next();
+		assertEquals(new DateTimeValueImpl(2017, 1, 2, 8, 0, 0), it2.next());
+		assertEquals(new DateTimeValueImpl(2017, 1, 6, 8, 0, 0), it1.next());
+		assertEquals(new DateTimeValueImpl(2017, 1, 4, 8, 0, 0), it2.next());
+
+		RecurrenceIteratorFactory.clearCache();
+		assertNotSame(plan, RecurrenceIteratorFactory.getPlan(recur, start, PST));
+	}
+
+	@Test
+	public void plan_cache_full() {
+		RecurrenceIteratorFactory.clearCache();
+		try {
+			Recurrence recur = new Recurrence.Builder(Frequency.DAILY).build();
+			DateValue start = new DateTimeValueImpl(2017, 1, 1, 0, 0, 0);
+			RecurrenceIteratorFactory.RRulePlan plan = RecurrenceIteratorFactory.getPlan(recur, start, UTC);
+
+			for (int i = 1; i < RecurrenceIteratorFactory.MAX_CACHE_SIZE; i++) {
+				RecurrenceIteratorFactory.getPlan(recur, new DateTimeValueImpl(2017, 1, 1, 0, i / 60, i % 60), UTC);
+			}
+
+			//rules that are already cached are still returned from the cache
+			assertSame(plan, RecurrenceIteratorFactory.getPlan(recur, start, UTC));
+
+			//new rules are no longer cached
+			DateValue other = new DateTimeValueImpl(2000, 1, 1, 0, 0, 0);
+			RecurrenceIteratorFactory.RRulePlan otherPlan = RecurrenceIteratorFactory.getPlan(recur, other, UTC);
+			assertNotSame(otherPlan, RecurrenceIteratorFactory.getPlan(recur, other, UTC));
+		} finally {
+			RecurrenceIteratorFactory.clearCache();
+		}
+	}
+
+	@Test
+	public void nextMillis() {
+		//crosses a daylight savings boundary
+		Recurrence recur = new Recurrence.Builder(Frequency.WEEKLY)
+			.byDay(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY)
+			.count(4)
+		.build();
+		DateValue start = new DateTimeValueImpl(2017, 3, 6, 9, 0, 0);
+		LongRecurrenceIterator it = RecurrenceIteratorFactory.createLongRecurrenceIterator(RecurrenceIteratorFactory.createRecurrenceIterator(recur, start, PST));
+
+		assertEquals(date("2017-03-06 09:00:00", PST).getTime(), it.nextMillis());
+		assertEquals(date("2017-03-08 09:00:00", PST).getTime(), it.nextMillis());
+		assertEquals(date("2017-03-13 09:00:00", PST).getTime(), it.nextMillis());
+		assertEquals(date("2017-03-15 09:00:00", PST).getTime(), it.nextMillis());
+		assertFalse(it.hasNext());
+	}
+
+	@Test
+	public void nextMillis_advanceTo() {
+		Recurrence recur = new Recurrence.Builder(Frequency.DAILY).build();
+		DateValue start = new DateValueImpl(2017, 1, 1);
+		LongRecurrenceIterator it = RecurrenceIteratorFactory.createLongRecurrenceIterator(RecurrenceIteratorFactory.createRecurrenceIterator(recur, start, UTC));
+
+		//midnight is treated as a date, so the date itself is not skipped
+		it.advanceTo(date("2017-02-01", UTC).getTime());
+		assertEquals(date("2017-02-01", UTC).getTime(), it.nextMillis());
+
+		it.advanceTo(date("2017-03-01 00:00:01", UTC).getTime());
+		assertEquals(date("2017-03-02", UTC).getTime(), it.nextMillis());
+	}
+
 	/**
 	 * A testcase that yielded dupes due to BYSETPOS evilness
 	 */
@@ -2293,6 +2488,119 @@ public class RRuleIteratorImplTest {
 		run(recur, start, expected);
 	}
 	
+	@Test
+	public void budget_maxInstances() {
+		Recurrence recur = new Recurrence.Builder(Frequency.DAILY).build();
+		DateValue start = new DateValueImpl(2006, 1, 20);
+		ExpansionBudget budget = new ExpansionBudget();
+		budget.setMaxInstances(3);
+
+		RecurrenceIterator it = RecurrenceIteratorFactory.createRecurrenceIterator(recur, start, UTC, budget);
+		assertEquals(new DateValueImpl(2006, 1, 20), it.next());
+		assertEquals(new DateValueImpl(2006, 1, 21), it.next());
+		assertNull(budget.getExceededLimit());
+		assertEquals(new DateValueImpl(2006, 1, 22), it.next());
+		assertFalse(it.hasNext());
+		assertEquals(ExpansionBudget.Limit.INSTANCES, budget.getExceededLimit());
+		assertEquals(3, budget.getInstances());
+	}
+
+	@Test
+	public void budget_maxSteps() {
+		//BYSETPOS examines every second of the year before producing the first date
+		Recurrence recur = new Recurrence.Builder(Frequency.YEARLY)
+			.byHour(range(0, 23))
+			.byMinute(range(0, 59))
+			.bySecond(range(0, 59))
+			.bySetPos(-1)
+		.build();
+		DateValue start = new DateTimeValueImpl(2006, 1, 1, 0, 0, 0);
+		ExpansionBudget budget = new ExpansionBudget();
+		budget.setMaxSteps(10000);
+
+		RecurrenceIterator it = RecurrenceIteratorFactory.createRecurrenceIterator(recur, start, UTC, budget);
+		assertFalse(it.hasNext());
+		assertEquals(ExpansionBudget.Limit.STEPS, budget.getExceededLimit());
+		assertEquals(10000, budget.getSteps());
+		assertEquals(0, budget.getInstances());
+	}
+
+	@Test
+	public void budget_maxYearsBetweenInstances() {
+		//there is never a February 30
+		Recurrence recur = new Recurrence.Builder(Frequency.YEARLY)
+			.byMonth(2)
+			.byMonthDay(30)
+		.build();
+		DateValue start = new DateValueImpl(2006, 1, 1);
+		ExpansionBudget budget = new ExpansionBudget();
+
+		RecurrenceIterator it = RecurrenceIteratorFactory.createRecurrenceIterator(recur, start, UTC, budget);
+		assertFalse(it.hasNext());
+		assertTrue(budget.isYearsExceeded());
+
+		//the rule ran dry, so the expansion was not cut short
+		assertNull(budget.getExceededLimit());
+
+		//leap days are less than 5 years apart
+		recur = new Recurrence.Builder(Frequency.YEARLY)
+			.byMonth(2)
+			.byMonthDay(29)
+		.build();
+		budget = new ExpansionBudget();
+		budget.setMaxYearsBetweenInstances(5);
+
+		it = RecurrenceIteratorFactory.createRecurrenceIterator(recur, start, UTC, budget);
+		assertEquals(new DateValueImpl(2008, 2, 29), it.next());
+		assertEquals(new DateValueImpl(2012, 2, 29), it.next());
+		assertFalse(budget.isYearsExceeded());
+		assertNull(budget.getExceededLimit());
+
+		budget = new ExpansionBudget();
+		budget.setMaxYearsBetweenInstances(1);
+
+		it = RecurrenceIteratorFactory.createRecurrenceIterator(recur, start, UTC, budget);
+		assertFalse(it.hasNext());
+		assertTrue(budget.isYearsExceeded());
+		assertNull(budget.getExceededLimit());
+	}
+
+	@Test
+	public void budget_maxYearsBetweenInstances_then_halted() {
+		//a rule that runs dry does not hide a limit that is exceeded later
+		Recurrence never = new Recurrence.Builder(Frequency.YEARLY)
+			.byMonth(2)
+			.byMonthDay(30)
+		.build();
+		Recurrence daily = new Recurrence.Builder(Frequency.DAILY).build();
+		DateValue start = new DateValueImpl(2006, 1, 1);
+		ExpansionBudget budget = new ExpansionBudget();
+		budget.setMaxInstances(10);
+
+		RecurrenceIterator neverIt = RecurrenceIteratorFactory.createRecurrenceIterator(never, start, UTC, budget);
+		assertFalse(neverIt.hasNext());
+		assertTrue(budget.isYearsExceeded());
+		assertNull(budget.getExceededLimit());
+
+		RecurrenceIterator dailyIt = RecurrenceIteratorFactory.createRecurrenceIterator(daily, start, UTC, budget);
+		int count = 0;
+		while (dailyIt.hasNext()) {
+			dailyIt.next();
+			count++;
+		}
+		assertEquals(10, count);
+		assertEquals(ExpansionBudget.Limit.INSTANCES, budget.getExceededLimit());
+		assertTrue(budget.isYearsExceeded());
+	}
+
+	private static List<Integer> range(int from, int to) {
+		List<Integer> values = new ArrayList<Integer>();
+		for (int i = from; i <= to; i++) {
+			values.add(i);
+		}
+		return values;
+	}
+
 	/**
 	 * <p>
 	 * Asserts the dates in a given recurrence.
@@ -0,0 +1,191 @@
+package biweekly.util.com.google.ical.iter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.junit.Test;
+
+import biweekly.util.DayOfWeek;
+import biweekly.util.Frequency;
+import biweekly.util.Recurrence;
+import biweekly.util.com.google.ical.util.TimeUtils;
+import biweekly.util.com.google.ical.values.DateTimeValueImpl;
+import biweekly.util.com.google.ical.values.DateValue;
+import biweekly.util.com.google.ical.values.DateValueImpl;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+//@formatter:off
+public class ReverseIteratorImplTest {
+	@Test
+	public void matches_forward() {
+		List<Recurrence> rrules = Arrays.asList(
+			new Recurrence.Builder(Frequency.DAILY).build(),
+			new Recurrence.Builder(Frequency.WEEKLY).byDay(DayOfWeek.MONDAY, DayOfWeek.FRIDAY).build(),
+			new Recurrence.Builder(Frequency.MONTHLY).byMonthDay(31).build(),
+			new Recurrence.Builder(Frequency.YEARLY).byMonth(2).byMonthDay(29).build(), //sparse
+			new Recurrence.Builder(Frequency.DAILY).count(100).build(), //ends long before the end date
+			new Recurrence.Builder(Frequency.HOURLY).interval(7).count(5000).build()
+		);
+		DateValue start = new DateTimeValueImpl(2000, 1, 1, 9, 0, 0);
+		DateValue end = new DateTimeValueImpl(2017, 6, 15, 0, 0, 0);
+
+		for (Recurrence rrule : rrules) {
+			RecurrenceIterable iterable = RecurrenceIteratorFactory.createRecurrenceIterable(rrule, start, TimeUtils.utcTimezone());
+			assertReverse(iterable, end, 50);
+		}
+	}
+
+	@Test
+	public void matches_forward_more_than_100_years() {
+		List<Recurrence> rrules = Arrays.asList(
+			new Recurrence.Builder(Frequency.YEARLY).build(),
+			new Recurrence.Builder(Frequency.DAILY).build(),
+			new Recurrence.Builder(Frequency.YEARLY).count(150).build()
+		);
+		DateValue start = new DateTimeValueImpl(1900, 3, 10, 9, 0, 0);
+		DateValue end = new DateTimeValueImpl(2026, 6, 1, 0, 0, 0);
+
+		for (Recurrence rrule : rrules) {
+			RecurrenceIterable iterable = RecurrenceIteratorFactory.createRecurrenceIterable(rrule, start, TimeUtils.utcTimezone());
+			assertReverse(iterable, end, 50);
+		}
+	}
+
+	@Test
+	public void join_except() {
+		final DateValue start = new DateTimeValueImpl(2000, 1, 1, 9, 0, 0);
+		RecurrenceIterable iterable = new RecurrenceIterable() {
+			public RecurrenceIterator iterator() {
+				RecurrenceIterator weekly = RecurrenceIteratorFactory.createRecurrenceIterator(new Recurrence.Builder(Frequency.WEEKLY).build(), start, TimeUtils.utcTimezone());
+				RecurrenceIterator rdates = RecurrenceIteratorFactory.createRecurrenceIterator(Arrays.<DateValue>asList(
+					new DateTimeValueImpl(2017, 6, 13, 10, 0, 0),
+					new DateTimeValueImpl(2017, 6, 14, 10, 0, 0)
+				));
+				RecurrenceIterator exrule = RecurrenceIteratorFactory.createRecurrenceIterator(new Recurrence.Builder(Frequency.MONTHLY).build(), start, TimeUtils.utcTimezone());
+				RecurrenceIterator it = RecurrenceIteratorFactory.except(RecurrenceIteratorFactory.join(weekly, rdates), exrule);
+				return RecurrenceIteratorFactory.except(it, Arrays.<DateValue>asList(
+					new DateTimeValueImpl(2017, 6, 3, 9, 0, 0)
+				));
+			}
+		};
+
+		assertReverse(iterable, new DateTimeValueImpl(2017, 6, 15, 0, 0, 0), 30);
+
+		ReverseRecurrenceIterator it = RecurrenceIteratorFactory.createReverseRecurrenceIterator(iterable, new DateTimeValueImpl(2017, 6, 15, 0, 0, 0));
+		assertEquals(new DateTimeValueImpl(2017, 6, 14, 10, 0, 0), it.previous());
+		assertEquals(new DateTimeValueImpl(2017, 6, 13, 10, 0, 0), it.previous());
+		assertEquals(new DateTimeValueImpl(2017, 6, 10, 9, 0, 0), it.previous());
+		assertEquals(new DateTimeValueImpl(2017, 5, 27, 9, 0, 0), it.previous()); //6/3 is an EXDATE
+	}
+
+	@Test
+	public void retreatTo() {
+		List<DateValue> dates = Arrays.<DateValue>asList(
+			new DateValueImpl(2017, 1, 1),
+			new DateValueImpl(2017, 1, 2),
+			new DateValueImpl(2017, 1, 3),
+			new DateValueImpl(2017, 3, 4),
+			new DateValueImpl(2017, 3, 5)
+		);
+
+		ReverseRecurrenceIterator it = RecurrenceIteratorFactory.createReverseRecurrenceIterator(iterable(dates), new DateValueImpl(2018, 1, 1));
+		assertEquals(new DateValueImpl(2017, 3, 5), it.previous());
+
+		//later dates are ignored
+		it.retreatTo(new DateValueImpl(2017, 12, 1));
+		assertEquals(new DateValueImpl(2017, 3, 4), it.previous());
+
+		it.retreatTo(new DateValueImpl(2017, 1, 3));
+		assertEquals(new DateValueImpl(2017, 1, 2), it.previous());
+		assertEquals(TimeUtils.timetMillis(2017, 1, 1, 0, 0, 0, TimeUtils.utcTimezone()), it.previousMillis());
+		assertFalse(it.hasPrevious());
+		try {
+			it.previous();
+			fail();
+		} catch (NoSuchElementException e) {
+			//expected
+		}
+
+		it = RecurrenceIteratorFactory.createReverseRecurrenceIterator(iterable(dates), new DateValueImpl(2018, 1, 1));
+		it.retreatTo(TimeUtils.timetMillis(2017, 3, 4, 0, 0, 0, TimeUtils.utcTimezone()));
+		assertEquals(new DateValueImpl(2017, 1, 3), it.previous());
+	}
+
+	@Test
+	public void empty() {
+		ReverseRecurrenceIterator it = RecurrenceIteratorFactory.createReverseRecurrenceIterator(iterable(Collections.<DateValue>emptyList()), new DateValueImpl(2018, 1, 1));
+		assertFalse(it.hasPrevious());
+
+		it = RecurrenceIteratorFactory.createReverseRecurrenceIterator(iterable(Arrays.<DateValue>asList(new DateValueImpl(2018, 1, 1))), new DateValueImpl(2018, 1, 1));
+		assertFalse(it.hasPrevious());
+	}
+
+	private static RecurrenceIterable iterable(final List<DateValue> dates) {
+		return new RecurrenceIterable() {
+			public RecurrenceIterator iterator() {
+				return RecurrenceIteratorFactory.createRecurrenceIterator(dates);
+			}
+		};
+	}
+
+	private static void assertReverse(RecurrenceIterable iterable, DateValue end, int count) {
+		List<DateValue> expected = new ArrayList<DateValue>();
+		RecurrenceIterator forward = iterable.iterator();
+		while (forward.hasNext()) {
+			DateValue date = forward.next();
+			if (date.compareTo(end) >= 0) {
+				break;
+			}
+			expected.add(date);
+		}
+		Collections.reverse(expected);
+		if (expected.size() > count) {
+			expected = expected.subList(0, count);
+		}
+
+		List<DateValue> actual = new ArrayList<DateValue>();
+		ReverseRecurrenceIterator it = RecurrenceIteratorFactory.createReverseRecurrenceIterator(iterable, end);
+		while (actual.size() < count && it.hasPrevious()) {
+			actual.add(it.previous());
+		}
+
+		assertTrue(!expected.isEmpty());
+		assertEquals(expected, actual);
+	}
+}
+//@formatter:on
@@ -0,0 +1,149 @@
+package biweekly.util.com.google.ical.util;
+
+import static biweekly.util.TestUtils.utc;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.SimpleTimeZone;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+import biweekly.util.com.google.ical.values.DateTimeValueImpl;
+
+/*
+ Copyright (c) 2013-2017, Michael Angstadt
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions are met: 
+
+ 1. Redistributions of source code must retain the above copyright notice, this
+ list of conditions and the following disclaimer. 
+ 2. Redistributions in binary form must reproduce the above copyright notice,
+ this list of conditions and the following disclaimer in the documentation
+ and/or other materials provided with the distribution. 
+
+ THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/**
+ * @author Michael Angstadt
+ */
+public class ZoneOffsetsTest {
+	@Test
+	public void forZone() {
+		TimeZone zone = TimeZone.getTimeZone("America/New_York");
+		ZoneOffsets offsets = ZoneOffsets.forZone(zone);
+		assertSame(offsets, ZoneOffsets.forZone(zone));
+
+		ZoneOffsets other = ZoneOffsets.forZone(TimeZone.getTimeZone("Europe/London"));
+		assertNotSame(offsets, other);
+		assertSame(offsets, ZoneOffsets.forZone(zone));
+
+		//equal timezones share the same table
+		TimeZone clone = (TimeZone) zone.clone();
+		assertSame(offsets, ZoneOffsets.forZone(clone));
+		assertSame(offsets, ZoneOffsets.forZone(TimeZone.getTimeZone("America/New_York")));
+
+		//timezones with different rules do not
+		TimeZone modified = (TimeZone) zone.clone();
+		modified.setRawOffset(zone.getRawOffset() + 60 * 60 * 1000);
+		assertNotSame(offsets, ZoneOffsets.forZone(modified));
+	}
+
+	@Test
+	public void forZone_alternating_clones() {
+		TimeZone zone1 = TimeZone.getTimeZone("America/New_York");
+		TimeZone zone2 = TimeZone.getTimeZone("America/New_York");
+		assertNotSame(zone1, zone2);
+
+		ZoneOffsets offsets = ZoneOffsets.forZone(zone1);
+		for (int i = 0; i < 10; i++) {
+			assertSame(offsets, ZoneOffsets.forZone(zone2));
+			assertSame(offsets, ZoneOffsets.forZone(zone1));
+		}
+
+		assertEquals(utc("2017-07-01 04:00:00").getTime(), TimeUtils.timetMillis(2017, 7, 1, 0, 0, 0, zone1));
+		assertEquals(utc("2017-01-01 05:00:00").getTime(), TimeUtils.timetMillis(2017, 1, 1, 0, 0, 0, zone2));
+		assertEquals(new DateTimeValueImpl(2017, 7, 1, 0, 0, 0), TimeUtils.toDateTimeValue(utc("2017-07-01 04:00:00").getTime(), zone2));
+	}
+
+	@Test
+	public void gap() {
+		TimeZone zone = TimeZone.getTimeZone("America/New_York");
+
+		//2:30 does not exist, so the offset before the gap is used
+		assertEquals(utc("2017-03-12 06:30:00").getTime(), TimeUtils.timetMillis(2017, 3, 12, 1, 30, 0, zone));
+		assertEquals(utc("2017-03-12 07:30:00").getTime(), TimeUtils.timetMillis(2017, 3, 12, 2, 30, 0, zone));
+		assertEquals(utc("2017-03-12 07:30:00").getTime(), TimeUtils.timetMillis(2017, 3, 12, 3, 30, 0, zone));
+	}
+
+	@Test
+	public void gap_custom_timezone() {
+		//GregorianCalendar handles gaps differently for timezones that are not part of the JDK
+		TimeZone zone = new SimpleTimeZone(-5 * 60 * 60 * 1000, "Custom", Calendar.MARCH, 8, -Calendar.SUNDAY, 2 * 60 * 60 * 1000, Calendar.NOVEMBER, 1, -Calendar.SUNDAY, 2 * 60 * 60 * 1000);
+		assertEquals(utc("2017-03-12 07:30:00").getTime(), TimeUtils.timetMillis(2017, 3, 12, 2, 30, 0, zone));
+	}
+
+	@Test
+	public void overlap() {
+		TimeZone zone = TimeZone.getTimeZone("America/New_York");
+
+		//1:30 occurs twice, so the second occurrence is used
+		assertEquals(utc("2017-11-05 04:30:00").getTime(), TimeUtils.timetMillis(2017, 11, 5, 0, 30, 0, zone));
+		assertEquals(utc("2017-11-05 06:30:00").getTime(), TimeUtils.timetMillis(2017, 11, 5, 1, 30, 0, zone));
+		assertEquals(utc("2017-11-05 07:30:00").getTime(), TimeUtils.timetMillis(2017, 11, 5, 2, 30, 0, zone));
+
+		//both instants convert to the same local time
+		assertEquals(new DateTimeValueImpl(2017, 11, 5, 1, 30, 0), TimeUtils.toDateTimeValue(utc("2017-11-05 05:30:00").getTime(), zone));
+		assertEquals(new DateTimeValueImpl(2017, 11, 5, 1, 30, 0), TimeUtils.toDateTimeValue(utc("2017-11-05 06:30:00").getTime(), zone));
+	}
+
+	@Test
+	public void same_as_calendar() {
+		String[] ids = { "America/New_York", "America/Sao_Paulo", "Europe/London", "Europe/Moscow", "Asia/Kolkata", "Australia/Lord_Howe", "Pacific/Apia", "UTC" };
+		int[][] years = { { 1969, 1972 }, { 2010, 2013 }, { 2599, 2602 } };
+
+		Calendar cal = new GregorianCalendar();
+		for (String id : ids) {
+			TimeZone zone = TimeZone.getTimeZone(id);
+			cal.setTimeZone(zone);
+
+			for (int[] range : years) {
+				cal.clear();
+				cal.set(range[0], 0, 1);
+				long end = new GregorianCalendar(range[1], 0, 1).getTimeInMillis();
+				while (cal.getTimeInMillis() < end) {
+					int year = cal.get(Calendar.YEAR);
+					int month = cal.get(Calendar.MONTH) + 1;
+					int day = cal.get(Calendar.DAY_OF_MONTH);
+					int hour = cal.get(Calendar.HOUR_OF_DAY);
+					int minute = cal.get(Calendar.MINUTE);
+					String message = id + " " + cal.getTime();
+
+					assertEquals(message, new DateTimeValueImpl(year, month, day, hour, minute, 0), TimeUtils.toDateTimeValue(cal.getTimeInMillis(), zone));
+
+					Calendar local = new GregorianCalendar(zone);
+					local.clear();
+					local.set(year, month - 1, day, hour, minute, 0);
+					assertEquals(message, local.getTimeInMillis(), TimeUtils.timetMillis(year, month, day, hour, minute, 0, zone));
+
+					cal.add(Calendar.MINUTE, 30);
+				}
+			}
+		}
+	}
+}